@@ -0,0 +1,73 @@
+package com.example.bff.config;
+
+import com.example.bff.routing.RouteTable;
+import com.example.bff.routing.RouteType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OidcCallbackRedirectFilter#filter} per request kind: backend API call, API call whose
+ * query happens to carry {@code code}/{@code state}, OIDC callback landing on a frontend route,
+ * and a plain frontend route.
+ * <ul>
+ *   <li>{@code classify} — the route table lookup alone</li>
+ *   <li>{@code filter} — the whole filter on a fresh exchange; {@code exchangeOnly} is the cost of
+ *       building that exchange, so the filter's share is the difference</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OidcCallbackRedirectFilterBenchmark {
+
+    @Param({
+            "/api/persona-test/any-persona",
+            "/api/providers?code=207&state=MN&page=2",
+            "/dashboard?code=AUTH_CODE&state=STATE_VALUE",
+            "/dashboard/settings"
+    })
+    public String uri;
+
+    private RouteTable routeTable;
+    private String path;
+    private OidcCallbackRedirectFilter filter;
+    private final WebFilterChain chain = exchange -> Mono.empty();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        routeTable = new RoutingConfig().routeTable();
+        path = uri.contains("?") ? uri.substring(0, uri.indexOf('?')) : uri;
+        filter = new OidcCallbackRedirectFilter(routeTable, "http://localhost:4202/dashboard", new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public RouteType classify() {
+        return routeTable.classify(path);
+    }
+
+    @Benchmark
+    public Object exchangeOnly() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(uri));
+    }
+
+    @Benchmark
+    public Object filter() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(uri));
+        filter.filter(exchange, chain).block();
+        return exchange;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.bff.controller;
+
+import com.example.bff.model.UserInfo;
+import com.example.bff.security.EnrichedOidcUser;
+import com.example.bff.session.SessionEvents;
+import com.example.bff.session.SessionEventsProperties;
+import com.example.bff.support.SessionFixtures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.web.server.WebSession;
+import org.springframework.web.server.session.InMemoryWebSessionStore;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /api/auth/session} by number of managed members (0 = self persona): the former
+ * per-request build and JSON encoding of the response, the one-time render at login, and a
+ * poll served from the cached payload. A poll with a matching ETag only reads a session attribute.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SessionResponseBenchmark {
+
+    @Param({"0", "10", "100", "500"})
+    public int managedMembers;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final SessionPayloads sessionPayloads = new SessionPayloads(jsonMapper, new SessionEvents(
+            new SessionEventsProperties(Duration.ofMinutes(5), Duration.ofSeconds(25), Duration.ofSeconds(1), 16),
+            new SimpleMeterRegistry(), sessionId -> Mono.empty()));
+    private EnrichedOidcUser user;
+    private WebSession session;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        user = SessionFixtures.oidcUser(managedMembers == 0
+                ? SessionFixtures.selfSessionInfo()
+                : SessionFixtures.representativeSessionInfo(managedMembers));
+        session = new InMemoryWebSessionStore().createWebSession().block();
+        sessionPayloads.store(session, user);
+    }
+
+    /** Baseline: what every poll cost before the payload was precomputed. */
+    @Benchmark
+    public byte[] encodePerRequest() {
+        return jsonMapper.writeValueAsBytes(AuthController.SessionResponse.authenticated(
+                new UserInfo(user.getSubject(), user.getEmail(), user.getFullName()), user.getSessionInfo()));
+    }
+
+    @Benchmark
+    public SessionPayload renderAtLogin() {
+        return sessionPayloads.render(user);
+    }
+
+    /** Repeat poll with a changed or missing browser ETag: the cached body is looked up, nothing is encoded. */
+    @Benchmark
+    public SessionPayload pollCached() {
+        return sessionPayloads.get(session, user);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.bff.security;
+
+import com.example.bff.model.DelegatePermission;
+import com.example.bff.support.SessionFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Can this representative act for member X today" by number of managed members: scanning
+ * {@code managedMembers} and parsing dates per check vs. a {@link DelegateIndex} lookup, plus
+ * the one-off cost of building the index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DelegateLookupBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int managedMembers;
+
+    private Map<String, List<DelegatePermission>> members;
+    private DelegateIndex index;
+    private String memberId;
+    private final LocalDate today = LocalDate.of(2026, 6, 1);
+    private final List<String> types = List.of("ROI", "HIPAA");
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        members = SessionFixtures.representativeSessionInfo(managedMembers).managedMembers();
+        index = DelegateIndex.of(members);
+        memberId = "ENT-%09d".formatted(500000000 + managedMembers / 2);
+    }
+
+    @Benchmark
+    public boolean scan() {
+        List<DelegatePermission> permissions = members.get(memberId);
+        if (permissions == null) {
+            return false;
+        }
+        for (DelegatePermission permission : permissions) {
+            if (types.contains(permission.delegateType())
+                    && (permission.startDate() == null || !LocalDate.parse(permission.startDate()).isAfter(today))
+                    && (permission.endDate() == null || !LocalDate.parse(permission.endDate()).isBefore(today))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean index() {
+        return index.isActive(memberId, types, today);
+    }
+
+    @Benchmark
+    public DelegateIndex build() {
+        return DelegateIndex.of(members);
+    }
+}
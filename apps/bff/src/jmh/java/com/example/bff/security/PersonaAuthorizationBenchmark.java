@@ -0,0 +1,166 @@
+package com.example.bff.security;
+
+import com.example.bff.model.SessionInfo;
+import com.example.bff.support.SessionFixtures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import reactor.core.publisher.Mono;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+import java.time.Clock;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of persona authorization: handler lookup plus invocation of a
+ * {@code @RequiredPersona({SELF, REPRESENTATIVE})} handler.
+ * <ul>
+ *   <li>{@code unrestricted} — plain lookup and direct invocation, no authorization (floor)</li>
+ *   <li>{@code aspect} — plain lookup, invocation through the former AspectJ around advice</li>
+ *   <li>{@code handlerMapping} — {@link PersonaRequestMappingHandlerMapping} lookup with the
+ *       precompiled rule, direct invocation</li>
+ * </ul>
+ * Each operation uses a fresh exchange so the cached decision is never reused across operations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PersonaAuthorizationBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+    private RequestMappingHandlerMapping plainMapping;
+    private PersonaRequestMappingHandlerMapping personaMapping;
+    private Object aspectProxy;
+    private Authentication authentication;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new AnnotationConfigApplicationContext(BenchmarkController.class);
+        plainMapping = new RequestMappingHandlerMapping();
+        plainMapping.setApplicationContext(context);
+        plainMapping.afterPropertiesSet();
+        personaMapping = new PersonaRequestMappingHandlerMapping(
+                new PersonaAuthorizationManager(), new DelegateAuthorizationManager(Clock.systemUTC()),
+                new SimpleMeterRegistry());
+        personaMapping.setApplicationContext(context);
+        personaMapping.afterPropertiesSet();
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(context.getBean(BenchmarkController.class));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new LegacyPersonaAuthorizationAspect());
+        aspectProxy = proxyFactory.getProxy();
+
+        authentication = SessionFixtures.securityContext(SessionFixtures.representativeSessionInfo(10))
+                .getAuthentication();
+        if (!"representative-10".equals(handlerMapping()) || !"representative-10".equals(aspect())) {
+            throw new IllegalStateException("Benchmark setup does not authorize the fixture user");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private MockServerWebExchange exchange() {
+        return MockServerWebExchange.builder(MockServerHttpRequest.get("/api/bench/any"))
+                .principal(authentication)
+                .build();
+    }
+
+    @Benchmark
+    public Object unrestricted() throws Exception {
+        HandlerMethod handler = (HandlerMethod) plainMapping.getHandler(exchange()).block();
+        return ((Mono<?>) handler.getMethod().invoke(handler.getBean())).block();
+    }
+
+    @Benchmark
+    public Object aspect() throws Exception {
+        HandlerMethod handler = (HandlerMethod) plainMapping.getHandler(exchange()).block();
+        Method method = handler.getMethod();
+        return ((Mono<?>) method.invoke(aspectProxy))
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication))
+                .block();
+    }
+
+    @Benchmark
+    public Object handlerMapping() throws Exception {
+        HandlerMethod handler = (HandlerMethod) personaMapping.getHandler(exchange()).block();
+        return ((Mono<?>) handler.getMethod().invoke(handler.getBean())).block();
+    }
+
+    @RestController
+    public static class BenchmarkController {
+
+        @GetMapping("/api/bench/any")
+        @RequiredPersona({Persona.SELF, Persona.REPRESENTATIVE})
+        @LegacyRequiredPersona({"self", "representative"})
+        public Mono<String> any() {
+            return Mono.just("representative-10");
+        }
+
+        @GetMapping("/api/bench/other")
+        public Mono<String> other() {
+            return Mono.just("other");
+        }
+    }
+
+    /** The former String-valued annotation. */
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface LegacyRequiredPersona {
+        String[] value();
+    }
+
+    /** The former {@code PersonaAuthorizationAspect.checkPersona}, Mono path. */
+    @Aspect
+    public static class LegacyPersonaAuthorizationAspect {
+
+        @Around("@annotation(requiredPersona)")
+        public Object checkPersona(ProceedingJoinPoint joinPoint, LegacyRequiredPersona requiredPersona) throws Throwable {
+            String[] allowedPersonas = requiredPersona.value();
+            Set<String> allowedSet = Set.of(allowedPersonas);
+
+            Mono<Void> authorizationCheck = ReactiveSecurityContextHolder.getContext()
+                    .switchIfEmpty(Mono.error(new IllegalStateException("no context")))
+                    .flatMap(securityContext -> {
+                        Object principal = securityContext.getAuthentication().getPrincipal();
+                        if (principal instanceof EnrichedOidcUser enrichedUser) {
+                            SessionInfo sessionInfo = enrichedUser.getSessionInfo();
+                            String actualPersona = sessionInfo != null ? sessionInfo.persona() : null;
+                            if (actualPersona != null && allowedSet.contains(actualPersona)) {
+                                return Mono.empty();
+                            }
+                        }
+                        return Mono.error(new IllegalStateException("denied"));
+                    });
+            Mono<?> methodMono = (Mono<?>) joinPoint.proceed();
+            return authorizationCheck.then(methodMono);
+        }
+    }
+}
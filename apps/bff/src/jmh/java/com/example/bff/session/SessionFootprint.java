@@ -0,0 +1,107 @@
+package com.example.bff.session;
+
+import com.example.bff.model.SessionInfo;
+import com.example.bff.support.SessionFixtures;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.client.InMemoryReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.registration.InMemoryReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.client.web.server.ServerOAuth2AuthorizedClientRepository;
+import org.springframework.security.oauth2.client.web.server.WebSessionServerOAuth2AuthorizedClientRepository;
+import org.springframework.web.server.WebSession;
+import org.springframework.web.server.session.InMemoryWebSessionStore;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Footprint of the attributes a login leaves in the session (security context and OAuth2
+ * authorized clients): stored bytes per session with the {@code compact} serializer, and heap
+ * held by the decoded attributes, scaled to 100k sessions. Tokens are either kept in the session
+ * ({@code app.hcp-token.store.type=memory}) or referenced from it ({@code mongo}); the referenced
+ * tokens themselves live in MongoDB and are not counted. Not a JMH benchmark; run it with the
+ * benchmark classpath:
+ * <pre>
+ * java -Xmx4g -cp target/test-classes:target/classes:&lt;test classpath&gt; com.example.bff.session.SessionFootprint [sessions]
+ * </pre>
+ * {@code sessions} (default 10000) decoded copies are kept alive for the heap figure.
+ */
+public final class SessionFootprint {
+
+    private static final String SECURITY_CONTEXT = "SPRING_SECURITY_CONTEXT";
+
+    private SessionFootprint() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        SessionAttributeSerializer serializer = new CompactSessionAttributeSerializer(2048);
+        Map<String, SessionInfo> shapes = new LinkedHashMap<>();
+        shapes.put("self", SessionFixtures.selfSessionInfo());
+        shapes.put("pr10", SessionFixtures.representativeSessionInfo(10));
+        shapes.put("pr100", SessionFixtures.representativeSessionInfo(100));
+
+        Map<String, ServerOAuth2AuthorizedClientRepository> repositories = new LinkedHashMap<>();
+        repositories.put("session", new WebSessionServerOAuth2AuthorizedClientRepository());
+        repositories.put("reference", new SessionReferencedAuthorizedClientRepository(
+                new InMemoryReactiveOAuth2AuthorizedClientService(
+                        new InMemoryReactiveClientRegistrationRepository(SessionFixtures.hsidRegistration()))));
+
+        System.out.printf("%-8s %-10s %14s %22s%n", "session", "tokens", "bytes/session", "heap MB/100k sessions");
+        for (Map.Entry<String, SessionInfo> shape : shapes.entrySet()) {
+            for (Map.Entry<String, ServerOAuth2AuthorizedClientRepository> repository : repositories.entrySet()) {
+                Map<String, byte[]> stored = loginAttributes(shape.getValue(), repository.getValue(), serializer);
+                int bytes = stored.entrySet().stream()
+                        .mapToInt(attribute -> attribute.getKey().length() + attribute.getValue().length)
+                        .sum();
+                long heap = retainedBytesPerSession(stored, serializer, sessions);
+                System.out.printf("%-8s %-10s %14d %22.1f%n", shape.getKey(), repository.getKey(), bytes,
+                        heap * 100_000.0 / (1024 * 1024));
+            }
+        }
+    }
+
+    /** Serialized attributes of a session right after login, keyed by attribute name. */
+    private static Map<String, byte[]> loginAttributes(SessionInfo sessionInfo,
+            ServerOAuth2AuthorizedClientRepository repository, SessionAttributeSerializer serializer) {
+        WebSession session = new InMemoryWebSessionStore().createWebSession().block();
+        MockServerWebExchange exchange = MockServerWebExchange.builder(MockServerHttpRequest.get("/"))
+                .session(session)
+                .build();
+        SecurityContext context = SessionFixtures.securityContext(sessionInfo);
+        session.getAttributes().put(SECURITY_CONTEXT, context);
+        repository.saveAuthorizedClient(SessionFixtures.hsidAuthorizedClient(sessionInfo.hsidUuid()),
+                context.getAuthentication(), exchange).block();
+
+        Map<String, byte[]> stored = new LinkedHashMap<>();
+        session.getAttributes().forEach((name, value) -> stored.put(name, serializer.serialize(value)));
+        return stored;
+    }
+
+    /** Heap held per session by {@code sessions} independently decoded copies of {@code stored}. */
+    private static long retainedBytesPerSession(Map<String, byte[]> stored, SessionAttributeSerializer serializer, int sessions)
+            throws InterruptedException {
+        Object[] retained = new Object[sessions];
+        long before = usedHeap();
+        for (int i = 0; i < sessions; i++) {
+            Map<String, Object> attributes = new LinkedHashMap<>();
+            stored.forEach((name, bytes) -> attributes.put(name, serializer.deserialize(bytes)));
+            retained[i] = attributes;
+        }
+        long after = usedHeap();
+        if (retained[sessions - 1] == null) {
+            throw new IllegalStateException();
+        }
+        return (after - before) / sessions;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
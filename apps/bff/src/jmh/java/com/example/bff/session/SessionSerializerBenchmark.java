@@ -0,0 +1,56 @@
+package com.example.bff.session;
+
+import com.example.bff.support.SessionFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.context.SecurityContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode throughput of the stored security context (the largest session attribute)
+ * for Java serialization vs. the compact codec, by number of managed members.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SessionSerializerBenchmark {
+
+    @Param({"jdk", "compact"})
+    public String serializer;
+
+    @Param({"0", "10", "100", "500"})
+    public int managedMembers;
+
+    private SessionAttributeSerializer attributeSerializer;
+    private SecurityContext context;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        attributeSerializer = "jdk".equals(serializer)
+                ? new JdkSessionAttributeSerializer()
+                : new CompactSessionAttributeSerializer(2048);
+        context = SessionFixtures.securityContext(managedMembers == 0
+                ? SessionFixtures.selfSessionInfo()
+                : SessionFixtures.representativeSessionInfo(managedMembers));
+        encoded = attributeSerializer.serialize(context);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return attributeSerializer.serialize(context);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return attributeSerializer.deserialize(encoded);
+    }
+}
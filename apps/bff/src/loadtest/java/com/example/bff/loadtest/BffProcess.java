@@ -0,0 +1,89 @@
+package com.example.bff.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A BFF started as a child process with {@code command} (e.g. {@code java -jar bff.jar}),
+ * configured through environment variables. Used where the BFF needs a JVM of its own: the
+ * training run of the AOT cache, which is written when that JVM exits, and startup measurements.
+ */
+final class BffProcess implements AutoCloseable {
+
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(60);
+
+    private final Process process;
+    private final long startNanos;
+    private final int port;
+
+    BffProcess(String command, Map<String, String> environment) throws IOException {
+        this.port = freePort();
+        ProcessBuilder builder = new ProcessBuilder(List.of(command.trim().split("\\s+"))).inheritIO();
+        builder.environment().putAll(environment);
+        builder.environment().put("SERVER_PORT", Integer.toString(port));
+        builder.environment().put("LOGGING_LEVEL_ROOT", "WARN");
+        builder.environment().put("SPRING_MAIN_BANNER_MODE", "off");
+        this.startNanos = System.nanoTime();
+        this.process = builder.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + port;
+    }
+
+    /** {@link System#nanoTime()} just before the process was started. */
+    long startNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Waits until the BFF answers HTTP requests, with any status, and returns the time since the
+     * process was started.
+     */
+    Duration awaitListening(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        // Not /actuator/health: it waits for MongoDB, which may not be there
+        HttpRequest probe = HttpRequest.newBuilder(URI.create(url() + "/"))
+                .timeout(Duration.ofSeconds(1))
+                .build();
+        try (HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build()) {
+            while (true) {
+                try {
+                    client.send(probe, HttpResponse.BodyHandlers.discarding());
+                    return Duration.ofNanos(System.nanoTime() - startNanos);
+                } catch (IOException notListeningYet) {
+                    if (!process.isAlive()) {
+                        throw new IllegalStateException("BFF exited with status " + process.exitValue());
+                    }
+                    if (System.nanoTime() > deadline) {
+                        throw new IllegalStateException("BFF not listening after " + timeout);
+                    }
+                    Thread.sleep(10);
+                }
+            }
+        }
+    }
+
+    /** Stops the BFF as an orchestrator would (SIGTERM) and waits for the JVM to exit. */
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(STOP_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.bff.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and error counts per scenario step, recorded in microseconds with three
+ * significant digits. Latencies are measured from sending the request to reading the whole response.
+ */
+final class LatencyReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private final ConcurrentMap<String, Step> steps = new ConcurrentHashMap<>();
+
+    void record(String step, long nanos) {
+        step(step).latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    void error(String step, String reason) {
+        step(step).errors.computeIfAbsent(reason, r -> new LongAdder()).increment();
+    }
+
+    /** Drops everything recorded so far; called when warm-up ends. */
+    void reset() {
+        steps.values().forEach(step -> {
+            step.latency.reset();
+            step.errors.clear();
+        });
+    }
+
+    /**
+     * Prints one row per step, {@code order} first and the remaining steps by name, then the
+     * errors by step and reason.
+     */
+    void print(PrintStream out, Duration elapsed, List<String> order) {
+        double seconds = elapsed.toNanos() / 1e9;
+        Set<String> names = new LinkedHashSet<>(order);
+        names.addAll(new TreeSet<>(steps.keySet()));
+        out.printf("%n%-22s %9s %8s %9s %9s %9s %9s %9s %9s%n",
+                "step", "count", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (String name : names) {
+            Step step = steps.get(name);
+            if (step == null) {
+                continue;
+            }
+            Histogram latency = step.latency;
+            long errors = step.errors.values().stream().mapToLong(LongAdder::sum).sum();
+            out.printf("%-22s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    name, latency.getTotalCount(), errors, latency.getTotalCount() / seconds,
+                    millis(latency, 50), millis(latency, 90), millis(latency, 99), millis(latency, 99.9),
+                    latency.getMaxValue() / 1000.0);
+        }
+        steps.forEach((name, step) -> step.errors.forEach((reason, count) ->
+                out.printf("  error %-20s %-40s %d%n", name, reason, count.sum())));
+    }
+
+    private Step step(String name) {
+        return steps.computeIfAbsent(name, n -> new Step());
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static final class Step {
+
+        final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    }
+}
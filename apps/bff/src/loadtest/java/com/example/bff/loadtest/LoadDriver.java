@@ -0,0 +1,247 @@
+package com.example.bff.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Closed-loop load driver: each virtual user runs the scenario below back to back, as a browser
+ * would, with its own {@code SESSION_ID} cookie and no redirect following.
+ *
+ * <ol>
+ *   <li>{@code login.start}: {@code GET /oauth2/authorization/hsid} → redirect to the provider</li>
+ *   <li>{@code login.idp}: the provider's authorize endpoint, with the user as {@code login_hint} → redirect back</li>
+ *   <li>{@code login.callback}: {@code GET /login/oauth2/code/hsid} (token exchange and enrichment) → redirect to the frontend</li>
+ *   <li>{@code session}, {@code session.304}: {@code -polls} polls of {@code /api/auth/session}, the first
+ *       unconditional and the rest with {@code If-None-Match}. While the session is still pending (login
+ *       past the enrichment deadline), the first poll is repeated every {@value #PENDING_POLL_MILLIS} ms
+ *       as {@code session.pending}; {@code enrichment} is the time from login until it is complete.</li>
+ *   <li>{@code persona}: {@code /api/persona-test/self-only} or {@code /representative-only} for the user's persona</li>
+ *   <li>{@code delegate}: for representatives, {@code /api/persona-test/members/{id}} for one of their members</li>
+ *   <li>{@code logout}: {@code POST /api/auth/logout}</li>
+ * </ol>
+ * {@code login} is the sum of the three login steps, also broken down by user kind; {@code scenario}
+ * is the whole iteration. A step with an unexpected response counts as an error and ends the iteration.
+ */
+final class LoadDriver implements AutoCloseable {
+
+    static final List<String> STEPS = List.of(
+            "login.start", "login.idp", "login.callback", "login",
+            "session", "session.pending", "enrichment", "session.304", "persona", "delegate", "logout", "scenario");
+
+    private static final String SESSION_COOKIE = "SESSION_ID";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final long PENDING_POLL_MILLIS = 50;
+    private static final Duration PENDING_TIMEOUT = Duration.ofSeconds(10);
+
+    private final String bffUrl;
+    private final LoadUsers users;
+    private final int polls;
+    private final LatencyReport report = new LatencyReport();
+    private final HttpClient client;
+    private final AtomicBoolean running = new AtomicBoolean(true);
+
+    LoadDriver(String bffUrl, LoadUsers users, int polls, ExecutorService executor) {
+        this.bffUrl = bffUrl;
+        this.users = users;
+        this.polls = polls;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Runs {@code userCount} virtual users for {@code warmup} plus {@code duration} and prints the
+     * latencies recorded after warm-up.
+     */
+    void run(int userCount, Duration warmup, Duration duration, PrintStream out) throws InterruptedException {
+        try (ExecutorService virtualUsers = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Staggered start over the first half of warm-up, so logins do not arrive in lockstep
+            long staggerNanos = warmup.toNanos() / 2 / Math.max(1, userCount);
+            for (int i = 0; i < userCount; i++) {
+                long delay = staggerNanos * i;
+                virtualUsers.submit(() -> {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                    while (running.get()) {
+                        iteration(users.next());
+                    }
+                    return null;
+                });
+            }
+            out.printf("Warming up for %s with %d users%n", warmup, userCount);
+            Thread.sleep(warmup.toMillis());
+            report.reset();
+            long start = System.nanoTime();
+            out.printf("Measuring for %s%n", duration);
+            Thread.sleep(duration.toMillis());
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            running.set(false);
+            report.print(out, elapsed, STEPS);
+        }
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    /**
+     * Signs {@code user} in once, as the first step of the scenario; returns whether the login
+     * succeeded, recording the failure otherwise.
+     */
+    boolean signIn(LoadUsers.LoadUser user) {
+        try {
+            login(new Browser(), user, System.nanoTime());
+            return true;
+        } catch (StepFailure e) {
+            report.error(e.step, e.getMessage());
+            return false;
+        }
+    }
+
+    private void iteration(LoadUsers.LoadUser user) {
+        Browser browser = new Browser();
+        long start = System.nanoTime();
+        try {
+            login(browser, user, start);
+            long loggedIn = System.nanoTime();
+
+            HttpResponse<String> response = browser.send("session", get(bffUrl + "/api/auth/session"), 200);
+            if (isPending(response.body())) {
+                long deadline = loggedIn + PENDING_TIMEOUT.toNanos();
+                while (isPending(response.body())) {
+                    if (System.nanoTime() > deadline) {
+                        throw new StepFailure("session.pending", "still pending after " + PENDING_TIMEOUT);
+                    }
+                    pause(PENDING_POLL_MILLIS);
+                    response = browser.send("session.pending", get(bffUrl + "/api/auth/session"), 200);
+                }
+                report.record("enrichment", System.nanoTime() - loggedIn);
+            }
+            expectPersona(response.body(), user);
+            String etag = response.headers().firstValue("ETag").orElse(null);
+            for (int i = 1; i < polls; i++) {
+                browser.send("session.304", get(bffUrl + "/api/auth/session").header("If-None-Match", etag), 304);
+            }
+
+            browser.send("persona", get(bffUrl + (user.representative()
+                    ? "/api/persona-test/representative-only"
+                    : "/api/persona-test/self-only")), 200);
+            if (user.managedMembers() > 0) {
+                String memberId = user.memberId(ThreadLocalRandom.current().nextInt(user.managedMembers()));
+                browser.send("delegate", get(bffUrl + "/api/persona-test/members/" + memberId), 200);
+            }
+            browser.send("logout", HttpRequest.newBuilder(URI.create(bffUrl + "/api/auth/logout"))
+                    .POST(HttpRequest.BodyPublishers.noBody()), 200);
+            report.record("scenario", System.nanoTime() - start);
+        } catch (StepFailure e) {
+            report.error(e.step, e.getMessage());
+        }
+    }
+
+    private void login(Browser browser, LoadUsers.LoadUser user, long start) {
+        HttpResponse<String> response = browser.send("login.start", get(bffUrl + "/oauth2/authorization/hsid"), 302);
+        String authorize = location(response) + "&login_hint=" + URLEncoder.encode(user.subject(), StandardCharsets.UTF_8);
+        // The provider is another origin: no BFF cookie
+        response = new Browser().send("login.idp", get(authorize), 302);
+        response = browser.send("login.callback", get(location(response)), 302);
+        // The failure handler redirects to the frontend error page with ?error=
+        if (location(response).contains("?error=")) {
+            throw new StepFailure("login.callback", "login failed: " + location(response));
+        }
+        long loggedIn = System.nanoTime() - start;
+        report.record("login", loggedIn);
+        report.record("login[" + user.kind() + "]", loggedIn);
+    }
+
+    private static boolean isPending(String body) {
+        return body.contains("\"enrichment\":\"pending\"");
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StepFailure("session.pending", "interrupted");
+        }
+    }
+
+    private static void expectPersona(String body, LoadUsers.LoadUser user) {
+        String persona = user.representative() ? "representative" : "self";
+        if (!body.contains("\"authenticated\":true") || !body.contains("\"persona\":\"" + persona + "\"")) {
+            throw new StepFailure("session", "not signed in as " + persona);
+        }
+    }
+
+    private static HttpRequest.Builder get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).GET();
+    }
+
+    private static String location(HttpResponse<String> response) {
+        return response.headers().firstValue("Location").orElse("");
+    }
+
+    /** One browser's cookie jar for the BFF origin; only the session cookie matters. */
+    private final class Browser {
+
+        private String sessionId;
+
+        HttpResponse<String> send(String step, HttpRequest.Builder request, int expectedStatus) {
+            if (sessionId != null) {
+                request.header("Cookie", SESSION_COOKIE + "=" + sessionId);
+            }
+            long start = System.nanoTime();
+            HttpResponse<String> response;
+            try {
+                response = client.send(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                throw new StepFailure(step, e.getClass().getSimpleName());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new StepFailure(step, "interrupted");
+            }
+            report.record(step, System.nanoTime() - start);
+            if (response.statusCode() != expectedStatus) {
+                throw new StepFailure(step, "status " + response.statusCode());
+            }
+            for (String cookie : response.headers().allValues("Set-Cookie")) {
+                if (cookie.startsWith(SESSION_COOKIE + "=")) {
+                    String value = cookie.substring(SESSION_COOKIE.length() + 1, endOfValue(cookie));
+                    sessionId = value.isEmpty() || cookie.contains("Max-Age=0") ? null : value;
+                }
+            }
+            return response;
+        }
+
+        private static int endOfValue(String cookie) {
+            int end = cookie.indexOf(';');
+            return end < 0 ? cookie.length() : end;
+        }
+    }
+
+    private static final class StepFailure extends RuntimeException {
+
+        final String step;
+
+        StepFailure(String step, String reason) {
+            super(reason, null, false, false);
+            this.step = step;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.bff.loadtest;
+
+import com.example.bff.DemoApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Load test of the login path on one machine: starts {@link StubIdentityProvider} and
+ * {@link StubDownstreams}, starts the BFF in-process against them (or as a child process with
+ * {@code -bff-command}, or targets {@code -bff-url}), and runs {@link LoadDriver}. Options:
+ * {@link LoadTestOptions}.
+ * <p>
+ * Run: {@code ./mvnw -Ploadtest -DskipTests verify -Dloadtest.args="-users 200 -duration 60s"}
+ * <p>
+ * The in-process BFF shares the machine with the driver and stubs; compare runs on the same host
+ * rather than reading absolute numbers as production capacity.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        PrintStream out = System.out;
+        StubBehavior idp = new StubBehavior(options.idpLatency(), options.idpErrorRate());
+        StubBehavior downstream = new StubBehavior(options.downstreamLatency(), options.downstreamErrorRate());
+
+        try (StubIdentityProvider identityProvider = new StubIdentityProvider(options.idpPort(), idp, idp);
+             StubDownstreams downstreams = new StubDownstreams(options.downstreamPort(),
+                     new StubBehavior(Duration.ZERO, 0), downstream, downstream);
+             ExecutorService httpExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Map<String, String> environment = bffEnvironment(identityProvider, downstreams);
+            if (options.memorySessions()) {
+                environment.put("SESSION_STORE", "memory");
+                environment.put("HCP_TOKEN_STORE", "memory");
+            }
+            ConfigurableApplicationContext bff = null;
+            BffProcess child = null;
+            String bffUrl = options.bffUrl();
+            if (bffUrl != null) {
+                out.println("Driving " + bffUrl + "; it must run with:");
+                environment.forEach((name, value) -> out.println("  " + name + "=" + value));
+            } else if (options.bffCommand() != null) {
+                if (!options.memorySessions()) {
+                    environment.put("SPRING_MONGODB_URI", options.mongoUri());
+                }
+                child = new BffProcess(options.bffCommand(), environment);
+                out.println("Started '" + options.bffCommand() + "' in " + child.awaitListening(Duration.ofMinutes(2)));
+                bffUrl = child.url();
+            } else {
+                bff = startBff(options, environment);
+                bffUrl = "http://127.0.0.1:" + bff.getEnvironment().getProperty("local.server.port");
+            }
+            try {
+                out.println("users=" + options.users() + " duration=" + options.duration() + " warmup=" + options.warmup()
+                        + " mix=" + options.mix() + " population=" + options.population() + " polls=" + options.polls());
+                out.println("idp-latency=" + options.idpLatency() + " downstream-latency=" + options.downstreamLatency()
+                        + " idp-error-rate=" + options.idpErrorRate() + " downstream-error-rate=" + options.downstreamErrorRate()
+                        + " sessions=" + (options.bffUrl() != null ? "external" : options.memorySessions() ? "memory" : options.mongoUri()));
+                try (LoadDriver driver = new LoadDriver(bffUrl, new LoadUsers(options.mix(), options.population()),
+                        options.polls(), httpExecutor)) {
+                    driver.run(options.users(), options.warmup(), options.duration(), out);
+                }
+            } finally {
+                if (bff != null) {
+                    bff.close();
+                }
+                if (child != null) {
+                    child.close();
+                }
+            }
+        }
+        // Client libraries (e.g. the MongoDB driver) may leave non-daemon threads behind after close
+        System.exit(0);
+    }
+
+    /** The BFF settings pointing it at the stubs, as environment variable names from application.yml. */
+    static Map<String, String> bffEnvironment(StubIdentityProvider identityProvider, StubDownstreams downstreams)
+            throws IOException {
+        Map<String, String> environment = new LinkedHashMap<>();
+        environment.put("HSID_CLIENT_ID", "loadtest-bff");
+        environment.put("HSID_IDP_ORIGIN", identityProvider.issuer());
+        environment.put("HCP_CLIENT_ID", "loadtest-hcp");
+        environment.put("HCP_CLIENT_SECRET", "loadtest-secret");
+        environment.put("HCP_TOKEN_URI", downstreams.baseUrl() + "/hcp/token");
+        environment.put("USER_SERVICE_BASE_URL", downstreams.userServiceBaseUrl());
+        environment.put("PSN_BASE_URL", downstreams.psnBaseUrl());
+        environment.put("FRONTEND_REDIRECT_PATH", "http://127.0.0.1/loadtest/dashboard");
+        environment.put("FRONTEND_ERROR_PATH", "http://127.0.0.1/loadtest/auth-error");
+        // A fresh provider snapshot per run: the stub's signing key changes every start
+        environment.put("OIDC_SNAPSHOT_PATH",
+                Files.createTempDirectory("bff-loadtest").resolve("oidc-hsid.json").toString());
+        return environment;
+    }
+
+    private static ConfigurableApplicationContext startBff(LoadTestOptions options, Map<String, String> environment)
+            throws Exception {
+        List<String> args = new ArrayList<>();
+        environment.forEach((name, value) -> args.add("--" + name + "=" + value));
+        args.add("--server.port=0");
+        args.add("--spring.mongodb.uri=" + options.mongoUri());
+        args.add("--logging.level.root=WARN");
+        return new SpringApplicationBuilder(DemoApplication.class).run(args.toArray(String[]::new));
+    }
+}
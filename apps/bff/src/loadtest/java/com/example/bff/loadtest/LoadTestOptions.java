@@ -0,0 +1,102 @@
+package com.example.bff.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options of {@link LoadTest}, each given as {@code -name value}.
+ *
+ * <table>
+ *   <caption>Options</caption>
+ *   <tr><th>Option</th><th>Default</th><th>Meaning</th></tr>
+ *   <tr><td>{@code -users}</td><td>50</td><td>Concurrent virtual users, each running scenarios back to back</td></tr>
+ *   <tr><td>{@code -duration}</td><td>60s</td><td>Measured run time</td></tr>
+ *   <tr><td>{@code -warmup}</td><td>15s</td><td>Run time before measuring starts</td></tr>
+ *   <tr><td>{@code -mix}</td><td>{@code self:60,pr10:25,pr100:10,pr500:5}</td><td>User mix, see {@link LoadUsers}</td></tr>
+ *   <tr><td>{@code -population}</td><td>1000</td><td>Distinct users per mix entry</td></tr>
+ *   <tr><td>{@code -polls}</td><td>3</td><td>{@code /api/auth/session} polls per login</td></tr>
+ *   <tr><td>{@code -idp-latency}</td><td>40ms</td><td>Stub HSID token and userinfo latency</td></tr>
+ *   <tr><td>{@code -downstream-latency}</td><td>30ms</td><td>Stub user-info and managed-members latency</td></tr>
+ *   <tr><td>{@code -idp-error-rate}</td><td>0</td><td>Fraction of failed token and userinfo responses</td></tr>
+ *   <tr><td>{@code -downstream-error-rate}</td><td>0</td><td>Fraction of failed user-info and managed-members responses</td></tr>
+ *   <tr><td>{@code -sessions}</td><td>{@code mongo}</td><td>{@code mongo} (the real stores) or {@code memory} ({@code SESSION_STORE=memory}, {@code HCP_TOKEN_STORE=memory})</td></tr>
+ *   <tr><td>{@code -mongo-uri}</td><td>{@code mongodb://localhost:27017/bff-loadtest}</td><td>MongoDB for {@code -sessions mongo}</td></tr>
+ *   <tr><td>{@code -bff-url}</td><td>-</td><td>Drive an already running BFF instead of starting one in-process</td></tr>
+ *   <tr><td>{@code -bff-command}</td><td>-</td><td>Start the BFF as a child process with this command, e.g. for an AOT cache training run</td></tr>
+ *   <tr><td>{@code -idp-port}, {@code -downstream-port}</td><td>0 (any)</td><td>Stub ports; fix them when using {@code -bff-url}</td></tr>
+ * </table>
+ */
+record LoadTestOptions(
+        int users,
+        Duration duration,
+        Duration warmup,
+        String mix,
+        int population,
+        int polls,
+        Duration idpLatency,
+        Duration downstreamLatency,
+        double idpErrorRate,
+        double downstreamErrorRate,
+        boolean memorySessions,
+        String mongoUri,
+        String bffUrl,
+        String bffCommand,
+        int idpPort,
+        int downstreamPort
+) {
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("users", "50");
+        values.put("duration", "60s");
+        values.put("warmup", "15s");
+        values.put("mix", "self:60,pr10:25,pr100:10,pr500:5");
+        values.put("population", "1000");
+        values.put("polls", "3");
+        values.put("idp-latency", "40ms");
+        values.put("downstream-latency", "30ms");
+        values.put("idp-error-rate", "0");
+        values.put("downstream-error-rate", "0");
+        values.put("sessions", "mongo");
+        values.put("mongo-uri", "mongodb://localhost:27017/bff-loadtest");
+        values.put("bff-url", "");
+        values.put("bff-command", "");
+        values.put("idp-port", "0");
+        values.put("downstream-port", "0");
+        for (int i = 0; i < args.length; i += 2) {
+            String name = args[i].startsWith("-") ? args[i].substring(1) : null;
+            if (name == null || !values.containsKey(name) || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Unknown or incomplete option '" + args[i] + "'; options: -"
+                        + String.join(", -", values.keySet()));
+            }
+            values.put(name, args[i + 1]);
+        }
+        String sessions = values.get("sessions");
+        if (!sessions.equals("mongo") && !sessions.equals("memory")) {
+            throw new IllegalArgumentException("-sessions must be mongo or memory, was '" + sessions + "'");
+        }
+        if (!values.get("bff-url").isEmpty() && !values.get("bff-command").isEmpty()) {
+            throw new IllegalArgumentException("-bff-url and -bff-command cannot be combined");
+        }
+        return new LoadTestOptions(
+                Integer.parseInt(values.get("users")),
+                DurationStyle.detectAndParse(values.get("duration")),
+                DurationStyle.detectAndParse(values.get("warmup")),
+                values.get("mix"),
+                Integer.parseInt(values.get("population")),
+                Integer.parseInt(values.get("polls")),
+                DurationStyle.detectAndParse(values.get("idp-latency")),
+                DurationStyle.detectAndParse(values.get("downstream-latency")),
+                Double.parseDouble(values.get("idp-error-rate")),
+                Double.parseDouble(values.get("downstream-error-rate")),
+                sessions.equals("memory"),
+                values.get("mongo-uri"),
+                values.get("bff-url").isEmpty() ? null : values.get("bff-url"),
+                values.get("bff-command").isEmpty() ? null : values.get("bff-command"),
+                Integer.parseInt(values.get("idp-port")),
+                Integer.parseInt(values.get("downstream-port")));
+    }
+}
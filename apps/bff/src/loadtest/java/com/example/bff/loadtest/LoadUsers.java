@@ -0,0 +1,93 @@
+package com.example.bff.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The simulated user population. A user's persona and managed member count are encoded in its
+ * HSID subject ({@code lt-self-42}, {@code lt-pr100-7}), so the stubs answer for any subject
+ * without shared state and the driver knows what to expect.
+ * <p>
+ * The mix is given as {@code kind:weight} pairs, where {@code kind} is {@code self} or
+ * {@code pr<members>}, e.g. {@code self:60,pr10:25,pr100:10,pr500:5}.
+ */
+final class LoadUsers {
+
+    private static final Pattern SUBJECT = Pattern.compile("lt-(self|pr(\\d+))-\\d+");
+
+    /** Delegate types issued by the stub PSN, in turn. */
+    private static final String[] DELEGATE_TYPES = {"DAA", "ROI", "HIPAA", "POA"};
+
+    private final List<String> kinds = new ArrayList<>();
+    private final int[] cumulativeWeights;
+    private final int usersPerKind;
+
+    LoadUsers(String mix, int usersPerKind) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2 || !(parts[0].equals("self") || parts[0].matches("pr\\d+"))) {
+                throw new IllegalArgumentException("Invalid mix entry '" + entry + "', expected self:<weight> or pr<members>:<weight>");
+            }
+            weights.merge(parts[0], Integer.parseInt(parts[1]), Integer::sum);
+        }
+        this.cumulativeWeights = new int[weights.size()];
+        int total = 0;
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            kinds.add(weight.getKey());
+            total += weight.getValue();
+            cumulativeWeights[kinds.size() - 1] = total;
+        }
+        this.usersPerKind = usersPerKind;
+    }
+
+    /** A random user drawn according to the mix. */
+    LoadUser next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int kind = 0;
+        while (draw >= cumulativeWeights[kind]) {
+            kind++;
+        }
+        return parse("lt-" + kinds.get(kind) + "-" + random.nextInt(usersPerKind));
+    }
+
+    /** The user a subject stands for, or {@code null} if it was not issued by this class. */
+    static LoadUser parse(String subject) {
+        Matcher matcher = subject != null ? SUBJECT.matcher(subject) : null;
+        if (matcher == null || !matcher.matches()) {
+            return null;
+        }
+        int members = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 0;
+        return new LoadUser(subject, matcher.group(2) != null, members);
+    }
+
+    /**
+     * @param representative whether user-service reports the user as {@code PR}
+     * @param managedMembers number of members returned by the stub PSN
+     */
+    record LoadUser(String subject, boolean representative, int managedMembers) {
+
+        String enterpriseId() {
+            return "ENT-" + subject;
+        }
+
+        /** The {@code i}-th managed member; every one holds an active delegate permission. */
+        String memberId(int i) {
+            return "MBR-" + subject + "-" + i;
+        }
+
+        static String delegateType(int i) {
+            return DELEGATE_TYPES[i % DELEGATE_TYPES.length];
+        }
+
+        String kind() {
+            return representative ? "pr" + managedMembers : "self";
+        }
+    }
+}
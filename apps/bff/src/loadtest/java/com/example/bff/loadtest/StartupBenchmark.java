@@ -0,0 +1,108 @@
+package com.example.bff.loadtest;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cold-start comparison of BFF launch commands, e.g. the fat jar against the fast-start layout
+ * with its AOT cache. Each run starts the BFF as a {@link BffProcess} against the stubs and
+ * measures, from process start, the time until it answers HTTP ({@code startup}) and until a first
+ * login through HSID completes ({@code first login}). Variants alternate run by run, so drift on
+ * the host affects all of them alike.
+ * <p>
+ * Arguments: {@code -runs N} (default 5) and one {@code -<variant> "<command>"} pair per variant:
+ * <pre>
+ * StartupBenchmark -runs 5 -fat-jar "java -jar bff.jar" -fast-start "java -XX:AOTCache=bff.aot -Dspring.aot.enabled=true -jar fast-start/bff.jar"
+ * </pre>
+ * The stubs answer without latency and sessions and the hcp token are kept in memory
+ * ({@code SESSION_STORE=memory}, {@code HCP_TOKEN_STORE=memory}),
+ * so the numbers are the BFF's own and no MongoDB is needed.
+ */
+public final class StartupBenchmark {
+
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+    private static final Duration LOGIN_TIMEOUT = Duration.ofMinutes(1);
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        Map<String, String> variants = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("-") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected -runs N or -<variant> \"<command>\", got '" + args[i] + "'");
+            }
+            if (args[i].equals("-runs")) {
+                runs = Integer.parseInt(args[i + 1]);
+            } else {
+                variants.put(args[i].substring(1), args[i + 1]);
+            }
+        }
+        if (variants.isEmpty()) {
+            throw new IllegalArgumentException("No variants; give at least one -<variant> \"<command>\"");
+        }
+
+        PrintStream out = System.out;
+        Map<String, List<Duration>> startup = new LinkedHashMap<>();
+        Map<String, List<Duration>> firstLogin = new LinkedHashMap<>();
+        StubBehavior immediate = new StubBehavior(Duration.ZERO, 0);
+        LoadUsers users = new LoadUsers("self:1", 1);
+        try (StubIdentityProvider identityProvider = new StubIdentityProvider(0, immediate, immediate);
+             StubDownstreams downstreams = new StubDownstreams(0, immediate, immediate, immediate);
+             ExecutorService httpExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int run = 1; run <= runs; run++) {
+                for (Map.Entry<String, String> variant : variants.entrySet()) {
+                    // A fresh environment per start: no provider snapshot left by the previous run
+                    Map<String, String> environment = LoadTest.bffEnvironment(identityProvider, downstreams);
+                    environment.put("SESSION_STORE", "memory");
+                    environment.put("HCP_TOKEN_STORE", "memory");
+                    try (BffProcess bff = new BffProcess(variant.getValue(), environment);
+                         LoadDriver driver = new LoadDriver(bff.url(), users, 0, httpExecutor)) {
+                        Duration started = bff.awaitListening(START_TIMEOUT);
+                        Duration loggedIn = firstLogin(bff, driver, users);
+                        startup.computeIfAbsent(variant.getKey(), name -> new ArrayList<>()).add(started);
+                        firstLogin.computeIfAbsent(variant.getKey(), name -> new ArrayList<>()).add(loggedIn);
+                        out.printf("run %d %-16s startup %6d ms   first login %6d ms%n",
+                                run, variant.getKey(), started.toMillis(), loggedIn.toMillis());
+                    }
+                }
+            }
+        }
+
+        out.printf("%n%-16s %5s %12s %12s %12s %16s %16s %16s%n", "variant", "runs",
+                "startup min", "median", "max", "first login min", "median", "max");
+        for (String variant : variants.keySet()) {
+            List<Duration> started = startup.get(variant).stream().sorted().toList();
+            List<Duration> loggedIn = firstLogin.get(variant).stream().sorted().toList();
+            out.printf("%-16s %5d %12d %12d %12d %16d %16d %16d%n", variant, started.size(),
+                    started.getFirst().toMillis(), median(started).toMillis(), started.getLast().toMillis(),
+                    loggedIn.getFirst().toMillis(), median(loggedIn).toMillis(), loggedIn.getLast().toMillis());
+        }
+        out.println();
+        out.println("Times in ms from process start; startup = first HTTP response, first login = HSID login completed.");
+        System.exit(0);
+    }
+
+    /** Time from process start until a login succeeds, retrying while the BFF is still warming up. */
+    private static Duration firstLogin(BffProcess bff, LoadDriver driver, LoadUsers users) throws InterruptedException {
+        long deadline = System.nanoTime() + LOGIN_TIMEOUT.toNanos();
+        while (!driver.signIn(users.next())) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("No successful login within " + LOGIN_TIMEOUT);
+            }
+            Thread.sleep(50);
+        }
+        return Duration.ofNanos(System.nanoTime() - bff.startNanos());
+    }
+
+    private static Duration median(List<Duration> sorted) {
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.bff.loadtest;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency and failures injected by a stub endpoint. Each response is delayed by {@code latency}
+ * ± 50% (uniform), and a fraction {@code errorRate} of responses is {@code 503}.
+ */
+record StubBehavior(Duration latency, double errorRate) {
+
+    /** Completes after this response's latency. */
+    Mono<Long> delay() {
+        long nanos = latency.toNanos();
+        if (nanos == 0) {
+            return Mono.just(0L);
+        }
+        return Mono.delay(Duration.ofNanos(ThreadLocalRandom.current().nextLong(nanos / 2, nanos + nanos / 2 + 1)));
+    }
+
+    /** Whether this response should fail. */
+    boolean fail() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+}
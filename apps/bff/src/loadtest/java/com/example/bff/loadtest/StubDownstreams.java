@@ -0,0 +1,131 @@
+package com.example.bff.loadtest;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.reactivestreams.Publisher;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.resources.LoopResources;
+import tools.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.example.bff.loadtest.StubHttp.json;
+
+/**
+ * In-process stand-ins for the services called during login enrichment, on one port like
+ * downstreams behind one gateway:
+ * <ul>
+ *   <li>{@code POST /hcp/token}: client_credentials token for the {@code hcp} registration</li>
+ *   <li>{@code POST /user-service/user-info}: {@code PR} for representatives, {@code SELF} otherwise</li>
+ *   <li>{@code POST /psn/managed-members}: the user's members, each with one active delegate permission</li>
+ * </ul>
+ * Answers are derived from the subject (see {@link LoadUsers}). Managed-member bodies are rendered
+ * once per user and reused, so the stub's own cost stays small next to the BFF's.
+ */
+final class StubDownstreams implements AutoCloseable {
+
+    private final StubBehavior hcpTokenBehavior;
+    private final StubBehavior userInfoBehavior;
+    private final StubBehavior managedMembersBehavior;
+    private final ConcurrentMap<String, byte[]> managedMembers = new ConcurrentHashMap<>();
+    private final LoopResources loops;
+    private final DisposableServer server;
+
+    StubDownstreams(int port, StubBehavior hcpTokenBehavior, StubBehavior userInfoBehavior,
+                    StubBehavior managedMembersBehavior) {
+        this.hcpTokenBehavior = hcpTokenBehavior;
+        this.userInfoBehavior = userInfoBehavior;
+        this.managedMembersBehavior = managedMembersBehavior;
+        this.loops = LoopResources.create("loadtest-downstreams", 2, true);
+        this.server = HttpServer.create()
+                .runOn(loops)
+                .host("127.0.0.1")
+                .port(port)
+                .route(routes -> routes
+                        .post("/hcp/token", this::hcpToken)
+                        .post("/user-service/user-info", this::userInfo)
+                        .post("/psn/managed-members", this::managedMembers))
+                .bindNow();
+    }
+
+    /** Base URL of the stub server, for {@code HCP_TOKEN_URI}. */
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    /** Base URL for {@code USER_SERVICE_BASE_URL}. */
+    String userServiceBaseUrl() {
+        return baseUrl() + "/user-service";
+    }
+
+    /** Base URL for {@code PSN_BASE_URL}. */
+    String psnBaseUrl() {
+        return baseUrl() + "/psn";
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+        loops.dispose();
+    }
+
+    private Publisher<Void> hcpToken(HttpServerRequest request, HttpServerResponse response) {
+        return StubHttp.respond(hcpTokenBehavior, response, StubHttp.body(request, StubHttp::form)
+                .map(form -> "client_credentials".equals(StubHttp.first(form, "grant_type"))
+                        ? json(response, Map.of("access_token", "loadtest-hcp-token", "token_type", "Bearer", "expires_in", 3600))
+                        : json(response, HttpResponseStatus.BAD_REQUEST, Map.of("error", "unsupported_grant_type"))));
+    }
+
+    private Publisher<Void> userInfo(HttpServerRequest request, HttpServerResponse response) {
+        return StubHttp.respond(userInfoBehavior, response, StubHttp.body(request, StubHttp.JSON::readTree)
+                .map(body -> {
+                    LoadUsers.LoadUser user = LoadUsers.parse(text(body, "hsidUuid"));
+                    if (user == null) {
+                        return json(response, HttpResponseStatus.NOT_FOUND, Map.of("error", "unknown user"));
+                    }
+                    return json(response, Map.of(
+                            "enterpriseId", user.enterpriseId(),
+                            "memberType", user.representative() ? "PR" : "SELF"));
+                }));
+    }
+
+    private Publisher<Void> managedMembers(HttpServerRequest request, HttpServerResponse response) {
+        return StubHttp.respond(managedMembersBehavior, response, StubHttp.body(request, StubHttp.JSON::readTree)
+                .map(body -> {
+                    String enterpriseId = text(body, "enterpriseId");
+                    LoadUsers.LoadUser user = enterpriseId != null && enterpriseId.startsWith("ENT-")
+                            ? LoadUsers.parse(enterpriseId.substring("ENT-".length()))
+                            : null;
+                    if (user == null) {
+                        return json(response, HttpResponseStatus.NOT_FOUND, Map.of("error", "unknown enterprise id"));
+                    }
+                    return json(response, managedMembers.computeIfAbsent(user.subject(), subject -> render(user)));
+                }));
+    }
+
+    private static byte[] render(LoadUsers.LoadUser user) {
+        Map<String, List<Map<String, String>>> members = new LinkedHashMap<>();
+        for (int i = 0; i < user.managedMembers(); i++) {
+            Map<String, String> permission = new LinkedHashMap<>();
+            permission.put("delegateType", LoadUsers.LoadUser.delegateType(i));
+            permission.put("startDate", "2024-01-01");
+            permission.put("endDate", i % 3 == 0 ? null : "2099-12-31");
+            List<Map<String, String>> permissions = new ArrayList<>();
+            permissions.add(permission);
+            members.put(user.memberId(i), permissions);
+        }
+        return StubHttp.JSON.writeValueAsBytes(members);
+    }
+
+    private static String text(JsonNode body, String field) {
+        JsonNode value = body.get(field);
+        return value != null && value.isString() ? value.asString() : null;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.bff.loadtest;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Request and response helpers shared by the stub servers.
+ */
+final class StubHttp {
+
+    static final JsonMapper JSON = JsonMapper.builder().build();
+
+    private StubHttp() {
+    }
+
+    /** Applies {@code behavior}, then answers with {@code handler} unless the response is chosen to fail. */
+    static Publisher<Void> respond(StubBehavior behavior, HttpServerResponse response,
+                                   Mono<? extends Publisher<Void>> handler) {
+        return behavior.delay().then(Mono.defer(() -> behavior.fail()
+                ? Mono.from(response.status(HttpResponseStatus.SERVICE_UNAVAILABLE).send())
+                : handler.flatMap(Mono::from)));
+    }
+
+    static Publisher<Void> json(HttpServerResponse response, Object body) {
+        return json(response, HttpResponseStatus.OK, body);
+    }
+
+    static Publisher<Void> json(HttpServerResponse response, HttpResponseStatus status, Object body) {
+        byte[] bytes = body instanceof byte[] raw ? raw : JSON.writeValueAsBytes(body);
+        return response.status(status)
+                .header("Content-Type", "application/json")
+                .header("Cache-Control", "no-store")
+                .sendByteArray(Mono.just(bytes));
+    }
+
+    static Publisher<Void> redirect(HttpServerResponse response, String location) {
+        return response.status(HttpResponseStatus.FOUND).header("Location", location).send();
+    }
+
+    static Map<String, List<String>> query(HttpServerRequest request) {
+        return new QueryStringDecoder(request.uri()).parameters();
+    }
+
+    static String first(Map<String, List<String>> parameters, String name) {
+        List<String> values = parameters.get(name);
+        return values == null || values.isEmpty() ? null : values.getFirst();
+    }
+
+    /** The request body decoded with {@code decoder}; an empty body decodes as {@code ""}. */
+    static <T> Mono<T> body(HttpServerRequest request, Function<String, T> decoder) {
+        return request.receive().aggregate().asString(StandardCharsets.UTF_8)
+                .defaultIfEmpty("")
+                .map(decoder);
+    }
+
+    static Map<String, List<String>> form(String body) {
+        return new QueryStringDecoder(body, StandardCharsets.UTF_8, false).parameters();
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.bff.loadtest;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.resources.LoopResources;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.example.bff.loadtest.StubHttp.first;
+import static com.example.bff.loadtest.StubHttp.json;
+
+/**
+ * In-process stand-in for HSID: discovery, authorize, token, JWKS and userinfo under the same
+ * paths as the real provider ({@code /oidc/*}).
+ * <p>
+ * {@code /oidc/authorize} signs in whoever is named by {@code login_hint} without a login page and
+ * redirects straight back with a code. {@code /oidc/token} checks the code and the PKCE verifier
+ * and returns an RS256 ID token with the request's nonce, signed with a key generated at start.
+ * Token and userinfo responses are delayed and failed according to their {@link StubBehavior}.
+ */
+final class StubIdentityProvider implements AutoCloseable {
+
+    static final String DEFAULT_SUBJECT = "lt-self-0";
+
+    private static final Duration TOKEN_LIFETIME = Duration.ofHours(1);
+
+    private final StubBehavior tokenBehavior;
+    private final StubBehavior userInfoBehavior;
+    private final RSAKey signingKey;
+    private final RSASSASigner signer;
+    private final byte[] jwks;
+    private final ConcurrentMap<String, Authorization> codes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> accessTokens = new ConcurrentHashMap<>();
+    private final LoopResources loops;
+    private final DisposableServer server;
+    private final String issuer;
+
+    StubIdentityProvider(int port, StubBehavior tokenBehavior, StubBehavior userInfoBehavior) throws JOSEException {
+        this.tokenBehavior = tokenBehavior;
+        this.userInfoBehavior = userInfoBehavior;
+        this.signingKey = new RSAKeyGenerator(2048).keyID("loadtest-" + UUID.randomUUID()).generate();
+        this.signer = new RSASSASigner(signingKey);
+        this.jwks = new JWKSet(signingKey.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+        this.loops = LoopResources.create("loadtest-idp", 2, true);
+        this.server = HttpServer.create()
+                .runOn(loops)
+                .host("127.0.0.1")
+                .port(port)
+                .route(routes -> routes
+                        .get("/.well-known/openid-configuration", (request, response) -> json(response, discovery()))
+                        .get("/oidc/authorize", this::authorize)
+                        .post("/oidc/token", this::token)
+                        .get("/oidc/jwks", (request, response) -> json(response, jwks))
+                        .get("/oidc/userinfo", this::userInfo))
+                .bindNow();
+        this.issuer = "http://127.0.0.1:" + server.port();
+    }
+
+    /** The issuer, also the value of {@code HSID_IDP_ORIGIN}. */
+    String issuer() {
+        return issuer;
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+        loops.dispose();
+    }
+
+    private Map<String, Object> discovery() {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("issuer", issuer);
+        document.put("authorization_endpoint", issuer + "/oidc/authorize");
+        document.put("token_endpoint", issuer + "/oidc/token");
+        document.put("jwks_uri", issuer + "/oidc/jwks");
+        document.put("userinfo_endpoint", issuer + "/oidc/userinfo");
+        document.put("response_types_supported", List.of("code"));
+        document.put("subject_types_supported", List.of("public"));
+        document.put("id_token_signing_alg_values_supported", List.of("RS256"));
+        document.put("scopes_supported", List.of("openid", "profile", "email"));
+        document.put("code_challenge_methods_supported", List.of("S256"));
+        return document;
+    }
+
+    private Publisher<Void> authorize(HttpServerRequest request, HttpServerResponse response) {
+        Map<String, List<String>> query = StubHttp.query(request);
+        String redirectUri = first(query, "redirect_uri");
+        if (redirectUri == null || !"code".equals(first(query, "response_type"))) {
+            return json(response, HttpResponseStatus.BAD_REQUEST, Map.of("error", "invalid_request"));
+        }
+        String subject = first(query, "login_hint");
+        String code = UUID.randomUUID().toString();
+        codes.put(code, new Authorization(
+                subject != null ? subject : DEFAULT_SUBJECT,
+                first(query, "client_id"),
+                redirectUri,
+                first(query, "nonce"),
+                first(query, "code_challenge")));
+        String state = first(query, "state");
+        return StubHttp.redirect(response, redirectUri + (redirectUri.contains("?") ? "&" : "?")
+                + "code=" + code + (state != null ? "&state=" + encode(state) : ""));
+    }
+
+    private Publisher<Void> token(HttpServerRequest request, HttpServerResponse response) {
+        return StubHttp.respond(tokenBehavior, response, StubHttp.body(request, StubHttp::form).map(form -> {
+            Authorization authorization = codes.remove(String.valueOf(first(form, "code")));
+            if (authorization == null
+                    || !"authorization_code".equals(first(form, "grant_type"))
+                    || !authorization.redirectUri().equals(first(form, "redirect_uri"))
+                    || !authorization.verifies(first(form, "code_verifier"))) {
+                return json(response, HttpResponseStatus.BAD_REQUEST, Map.of("error", "invalid_grant"));
+            }
+            String accessToken = UUID.randomUUID().toString();
+            accessTokens.put(accessToken, authorization.subject());
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("access_token", accessToken);
+            body.put("token_type", "Bearer");
+            body.put("expires_in", TOKEN_LIFETIME.toSeconds());
+            body.put("scope", "openid profile email");
+            body.put("id_token", idToken(authorization));
+            return json(response, body);
+        }));
+    }
+
+    private Publisher<Void> userInfo(HttpServerRequest request, HttpServerResponse response) {
+        String authorization = request.requestHeaders().get("Authorization");
+        // Spring Security fetches userinfo once per login, right after the token exchange
+        String subject = authorization != null && authorization.startsWith("Bearer ")
+                ? accessTokens.remove(authorization.substring("Bearer ".length()))
+                : null;
+        if (subject == null) {
+            return response.status(HttpResponseStatus.UNAUTHORIZED).send();
+        }
+        return StubHttp.respond(userInfoBehavior, response, Mono.fromSupplier(() -> json(response, claims(subject))));
+    }
+
+    private String idToken(Authorization authorization) {
+        Instant now = Instant.now();
+        JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject(authorization.subject())
+                .audience(authorization.clientId())
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(TOKEN_LIFETIME)))
+                .claim("auth_time", now.getEpochSecond())
+                .claim("nonce", authorization.nonce());
+        claims(authorization.subject()).forEach(claims::claim);
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(),
+                claims.build());
+        try {
+            jwt.sign(signer);
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Could not sign ID token", e);
+        }
+        return jwt.serialize();
+    }
+
+    private static Map<String, Object> claims(String subject) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", subject);
+        claims.put("email", subject + "@loadtest.example.com");
+        claims.put("email_verified", true);
+        claims.put("name", "Load Test " + subject);
+        return claims;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private record Authorization(String subject, String clientId, String redirectUri, String nonce, String codeChallenge) {
+
+        boolean verifies(String codeVerifier) {
+            if (codeChallenge == null) {
+                return true;
+            }
+            if (codeVerifier == null) {
+                return false;
+            }
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(codeVerifier.getBytes(StandardCharsets.US_ASCII));
+                return Base64.getUrlEncoder().withoutPadding().encodeToString(digest).equals(codeChallenge);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.bff.client;
+
+import com.example.bff.client.DownstreamProperties.Concurrency;
+import com.example.bff.client.DownstreamProperties.ShedPolicy;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive limit on the concurrent calls to one downstream, with a bounded FIFO admission queue.
+ * <p>
+ * <b>Limit (gradient):</b> every completed call is a latency sample. A long-term average (about
+ * {@value #LONG_WINDOW} samples) stands for the downstream's unloaded latency, a short-term one
+ * (about {@value #SHORT_WINDOW}) for its current latency. While the short-term latency stays
+ * within {@value #RTT_TOLERANCE}× the long-term one, the limit grows by about √limit per sample.
+ * Beyond that it shrinks in proportion to the latency increase, down to half per sample. A failed
+ * call (5xx, timeout, I/O error) cuts the limit by {@value #BACKOFF}×. The limit only grows while
+ * at least half of it is in use, so a quiet period does not inflate it. Each new estimate is
+ * blended in with weight {@code smoothing} and clamped to {@code [minLimit, maxLimit]}.
+ * <p>
+ * <b>Admission:</b> a call runs at once while fewer than {@code floor(limit)} calls are in flight
+ * and nobody is queued. Otherwise it waits in the queue, and calls are admitted in arrival order
+ * as permits free up. A call that waits longer than {@code maxQueueTime} is shed. A call that
+ * arrives at a full queue is shed by {@code shedPolicy}: {@code reject-newest} fails the arriving
+ * call, {@code drop-oldest} fails the longest-waiting one. Shed calls fail with
+ * {@link DownstreamOverloadedException} and never reach the downstream.
+ * <p>
+ * <b>Metrics</b> (tag {@code downstream}): {@code bff.downstream.concurrency.limit} and
+ * {@code .inflight}, {@code bff.downstream.queue.size}, {@code bff.downstream.queue.wait}
+ * ({@code outcome} = {@code admitted}, {@code shed}; calls admitted without waiting record 0) and
+ * {@code bff.downstream.shed} ({@code reason} = {@code queue_full}, {@code dropped_oldest},
+ * {@code queue_timeout}).
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    static final String LIMIT_METRIC = "bff.downstream.concurrency.limit";
+    static final String INFLIGHT_METRIC = "bff.downstream.concurrency.inflight";
+    static final String QUEUE_SIZE_METRIC = "bff.downstream.queue.size";
+    static final String QUEUE_WAIT_METRIC = "bff.downstream.queue.wait";
+    static final String SHED_METRIC = "bff.downstream.shed";
+
+    static final String SHED_QUEUE_FULL = "queue_full";
+    static final String SHED_DROPPED_OLDEST = "dropped_oldest";
+    static final String SHED_QUEUE_TIMEOUT = "queue_timeout";
+
+    private static final int LONG_WINDOW = 100;
+    private static final int SHORT_WINDOW = 10;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double BACKOFF = 0.9;
+    /** The long-term average is pulled down once it exceeds the short-term one this much. */
+    private static final double DRIFT_RATIO = 2.0;
+
+    private enum Sample { LATENCY, DROPPED, NONE }
+
+    private static final Disposable CANCELLED = () -> { };
+
+    private final String name;
+    private final Concurrency config;
+    private final ArrayDeque<Admission<?>> queue = new ArrayDeque<>();
+    private final MeterRegistry meterRegistry;
+    private final Timer admittedWait;
+    private final Timer shedWait;
+
+    // Guarded by this
+    private double limit;
+    private int inflight;
+    private double longRttNanos = -1;
+    private double shortRttNanos = -1;
+
+    public AdaptiveConcurrencyLimiter(String name, Concurrency config, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.limit = clamp(config.initialLimit());
+        this.admittedWait = queueWaitTimer("admitted");
+        this.shedWait = queueWaitTimer("shed");
+        Gauge.builder(LIMIT_METRIC, this, AdaptiveConcurrencyLimiter::limit)
+                .description("Current adaptive concurrency limit")
+                .tag("downstream", name)
+                .register(meterRegistry);
+        Gauge.builder(INFLIGHT_METRIC, this, AdaptiveConcurrencyLimiter::inflight)
+                .description("Calls holding a permit")
+                .tag("downstream", name)
+                .register(meterRegistry);
+        Gauge.builder(QUEUE_SIZE_METRIC, this, AdaptiveConcurrencyLimiter::queued)
+                .description("Calls waiting for a permit")
+                .tag("downstream", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code call} once a permit is available. Cancelling the returned {@code Mono} while
+     * queued gives up the place in the queue; while running, it cancels the call and frees the permit.
+     */
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        return Mono.create(sink -> {
+            Admission<T> admission = new Admission<>(sink, call, nowNanos());
+            sink.onCancel(admission::cancel);
+            Admission<?> dropped = null;
+            boolean start = false;
+            boolean reject = false;
+            synchronized (this) {
+                if (queue.isEmpty() && inflight < permits()) {
+                    admission.admit();
+                    start = true;
+                } else if (queue.size() < config.queueSize()) {
+                    queue.addLast(admission);
+                } else if (config.shedPolicy() == ShedPolicy.DROP_OLDEST && !queue.isEmpty()) {
+                    dropped = queue.pollFirst();
+                    dropped.shedding = true;
+                    queue.addLast(admission);
+                } else {
+                    reject = true;
+                }
+            }
+            if (dropped != null) {
+                dropped.shed(SHED_DROPPED_OLDEST);
+            }
+            if (start) {
+                admission.start();
+            } else if (reject) {
+                admission.shed(SHED_QUEUE_FULL);
+            } else {
+                admission.scheduleExpiry();
+            }
+        });
+    }
+
+    synchronized double limit() {
+        return limit;
+    }
+
+    synchronized int inflight() {
+        return inflight;
+    }
+
+    synchronized int queued() {
+        return queue.size();
+    }
+
+    private int permits() {
+        return (int) limit;
+    }
+
+    /** Frees a permit, folds the sample into the limit and returns the calls admitted in its place. */
+    private synchronized List<Admission<?>> release(Sample sample, long rttNanos, int inflightAtStart) {
+        inflight--;
+        if (sample == Sample.LATENCY) {
+            onLatency(rttNanos, inflightAtStart);
+        } else if (sample == Sample.DROPPED) {
+            limit = clamp(limit * BACKOFF);
+        }
+        List<Admission<?>> admitted = List.of();
+        while (!queue.isEmpty() && inflight < permits()) {
+            if (admitted.isEmpty()) {
+                admitted = new ArrayList<>();
+            }
+            Admission<?> next = queue.pollFirst();
+            next.admit();
+            admitted.add(next);
+        }
+        return admitted;
+    }
+
+    private void onLatency(long rttNanos, int inflightAtStart) {
+        if (longRttNanos < 0) {
+            longRttNanos = rttNanos;
+            shortRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+            shortRttNanos += (rttNanos - shortRttNanos) / SHORT_WINDOW;
+        }
+        // After a lasting latency increase the long-term average would hold the limit down for
+        // hundreds of samples; let it follow faster once the gap is this large
+        if (longRttNanos > DRIFT_RATIO * shortRttNanos) {
+            longRttNanos *= 0.95;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRttNanos / Math.max(1, shortRttNanos)));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        if (estimate > limit && inflightAtStart < limit / 2) {
+            return;
+        }
+        update(estimate);
+    }
+
+    private void update(double estimate) {
+        limit = clamp(limit * (1 - config.smoothing()) + estimate * config.smoothing());
+    }
+
+    private double clamp(double value) {
+        return Math.max(config.minLimit(), Math.min(config.maxLimit(), value));
+    }
+
+    private static Sample classify(Throwable e) {
+        if (e instanceof DownstreamUnavailableException) {
+            // Breaker open or shed further down: the downstream was not called
+            return Sample.NONE;
+        }
+        return DownstreamPolicy.isDownstreamFailure(e) ? Sample.DROPPED : Sample.LATENCY;
+    }
+
+    private Timer queueWaitTimer(String outcome) {
+        return Timer.builder(QUEUE_WAIT_METRIC)
+                .description("Time a downstream call waited for a concurrency permit")
+                .tag("downstream", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static long nowNanos() {
+        return Schedulers.parallel().now(TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * One call from arrival to completion. Queue membership, {@link #admitted} and
+     * {@link #shedding} are guarded by the limiter; {@link #released} makes sure the permit is
+     * given back exactly once, whether the call completes or is cancelled before or while running.
+     */
+    private final class Admission<T> {
+
+        private final MonoSink<T> sink;
+        private final Supplier<Mono<T>> call;
+        private final long arrivedNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private boolean admitted;
+        private boolean shedding;
+        private int inflightAtStart;
+        private volatile Disposable expiry;
+        private final AtomicReference<Disposable> running = new AtomicReference<>();
+
+        Admission(MonoSink<T> sink, Supplier<Mono<T>> call, long arrivedNanos) {
+            this.sink = sink;
+            this.call = call;
+            this.arrivedNanos = arrivedNanos;
+        }
+
+        /** Takes a permit; called with the limiter's lock held. */
+        void admit() {
+            admitted = true;
+            inflight++;
+            inflightAtStart = inflight;
+        }
+
+        void start() {
+            Disposable pendingExpiry = expiry;
+            if (pendingExpiry != null) {
+                pendingExpiry.dispose();
+            }
+            if (running.get() == CANCELLED) {
+                release(Sample.NONE, 0);
+                return;
+            }
+            long startNanos = nowNanos();
+            admittedWait.record(startNanos - arrivedNanos, TimeUnit.NANOSECONDS);
+            // Holder for the value: a Mono signals it before completing
+            Object[] value = new Object[1];
+            Disposable subscription = Mono.defer(call)
+                    .contextWrite(sink.contextView())
+                    .subscribe(
+                            v -> value[0] = v,
+                            e -> {
+                                release(classify(e), nowNanos() - startNanos);
+                                sink.error(e);
+                            },
+                            () -> {
+                                release(Sample.LATENCY, nowNanos() - startNanos);
+                                @SuppressWarnings("unchecked")
+                                T result = (T) value[0];
+                                if (result != null) {
+                                    sink.success(result);
+                                } else {
+                                    sink.success();
+                                }
+                            });
+            if (!running.compareAndSet(null, subscription)) {
+                // Cancelled while subscribing
+                subscription.dispose();
+                release(Sample.NONE, 0);
+            }
+        }
+
+        void scheduleExpiry() {
+            expiry = Schedulers.parallel().schedule(this::expire, config.maxQueueTime().toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        private void expire() {
+            synchronized (AdaptiveConcurrencyLimiter.this) {
+                if (admitted || shedding || !queue.remove(this)) {
+                    return;
+                }
+                shedding = true;
+            }
+            shed(SHED_QUEUE_TIMEOUT);
+        }
+
+        void shed(String reason) {
+            Disposable pendingExpiry = expiry;
+            if (pendingExpiry != null) {
+                pendingExpiry.dispose();
+            }
+            shedWait.record(nowNanos() - arrivedNanos, TimeUnit.NANOSECONDS);
+            meterRegistry.counter(SHED_METRIC, "downstream", name, "reason", reason).increment();
+            sink.error(new DownstreamOverloadedException(name, reason));
+        }
+
+        void cancel() {
+            synchronized (AdaptiveConcurrencyLimiter.this) {
+                if (!admitted) {
+                    queue.remove(this);
+                    shedding = true;
+                }
+            }
+            Disposable pendingExpiry = expiry;
+            if (pendingExpiry != null) {
+                pendingExpiry.dispose();
+            }
+            Disposable subscription = running.getAndSet(CANCELLED);
+            if (subscription != null && subscription != CANCELLED) {
+                subscription.dispose();
+                release(Sample.NONE, 0);
+            }
+        }
+
+        private void release(Sample sample, long rttNanos) {
+            if (released.compareAndSet(false, true)) {
+                for (Admission<?> next : AdaptiveConcurrencyLimiter.this.release(sample, rttNanos, inflightAtStart)) {
+                    next.start();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.bff.client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Where OAuth2 authorized clients are kept, bound from {@code app.hcp-token.store.*}: the
+ * {@code hcp} client_credentials token and, with {@code mongo}, the {@code hsid} tokens of
+ * signed-in users, which the session then refers to by key.
+ *
+ * @param type              where authorized clients are kept
+ * @param collection        MongoDB collection holding one document per registration and principal
+ * @param nearCacheTtl      how long a client read from MongoDB is served from this pod's memory
+ * @param leaseDuration     how long a pod may hold the refresh lease of a registration; also how long
+ *                          other pods wait for the holder's token before requesting one themselves
+ * @param leasePollInterval how often a pod waiting on another pod's lease re-reads the shared token
+ * @param retention         how long a document is kept after its last save before MongoDB removes it;
+ *                          at least {@code app.session.sliding.maximum-lifetime}, so user tokens
+ *                          outlive the sessions referring to them
+ */
+@ConfigurationProperties("app.hcp-token.store")
+public record AuthorizedClientStoreProperties(
+    @DefaultValue("mongo") StoreType type,
+    @DefaultValue("oauth2_authorized_clients") String collection,
+    @DefaultValue("10s") Duration nearCacheTtl,
+    @DefaultValue("10s") Duration leaseDuration,
+    @DefaultValue("200ms") Duration leasePollInterval,
+    @DefaultValue("12h") Duration retention
+) {
+
+    public enum StoreType {
+        /** {@link MongoAuthorizedClientService}, shared by all replicas; sessions hold a key to their tokens */
+        MONGO,
+        /** Heap of this instance only; every replica requests its own token, sessions hold their tokens */
+        MEMORY
+    }
+}
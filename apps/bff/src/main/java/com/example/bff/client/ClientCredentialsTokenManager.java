@@ -0,0 +1,317 @@
+package com.example.bff.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.endpoint.OAuth2ClientCredentialsGrantRequest;
+import org.springframework.security.oauth2.client.endpoint.ReactiveOAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link ReactiveOAuth2AuthorizedClientManager} that keeps one client_credentials registration's
+ * token fresh in the background and serves it from memory.
+ * <p>
+ * <b>Behavior:</b>
+ * <ul>
+ *   <li>The first token is fetched at startup without blocking it.</li>
+ *   <li>Each token is refreshed after {@code refresh-at} of its lifetime, brought forward by a random
+ *       {@code jitter}. Callers keep getting the current token while the refresh runs.</li>
+ *   <li>Only when there is no usable token (startup, or refreshes failing until expiry) does a caller
+ *       wait; all such callers share a single in-flight token request, which is not cancelled when a
+ *       caller goes away.</li>
+ *   <li>Failed refreshes are retried with exponential backoff.</li>
+ *   <li>Other registrations are passed to the delegate manager.</li>
+ * </ul>
+ * <b>Shared store:</b> with a {@link MongoAuthorizedClientService}, replicas share one token. A refresh
+ * first reads the stored token and adopts it if it is usable and not the one this pod already has,
+ * so a pod that starts or refreshes after another one does not call the token endpoint. Otherwise
+ * the pod takes the registration's lease, requests a token and stores it; while another pod holds the
+ * lease, it re-reads the store every {@code lease-poll-interval} until that pod's token appears, and
+ * requests one itself after {@code lease-duration}. If the store cannot be reached the pod behaves as
+ * if there were none.
+ * <p>
+ * Publishes {@code oauth2.client.token.age} (seconds since the current token was issued), the
+ * {@code oauth2.client.token.refresh} timer tagged with {@code outcome}, and
+ * {@code oauth2.client.token.obtained} tagged with {@code source} = {@code token_endpoint} or
+ * {@code shared_store}.
+ */
+public class ClientCredentialsTokenManager
+        implements ReactiveOAuth2AuthorizedClientManager, InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientCredentialsTokenManager.class);
+
+    static final String PRINCIPAL_NAME = "bff";
+
+    private static final Authentication PRINCIPAL = UsernamePasswordAuthenticationToken.unauthenticated(PRINCIPAL_NAME, null);
+
+    private final String registrationId;
+    private final ReactiveOAuth2AuthorizedClientManager delegate;
+    private final ReactiveClientRegistrationRepository clientRegistrationRepository;
+    private final ReactiveOAuth2AccessTokenResponseClient<OAuth2ClientCredentialsGrantRequest> tokenResponseClient;
+    private final MongoAuthorizedClientService sharedStore;
+    private final TokenRefreshProperties properties;
+    private final Scheduler scheduler;
+    private final Timer refreshSuccess;
+    private final Timer refreshFailure;
+    private final Counter obtainedFromEndpoint;
+    private final Counter obtainedFromStore;
+
+    private final AtomicReference<OAuth2AuthorizedClient> current = new AtomicReference<>();
+    private final AtomicReference<Mono<OAuth2AuthorizedClient>> inFlight = new AtomicReference<>();
+    private final Disposable.Swap scheduledRefresh = Disposables.swap();
+    private int consecutiveFailures;
+    private volatile boolean stopped;
+
+    public ClientCredentialsTokenManager(
+            String registrationId,
+            ReactiveOAuth2AuthorizedClientManager delegate,
+            ReactiveClientRegistrationRepository clientRegistrationRepository,
+            ReactiveOAuth2AccessTokenResponseClient<OAuth2ClientCredentialsGrantRequest> tokenResponseClient,
+            MongoAuthorizedClientService sharedStore,
+            TokenRefreshProperties properties,
+            MeterRegistry meterRegistry,
+            Scheduler scheduler) {
+        this.registrationId = registrationId;
+        this.delegate = delegate;
+        this.clientRegistrationRepository = clientRegistrationRepository;
+        this.tokenResponseClient = tokenResponseClient;
+        this.sharedStore = sharedStore;
+        this.properties = properties;
+        this.scheduler = scheduler;
+        this.refreshSuccess = refreshTimer(meterRegistry, "success");
+        this.refreshFailure = refreshTimer(meterRegistry, "failure");
+        this.obtainedFromEndpoint = obtainedCounter(meterRegistry, "token_endpoint");
+        this.obtainedFromStore = obtainedCounter(meterRegistry, "shared_store");
+        Gauge.builder("oauth2.client.token.age", this, ClientCredentialsTokenManager::tokenAgeSeconds)
+                .description("Seconds since the current client_credentials token was issued")
+                .baseUnit("seconds")
+                .tag("client.registration", registrationId)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // Not tracked in scheduledRefresh: the task replaces that slot itself once the token arrives.
+        scheduler.schedule(this::backgroundRefresh);
+    }
+
+    @Override
+    public void destroy() {
+        stopped = true;
+        scheduledRefresh.dispose();
+    }
+
+    @Override
+    public Mono<OAuth2AuthorizedClient> authorize(OAuth2AuthorizeRequest authorizeRequest) {
+        if (!registrationId.equals(authorizeRequest.getClientRegistrationId())) {
+            return delegate.authorize(authorizeRequest);
+        }
+        OAuth2AuthorizedClient client = current.get();
+        if (client != null && isUsable(client.getAccessToken())) {
+            return Mono.just(client);
+        }
+        return Mono.defer(this::refresh);
+    }
+
+    /**
+     * Joins the in-flight token request or starts one.
+     */
+    Mono<OAuth2AuthorizedClient> refresh() {
+        Sinks.One<OAuth2AuthorizedClient> result = Sinks.one();
+        Mono<OAuth2AuthorizedClient> shared = result.asMono();
+        Mono<OAuth2AuthorizedClient> existing = inFlight.compareAndExchange(null, shared);
+        if (existing != null) {
+            return existing;
+        }
+        long start = scheduler.now(TimeUnit.NANOSECONDS);
+        fetchToken()
+                .switchIfEmpty(Mono.error(() ->
+                        new IllegalStateException("No '" + registrationId + "' token was returned")))
+                .subscribe(
+                client -> {
+                    refreshSuccess.record(scheduler.now(TimeUnit.NANOSECONDS) - start, TimeUnit.NANOSECONDS);
+                    current.set(client);
+                    inFlight.set(null);
+                    onRefreshed(client.getAccessToken());
+                    result.tryEmitValue(client);
+                },
+                e -> {
+                    refreshFailure.record(scheduler.now(TimeUnit.NANOSECONDS) - start, TimeUnit.NANOSECONDS);
+                    inFlight.set(null);
+                    onRefreshFailed(e);
+                    result.tryEmitError(e);
+                });
+        return shared;
+    }
+
+    private Mono<OAuth2AuthorizedClient> fetchToken() {
+        if (sharedStore == null) {
+            return requestToken();
+        }
+        OAuth2AuthorizedClient known = current.get();
+        return readShared(known)
+                .switchIfEmpty(Mono.defer(() -> acquireLease()
+                        .flatMap(leased -> leased
+                                ? requestAndShare().doFinally(signal -> releaseLease())
+                                : awaitShared(known))));
+    }
+
+    private Mono<OAuth2AuthorizedClient> requestToken() {
+        return clientRegistrationRepository.findByRegistrationId(registrationId)
+                .switchIfEmpty(Mono.error(() ->
+                        new IllegalStateException("No client registration '" + registrationId + "'")))
+                .flatMap(registration -> tokenResponseClient
+                        .getTokenResponse(new OAuth2ClientCredentialsGrantRequest(registration))
+                        .map(response -> new OAuth2AuthorizedClient(
+                                registration, PRINCIPAL_NAME, response.getAccessToken())))
+                .doOnNext(client -> obtainedFromEndpoint.increment());
+    }
+
+    /**
+     * The stored token if another pod has put a usable one there since {@code known} was obtained.
+     */
+    private Mono<OAuth2AuthorizedClient> readShared(OAuth2AuthorizedClient known) {
+        return sharedStore.reloadAuthorizedClient(registrationId, PRINCIPAL_NAME)
+                .filter(stored -> isUsable(stored.getAccessToken())
+                        && (known == null || !stored.getAccessToken().getTokenValue()
+                                .equals(known.getAccessToken().getTokenValue())))
+                .doOnNext(stored -> obtainedFromStore.increment())
+                .onErrorResume(e -> {
+                    log.warn("Reading the shared '{}' token failed", registrationId, e);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Boolean> acquireLease() {
+        return sharedStore.acquireLease(registrationId, PRINCIPAL_NAME)
+                .onErrorResume(e -> {
+                    log.warn("Taking the '{}' token lease failed, requesting a token without it", registrationId, e);
+                    return Mono.just(true);
+                });
+    }
+
+    private void releaseLease() {
+        sharedStore.releaseLease(registrationId, PRINCIPAL_NAME)
+                .subscribe(null, e -> log.debug("Releasing the '{}' token lease failed", registrationId, e));
+    }
+
+    private Mono<OAuth2AuthorizedClient> requestAndShare() {
+        return requestToken()
+                .flatMap(client -> sharedStore.saveAuthorizedClient(client, PRINCIPAL)
+                        .onErrorResume(e -> {
+                            log.warn("Storing the '{}' token failed", registrationId, e);
+                            return Mono.empty();
+                        })
+                        .thenReturn(client));
+    }
+
+    /**
+     * Waits for the pod holding the lease to store its token; requests one here if none has
+     * appeared within the lease duration.
+     */
+    private Mono<OAuth2AuthorizedClient> awaitShared(OAuth2AuthorizedClient known) {
+        return Mono.defer(() -> readShared(known))
+                .repeatWhenEmpty(attempts -> attempts.concatMap(
+                        attempt -> Mono.delay(sharedStore.leasePollInterval(), scheduler)))
+                .timeout(sharedStore.leaseDuration(), Mono.defer(this::requestAndShare), scheduler);
+    }
+
+    private void backgroundRefresh() {
+        if (stopped) {
+            return;
+        }
+        refresh().subscribe(client -> { }, e -> { });
+    }
+
+    private synchronized void onRefreshed(OAuth2AccessToken token) {
+        consecutiveFailures = 0;
+        long delayMillis = refreshDelayMillis(token);
+        if (delayMillis >= 0) {
+            schedule(delayMillis);
+        }
+    }
+
+    private synchronized void onRefreshFailed(Throwable e) {
+        consecutiveFailures++;
+        long backoff = properties.retryBackoff().toMillis() << Math.min(consecutiveFailures - 1, 20);
+        long delayMillis = Math.min(backoff, properties.maxRetryBackoff().toMillis());
+        log.warn("Refreshing '{}' token failed ({} in a row), retrying in {} ms",
+                registrationId, consecutiveFailures, delayMillis, e);
+        schedule(delayMillis);
+    }
+
+    private void schedule(long delayMillis) {
+        if (!stopped) {
+            scheduledRefresh.update(scheduler.schedule(this::backgroundRefresh, delayMillis, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /**
+     * Milliseconds until {@code token} should be replaced, or -1 if it does not expire.
+     * Never less than {@code retry-backoff}, so a token server issuing very short-lived tokens
+     * cannot put the manager into a tight refresh loop.
+     */
+    long refreshDelayMillis(OAuth2AccessToken token) {
+        Instant expiresAt = token.getExpiresAt();
+        if (expiresAt == null) {
+            return -1;
+        }
+        long now = scheduler.now(TimeUnit.MILLISECONDS);
+        long issuedAt = token.getIssuedAt() != null ? token.getIssuedAt().toEpochMilli() : now;
+        long lifetime = Math.max(0, expiresAt.toEpochMilli() - issuedAt);
+        long jitter = (long) (lifetime * properties.jitter() * ThreadLocalRandom.current().nextDouble());
+        long refreshAt = issuedAt + (long) (lifetime * properties.refreshAt()) - jitter;
+        return Math.max(properties.retryBackoff().toMillis(), refreshAt - now);
+    }
+
+    private boolean isUsable(OAuth2AccessToken token) {
+        Instant expiresAt = token.getExpiresAt();
+        return expiresAt == null
+                || scheduler.now(TimeUnit.MILLISECONDS) < expiresAt.toEpochMilli() - properties.expirySkew().toMillis();
+    }
+
+    private double tokenAgeSeconds() {
+        OAuth2AuthorizedClient client = current.get();
+        if (client == null || client.getAccessToken().getIssuedAt() == null) {
+            return Double.NaN;
+        }
+        return (scheduler.now(TimeUnit.MILLISECONDS) - client.getAccessToken().getIssuedAt().toEpochMilli()) / 1000.0;
+    }
+
+    private Counter obtainedCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("oauth2.client.token.obtained")
+                .description("client_credentials tokens obtained, by where they came from")
+                .tag("client.registration", registrationId)
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private Timer refreshTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("oauth2.client.token.refresh")
+                .description("Latency of client_credentials token requests")
+                .tag("client.registration", registrationId)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
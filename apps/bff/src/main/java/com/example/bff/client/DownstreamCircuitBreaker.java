@@ -0,0 +1,130 @@
+package com.example.bff.client;
+
+import com.example.bff.client.DownstreamProperties.CircuitBreaker;
+
+/**
+ * Count-based circuit breaker.
+ * <p>
+ * <b>States:</b>
+ * <ul>
+ *   <li><b>CLOSED</b> – calls pass; outcomes fill a sliding window. Once the window holds
+ *       {@code minimumCalls} outcomes and the failure rate reaches the threshold, it opens.</li>
+ *   <li><b>OPEN</b> – calls are rejected until {@code openDuration} has elapsed.</li>
+ *   <li><b>HALF_OPEN</b> – up to {@code halfOpenCalls} trial calls pass. All succeeding closes
+ *       the breaker; any failure opens it again.</li>
+ * </ul>
+ */
+class DownstreamCircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final CircuitBreaker config;
+    private final boolean[] window;
+    private int windowCount;
+    private int windowPosition;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAtMillis;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    DownstreamCircuitBreaker(CircuitBreaker config) {
+        this.config = config;
+        this.window = new boolean[Math.max(1, config.slidingWindowSize())];
+    }
+
+    /** Returns whether a call may proceed; a granted half-open permit must be settled by an outcome. */
+    synchronized boolean tryAcquire(long nowMillis) {
+        if (!config.enabled()) {
+            return true;
+        }
+        if (state == State.OPEN && nowMillis - openedAtMillis >= config.openDuration().toMillis()) {
+            state = State.HALF_OPEN;
+            halfOpenPermits = config.halfOpenCalls();
+            halfOpenSuccesses = 0;
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (halfOpenPermits > 0) {
+                    halfOpenPermits--;
+                    yield true;
+                }
+                yield false;
+            }
+        };
+    }
+
+    synchronized void onSuccess() {
+        if (!config.enabled()) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= config.halfOpenCalls()) {
+                state = State.CLOSED;
+                resetWindow();
+            }
+            return;
+        }
+        record(false, 0);
+    }
+
+    synchronized void onFailure(long nowMillis) {
+        if (!config.enabled()) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            open(nowMillis);
+            return;
+        }
+        record(true, nowMillis);
+    }
+
+    /** A cancelled call has no outcome; give a half-open permit back. */
+    synchronized void onCancel() {
+        if (state == State.HALF_OPEN && halfOpenPermits < config.halfOpenCalls()) {
+            halfOpenPermits++;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failure, long nowMillis) {
+        if (state != State.CLOSED) {
+            return;
+        }
+        if (windowCount == window.length) {
+            if (window[windowPosition]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowPosition] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowPosition = (windowPosition + 1) % window.length;
+
+        if (windowCount >= config.minimumCalls()
+                && windowFailures * 100 >= config.failureRateThreshold() * windowCount) {
+            open(nowMillis);
+        }
+    }
+
+    private void open(long nowMillis) {
+        state = State.OPEN;
+        openedAtMillis = nowMillis;
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        windowCount = 0;
+        windowPosition = 0;
+        windowFailures = 0;
+    }
+}
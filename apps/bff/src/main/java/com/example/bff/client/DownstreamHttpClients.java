@@ -0,0 +1,46 @@
+package com.example.bff.client;
+
+import com.example.bff.client.DownstreamProperties.Downstream;
+import com.example.bff.client.DownstreamProperties.Http;
+import com.example.bff.client.DownstreamProperties.Pool;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Builds the Reactor Netty resources for one downstream.
+ * <p>
+ * Each downstream gets its own named {@link ConnectionProvider} so a slow service cannot exhaust
+ * connections needed by another one. Pools are created with metrics enabled; Reactor Netty publishes
+ * them as {@code reactor.netty.connection.provider.*} meters tagged with the pool {@code name}
+ * (total/active/idle/pending connections and the pending-acquire time).
+ */
+public final class DownstreamHttpClients {
+
+    private DownstreamHttpClients() {
+    }
+
+    public static ConnectionProvider connectionProvider(String name, Pool pool) {
+        return ConnectionProvider.builder(name)
+                .maxConnections(pool.maxConnections())
+                .maxIdleTime(pool.maxIdleTime())
+                .maxLifeTime(pool.maxLifeTime())
+                .pendingAcquireMaxCount(pool.pendingAcquireMaxCount())
+                .pendingAcquireTimeout(pool.pendingAcquireTimeout())
+                .evictInBackground(pool.evictInBackground())
+                .metrics(true)
+                .build();
+    }
+
+    public static HttpClient httpClient(ConnectionProvider connectionProvider, Downstream downstream) {
+        Http http = downstream.http();
+        HttpClient client = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) http.connectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, http.keepAlive())
+                .keepAlive(http.keepAlive())
+                .compress(http.compression())
+                .responseTimeout(downstream.timeout());
+        return http.http2() ? client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11) : client;
+    }
+}
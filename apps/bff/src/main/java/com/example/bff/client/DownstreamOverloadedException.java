@@ -0,0 +1,20 @@
+package com.example.bff.client;
+
+/**
+ * Raised without calling the downstream service when its {@link AdaptiveConcurrencyLimiter}
+ * sheds the call: the admission queue was full, or the call waited longer than allowed.
+ */
+public class DownstreamOverloadedException extends DownstreamUnavailableException {
+
+    private final String reason;
+
+    public DownstreamOverloadedException(String downstream, String reason) {
+        super(downstream, "Call to downstream '%s' shed: %s".formatted(downstream, reason));
+        this.reason = reason;
+    }
+
+    /** {@code queue_full}, {@code dropped_oldest} or {@code queue_timeout}. */
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.bff.client;
+
+import com.example.bff.client.DownstreamProperties.Downstream;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Applies one downstream's call policy: concurrency limit, circuit breaker, hedged second attempt
+ * and timeout.
+ * <p>
+ * <b>Per call:</b>
+ * <ol>
+ *   <li>The call waits for a permit from the {@link AdaptiveConcurrencyLimiter}, or is shed with
+ *       {@link DownstreamOverloadedException}. Shed calls do not count for the circuit breaker.</li>
+ *   <li>If the circuit breaker is open the call fails immediately with
+ *       {@link DownstreamUnavailableException}; the downstream is not contacted.</li>
+ *   <li>The first attempt is started. If hedging is enabled and enough latencies have been
+ *       observed, a second attempt starts once the configured latency percentile has passed;
+ *       the first successful response wins and the other attempt is cancelled.</li>
+ *   <li>The whole call is bounded by the downstream's {@code timeout}.</li>
+ *   <li>5xx responses, timeouts and I/O errors count as failures for the breaker. 4xx responses
+ *       are the caller's problem and count as successes.</li>
+ * </ol>
+ * Only idempotent lookups should be run through a policy with hedging enabled.
+ */
+public class DownstreamPolicy {
+
+    private final String name;
+    private final Downstream config;
+    private final LatencyTracker latencies;
+    private final DownstreamCircuitBreaker circuitBreaker;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public DownstreamPolicy(String name, Downstream config, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.config = config;
+        this.latencies = new LatencyTracker(config.hedge().percentile());
+        this.circuitBreaker = new DownstreamCircuitBreaker(config.circuitBreaker());
+        this.limiter = config.concurrency() != null && config.concurrency().enabled()
+                ? new AdaptiveConcurrencyLimiter(name, config.concurrency(), meterRegistry)
+                : null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        return limiter == null ? guarded(call) : limiter.execute(() -> guarded(call));
+    }
+
+    private <T> Mono<T> guarded(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire(nowMillis())) {
+                return Mono.error(new DownstreamUnavailableException(name));
+            }
+            Mono<T> primary = timedAttempt(call);
+            long hedgeDelayNanos = hedgeDelayNanos();
+            Mono<T> attempts = hedgeDelayNanos < 0
+                    ? primary
+                    : Mono.firstWithValue(primary,
+                            Mono.delay(Duration.ofNanos(hedgeDelayNanos)).then(Mono.defer(call)))
+                        .onErrorMap(NoSuchElementException.class, DownstreamPolicy::unwrapAllFailed);
+            return attempts
+                    .timeout(config.timeout())
+                    .doOnSuccess(value -> circuitBreaker.onSuccess())
+                    .doOnError(e -> {
+                        if (isDownstreamFailure(e)) {
+                            circuitBreaker.onFailure(nowMillis());
+                        } else {
+                            circuitBreaker.onSuccess();
+                        }
+                    })
+                    .doOnCancel(circuitBreaker::onCancel);
+        });
+    }
+
+    /**
+     * The first attempt records its latency; a cancelled attempt records the time it had been
+     * running, so slow calls beaten by their hedge still push the percentile up.
+     */
+    private <T> Mono<T> timedAttempt(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long start = nowNanos();
+            return Mono.defer(call)
+                    .doOnSuccess(value -> latencies.record(nowNanos() - start))
+                    .doOnCancel(() -> latencies.record(nowNanos() - start));
+        });
+    }
+
+    long hedgeDelayNanos() {
+        if (!config.hedge().enabled() || latencies.count() < config.hedge().minimumSamples()) {
+            return -1;
+        }
+        long delay = Math.max(latencies.percentileNanos(), config.hedge().minDelay().toNanos());
+        return delay < config.timeout().toNanos() ? delay : -1;
+    }
+
+    AdaptiveConcurrencyLimiter limiter() {
+        return limiter;
+    }
+
+    DownstreamCircuitBreaker.State circuitBreakerState() {
+        return circuitBreaker.state();
+    }
+
+    static boolean isDownstreamFailure(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError();
+        }
+        return true;
+    }
+
+    /** {@code firstWithValue} reports "all failed" as NoSuchElementException; surface the last real cause. */
+    private static Throwable unwrapAllFailed(NoSuchElementException e) {
+        List<Throwable> causes = Exceptions.unwrapMultiple(e.getCause());
+        return causes.isEmpty() ? e : causes.getLast();
+    }
+
+    private static long nowMillis() {
+        return Schedulers.parallel().now(TimeUnit.MILLISECONDS);
+    }
+
+    private static long nowNanos() {
+        return Schedulers.parallel().now(TimeUnit.NANOSECONDS);
+    }
+}
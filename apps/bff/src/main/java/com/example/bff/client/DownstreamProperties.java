@@ -0,0 +1,137 @@
+package com.example.bff.client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Per-downstream call policy and connection settings bound from {@code app.user-service.*},
+ * {@code app.psn.*} and {@code app.hcp-token.*}. The HCP token endpoint only uses
+ * {@code timeout}, {@code pool} and {@code http}; its URL comes from the {@code hcp} client registration.
+ */
+@ConfigurationProperties("app")
+public record DownstreamProperties(
+    @DefaultValue Downstream userService,
+    @DefaultValue Downstream psn,
+    @DefaultValue Downstream hcpToken
+) {
+
+    /**
+     * @param baseUrl        base URL of the service
+     * @param timeout        overall deadline for one logical call, hedged attempt included
+     * @param hedge          second-attempt settings
+     * @param circuitBreaker failure isolation settings
+     * @param pool           dedicated connection pool settings
+     * @param http           HTTP client settings
+     * @param concurrency    adaptive concurrency limit and admission queue; {@code null} means unlimited
+     */
+    public record Downstream(
+        String baseUrl,
+        @DefaultValue("2s") Duration timeout,
+        @DefaultValue Hedge hedge,
+        @DefaultValue CircuitBreaker circuitBreaker,
+        @DefaultValue Pool pool,
+        @DefaultValue Http http,
+        @DefaultValue Concurrency concurrency
+    ) {
+    }
+
+    /**
+     * @param maxConnections         connections kept open to the downstream
+     * @param maxIdleTime            idle time after which a pooled connection is closed
+     * @param maxLifeTime            age after which a pooled connection is closed
+     * @param pendingAcquireMaxCount requests allowed to wait for a connection; further ones fail fast
+     * @param pendingAcquireTimeout  how long a request waits for a connection
+     * @param evictInBackground      interval of the background eviction sweep
+     */
+    public record Pool(
+        @DefaultValue("50") int maxConnections,
+        @DefaultValue("30s") Duration maxIdleTime,
+        @DefaultValue("5m") Duration maxLifeTime,
+        @DefaultValue("200") int pendingAcquireMaxCount,
+        @DefaultValue("1s") Duration pendingAcquireTimeout,
+        @DefaultValue("30s") Duration evictInBackground
+    ) {
+    }
+
+    /**
+     * @param connectTimeout TCP connect timeout
+     * @param keepAlive      HTTP keep-alive and TCP {@code SO_KEEPALIVE}
+     * @param http2          negotiate HTTP/2 (ALPN over TLS), falling back to HTTP/1.1
+     * @param compression    request gzip responses
+     */
+    public record Http(
+        @DefaultValue("1s") Duration connectTimeout,
+        @DefaultValue("true") boolean keepAlive,
+        @DefaultValue("false") boolean http2,
+        @DefaultValue("true") boolean compression
+    ) {
+    }
+
+    /**
+     * A second attempt is started when the first has not answered within the observed
+     * {@code percentile} latency (never sooner than {@code minDelay}); the first response wins.
+     *
+     * @param enabled        whether hedging is used
+     * @param percentile     latency percentile, in {@code (0, 1)}, after which the hedge is sent
+     * @param minDelay       lower bound for the hedge delay
+     * @param minimumSamples successful calls observed before hedging starts
+     */
+    public record Hedge(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("0.95") double percentile,
+        @DefaultValue("50ms") Duration minDelay,
+        @DefaultValue("20") int minimumSamples
+    ) {
+    }
+
+    /**
+     * @param enabled              whether the breaker is used
+     * @param failureRateThreshold failure percentage over the window that opens the breaker
+     * @param slidingWindowSize    number of most recent calls considered
+     * @param minimumCalls         calls required in the window before the rate is evaluated
+     * @param openDuration         how long calls are rejected before trial calls are let through
+     * @param halfOpenCalls        trial calls that must all succeed to close the breaker again
+     */
+    public record CircuitBreaker(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("50") int failureRateThreshold,
+        @DefaultValue("20") int slidingWindowSize,
+        @DefaultValue("10") int minimumCalls,
+        @DefaultValue("30s") Duration openDuration,
+        @DefaultValue("3") int halfOpenCalls
+    ) {
+    }
+
+    /**
+     * Calls beyond the current limit wait in a FIFO queue; see {@link AdaptiveConcurrencyLimiter}.
+     *
+     * @param enabled      whether concurrent calls are limited
+     * @param initialLimit concurrent calls allowed before any latency has been observed
+     * @param minLimit     lower bound of the limit
+     * @param maxLimit     upper bound of the limit
+     * @param smoothing    weight of each new estimate, in {@code (0, 1]}
+     * @param queueSize    calls allowed to wait for a permit; {@code 0} sheds as soon as the limit is reached
+     * @param maxQueueTime longest wait for a permit before the call is shed
+     * @param shedPolicy   which call is shed when a call arrives at a full queue
+     */
+    public record Concurrency(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("20") int initialLimit,
+        @DefaultValue("4") int minLimit,
+        @DefaultValue("50") int maxLimit,
+        @DefaultValue("0.2") double smoothing,
+        @DefaultValue("100") int queueSize,
+        @DefaultValue("500ms") Duration maxQueueTime,
+        @DefaultValue("reject-newest") ShedPolicy shedPolicy
+    ) {
+    }
+
+    public enum ShedPolicy {
+        /** The arriving call fails; queued calls keep their place */
+        REJECT_NEWEST,
+        /** The longest-waiting call fails and the arriving call is queued; favors fresh requests */
+        DROP_OLDEST
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.bff.client;
+
+/**
+ * Raised without calling the downstream service when its circuit breaker is open, or when the
+ * call is shed ({@link DownstreamOverloadedException}).
+ */
+public class DownstreamUnavailableException extends RuntimeException {
+
+    private final String downstream;
+
+    public DownstreamUnavailableException(String downstream) {
+        this(downstream, "Circuit breaker open for downstream '%s'".formatted(downstream));
+    }
+
+    protected DownstreamUnavailableException(String downstream, String message) {
+        super(message, null, false, false);
+        this.downstream = downstream;
+    }
+
+    public String getDownstream() {
+        return downstream;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bff.client;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size window of recent successful call latencies with a cached percentile.
+ * The percentile is recomputed at most once per {@code RECOMPUTE_EVERY} samples.
+ */
+class LatencyTracker {
+
+    private static final int WINDOW = 512;
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final long[] samples = new long[WINDOW];
+    private final double percentile;
+    private long count;
+    private long cachedNanos = -1;
+
+    LatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    synchronized void record(long nanos) {
+        samples[(int) (count % WINDOW)] = nanos;
+        count++;
+        if (count % RECOMPUTE_EVERY == 0) {
+            cachedNanos = -1;
+        }
+    }
+
+    synchronized long count() {
+        return count;
+    }
+
+    /** The configured percentile of the window in nanoseconds, or -1 when empty. */
+    synchronized long percentileNanos() {
+        if (count == 0) {
+            return -1;
+        }
+        if (cachedNanos < 0) {
+            int size = (int) Math.min(count, WINDOW);
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * size) - 1;
+            cachedNanos = sorted[Math.max(0, Math.min(size - 1, index))];
+        }
+        return cachedNanos;
+    }
+}
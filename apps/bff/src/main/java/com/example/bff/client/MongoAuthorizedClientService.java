@@ -0,0 +1,245 @@
+package com.example.bff.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * {@link ReactiveOAuth2AuthorizedClientService} backed by reactive MongoDB, so all replicas share
+ * one authorized client (and so one token) per registration and principal.
+ * <p>
+ * <b>Behavior:</b>
+ * <ul>
+ *   <li>One document per registration and principal, keyed {@code registrationId:principalName},
+ *       holding the access token, its scopes and lifetime, and the refresh token if there is one.</li>
+ *   <li>Reads are served from an in-process near cache for {@code near-cache-ttl}; a token saved
+ *       by another pod is seen here at the latest when the cached entry expires.
+ *       {@link #reloadAuthorizedClient} bypasses the cache.</li>
+ *   <li>A refresh lease per document lets one pod at a time request a new token for a registration:
+ *       {@link #acquireLease} succeeds when the lease is free, expired or already held by this pod.
+ *       Lease expiry is compared with each pod's clock, so clocks should agree to well within
+ *       {@code lease-duration}.</li>
+ *   <li>Each save sets {@code expireAt} to {@code retention} from now; a TTL index removes
+ *       documents past it, such as user tokens whose session ended without a logout.</li>
+ * </ul>
+ */
+public class MongoAuthorizedClientService implements ReactiveOAuth2AuthorizedClientService, InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoAuthorizedClientService.class);
+
+    static final String FIELD_REGISTRATION_ID = "registrationId";
+    static final String FIELD_PRINCIPAL_NAME = "principalName";
+    static final String FIELD_TOKEN_TYPE = "tokenType";
+    static final String FIELD_TOKEN_VALUE = "tokenValue";
+    static final String FIELD_ISSUED_AT = "issuedAt";
+    static final String FIELD_EXPIRES_AT = "expiresAt";
+    static final String FIELD_SCOPES = "scopes";
+    static final String FIELD_REFRESH_TOKEN_VALUE = "refreshTokenValue";
+    static final String FIELD_REFRESH_TOKEN_ISSUED_AT = "refreshTokenIssuedAt";
+    static final String FIELD_LEASE_OWNER = "leaseOwner";
+    static final String FIELD_LEASE_UNTIL = "leaseUntil";
+    static final String FIELD_EXPIRE_AT = "expireAt";
+
+    private final ReactiveClientRegistrationRepository clientRegistrationRepository;
+    private final ReactiveMongoOperations mongoOperations;
+    private final AuthorizedClientStoreProperties properties;
+    private final Clock clock;
+    private final String leaseOwner = UUID.randomUUID().toString();
+    private final Cache<String, OAuth2AuthorizedClient> nearCache;
+
+    public MongoAuthorizedClientService(
+            ReactiveClientRegistrationRepository clientRegistrationRepository,
+            ReactiveMongoOperations mongoOperations,
+            AuthorizedClientStoreProperties properties) {
+        this(clientRegistrationRepository, mongoOperations, properties, Clock.systemUTC());
+    }
+
+    MongoAuthorizedClientService(
+            ReactiveClientRegistrationRepository clientRegistrationRepository,
+            ReactiveMongoOperations mongoOperations,
+            AuthorizedClientStoreProperties properties,
+            Clock clock) {
+        this.clientRegistrationRepository = clientRegistrationRepository;
+        this.mongoOperations = mongoOperations;
+        this.properties = properties;
+        this.clock = clock;
+        this.nearCache = Caffeine.newBuilder()
+                .expireAfterWrite(properties.nearCacheTtl())
+                .build();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        mongoOperations.indexOps(properties.collection())
+                .createIndex(new Index()
+                        .on(FIELD_EXPIRE_AT, Sort.Direction.ASC)
+                        .expire(Duration.ZERO)
+                        .named("expireAt_ttl"))
+                .subscribe(
+                        name -> log.debug("Authorized client TTL index '{}' ready", name),
+                        e -> log.warn("Could not create authorized client TTL index on '{}'", properties.collection(), e));
+    }
+
+    public Duration leaseDuration() {
+        return properties.leaseDuration();
+    }
+
+    public Duration leasePollInterval() {
+        return properties.leasePollInterval();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends OAuth2AuthorizedClient> Mono<T> loadAuthorizedClient(String clientRegistrationId, String principalName) {
+        return Mono.defer(() -> {
+            OAuth2AuthorizedClient cached = nearCache.getIfPresent(id(clientRegistrationId, principalName));
+            return cached != null
+                    ? Mono.just((T) cached)
+                    : reloadAuthorizedClient(clientRegistrationId, principalName).map(client -> (T) client);
+        });
+    }
+
+    /**
+     * Reads the authorized client from MongoDB, skipping and then refreshing the near cache.
+     */
+    public Mono<OAuth2AuthorizedClient> reloadAuthorizedClient(String clientRegistrationId, String principalName) {
+        String id = id(clientRegistrationId, principalName);
+        return mongoOperations.findById(id, Document.class, properties.collection())
+                .filter(document -> document.containsKey(FIELD_TOKEN_VALUE))
+                .flatMap(document -> clientRegistrationRepository.findByRegistrationId(clientRegistrationId)
+                        .map(registration -> toAuthorizedClient(registration, principalName, document)))
+                .doOnNext(client -> nearCache.put(id, client));
+    }
+
+    /**
+     * Upserts the tokens of {@code authorizedClient}; a lease on the document is left as it is.
+     */
+    @Override
+    public Mono<Void> saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+        return Mono.defer(() -> {
+            String registrationId = authorizedClient.getClientRegistration().getRegistrationId();
+            String id = id(registrationId, principal.getName());
+            OAuth2AccessToken accessToken = authorizedClient.getAccessToken();
+            OAuth2RefreshToken refreshToken = authorizedClient.getRefreshToken();
+            Update update = new Update()
+                    .set(FIELD_REGISTRATION_ID, registrationId)
+                    .set(FIELD_PRINCIPAL_NAME, principal.getName())
+                    .set(FIELD_TOKEN_TYPE, accessToken.getTokenType().getValue())
+                    .set(FIELD_TOKEN_VALUE, accessToken.getTokenValue())
+                    .set(FIELD_ISSUED_AT, toDate(accessToken.getIssuedAt()))
+                    .set(FIELD_EXPIRES_AT, toDate(accessToken.getExpiresAt()))
+                    .set(FIELD_SCOPES, List.copyOf(accessToken.getScopes()))
+                    .set(FIELD_EXPIRE_AT, Date.from(clock.instant().plus(properties.retention())));
+            if (refreshToken != null) {
+                update.set(FIELD_REFRESH_TOKEN_VALUE, refreshToken.getTokenValue())
+                        .set(FIELD_REFRESH_TOKEN_ISSUED_AT, toDate(refreshToken.getIssuedAt()));
+            } else {
+                update.unset(FIELD_REFRESH_TOKEN_VALUE).unset(FIELD_REFRESH_TOKEN_ISSUED_AT);
+            }
+            return mongoOperations.upsert(byId(id), update, properties.collection())
+                    .doOnSuccess(result -> nearCache.put(id, authorizedClient))
+                    .then();
+        });
+    }
+
+    @Override
+    public Mono<Void> removeAuthorizedClient(String clientRegistrationId, String principalName) {
+        return Mono.defer(() -> {
+            String id = id(clientRegistrationId, principalName);
+            nearCache.invalidate(id);
+            return mongoOperations.remove(byId(id), properties.collection()).then();
+        });
+    }
+
+    /**
+     * Takes the refresh lease of a registration and principal for {@code lease-duration}.
+     *
+     * @return {@code true} if this pod now holds the lease, {@code false} if another pod does
+     */
+    public Mono<Boolean> acquireLease(String clientRegistrationId, String principalName) {
+        return Mono.defer(() -> {
+            Date now = Date.from(clock.instant());
+            Query query = new Query(where("_id").is(id(clientRegistrationId, principalName))
+                    .orOperator(
+                            where(FIELD_LEASE_UNTIL).exists(false),
+                            where(FIELD_LEASE_UNTIL).lte(now),
+                            where(FIELD_LEASE_OWNER).is(leaseOwner)));
+            Update update = new Update()
+                    .set(FIELD_LEASE_OWNER, leaseOwner)
+                    .set(FIELD_LEASE_UNTIL, Date.from(clock.instant().plus(properties.leaseDuration())));
+            // A live lease held elsewhere makes the query miss, and the upsert then collides on _id
+            return mongoOperations.upsert(query, update, properties.collection())
+                    .thenReturn(true)
+                    .onErrorReturn(DuplicateKeyException.class, false);
+        });
+    }
+
+    /**
+     * Gives up the refresh lease if this pod holds it.
+     */
+    public Mono<Void> releaseLease(String clientRegistrationId, String principalName) {
+        return Mono.defer(() -> mongoOperations.updateFirst(
+                        new Query(where("_id").is(id(clientRegistrationId, principalName))
+                                .and(FIELD_LEASE_OWNER).is(leaseOwner)),
+                        new Update().unset(FIELD_LEASE_OWNER).unset(FIELD_LEASE_UNTIL),
+                        properties.collection())
+                .then());
+    }
+
+    private static OAuth2AuthorizedClient toAuthorizedClient(
+            ClientRegistration registration, String principalName, Document document) {
+        OAuth2AccessToken accessToken = new OAuth2AccessToken(
+                new OAuth2AccessToken.TokenType(document.getString(FIELD_TOKEN_TYPE)),
+                document.getString(FIELD_TOKEN_VALUE),
+                toInstant(document.getDate(FIELD_ISSUED_AT)),
+                toInstant(document.getDate(FIELD_EXPIRES_AT)),
+                new HashSet<>(document.getList(FIELD_SCOPES, String.class, List.of())));
+        String refreshTokenValue = document.getString(FIELD_REFRESH_TOKEN_VALUE);
+        OAuth2RefreshToken refreshToken = refreshTokenValue == null ? null
+                : new OAuth2RefreshToken(refreshTokenValue, toInstant(document.getDate(FIELD_REFRESH_TOKEN_ISSUED_AT)));
+        return new OAuth2AuthorizedClient(registration, principalName, accessToken, refreshToken);
+    }
+
+    private static String id(String clientRegistrationId, String principalName) {
+        return clientRegistrationId + ":" + principalName;
+    }
+
+    private static Query byId(String id) {
+        return new Query(where("_id").is(id));
+    }
+
+    private static Date toDate(Instant instant) {
+        return instant == null ? null : Date.from(instant);
+    }
+
+    private static Instant toInstant(Date date) {
+        return date == null ? null : date.toInstant();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.bff.client;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * {@link ClientHttpConnector} that dispatches each request to the connector registered for the
+ * longest base URL the request falls under (same scheme, host and port, path on a segment
+ * boundary), falling back to a default connector.
+ * <p>
+ * Lets one {@code WebClient} (and its OAuth2 filter) talk to several downstreams while each
+ * downstream keeps its own connection pool, including downstreams behind one gateway host that
+ * differ only by path.
+ */
+public class RoutingClientHttpConnector implements ClientHttpConnector {
+
+    /** Longest path first, so the most specific base URL wins. */
+    private final List<Route> routes = new ArrayList<>();
+    private final ClientHttpConnector defaultConnector;
+
+    public RoutingClientHttpConnector(ClientHttpConnector defaultConnector) {
+        this.defaultConnector = defaultConnector;
+    }
+
+    /**
+     * Routes requests under {@code baseUrl} to {@code connector}. Registering a base URL that is
+     * already routed to another connector fails, so two downstreams never silently share a pool.
+     * Must be called before the connector is used.
+     */
+    public RoutingClientHttpConnector route(String baseUrl, ClientHttpConnector connector) {
+        URI uri = URI.create(baseUrl);
+        Route route = new Route(origin(uri), basePath(uri), connector);
+        for (Route existing : routes) {
+            if (existing.origin().equals(route.origin()) && existing.path().equals(route.path())) {
+                if (existing.connector() != connector) {
+                    throw new IllegalStateException("Base URL " + baseUrl + " is already routed to another connector");
+                }
+                return this;
+            }
+        }
+        routes.add(route);
+        routes.sort(Comparator.comparingInt((Route r) -> r.path().length()).reversed());
+        return this;
+    }
+
+    @Override
+    public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri,
+                                            Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+        return connectorFor(uri).connect(method, uri, requestCallback);
+    }
+
+    ClientHttpConnector connectorFor(URI uri) {
+        String origin = origin(uri);
+        String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+        for (Route route : routes) {
+            if (route.origin().equals(origin) && route.matches(path)) {
+                return route.connector();
+            }
+        }
+        return defaultConnector;
+    }
+
+    static String origin(URI uri) {
+        String scheme = uri.getScheme() == null ? "http" : uri.getScheme().toLowerCase(Locale.ROOT);
+        int port = uri.getPort();
+        if (port == -1) {
+            port = "https".equals(scheme) ? 443 : 80;
+        }
+        String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+        return scheme + "://" + host + ":" + port;
+    }
+
+    /** The base URL's path without a trailing slash; empty for the root. */
+    private static String basePath(URI uri) {
+        String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+        return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    private record Route(String origin, String path, ClientHttpConnector connector) {
+
+        boolean matches(String requestPath) {
+            return path.isEmpty()
+                    || requestPath.equals(path)
+                    || requestPath.startsWith(path) && requestPath.charAt(path.length()) == '/';
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.bff.client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Background refresh of the {@code hcp} client_credentials token, bound from {@code app.hcp-token.refresh.*}.
+ *
+ * @param refreshAt       fraction of the token lifetime after which it is refreshed, in {@code (0, 1)}
+ * @param jitter          fraction of the lifetime by which the refresh is randomly brought forward,
+ *                        so pods started together do not refresh together
+ * @param expirySkew      a token this close to expiry is no longer handed out
+ * @param retryBackoff    first retry delay after a failed refresh; doubled per consecutive failure
+ * @param maxRetryBackoff upper bound for the retry delay
+ */
+@ConfigurationProperties("app.hcp-token.refresh")
+public record TokenRefreshProperties(
+    @DefaultValue("0.75") double refreshAt,
+    @DefaultValue("0.1") double jitter,
+    @DefaultValue("30s") Duration expirySkew,
+    @DefaultValue("1s") Duration retryBackoff,
+    @DefaultValue("30s") Duration maxRetryBackoff
+) {
+}
@@ -0,0 +1,47 @@
+package com.example.bff.config;
+
+import com.example.bff.security.DelegateAuthorizationManager;
+import com.example.bff.security.PersonaAuthorizationManager;
+import com.example.bff.security.PersonaRequestMappingHandlerMapping;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.webflux.autoconfigure.WebFluxRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+
+import java.time.Clock;
+
+/**
+ * Persona and delegate authorization: {@code @RequiredPersona} and {@code @RequiredDelegate} rules
+ * are enforced by the annotated-controller handler mapping rather than by method interception.
+ */
+@Configuration
+public class AuthorizationConfig {
+
+    @Bean
+    public PersonaAuthorizationManager personaAuthorizationManager() {
+        return new PersonaAuthorizationManager();
+    }
+
+    /**
+     * Delegate permission dates are compared with today's date in UTC.
+     */
+    @Bean
+    public DelegateAuthorizationManager delegateAuthorizationManager() {
+        return new DelegateAuthorizationManager(Clock.systemUTC());
+    }
+
+    @Bean
+    public WebFluxRegistrations personaWebFluxRegistrations(
+            PersonaAuthorizationManager personaAuthorizationManager,
+            DelegateAuthorizationManager delegateAuthorizationManager,
+            MeterRegistry meterRegistry) {
+        return new WebFluxRegistrations() {
+            @Override
+            public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+                return new PersonaRequestMappingHandlerMapping(
+                        personaAuthorizationManager, delegateAuthorizationManager, meterRegistry);
+            }
+        };
+    }
+}
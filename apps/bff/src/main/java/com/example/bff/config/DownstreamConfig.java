@@ -0,0 +1,95 @@
+package com.example.bff.config;
+
+import com.example.bff.client.DownstreamHttpClients;
+import com.example.bff.client.DownstreamPolicy;
+import com.example.bff.client.DownstreamProperties;
+import com.example.bff.client.RoutingClientHttpConnector;
+import com.example.bff.proxy.ProxyProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.security.oauth2.client.endpoint.WebClientReactiveClientCredentialsTokenResponseClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.Map;
+
+@Configuration
+public class DownstreamConfig {
+
+    @Bean
+    public DownstreamPolicy userServicePolicy(DownstreamProperties downstreamProperties, MeterRegistry meterRegistry) {
+        return new DownstreamPolicy("user-service", downstreamProperties.userService(), meterRegistry);
+    }
+
+    @Bean
+    public DownstreamPolicy psnPolicy(DownstreamProperties downstreamProperties, MeterRegistry meterRegistry) {
+        return new DownstreamPolicy("psn", downstreamProperties.psn(), meterRegistry);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider userServiceConnectionProvider(DownstreamProperties downstreamProperties) {
+        return DownstreamHttpClients.connectionProvider("user-service", downstreamProperties.userService().pool());
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider psnConnectionProvider(DownstreamProperties downstreamProperties) {
+        return DownstreamHttpClients.connectionProvider("psn", downstreamProperties.psn().pool());
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider hcpTokenConnectionProvider(DownstreamProperties downstreamProperties) {
+        return DownstreamHttpClients.connectionProvider("hcp-token", downstreamProperties.hcpToken().pool());
+    }
+
+    /**
+     * Connector for {@code hcpWebClient}: user-service and PSN requests each use their own pool.
+     * Proxy routes are registered on the pool their {@code downstream} names.
+     */
+    @Bean
+    public RoutingClientHttpConnector hcpClientHttpConnector(
+            DownstreamProperties downstreamProperties,
+            ProxyProperties proxyProperties,
+            @Qualifier("userServiceConnectionProvider") ConnectionProvider userServiceConnectionProvider,
+            @Qualifier("psnConnectionProvider") ConnectionProvider psnConnectionProvider) {
+        var userService = downstreamProperties.userService();
+        var psn = downstreamProperties.psn();
+        Map<String, ReactorClientHttpConnector> pools = Map.of(
+                "user-service", new ReactorClientHttpConnector(
+                        DownstreamHttpClients.httpClient(userServiceConnectionProvider, userService)),
+                "psn", new ReactorClientHttpConnector(
+                        DownstreamHttpClients.httpClient(psnConnectionProvider, psn)));
+        var connector = new RoutingClientHttpConnector(new ReactorClientHttpConnector())
+                .route(userService.baseUrl(), pools.get("user-service"))
+                .route(psn.baseUrl(), pools.get("psn"));
+        proxyProperties.routes().forEach((name, route) -> {
+            if (route.downstream() == null || route.baseUrl() == null) {
+                return;
+            }
+            ReactorClientHttpConnector pool = pools.get(route.downstream());
+            if (pool == null) {
+                throw new IllegalStateException("app.proxy.routes." + name
+                        + ".downstream must be one of " + pools.keySet() + ", was '" + route.downstream() + "'");
+            }
+            connector.route(route.baseUrl(), pool);
+        });
+        return connector;
+    }
+
+    /**
+     * Token client for the {@code hcp} client_credentials registration, on its own pool.
+     */
+    @Bean
+    public WebClientReactiveClientCredentialsTokenResponseClient hcpTokenResponseClient(
+            DownstreamProperties downstreamProperties,
+            @Qualifier("hcpTokenConnectionProvider") ConnectionProvider hcpTokenConnectionProvider) {
+        var tokenResponseClient = new WebClientReactiveClientCredentialsTokenResponseClient();
+        tokenResponseClient.setWebClient(WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(
+                        DownstreamHttpClients.httpClient(hcpTokenConnectionProvider, downstreamProperties.hcpToken())))
+                .build());
+        return tokenResponseClient;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bff.config;
+
+import com.example.bff.controller.SessionPayloads;
+import com.example.bff.security.SessionRefresher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.web.server.WebFilterExchange;
+import org.springframework.security.web.server.authentication.ServerAuthenticationSuccessHandler;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebSession;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+/**
+ * Finishes an OIDC login: stores the rendered session payload, redirects to the frontend and,
+ * for a login that ran past its enrichment deadline, hands the saved session to
+ * {@link SessionRefresher#completeLogin}.
+ * <p>
+ * The session is saved by a commit action of the redirect. Commit actions are all started
+ * together rather than one after another, so completion waits for the response to be committed
+ * instead of registering one of its own; until then the store has nothing to update.
+ */
+class LoginSuccessHandler implements ServerAuthenticationSuccessHandler {
+
+    private final String frontendRedirectPath;
+    private final SessionPayloads sessionPayloads;
+    private final SessionRefresher sessionRefresher;
+
+    LoginSuccessHandler(String frontendRedirectPath, SessionPayloads sessionPayloads, SessionRefresher sessionRefresher) {
+        this.frontendRedirectPath = frontendRedirectPath;
+        this.sessionPayloads = sessionPayloads;
+        this.sessionRefresher = sessionRefresher;
+    }
+
+    @Override
+    public Mono<Void> onAuthenticationSuccess(WebFilterExchange webFilterExchange, Authentication authentication) {
+        ServerWebExchange exchange = webFilterExchange.getExchange();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.FOUND);
+        response.getHeaders().setLocation(URI.create(frontendRedirectPath));
+        if (!(authentication.getPrincipal() instanceof OidcUser oidcUser)) {
+            return response.setComplete();
+        }
+        return exchange.getSession().flatMap(session -> {
+            // Render /api/auth/session once per login rather than on every poll
+            sessionPayloads.store(session, oidcUser);
+            return response.setComplete()
+                .then(Mono.fromRunnable(() -> completeLogin(session, authentication)));
+        });
+    }
+
+    private void completeLogin(WebSession session, Authentication authentication) {
+        // A login past its enrichment deadline is completed in the background
+        if (authentication instanceof OAuth2AuthenticationToken token) {
+            sessionRefresher.completeLogin(session.getId(), token);
+        }
+    }
+}
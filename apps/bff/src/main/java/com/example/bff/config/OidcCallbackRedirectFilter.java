@@ -1,5 +1,9 @@
 package com.example.bff.config;
 
+import com.example.bff.routing.RouteTable;
+import com.example.bff.routing.RouteType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
@@ -14,28 +18,33 @@ import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
-import java.util.Set;
 
 /**
  * Filter that handles two routing scenarios:
  *
  * <ol>
- *   <li><b>OIDC Callback:</b> If {@code code} and {@code state} params are present in the URL,
+ *   <li><b>OIDC Callback:</b> If {@code code} and {@code state} params are present on a frontend route,
  *       redirects to Spring Security's OAuth2 callback endpoint ({@code /login/oauth2/code/hsid}).
  *       This handles cases where HSID redirects to the root URL or a frontend route.</li>
  *
- *   <li><b>Frontend Routing:</b> For non-API requests without OIDC params, redirects to the
+ *   <li><b>Frontend Routing:</b> For frontend routes without OIDC params, redirects to the
  *       frontend application. This enables the BFF to serve as the entry point while delegating
  *       UI routes to the frontend.</li>
  * </ol>
  *
+ * Paths are classified by the shared {@link RouteTable}; the result stays on the exchange
+ * ({@link RouteTable#ROUTE_ATTRIBUTE}) for later filters. The query string is only parsed on
+ * frontend routes, the only place {@code code}/{@code state} change the outcome.
+ * Each redirect increments {@code bff.oidc.redirect}, tagged {@code target} =
+ * {@code oauth2_callback} or {@code frontend}.
+ *
  * <h3>Request Flow:</h3>
  * <pre>
- * Request with ?code=...&state=...  →  Redirect to /login/oauth2/code/hsid?code=...&state=...
  * Request to /api/**                →  Pass through (handled by backend)
  * Request to /actuator/**           →  Pass through (handled by backend)
  * Request to /login/oauth2/**       →  Pass through (handled by Spring Security)
  * Request to /oauth2/**             →  Pass through (handled by Spring Security)
+ * Other request with ?code=...&state=...  →  Redirect to /login/oauth2/code/hsid?code=...&state=...
  * All other requests                →  Redirect to frontend UI
  * </pre>
  */
@@ -45,60 +54,50 @@ public class OidcCallbackRedirectFilter implements WebFilter {
 
     private static final String OAUTH2_CALLBACK_PATH = "/login/oauth2/code/hsid";
 
-    private static final Set<String> BACKEND_PATH_PREFIXES = Set.of(
-            "/api/",
-            "/actuator/",
-            "/login/oauth2/",
-            "/oauth2/"
-    );
+    private final RouteTable routeTable;
+    private final String frontendRedirectPath;
+    private final Counter callbackRedirects;
+    private final Counter frontendRedirects;
+
+    public OidcCallbackRedirectFilter(
+            RouteTable routeTable,
+            @Value("${app.frontend-redirect-path}") String frontendRedirectPath,
+            MeterRegistry meterRegistry) {
+        this.routeTable = routeTable;
+        this.frontendRedirectPath = frontendRedirectPath;
+        this.callbackRedirects = redirectCounter(meterRegistry, "oauth2_callback");
+        this.frontendRedirects = redirectCounter(meterRegistry, "frontend");
+    }
 
-    @Value("${app.frontend-redirect-path}")
-    private String frontendRedirectPath;
+    private static Counter redirectCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("bff.oidc.redirect")
+            .description("Redirects issued for frontend routes")
+            .tag("target", target)
+            .register(meterRegistry);
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
-        ServerHttpRequest request = exchange.getRequest();
-        String path = request.getPath().value();
-
-        // Check for OIDC callback params
-        String code = request.getQueryParams().getFirst("code");
-        String state = request.getQueryParams().getFirst("state");
-
-        if (code != null && state != null) {
-            // Has OIDC callback params - redirect to Spring Security's callback endpoint
-            if (!path.startsWith("/login/oauth2/code/")) {
-                return redirectToOAuth2Callback(exchange, code, state);
-            }
-            // Already at callback path, let Spring Security handle it
+        if (routeTable.classify(exchange) != RouteType.FRONTEND_REDIRECT) {
+            // Backend, public and Spring Security endpoints
             return chain.filter(exchange);
         }
 
-        // Check if this is a backend path
-        if (isBackendPath(path)) {
-            return chain.filter(exchange);
-        }
-
-        // Not a backend path and no OIDC params - redirect to frontend
-        return redirectToFrontend(exchange);
-    }
-
-    private boolean isBackendPath(String path) {
-        // Exact match for root actuator or API paths
-        if ("/actuator".equals(path) || "/api".equals(path)) {
-            return true;
-        }
-
-        // Check prefixes
-        for (String prefix : BACKEND_PATH_PREFIXES) {
-            if (path.startsWith(prefix)) {
-                return true;
+        // Frontend route: check for OIDC callback params
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getURI().getRawQuery() != null) {
+            String code = request.getQueryParams().getFirst("code");
+            String state = request.getQueryParams().getFirst("state");
+            if (code != null && state != null) {
+                return redirectToOAuth2Callback(exchange, code, state);
             }
         }
 
-        return false;
+        return redirectToFrontend(exchange);
     }
 
     private Mono<Void> redirectToOAuth2Callback(ServerWebExchange exchange, String code, String state) {
+        callbackRedirects.increment();
         ServerHttpResponse response = exchange.getResponse();
         response.setStatusCode(HttpStatus.FOUND);
 
@@ -113,6 +112,7 @@ public class OidcCallbackRedirectFilter implements WebFilter {
     }
 
     private Mono<Void> redirectToFrontend(ServerWebExchange exchange) {
+        frontendRedirects.increment();
         ServerHttpResponse response = exchange.getResponse();
         response.setStatusCode(HttpStatus.FOUND);
         response.getHeaders().setLocation(URI.create(frontendRedirectPath));
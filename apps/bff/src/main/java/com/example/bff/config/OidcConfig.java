@@ -0,0 +1,52 @@
+package com.example.bff.config;
+
+import com.example.bff.oidc.CachedJwksIdTokenDecoderFactory;
+import com.example.bff.oidc.CachingClientRegistrationRepository;
+import com.example.bff.oidc.OidcCacheProperties;
+import com.example.bff.oidc.OidcProviderCache;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.security.oauth2.client.autoconfigure.OAuth2ClientProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoderFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Cached discovery and JWKS for the login provider; replaces Boot's client registration repository,
+ * which would call the IdP during startup.
+ */
+@Configuration
+@EnableConfigurationProperties(OAuth2ClientProperties.class)
+public class OidcConfig {
+
+    @Bean
+    public OidcProviderCache oidcProviderCache(
+            OAuth2ClientProperties clientProperties,
+            OidcCacheProperties oidcCacheProperties,
+            WebClient.Builder webClientBuilder) {
+        String registrationId = oidcCacheProperties.registrationId();
+        var registration = clientProperties.getRegistration().get(registrationId);
+        String providerId = registration != null && registration.getProvider() != null
+                ? registration.getProvider() : registrationId;
+        var provider = clientProperties.getProvider().get(providerId);
+        if (provider == null) {
+            throw new IllegalStateException("No OAuth2 provider configured for registration '" + registrationId + "'");
+        }
+        return new OidcProviderCache(registrationId, provider.getIssuerUri(), provider.getJwkSetUri(),
+                webClientBuilder.clone().build(), oidcCacheProperties, Schedulers.parallel());
+    }
+
+    @Bean
+    public CachingClientRegistrationRepository clientRegistrationRepository(
+            OAuth2ClientProperties clientProperties,
+            OidcProviderCache oidcProviderCache) {
+        return new CachingClientRegistrationRepository(clientProperties, oidcProviderCache);
+    }
+
+    @Bean
+    public ReactiveJwtDecoderFactory<ClientRegistration> idTokenDecoderFactory(OidcProviderCache oidcProviderCache) {
+        return new CachedJwksIdTokenDecoderFactory(oidcProviderCache);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.bff.config;
+
+import com.example.bff.routing.RouteTable;
+import com.example.bff.routing.RouteType;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The route table shared by {@link OidcCallbackRedirectFilter} (what to pass through or redirect)
+ * and {@link SecurityConfig} (what requires authentication).
+ */
+@Configuration
+public class RoutingConfig {
+
+    @Bean
+    public RouteTable routeTable() {
+        return RouteTable.builder()
+                .route("/api/auth/session", RouteType.PUBLIC)
+                .route("/api/auth/login", RouteType.PUBLIC)
+                .route("/api/**", RouteType.BACKEND)
+                // Actuator endpoints are exposed selectively via management.endpoints.web.exposure;
+                // only health and info are anonymous.
+                .route("/actuator/health/**", RouteType.PUBLIC)
+                .route("/actuator/info", RouteType.PUBLIC)
+                .route("/actuator/**", RouteType.MANAGEMENT)
+                .route("/login/oauth2/**", RouteType.AUTH_CALLBACK)
+                .route("/oauth2/**", RouteType.AUTH_CALLBACK)
+                .build();
+    }
+}
@@ -1,27 +1,56 @@
 package com.example.bff.config;
 
-import com.example.bff.security.CustomOidcUserService;
+import com.example.bff.client.AuthorizedClientStoreProperties;
+import com.example.bff.client.ClientCredentialsTokenManager;
+import com.example.bff.client.MongoAuthorizedClientService;
+import com.example.bff.client.RoutingClientHttpConnector;
+import com.example.bff.client.TokenRefreshProperties;
+import com.example.bff.controller.SessionPayloads;
+import com.example.bff.proxy.ResponseCache;
+import com.example.bff.routing.RouteTable;
+import com.example.bff.routing.RouteType;
+import com.example.bff.security.EnrichedOidcUser;
+import com.example.bff.security.ManagementAccessProperties;
+import com.example.bff.security.SessionRefresher;
+import com.example.bff.session.SessionEvents;
+import com.example.bff.session.SessionReferencedAuthorizedClientRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.client.InMemoryReactiveOAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientManager;
 import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientProviderBuilder;
-import org.springframework.security.oauth2.client.oidc.userinfo.OidcReactiveOAuth2UserService;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.endpoint.WebClientReactiveClientCredentialsTokenResponseClient;
 import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
 import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
 import org.springframework.security.oauth2.client.web.server.ServerOAuth2AuthorizedClientRepository;
 import org.springframework.security.oauth2.client.web.server.WebSessionServerOAuth2AuthorizedClientRepository;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.authentication.ServerAuthenticationFailureHandler;
-import org.springframework.security.web.server.authentication.ServerAuthenticationSuccessHandler;
+import org.springframework.security.web.server.authentication.logout.ServerLogoutHandler;
 import org.springframework.security.web.server.authentication.logout.ServerLogoutSuccessHandler;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.savedrequest.NoOpServerRequestCache;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.CorsConfigurationSource;
 import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.net.URI;
 import java.net.URLEncoder;
@@ -38,25 +67,49 @@ public class SecurityConfig {
         return WebClient.builder();
     }
 
+    @Bean
+    public ReactiveOAuth2AuthorizedClientService authorizedClientService(
+            ReactiveClientRegistrationRepository clientRegistrationRepository,
+            AuthorizedClientStoreProperties authorizedClientStoreProperties,
+            ReactiveMongoOperations mongoOperations) {
+        // Chosen at runtime, like the session store, so an AOT-processed build can run without MongoDB
+        return switch (authorizedClientStoreProperties.type()) {
+            case MONGO -> new MongoAuthorizedClientService(
+                    clientRegistrationRepository, mongoOperations, authorizedClientStoreProperties);
+            case MEMORY -> new InMemoryReactiveOAuth2AuthorizedClientService(clientRegistrationRepository);
+        };
+    }
+
     @Bean
     public ReactiveOAuth2AuthorizedClientManager authorizedClientManager(
             ReactiveClientRegistrationRepository clientRegistrationRepository,
-            ServerOAuth2AuthorizedClientRepository authorizedClientRepository) {
+            ReactiveOAuth2AuthorizedClientService authorizedClientService,
+            WebClientReactiveClientCredentialsTokenResponseClient hcpTokenResponseClient,
+            TokenRefreshProperties tokenRefreshProperties,
+            MeterRegistry meterRegistry) {
+        MongoAuthorizedClientService sharedStore =
+                authorizedClientService instanceof MongoAuthorizedClientService mongo ? mongo : null;
         var authorizedClientProvider = ReactiveOAuth2AuthorizedClientProviderBuilder.builder()
-                .clientCredentials()
+                .clientCredentials(clientCredentials -> clientCredentials
+                        .accessTokenResponseClient(hcpTokenResponseClient))
                 .build();
         var authorizedClientManager = new org.springframework.security.oauth2.client.AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager(
-                clientRegistrationRepository,
-                new org.springframework.security.oauth2.client.InMemoryReactiveOAuth2AuthorizedClientService(clientRegistrationRepository));
+                clientRegistrationRepository, authorizedClientService);
         authorizedClientManager.setAuthorizedClientProvider(authorizedClientProvider);
-        return authorizedClientManager;
+        // The hcp token is kept fresh in the background; requests never wait on the token endpoint
+        // unless there is no usable token at all.
+        return new ClientCredentialsTokenManager("hcp", authorizedClientManager, clientRegistrationRepository,
+                hcpTokenResponseClient, sharedStore, tokenRefreshProperties, meterRegistry, Schedulers.parallel());
     }
 
     @Bean("hcpWebClient")
-    public WebClient hcpWebClient(ReactiveOAuth2AuthorizedClientManager authorizedClientManager) {
+    public WebClient hcpWebClient(
+            ReactiveOAuth2AuthorizedClientManager authorizedClientManager,
+            RoutingClientHttpConnector hcpClientHttpConnector) {
         var oauth2Filter = new ServerOAuth2AuthorizedClientExchangeFilterFunction(authorizedClientManager);
         oauth2Filter.setDefaultClientRegistrationId("hcp");
         return WebClient.builder()
+                .clientConnector(hcpClientHttpConnector)
                 .filter(oauth2Filter)
                 .build();
     }
@@ -70,22 +123,67 @@ public class SecurityConfig {
     @Value("${app.cors.allowed-origins}")
     private String allowedOrigins;
 
+    /**
+     * Actuator endpoints other than health and info (metrics, prometheus, sessions): HTTP Basic with
+     * {@code app.management.*} and no session. Ordered before the login chain, which never sees them.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SecurityWebFilterChain managementSecurityWebFilterChain(
+            ServerHttpSecurity http, RouteTable routeTable, ManagementAccessProperties managementAccess) {
+        return http
+            .securityMatcher(routeTable.matcher(RouteType.MANAGEMENT))
+            .authorizeExchange(exchanges -> exchanges
+                .anyExchange().hasRole(ManagementAccessProperties.ROLE)
+            )
+            .httpBasic(basic -> basic.authenticationManager(managementAuthenticationManager(managementAccess)))
+            .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+            .requestCache(cache -> cache.requestCache(NoOpServerRequestCache.getInstance()))
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+            .build();
+    }
+
+    private static ReactiveAuthenticationManager managementAuthenticationManager(
+            ManagementAccessProperties managementAccess) {
+        if (!managementAccess.enabled()) {
+            return authentication -> Mono.error(new BadCredentialsException("Management access is not configured"));
+        }
+        String password = managementAccess.password();
+        return new UserDetailsRepositoryReactiveAuthenticationManager(new MapReactiveUserDetailsService(User
+            .withUsername(managementAccess.username())
+            // No encoder prefix: plain text, as with a {noop} password
+            .password(password.startsWith("{") ? password : "{noop}" + password)
+            .roles(ManagementAccessProperties.ROLE)
+            .build()));
+    }
+
     @Bean
-    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+    public SecurityWebFilterChain securityWebFilterChain(
+            ServerHttpSecurity http, RouteTable routeTable, ResponseCache responseCache,
+            SessionPayloads sessionPayloads, SessionEvents sessionEvents, SessionRefresher sessionRefresher,
+            ServerOAuth2AuthorizedClientRepository authorizedClientRepository) {
         return http
+            // Paths are classified once by the route table (see RoutingConfig)
             .authorizeExchange(exchanges -> exchanges
-                .pathMatchers("/api/auth/session").permitAll()
-                .pathMatchers("/api/auth/login").permitAll()
-                .pathMatchers("/actuator/health", "/actuator/info").permitAll()
-                .pathMatchers("/api/**").authenticated()
+                .matchers(routeTable.matcher(RouteType.BACKEND)).authenticated()
                 .anyExchange().permitAll()
             )
+            // The user service is the CustomOidcUserService bean, found by type; it must stay the only
+            // bean of that type, or Spring Security silently falls back to an unenriched default
             .oauth2Login(oauth2 -> oauth2
-                .authenticationSuccessHandler(authenticationSuccessHandler())
+                .authenticationSuccessHandler(new LoginSuccessHandler(frontendRedirectPath, sessionPayloads, sessionRefresher))
                 .authenticationFailureHandler(authenticationFailureHandler())
             )
             .logout(logout -> logout
                 .logoutUrl("/api/auth/logout")
+                // Added alongside the default handlers, which clear the security context and session;
+                // open event streams are told first, while the session id is still current, and the
+                // user's tokens are removed while the session still refers to them
+                .logoutHandler(handlers -> {
+                    handlers.add(0, sessionEventsLogoutHandler(sessionEvents));
+                    handlers.add(1, authorizedClientLogoutHandler(authorizedClientRepository));
+                    handlers.add(responseCacheLogoutHandler(responseCache));
+                })
                 .logoutSuccessHandler(logoutSuccessHandler())
             )
             .csrf(ServerHttpSecurity.CsrfSpec::disable)
@@ -94,22 +192,12 @@ public class SecurityConfig {
     }
 
     @Bean
-    public OidcReactiveOAuth2UserService oidcReactiveOAuth2UserService(CustomOidcUserService customOidcUserService) {
-        return customOidcUserService;
-    }
-
-    @Bean
-    public ServerOAuth2AuthorizedClientRepository authorizedClientRepository() {
-        return new WebSessionServerOAuth2AuthorizedClientRepository();
-    }
-
-    private ServerAuthenticationSuccessHandler authenticationSuccessHandler() {
-        return (webFilterExchange, authentication) -> {
-            webFilterExchange.getExchange().getResponse().setStatusCode(HttpStatus.FOUND);
-            webFilterExchange.getExchange().getResponse().getHeaders()
-                .setLocation(URI.create(frontendRedirectPath));
-            return webFilterExchange.getExchange().getResponse().setComplete();
-        };
+    public ServerOAuth2AuthorizedClientRepository authorizedClientRepository(
+            ReactiveOAuth2AuthorizedClientService authorizedClientService) {
+        // With the shared store the session holds only a key to the user's tokens
+        return authorizedClientService instanceof MongoAuthorizedClientService
+                ? new SessionReferencedAuthorizedClientRepository(authorizedClientService)
+                : new WebSessionServerOAuth2AuthorizedClientRepository();
     }
 
     private ServerAuthenticationFailureHandler authenticationFailureHandler() {
@@ -130,6 +218,30 @@ public class SecurityConfig {
         };
     }
 
+    private static ServerLogoutHandler sessionEventsLogoutHandler(SessionEvents sessionEvents) {
+        return (exchange, authentication) -> exchange.getExchange().getSession()
+            .doOnNext(session -> sessionEvents.publishLoggedOut(session.getId()))
+            .then();
+    }
+
+    private static ServerLogoutHandler authorizedClientLogoutHandler(
+            ServerOAuth2AuthorizedClientRepository authorizedClientRepository) {
+        return (exchange, authentication) -> authentication instanceof OAuth2AuthenticationToken token
+            ? authorizedClientRepository.removeAuthorizedClient(
+                token.getAuthorizedClientRegistrationId(), token, exchange.getExchange())
+            : Mono.empty();
+    }
+
+    private static ServerLogoutHandler responseCacheLogoutHandler(ResponseCache responseCache) {
+        return (exchange, authentication) -> {
+            if (authentication != null && authentication.getPrincipal() instanceof EnrichedOidcUser user
+                    && user.getSessionInfo() != null) {
+                responseCache.evict(user.getSessionInfo().enterpriseId());
+            }
+            return Mono.empty();
+        };
+    }
+
     private CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration config = new CorsConfiguration();
         config.setAllowedOrigins(Arrays.asList(allowedOrigins.split(",")));
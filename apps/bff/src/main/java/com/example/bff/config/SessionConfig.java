@@ -1,9 +1,23 @@
 package com.example.bff.config;
 
+import com.example.bff.session.CompactSessionAttributeSerializer;
+import com.example.bff.session.JdkSessionAttributeSerializer;
+import com.example.bff.session.MongoWebSessionStore;
+import com.example.bff.session.SessionAttributeSerializer;
+import com.example.bff.session.SessionExpiryLookup;
+import com.example.bff.session.SessionProperties;
+import com.example.bff.session.SessionStatistics;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
 import org.springframework.web.server.session.CookieWebSessionIdResolver;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+import org.springframework.web.server.session.InMemoryWebSessionStore;
 import org.springframework.web.server.session.WebSessionIdResolver;
+import org.springframework.web.server.session.WebSessionManager;
+import org.springframework.web.server.session.WebSessionStore;
 
 @Configuration
 public class SessionConfig {
@@ -20,4 +34,56 @@ public class SessionConfig {
         );
         return resolver;
     }
+
+    @Bean
+    public SessionAttributeSerializer sessionAttributeSerializer(SessionProperties sessionProperties) {
+        return switch (sessionProperties.serializer()) {
+            case JDK -> new JdkSessionAttributeSerializer();
+            case COMPACT -> new CompactSessionAttributeSerializer(
+                (int) sessionProperties.compressionThreshold().toBytes());
+        };
+    }
+
+    /**
+     * Chosen at runtime rather than by a condition, so an AOT-processed build can still run
+     * without MongoDB (e.g. the training run for the AOT cache).
+     */
+    @Bean
+    public WebSessionStore webSessionStore(
+            ReactiveMongoOperations mongoOperations,
+            SessionAttributeSerializer sessionAttributeSerializer,
+            SessionProperties sessionProperties,
+            SessionStatistics sessionStatistics,
+            MeterRegistry meterRegistry) {
+        return switch (sessionProperties.store()) {
+            case MONGO -> new MongoWebSessionStore(
+                mongoOperations, sessionAttributeSerializer, sessionProperties, meterRegistry, sessionStatistics);
+            case MEMORY -> {
+                InMemoryWebSessionStore store = new InMemoryWebSessionStore();
+                store.setMaxSessions(1_000_000);
+                yield store;
+            }
+        };
+    }
+
+    /**
+     * Idle-expiry reads for {@code SessionEvents}, against whichever store was chosen above.
+     */
+    @Bean
+    public SessionExpiryLookup sessionExpiryLookup(WebSessionStore webSessionStore) {
+        return webSessionStore instanceof MongoWebSessionStore mongoStore
+            ? mongoStore::idleExpiry
+            : SessionExpiryLookup.of((InMemoryWebSessionStore) webSessionStore);
+    }
+
+    /**
+     * Replaces Boot's default in-memory session manager so sessions are shared across replicas.
+     */
+    @Bean(WebHttpHandlerBuilder.WEB_SESSION_MANAGER_BEAN_NAME)
+    public WebSessionManager webSessionManager(WebSessionIdResolver webSessionIdResolver, WebSessionStore webSessionStore) {
+        DefaultWebSessionManager sessionManager = new DefaultWebSessionManager();
+        sessionManager.setSessionIdResolver(webSessionIdResolver);
+        sessionManager.setSessionStore(webSessionStore);
+        return sessionManager;
+    }
 }
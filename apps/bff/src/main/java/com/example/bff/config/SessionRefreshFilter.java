@@ -0,0 +1,38 @@
+package com.example.bff.config;
+
+import com.example.bff.security.SessionRefresher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Hands authenticated requests to {@link SessionRefresher}, which decides whether the session is
+ * due for a sliding-expiry refresh and runs it in the background.
+ * <p>
+ * Ordered after Spring Security's filter chain so the exchange's principal is the authenticated
+ * session user. Requests without one pass straight through.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class SessionRefreshFilter implements WebFilter {
+
+    private final SessionRefresher sessionRefresher;
+
+    public SessionRefreshFilter(SessionRefresher sessionRefresher) {
+        this.sessionRefresher = sessionRefresher;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return exchange.getPrincipal()
+            .ofType(OAuth2AuthenticationToken.class)
+            .flatMap(authentication -> exchange.getSession()
+                .doOnNext(session -> sessionRefresher.refreshIfDue(session.getId(), authentication)))
+            .then(chain.filter(exchange));
+    }
+}
@@ -3,13 +3,20 @@ package com.example.bff.controller;
 import com.example.bff.model.SessionInfo;
 import com.example.bff.model.UserInfo;
 import com.example.bff.security.EnrichedOidcUser;
+import com.example.bff.session.SessionEvents;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
@@ -18,6 +25,14 @@ import java.net.URI;
 @RequestMapping("/api/auth")
 public class AuthController {
 
+    private final SessionPayloads sessionPayloads;
+    private final SessionEvents sessionEvents;
+
+    public AuthController(SessionPayloads sessionPayloads, SessionEvents sessionEvents) {
+        this.sessionPayloads = sessionPayloads;
+        this.sessionEvents = sessionEvents;
+    }
+
     @GetMapping("/login")
     public Mono<Void> login(ServerHttpResponse response) {
         response.setStatusCode(HttpStatus.FOUND);
@@ -25,24 +40,48 @@ public class AuthController {
         return response.setComplete();
     }
 
+    /**
+     * Writes the precomputed {@link SessionPayload}. An {@code If-None-Match} equal to the ETag
+     * recorded in the session gets {@code 304} before any payload is looked up; the browser must
+     * revalidate on every call.
+     */
     @GetMapping("/session")
-    public Mono<SessionResponse> getSession(@AuthenticationPrincipal OidcUser oidcUser) {
+    public Mono<ResponseEntity<byte[]>> getSession(@AuthenticationPrincipal OidcUser oidcUser, ServerWebExchange exchange) {
         if (oidcUser == null) {
-            return Mono.just(SessionResponse.unauthenticated());
+            return respond(sessionPayloads.unauthenticated(), exchange);
         }
+        return exchange.getSession().flatMap(session -> {
+            String etag = sessionPayloads.etag(session);
+            if (etag != null && exchange.checkNotModified(etag)) {
+                return Mono.empty();
+            }
+            return respond(sessionPayloads.get(session, oidcUser), exchange);
+        });
+    }
 
-        UserInfo userInfo = new UserInfo(
-            oidcUser.getSubject(),
-            oidcUser.getEmail(),
-            oidcUser.getFullName()
-        );
+    /**
+     * Server-sent session events, replacing {@code /api/auth/session} polling; see {@link SessionEvents}.
+     * The stream starts with the current payload.
+     */
+    @GetMapping(path = "/session/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> sessionEvents(@AuthenticationPrincipal OidcUser oidcUser, ServerWebExchange exchange) {
+        SessionInfo sessionInfo = oidcUser instanceof EnrichedOidcUser enrichedUser ? enrichedUser.getSessionInfo() : null;
+        return exchange.getSession().flatMapMany(session -> {
+            SessionPayload payload = sessionPayloads.get(session, oidcUser);
+            return sessionEvents.connect(session.getId(), payload.etag(), payload.body(),
+                    sessionInfo != null ? sessionInfo.sessionEndTime() : null, session.getMaxIdleTime());
+        });
+    }
 
-        SessionInfo sessionInfo = null;
-        if (oidcUser instanceof EnrichedOidcUser enrichedUser) {
-            sessionInfo = enrichedUser.getSessionInfo();
+    private static Mono<ResponseEntity<byte[]>> respond(SessionPayload payload, ServerWebExchange exchange) {
+        if (exchange.checkNotModified(payload.etag())) {
+            return Mono.empty();
         }
-
-        return Mono.just(SessionResponse.authenticated(userInfo, sessionInfo));
+        return Mono.just(ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(payload.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(payload.body()));
     }
 
     public record SessionResponse(
@@ -0,0 +1,30 @@
+package com.example.bff.controller;
+
+import com.example.bff.proxy.DashboardAggregator;
+import com.example.bff.proxy.DashboardSection;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+
+/**
+ * Dashboard shell data in one request: each configured section is streamed as an NDJSON line
+ * as soon as its downstream answers (see {@link DashboardAggregator}).
+ */
+@RestController
+@RequestMapping("/api")
+public class DashboardController {
+
+    private final DashboardAggregator dashboardAggregator;
+
+    public DashboardController(DashboardAggregator dashboardAggregator) {
+        this.dashboardAggregator = dashboardAggregator;
+    }
+
+    @GetMapping(value = "/dashboard", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DashboardSection> dashboard(ServerWebExchange exchange) {
+        return dashboardAggregator.load(exchange);
+    }
+}
@@ -2,16 +2,18 @@ package com.example.bff.controller;
 
 import com.example.bff.security.EnrichedOidcUser;
 import com.example.bff.security.Persona;
+import com.example.bff.security.RequiredDelegate;
 import com.example.bff.security.RequiredPersona;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
 /**
- * Test controller demonstrating the {@link RequiredPersona} annotation.
+ * Test controller demonstrating the {@link RequiredPersona} and {@link RequiredDelegate} annotations.
  */
 @RestController
 @RequestMapping("/api/persona-test")
@@ -50,6 +52,18 @@ public class PersonaTestController {
         ));
     }
 
+    @GetMapping("/members/{memberId}")
+    @RequiredPersona(Persona.REPRESENTATIVE)
+    @RequiredDelegate
+    public Mono<PersonaResponse> managedMember(@PathVariable String memberId, @AuthenticationPrincipal OidcUser oidcUser) {
+        String persona = extractPersona(oidcUser);
+        return Mono.just(new PersonaResponse(
+                "/api/persona-test/members/" + memberId,
+                persona,
+                "Access granted for an active delegate of " + memberId
+        ));
+    }
+
     private String extractPersona(OidcUser oidcUser) {
         if (oidcUser instanceof EnrichedOidcUser enrichedUser) {
             var sessionInfo = enrichedUser.getSessionInfo();
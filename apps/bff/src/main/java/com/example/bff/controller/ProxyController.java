@@ -0,0 +1,34 @@
+package com.example.bff.controller;
+
+import com.example.bff.proxy.DownstreamProxy;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Per-user data for the MFEs, streamed from the downstream services by {@link DownstreamProxy}.
+ * {@code userId} is {@code me}, the user's own enterprise ID or a managed member's ID.
+ */
+@RestController
+@RequestMapping("/api")
+public class ProxyController {
+
+    private final DownstreamProxy downstreamProxy;
+
+    public ProxyController(DownstreamProxy downstreamProxy) {
+        this.downstreamProxy = downstreamProxy;
+    }
+
+    @GetMapping("/profile/{userId}")
+    public Mono<Void> profile(@PathVariable String userId, ServerWebExchange exchange) {
+        return downstreamProxy.forward("profile", userId, exchange);
+    }
+
+    @GetMapping("/summary/{userId}")
+    public Mono<Void> summary(@PathVariable String userId, ServerWebExchange exchange) {
+        return downstreamProxy.forward("summary", userId, exchange);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.bff.controller;
+
+/**
+ * {@code GET /api/auth/session} response body, serialized once.
+ *
+ * @param etag strong entity tag derived from {@code body}
+ * @param body UTF-8 JSON of {@link AuthController.SessionResponse}
+ */
+public record SessionPayload(String etag, byte[] body) {
+}
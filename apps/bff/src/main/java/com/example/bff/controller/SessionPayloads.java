@@ -0,0 +1,138 @@
+package com.example.bff.controller;
+
+import com.example.bff.model.SessionInfo;
+import com.example.bff.model.UserInfo;
+import com.example.bff.security.EnrichedOidcUser;
+import com.example.bff.session.SessionEvents;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.WebSession;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Renders the {@code GET /api/auth/session} payload once per session principal.
+ * <p>
+ * The response only changes when the principal does, so it is serialized when the session is
+ * created ({@link #store} from the login success handler). Only its strong ETag is kept in the
+ * session; a poll whose {@code If-None-Match} equals it is answered without rendering anything.
+ * The body itself is kept in a bounded in-process cache keyed by ETag, which is a content hash
+ * and so safe to share between sessions and replicas. A session whose ETag is missing (created
+ * before this existed) or whose body is not cached here is rendered again on its next poll.
+ * <p>
+ * Anything that replaces the principal of an existing session must call {@link #store} again;
+ * a changed payload is pushed to the session's open event streams.
+ */
+@Component
+public class SessionPayloads {
+
+    /** Web session attribute holding the ETag of the current payload. */
+    public static final String ETAG_ATTRIBUTE = SessionPayloads.class.getName() + ".etag";
+
+    private static final long MAXIMUM_CACHED_BYTES = 16L * 1024 * 1024;
+    private static final Duration RETENTION = Duration.ofHours(1);
+
+    private final JsonMapper jsonMapper;
+    private final SessionEvents sessionEvents;
+    private final Cache<String, SessionPayload> bodies;
+    private final SessionPayload unauthenticated;
+
+    @Autowired
+    public SessionPayloads(JsonMapper jsonMapper, SessionEvents sessionEvents) {
+        this(jsonMapper, sessionEvents, MAXIMUM_CACHED_BYTES);
+    }
+
+    SessionPayloads(JsonMapper jsonMapper, SessionEvents sessionEvents, long maximumCachedBytes) {
+        this.jsonMapper = jsonMapper;
+        this.sessionEvents = sessionEvents;
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(maximumCachedBytes)
+                .weigher((String etag, SessionPayload payload) -> payload.body().length)
+                .expireAfterAccess(RETENTION)
+                .build();
+        this.unauthenticated = payload(AuthController.SessionResponse.unauthenticated());
+    }
+
+    /**
+     * Payload for a request without a signed-in user.
+     */
+    public SessionPayload unauthenticated() {
+        return unauthenticated;
+    }
+
+    /**
+     * ETag of the payload last stored for {@code session}, or {@code null}.
+     */
+    public String etag(WebSession session) {
+        return session.getAttribute(ETAG_ATTRIBUTE);
+    }
+
+    /**
+     * The current payload for {@code session}, rendered from {@code oidcUser} and stored if not cached.
+     */
+    public SessionPayload get(WebSession session, OidcUser oidcUser) {
+        String etag = etag(session);
+        SessionPayload payload = etag != null ? bodies.getIfPresent(etag) : null;
+        return payload != null ? payload : store(session, oidcUser);
+    }
+
+    /**
+     * Renders {@code oidcUser}'s payload and records its ETag in {@code session}.
+     */
+    public SessionPayload store(WebSession session, OidcUser oidcUser) {
+        SessionPayload payload = render(oidcUser);
+        bodies.put(payload.etag(), payload);
+        // Re-rendering an unchanged principal leaves the session clean, so nothing is written back
+        String previous = etag(session);
+        if (!payload.etag().equals(previous)) {
+            session.getAttributes().put(ETAG_ATTRIBUTE, payload.etag());
+            if (previous != null) {
+                SessionInfo sessionInfo = oidcUser instanceof EnrichedOidcUser enrichedUser
+                        ? enrichedUser.getSessionInfo()
+                        : null;
+                sessionEvents.publishUpdated(session.getId(), payload.etag(), payload.body(),
+                        sessionInfo != null ? sessionInfo.sessionEndTime() : null);
+            }
+        }
+        return payload;
+    }
+
+    SessionPayload render(OidcUser oidcUser) {
+        UserInfo userInfo = new UserInfo(
+            oidcUser.getSubject(),
+            oidcUser.getEmail(),
+            oidcUser.getFullName()
+        );
+        SessionInfo sessionInfo = oidcUser instanceof EnrichedOidcUser enrichedUser
+                ? enrichedUser.getSessionInfo()
+                : null;
+        return payload(AuthController.SessionResponse.authenticated(userInfo, sessionInfo));
+    }
+
+    void invalidateCachedBodies() {
+        bodies.invalidateAll();
+    }
+
+    private SessionPayload payload(AuthController.SessionResponse response) {
+        byte[] body = jsonMapper.writeValueAsBytes(response);
+        return new SessionPayload(etag(body), body);
+    }
+
+    /** Strong ETag: the first 128 bits of the body's SHA-256, base64url-encoded. */
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
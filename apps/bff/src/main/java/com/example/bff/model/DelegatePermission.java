@@ -1,8 +1,46 @@
 package com.example.bff.model;
 
+import java.io.Serializable;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
 public record DelegatePermission(
     String delegateType,
     String startDate,
     String endDate
-) {
+) implements Serializable {
+
+    /**
+     * Parses strict {@code yyyy-MM-dd}, the form used by {@code startDate} and {@code endDate};
+     * anything else (including impossible dates and {@code null}) returns null.
+     * Hand-rolled because {@code LocalDate.parse} dominated encode time for large member maps.
+     */
+    public static LocalDate parseDate(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return null;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return null;
+        }
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
 }
@@ -1,15 +1,45 @@
 package com.example.bff.model;
 
+import java.io.Serializable;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * @param enrichment {@link #ENRICHMENT_COMPLETE}; {@link #ENRICHMENT_PENDING} while the login's
+ *                   enrichment is still running in the background (no {@code enterpriseId},
+ *                   {@code persona} or members yet); {@link #ENRICHMENT_FALLBACK} when it failed
+ *                   and the minimal {@code self} session was kept. Sessions stored before this
+ *                   existed read as complete.
+ */
 public record SessionInfo(
     String enterpriseId,
     String hsidUuid,
     Instant sessionStartTime,
     Instant sessionEndTime,
     String persona,
-    Map<String, List<DelegatePermission>> managedMembers
-) {
+    Map<String, List<DelegatePermission>> managedMembers,
+    String enrichment
+) implements Serializable {
+
+    public static final String ENRICHMENT_COMPLETE = "complete";
+    public static final String ENRICHMENT_PENDING = "pending";
+    public static final String ENRICHMENT_FALLBACK = "fallback";
+
+    public SessionInfo {
+        if (enrichment == null) {
+            enrichment = ENRICHMENT_COMPLETE;
+        }
+    }
+
+    /** A completely enriched session. */
+    public SessionInfo(
+            String enterpriseId,
+            String hsidUuid,
+            Instant sessionStartTime,
+            Instant sessionEndTime,
+            String persona,
+            Map<String, List<DelegatePermission>> managedMembers) {
+        this(enterpriseId, hsidUuid, sessionStartTime, sessionEndTime, persona, managedMembers, ENRICHMENT_COMPLETE);
+    }
 }
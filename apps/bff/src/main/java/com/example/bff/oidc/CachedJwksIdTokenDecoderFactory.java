@@ -0,0 +1,80 @@
+package com.example.bff.oidc;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.security.oauth2.client.oidc.authentication.OidcIdTokenValidator;
+import org.springframework.security.oauth2.client.oidc.authentication.ReactiveOidcIdTokenDecoderFactory;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.converter.ClaimTypeConverter;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoderFactory;
+import reactor.core.publisher.Mono;
+
+import java.text.ParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ID token decoder factory that verifies signatures for the cached provider with the keys held by
+ * {@link OidcProviderCache}; other registrations use Spring Security's {@link ReactiveOidcIdTokenDecoderFactory}.
+ * <p>
+ * Validation matches the default factory: timestamps, then {@link OidcIdTokenValidator} (issuer,
+ * audience, azp), with the default claim type conversion.
+ */
+public class CachedJwksIdTokenDecoderFactory implements ReactiveJwtDecoderFactory<ClientRegistration> {
+
+    private final OidcProviderCache providerCache;
+    private final ReactiveOidcIdTokenDecoderFactory defaultFactory = new ReactiveOidcIdTokenDecoderFactory();
+    private final Map<String, ReactiveJwtDecoder> decoders = new ConcurrentHashMap<>();
+
+    public CachedJwksIdTokenDecoderFactory(OidcProviderCache providerCache) {
+        this.providerCache = providerCache;
+    }
+
+    @Override
+    public ReactiveJwtDecoder createDecoder(ClientRegistration clientRegistration) {
+        if (!providerCache.getRegistrationId().equals(clientRegistration.getRegistrationId())) {
+            return defaultFactory.createDecoder(clientRegistration);
+        }
+        return decoders.computeIfAbsent(clientRegistration.getRegistrationId(), id -> {
+            NimbusReactiveJwtDecoder decoder = new NimbusReactiveJwtDecoder(this::verify);
+            decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(
+                    new JwtTimestampValidator(), new OidcIdTokenValidator(clientRegistration)));
+            decoder.setClaimSetConverter(
+                    new ClaimTypeConverter(ReactiveOidcIdTokenDecoderFactory.createDefaultClaimTypeConverters()));
+            return decoder;
+        });
+    }
+
+    private Mono<JWTClaimsSet> verify(JWT jwt) {
+        if (!(jwt instanceof SignedJWT signedJwt)) {
+            return Mono.error(new BadJwtException("ID token is not signed"));
+        }
+        String kid = signedJwt.getHeader().getKeyID();
+        return providerCache.verifiers(kid).flatMap(verifiers -> verify(signedJwt, kid, verifiers));
+    }
+
+    private static Mono<JWTClaimsSet> verify(SignedJWT jwt, String kid, List<JWSVerifier> verifiers) {
+        if (verifiers.isEmpty()) {
+            return Mono.error(new BadJwtException("No signing key found for kid '" + kid + "'"));
+        }
+        try {
+            for (JWSVerifier verifier : verifiers) {
+                if (verifier.supportedJWSAlgorithms().contains(jwt.getHeader().getAlgorithm()) && jwt.verify(verifier)) {
+                    return Mono.just(jwt.getJWTClaimsSet());
+                }
+            }
+        } catch (JOSEException | ParseException e) {
+            return Mono.error(new BadJwtException("ID token signature could not be verified", e));
+        }
+        return Mono.error(new BadJwtException("Invalid ID token signature"));
+    }
+}
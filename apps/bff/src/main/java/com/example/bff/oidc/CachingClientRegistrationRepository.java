@@ -0,0 +1,102 @@
+package com.example.bff.oidc;
+
+import org.springframework.boot.security.oauth2.client.autoconfigure.OAuth2ClientProperties;
+import org.springframework.boot.security.oauth2.client.autoconfigure.OAuth2ClientPropertiesMapper;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
+import reactor.core.publisher.Mono;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Client registrations built from {@code spring.security.oauth2.client.*} without blocking discovery
+ * for the cached provider.
+ * <p>
+ * Boot resolves an {@code issuer-uri} by calling the IdP while the context starts. For the provider held by
+ * {@link OidcProviderCache} the issuer is instead taken as configured, missing endpoints are filled from
+ * the cached discovery document, and the registration's provider metadata follows the cache as it is
+ * refreshed. If required endpoints are neither configured nor cached, Boot's discovery is used as before.
+ */
+public class CachingClientRegistrationRepository implements ReactiveClientRegistrationRepository, Iterable<ClientRegistration> {
+
+    private final Map<String, ClientRegistration> registrations;
+    private final OidcProviderCache providerCache;
+    private volatile CachedRegistration cached;
+
+    public CachingClientRegistrationRepository(OAuth2ClientProperties properties, OidcProviderCache providerCache) {
+        this.providerCache = providerCache;
+        this.registrations = Map.copyOf(new OAuth2ClientPropertiesMapper(withoutDiscovery(properties, providerCache))
+                .asClientRegistrations());
+    }
+
+    @Override
+    public Mono<ClientRegistration> findByRegistrationId(String registrationId) {
+        return Mono.justOrEmpty(get(registrationId));
+    }
+
+    @Override
+    public Iterator<ClientRegistration> iterator() {
+        return registrations.keySet().stream().map(this::get).iterator();
+    }
+
+    ClientRegistration get(String registrationId) {
+        ClientRegistration registration = registrations.get(registrationId);
+        if (registration == null || !providerCache.getRegistrationId().equals(registrationId)) {
+            return registration;
+        }
+        Map<String, Object> metadata = providerCache.getProviderMetadata();
+        CachedRegistration current = cached;
+        if (current == null || current.metadata() != metadata) {
+            current = new CachedRegistration(metadata, ClientRegistration.withClientRegistration(registration)
+                    .issuerUri(providerCache.getIssuer())
+                    .providerConfigurationMetadata(metadata)
+                    .build());
+            cached = current;
+        }
+        return current.registration();
+    }
+
+    /**
+     * Copy of {@code properties} in which the cached provider has no {@code issuer-uri}, so the mapper
+     * does not call the IdP, provided every endpoint it needs is configured or cached.
+     */
+    private static OAuth2ClientProperties withoutDiscovery(OAuth2ClientProperties properties,
+                                                           OidcProviderCache providerCache) {
+        OAuth2ClientProperties copy = new OAuth2ClientProperties();
+        copy.getRegistration().putAll(properties.getRegistration());
+        copy.getProvider().putAll(new LinkedHashMap<>(properties.getProvider()));
+
+        String providerId = providerIdFor(properties, providerCache.getRegistrationId());
+        OAuth2ClientProperties.Provider configured = properties.getProvider().get(providerId);
+        if (configured == null) {
+            return copy;
+        }
+        Map<String, Object> metadata = providerCache.getProviderMetadata();
+        OAuth2ClientProperties.Provider provider = new OAuth2ClientProperties.Provider();
+        provider.setAuthorizationUri(orMetadata(configured.getAuthorizationUri(), metadata, "authorization_endpoint"));
+        provider.setTokenUri(orMetadata(configured.getTokenUri(), metadata, "token_endpoint"));
+        provider.setUserInfoUri(orMetadata(configured.getUserInfoUri(), metadata, "userinfo_endpoint"));
+        provider.setJwkSetUri(orMetadata(configured.getJwkSetUri(), metadata, "jwks_uri"));
+        provider.setUserInfoAuthenticationMethod(configured.getUserInfoAuthenticationMethod());
+        provider.setUserNameAttribute(configured.getUserNameAttribute());
+        if (provider.getAuthorizationUri() == null || provider.getTokenUri() == null) {
+            provider.setIssuerUri(configured.getIssuerUri());
+        }
+        copy.getProvider().put(providerId, provider);
+        return copy;
+    }
+
+    private static String providerIdFor(OAuth2ClientProperties properties, String registrationId) {
+        OAuth2ClientProperties.Registration registration = properties.getRegistration().get(registrationId);
+        return registration != null && registration.getProvider() != null ? registration.getProvider() : registrationId;
+    }
+
+    private static String orMetadata(String configured, Map<String, Object> metadata, String key) {
+        return configured != null ? configured : (metadata.get(key) instanceof String value ? value : null);
+    }
+
+    private record CachedRegistration(Map<String, Object> metadata, ClientRegistration registration) {
+    }
+}
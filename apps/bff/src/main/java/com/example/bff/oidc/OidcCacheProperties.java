@@ -0,0 +1,27 @@
+package com.example.bff.oidc;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Provider metadata and JWKS caching for one OIDC login registration, bound from {@code app.oidc-cache.*}.
+ *
+ * @param registrationId            client registration whose provider is cached
+ * @param snapshotPath              file the discovery document and JWKS are persisted to, in a directory owned by
+ *                                  the service user; unset disables the snapshot
+ * @param refreshInterval           background refresh period for discovery and JWKS
+ * @param unknownKidRefetchInterval minimum time between JWKS fetches triggered by an unknown {@code kid}
+ * @param fetchTimeout              timeout for one discovery or JWKS request
+ */
+@ConfigurationProperties("app.oidc-cache")
+public record OidcCacheProperties(
+    @DefaultValue("hsid") String registrationId,
+    Path snapshotPath,
+    @DefaultValue("1h") Duration refreshInterval,
+    @DefaultValue("30s") Duration unknownKidRefetchInterval,
+    @DefaultValue("5s") Duration fetchTimeout
+) {
+}
@@ -0,0 +1,365 @@
+package com.example.bff.oidc;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps one OIDC provider's discovery document and signing keys in memory.
+ * <p>
+ * <b>Lifecycle:</b>
+ * <ol>
+ *   <li>At startup the last snapshot is read from {@code app.oidc-cache.snapshot-path}, so ID tokens can
+ *       be validated before the IdP has been contacted.</li>
+ *   <li>Discovery and JWKS are then refreshed in the background every {@code refresh-interval}; each
+ *       successful fetch rewrites the snapshot.</li>
+ *   <li>A token signed with an unknown {@code kid} (key rotation) triggers one JWKS fetch shared by all
+ *       concurrent callers, at most once per {@code unknown-kid-refetch-interval}.</li>
+ * </ol>
+ * Keys are decoded into {@link JWSVerifier}s once per JWKS fetch and reused for every token.
+ * A discovery document whose {@code issuer} differs from the configured issuer is ignored.
+ * <p>
+ * The snapshot's keys are trusted while the IdP is unreachable, so it is only loaded if the file
+ * and its directory belong to this process's user and nobody else can write to them. It is
+ * written owner-only.
+ */
+public class OidcProviderCache implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(OidcProviderCache.class);
+
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT =
+            new ParameterizedTypeReference<>() {};
+
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final String registrationId;
+    private final String issuer;
+    private final String jwkSetUri;
+    private final WebClient webClient;
+    private final OidcCacheProperties properties;
+    private final Scheduler scheduler;
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final Object snapshotLock = new Object();
+
+    private volatile Map<String, Object> providerMetadata = Map.of();
+    private volatile SigningKeys signingKeys = SigningKeys.EMPTY;
+    private final AtomicReference<Mono<SigningKeys>> jwksInFlight = new AtomicReference<>();
+    private volatile long lastJwksFetchMillis = NEVER;
+    private Disposable refreshTask;
+
+    public OidcProviderCache(String registrationId, String issuer, String jwkSetUri, WebClient webClient,
+                             OidcCacheProperties properties, Scheduler scheduler) {
+        this.registrationId = registrationId;
+        this.issuer = Objects.requireNonNull(issuer, "issuer-uri is required for the cached provider");
+        this.jwkSetUri = Objects.requireNonNull(jwkSetUri, "jwk-set-uri is required for the cached provider");
+        this.webClient = webClient;
+        this.properties = properties;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        loadSnapshot();
+        refreshTask = Flux.interval(Duration.ZERO, properties.refreshInterval(), scheduler)
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh(), 1)
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (refreshTask != null) {
+            refreshTask.dispose();
+        }
+    }
+
+    public String getRegistrationId() {
+        return registrationId;
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    /**
+     * The last accepted discovery document, or an empty map if none has been fetched or restored.
+     * The same instance is returned until the document changes.
+     */
+    public Map<String, Object> getProviderMetadata() {
+        return providerMetadata;
+    }
+
+    /**
+     * Verifiers for the key with {@code kid} (all signing keys if {@code kid} is null).
+     * An unknown {@code kid} refetches the JWKS unless that happened within the rate limit;
+     * emits an empty list if no key matches.
+     */
+    public Mono<List<JWSVerifier>> verifiers(String kid) {
+        List<JWSVerifier> candidates = signingKeys.candidates(kid);
+        if (!candidates.isEmpty()) {
+            return Mono.just(candidates);
+        }
+        Mono<SigningKeys> inFlight = jwksInFlight.get();
+        if (inFlight == null) {
+            long lastFetch = lastJwksFetchMillis;
+            if (lastFetch != NEVER && nowMillis() - lastFetch < properties.unknownKidRefetchInterval().toMillis()) {
+                return Mono.just(List.of());
+            }
+            log.info("Key '{}' not in cached JWKS for '{}', refetching", kid, registrationId);
+            inFlight = refreshJwks();
+        }
+        return inFlight
+                .map(keys -> keys.candidates(kid))
+                .onErrorReturn(List.of());
+    }
+
+    Mono<Void> refresh() {
+        Mono<Void> discovery = fetchDiscovery();
+        Mono<Void> jwks = refreshJwks()
+                .onErrorResume(e -> Mono.empty())
+                .then();
+        return Mono.when(discovery, jwks);
+    }
+
+    private Mono<Void> fetchDiscovery() {
+        String discoveryUri = issuer.replaceAll("/+$", "") + "/.well-known/openid-configuration";
+        return webClient.get()
+                .uri(discoveryUri)
+                .retrieve()
+                .bodyToMono(JSON_OBJECT)
+                .timeout(properties.fetchTimeout())
+                .doOnNext(document -> {
+                    if (!issuer.equals(document.get("issuer"))) {
+                        log.warn("Ignoring discovery document for '{}': issuer '{}' does not match '{}'",
+                                registrationId, document.get("issuer"), issuer);
+                    } else if (!document.equals(providerMetadata)) {
+                        providerMetadata = Collections.unmodifiableMap(new LinkedHashMap<>(document));
+                        saveSnapshot();
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.warn("Fetching discovery document for '{}' failed", registrationId, e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Joins the in-flight JWKS request or starts one.
+     */
+    private Mono<SigningKeys> refreshJwks() {
+        Sinks.One<SigningKeys> result = Sinks.one();
+        Mono<SigningKeys> shared = result.asMono();
+        Mono<SigningKeys> existing = jwksInFlight.compareAndExchange(null, shared);
+        if (existing != null) {
+            return existing;
+        }
+        lastJwksFetchMillis = nowMillis();
+        webClient.get()
+                .uri(jwkSetUri)
+                .retrieve()
+                .bodyToMono(JSON_OBJECT)
+                .timeout(properties.fetchTimeout())
+                .map(this::decode)
+                .subscribe(
+                        keys -> {
+                            boolean changed = !keys.document().equals(signingKeys.document());
+                            signingKeys = keys;
+                            jwksInFlight.set(null);
+                            if (changed) {
+                                saveSnapshot();
+                            }
+                            result.tryEmitValue(keys);
+                        },
+                        e -> {
+                            jwksInFlight.set(null);
+                            log.warn("Fetching JWKS for '{}' failed", registrationId, e);
+                            result.tryEmitError(e);
+                        });
+        return shared;
+    }
+
+    SigningKeys decode(Map<String, Object> document) {
+        JWKSet jwkSet;
+        try {
+            jwkSet = JWKSet.parse(jsonMapper.writeValueAsString(document));
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid JWKS for '" + registrationId + "'", e);
+        }
+        Map<String, List<JWSVerifier>> byKid = new HashMap<>();
+        List<JWSVerifier> all = new ArrayList<>();
+        for (JWK jwk : jwkSet.getKeys()) {
+            if (KeyUse.ENCRYPTION.equals(jwk.getKeyUse())) {
+                continue;
+            }
+            JWSVerifier verifier;
+            try {
+                if (jwk instanceof RSAKey rsaKey) {
+                    verifier = new RSASSAVerifier(rsaKey.toRSAPublicKey());
+                } else if (jwk instanceof ECKey ecKey) {
+                    verifier = new ECDSAVerifier(ecKey.toECPublicKey());
+                } else {
+                    continue;
+                }
+            } catch (JOSEException e) {
+                log.debug("Skipping unusable key '{}' in JWKS for '{}'", jwk.getKeyID(), registrationId, e);
+                continue;
+            }
+            all.add(verifier);
+            if (jwk.getKeyID() != null) {
+                byKid.computeIfAbsent(jwk.getKeyID(), k -> new ArrayList<>()).add(verifier);
+            }
+        }
+        return new SigningKeys(Collections.unmodifiableMap(new LinkedHashMap<>(document)), Map.copyOf(byKid), List.copyOf(all));
+    }
+
+    private void loadSnapshot() {
+        Path path = properties.snapshotPath();
+        if (path == null || !Files.isReadable(path)) {
+            return;
+        }
+        try {
+            String untrusted = untrustedReason(path);
+            if (untrusted != null) {
+                log.warn("Ignoring OIDC snapshot {}: {}", path, untrusted);
+                return;
+            }
+            OidcProviderSnapshot snapshot = jsonMapper.readValue(path.toFile(), OidcProviderSnapshot.class);
+            if (!issuer.equals(snapshot.issuer())) {
+                log.info("Ignoring OIDC snapshot {}: issuer '{}' does not match '{}'", path, snapshot.issuer(), issuer);
+                return;
+            }
+            if (snapshot.providerMetadata() != null) {
+                providerMetadata = Collections.unmodifiableMap(new LinkedHashMap<>(snapshot.providerMetadata()));
+            }
+            if (snapshot.jwks() != null && !snapshot.jwks().isEmpty()) {
+                signingKeys = decode(snapshot.jwks());
+            }
+            log.info("Restored OIDC metadata and {} signing key(s) for '{}' from {} (saved {})",
+                    signingKeys.all().size(), registrationId, path, snapshot.savedAt());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read OIDC snapshot {}", path, e);
+        }
+    }
+
+    /**
+     * Why the snapshot at {@code path} must not be loaded, or {@code null} if it may: it must be
+     * a regular file, and it and its directory must be owned by this process's user and not
+     * writable by group or others.
+     */
+    static String untrustedReason(Path path) throws IOException {
+        if (!Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+            return "not a regular file";
+        }
+        String user = System.getProperty("user.name");
+        for (Path checked : List.of(path, path.toAbsolutePath().getParent())) {
+            String owner = Files.getOwner(checked, LinkOption.NOFOLLOW_LINKS).getName();
+            if (!owner.equals(user)) {
+                return checked + " is owned by " + owner + ", not " + user;
+            }
+            PosixFileAttributeView posix =
+                    Files.getFileAttributeView(checked, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+            if (posix != null) {
+                Set<PosixFilePermission> permissions = posix.readAttributes().permissions();
+                if (permissions.contains(PosixFilePermission.GROUP_WRITE)
+                        || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+                    return checked + " is writable by group or others";
+                }
+            }
+        }
+        return null;
+    }
+
+    private void saveSnapshot() {
+        Path path = properties.snapshotPath();
+        if (path == null) {
+            return;
+        }
+        Mono.fromCallable(() -> {
+                    // Writes are serialized and read the current state, so the last one to finish is the newest.
+                    synchronized (snapshotLock) {
+                        OidcProviderSnapshot snapshot = new OidcProviderSnapshot(
+                                issuer, Instant.ofEpochMilli(nowMillis()), providerMetadata, signingKeys.document());
+                        Path directory = path.toAbsolutePath().getParent();
+                        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+                        Files.createDirectories(directory, posix ? ownerOnly("rwx------") : new FileAttribute<?>[0]);
+                        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp",
+                                posix ? ownerOnly("rw-------") : new FileAttribute<?>[0]);
+                        try {
+                            jsonMapper.writeValue(temp.toFile(), snapshot);
+                            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        } finally {
+                            Files.deleteIfExists(temp);
+                        }
+                        return path;
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(
+                        saved -> log.debug("Saved OIDC snapshot for '{}' to {}", registrationId, saved),
+                        e -> log.warn("Could not write OIDC snapshot {}", path, e));
+    }
+
+    private static FileAttribute<?>[] ownerOnly(String permissions) {
+        return new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(permissions))};
+    }
+
+    private long nowMillis() {
+        return scheduler.now(TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Decoded signing keys of one JWKS document.
+     */
+    record SigningKeys(Map<String, Object> document, Map<String, List<JWSVerifier>> byKid, List<JWSVerifier> all) {
+
+        static final SigningKeys EMPTY = new SigningKeys(Map.of(), Map.of(), List.of());
+
+        List<JWSVerifier> candidates(String kid) {
+            return kid == null ? all : byKid.getOrDefault(kid, List.of());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.bff.oidc;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * On-disk copy of a provider's discovery document and JWK set.
+ *
+ * @param issuer           issuer the snapshot belongs to; a snapshot for another issuer is ignored
+ * @param savedAt          when the snapshot was written
+ * @param providerMetadata discovery document, empty if it has never been fetched
+ * @param jwks             JWK set document, empty if it has never been fetched
+ */
+record OidcProviderSnapshot(
+    String issuer,
+    Instant savedAt,
+    Map<String, Object> providerMetadata,
+    Map<String, Object> jwks
+) {
+}
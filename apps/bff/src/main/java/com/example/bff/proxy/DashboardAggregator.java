@@ -0,0 +1,137 @@
+package com.example.bff.proxy;
+
+import com.example.bff.proxy.DownstreamProxy.Fetched;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the configured dashboard sections for the signed-in user in parallel and emits each one
+ * as soon as it completes, so one slow downstream does not hold back the others.
+ * <p>
+ * Every section is fetched through {@link DownstreamProxy} with its own deadline. A section that
+ * times out, fails, answers with a non-2xx status, a non-JSON body or a body over
+ * {@code app.dashboard.max-section-size} is emitted as a {@code timeout}/{@code error} entry;
+ * the stream itself still completes normally.
+ * <p>
+ * Section bodies are embedded as raw JSON. Each is first checked with a streaming parse (no tree is
+ * built) to be exactly one well-formed JSON value, since a truncated body or trailing content would
+ * otherwise corrupt the line or add keys to it. Line breaks (which valid JSON can only contain as
+ * insignificant whitespace) are replaced by spaces so each section stays on one line.
+ */
+@Component
+public class DashboardAggregator {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final DownstreamProxy downstreamProxy;
+    private final Map<String, DashboardProperties.Section> sections;
+    private final int maxSectionBytes;
+
+    public DashboardAggregator(DownstreamProxy downstreamProxy, DashboardProperties properties) {
+        this.downstreamProxy = downstreamProxy;
+        this.sections = new LinkedHashMap<>(properties.sections());
+        this.maxSectionBytes = (int) properties.maxSectionSize().toBytes();
+        sections.forEach((name, section) -> {
+            if (section.route() == null || !downstreamProxy.hasRoute(section.route())) {
+                throw new IllegalStateException("app.dashboard.sections." + name
+                        + ".route must name an app.proxy.routes entry, was '" + section.route() + "'");
+            }
+        });
+    }
+
+    /**
+     * All sections, in completion order.
+     */
+    public Flux<DashboardSection> load(ServerWebExchange exchange) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return Flux.fromIterable(sections.entrySet())
+                    .flatMap(entry -> loadSection(entry.getKey(), entry.getValue(), exchange, start),
+                            Math.max(1, sections.size()));
+        });
+    }
+
+    private Mono<DashboardSection> loadSection(String name, DashboardProperties.Section section,
+                                               ServerWebExchange exchange, long start) {
+        return downstreamProxy.fetch(section.route(), DownstreamProxy.SELF, exchange, section.timeout(), maxSectionBytes)
+                .map(fetched -> toSection(name, fetched, start))
+                .onErrorResume(e -> Mono.just(new DashboardSection(
+                        name,
+                        DownstreamProxy.isTimeout(e) ? DashboardSection.TIMEOUT : DashboardSection.ERROR,
+                        e instanceof ResponseStatusException statusException ? statusException.getStatusCode().value() : null,
+                        null,
+                        elapsedMs(start))));
+    }
+
+    private static DashboardSection toSection(String name, Fetched fetched, long start) {
+        int status = fetched.status().value();
+        boolean ok = fetched.status().is2xxSuccessful()
+                && (fetched.body() == null || fetched.body().isBlank()
+                    || isJson(fetched.contentType()) && isSingleJsonValue(fetched.body()));
+        return new DashboardSection(
+                name,
+                ok ? DashboardSection.OK : DashboardSection.ERROR,
+                status,
+                ok ? singleLine(fetched.body()) : null,
+                elapsedMs(start));
+    }
+
+    private static boolean isJson(MediaType contentType) {
+        return contentType != null
+                && (MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                    || contentType.getSubtype().endsWith("+json"));
+    }
+
+    /**
+     * Whether {@code json} is exactly one well-formed JSON value with nothing but whitespace after it.
+     * Strings are decoded too, so bad escapes and raw control characters are rejected.
+     */
+    static boolean isSingleJsonValue(String json) {
+        try (JsonParser parser = JSON.createParser(ObjectReadContext.empty(), json)) {
+            JsonToken token = parser.nextToken();
+            int depth = 0;
+            while (token != null) {
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd()) {
+                    depth--;
+                } else if (token == JsonToken.VALUE_STRING) {
+                    parser.getString();
+                }
+                if (depth == 0) {
+                    return parser.nextToken() == null;
+                }
+                token = parser.nextToken();
+            }
+            return false;
+        } catch (JacksonException e) {
+            return false;
+        }
+    }
+
+    static String singleLine(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        return json.indexOf('\n') < 0 && json.indexOf('\r') < 0
+                ? json
+                : json.replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static long elapsedMs(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
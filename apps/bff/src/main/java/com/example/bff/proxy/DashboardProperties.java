@@ -0,0 +1,31 @@
+package com.example.bff.proxy;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * {@code /api/dashboard} sections bound from {@code app.dashboard.*}.
+ *
+ * @param sections       section name → proxy route and deadline, in response-preference order
+ * @param maxSectionSize largest section body embedded in the response; larger ones are reported as errors
+ */
+@ConfigurationProperties("app.dashboard")
+public record DashboardProperties(
+    @DefaultValue Map<String, Section> sections,
+    @DefaultValue("256KB") DataSize maxSectionSize
+) {
+
+    /**
+     * @param route   name of an {@code app.proxy.routes} entry
+     * @param timeout deadline for this section; it is reported as {@code timeout} when exceeded
+     */
+    public record Section(
+        String route,
+        @DefaultValue("1500ms") Duration timeout
+    ) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.bff.proxy;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+/**
+ * One line of the {@code /api/dashboard} NDJSON stream.
+ *
+ * @param section    configured section name
+ * @param status     {@code ok}, {@code error} or {@code timeout}
+ * @param httpStatus downstream status, if a response was received
+ * @param data       downstream JSON body, embedded as-is once checked to be a single JSON value; only present when {@code status} is {@code ok}
+ * @param elapsedMs  time from the start of the dashboard request until this section completed
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DashboardSection(
+    String section,
+    String status,
+    Integer httpStatus,
+    @JsonRawValue String data,
+    long elapsedMs
+) {
+
+    public static final String OK = "ok";
+    public static final String ERROR = "error";
+    public static final String TIMEOUT = "timeout";
+}
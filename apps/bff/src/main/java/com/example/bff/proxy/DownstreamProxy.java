@@ -0,0 +1,438 @@
+package com.example.bff.proxy;
+
+import com.example.bff.model.SessionInfo;
+import com.example.bff.proxy.ResponseCache.CachedResponse;
+import com.example.bff.security.DelegateAccessDeniedException;
+import com.example.bff.security.DelegateAuthorizationManager;
+import com.example.bff.security.DelegateAuthorizationManager.DelegateAccess;
+import com.example.bff.security.DelegateRule;
+import com.example.bff.security.EnrichedOidcUser;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Forwards a per-user {@code GET} to a downstream route through {@code hcpWebClient}, so the
+ * {@code hcp} bearer token is attached by its OAuth2 filter.
+ * <p>
+ * <b>User ID:</b> {@code me} resolves to the session's {@code enterpriseId}. Any other ID must be the
+ * user's own or belong to a member the user is an active delegate for; otherwise the request fails
+ * with {@link DelegateAccessDeniedException} (403) before anything is sent downstream.
+ * <p>
+ * <b>Streaming:</b> the downstream body is written to the client as the {@link DataBuffer}s arrive,
+ * without aggregation or decoding, so memory per request does not grow with the payload size.
+ * Status and a fixed set of headers are copied; a downstream {@code 401} (service token rejected)
+ * becomes {@code 502}. The route's {@code timeout} bounds the whole exchange: expiring before the
+ * response starts gives {@code 504}, later it aborts the response. It also replaces the
+ * downstream client's own {@code responseTimeout} for the request, so a read may wait that long;
+ * a read timeout counts as the route timing out.
+ * <p>
+ * <b>Caching:</b> routes with {@code cache: true} keep {@code 200} responses in {@link ResponseCache}
+ * under the session's {@code enterpriseId}. A fresh entry is served without a downstream call; a stale
+ * one is revalidated with the stored {@code ETag} / {@code Last-Modified}, and a downstream {@code 304}
+ * serves the cached body. Either way a matching browser {@code If-None-Match} is answered with
+ * {@code 304}. Responses marked {@code Cache-Control: no-store} are relayed but not stored.
+ * <p>
+ * {@link #fetch} instead collects a bounded JSON body for {@link DashboardAggregator}.
+ * <p>
+ * <b>Metrics:</b> {@code bff.proxy.requests} (timer; {@code route}, {@code outcome} = status series,
+ * {@code timeout}, {@code error} or {@code cancelled}) and {@code bff.proxy.response.bytes}
+ * (distribution summary per {@code route}).
+ */
+@Component
+public class DownstreamProxy {
+
+    /** User ID that addresses the signed-in user. */
+    public static final String SELF = "me";
+
+    static final String REQUEST_METRIC = "bff.proxy.requests";
+    static final String BYTES_METRIC = "bff.proxy.response.bytes";
+
+    private static final DelegateRule ANY_DELEGATE = new DelegateRule("userId", List.of());
+
+    private static final List<String> REQUEST_HEADERS = List.of(
+            HttpHeaders.ACCEPT,
+            HttpHeaders.ACCEPT_LANGUAGE,
+            HttpHeaders.IF_NONE_MATCH,
+            HttpHeaders.IF_MODIFIED_SINCE);
+
+    private static final List<String> CACHED_REQUEST_HEADERS = List.of(
+            HttpHeaders.ACCEPT,
+            HttpHeaders.ACCEPT_LANGUAGE);
+
+    private static final List<String> NOT_MODIFIED_HEADERS = List.of(
+            HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.ETAG,
+            HttpHeaders.LAST_MODIFIED);
+
+    private static final List<String> RESPONSE_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.CONTENT_LENGTH,
+            HttpHeaders.CONTENT_ENCODING,
+            HttpHeaders.CONTENT_LANGUAGE,
+            HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.ETAG,
+            HttpHeaders.LAST_MODIFIED);
+
+    private final WebClient webClient;
+    private final DelegateAuthorizationManager delegateAuthorizationManager;
+    private final ResponseCache responseCache;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Target> targets = new HashMap<>();
+
+    public DownstreamProxy(
+            @Qualifier("hcpWebClient") WebClient hcpWebClient,
+            ProxyProperties properties,
+            DelegateAuthorizationManager delegateAuthorizationManager,
+            ResponseCache responseCache,
+            MeterRegistry meterRegistry) {
+        this.webClient = hcpWebClient;
+        this.delegateAuthorizationManager = delegateAuthorizationManager;
+        this.responseCache = responseCache;
+        this.meterRegistry = meterRegistry;
+        properties.routes().forEach((name, route) -> {
+            if (route.baseUrl() == null || route.baseUrl().isBlank()) {
+                throw new IllegalStateException("app.proxy.routes." + name + ".base-url is required");
+            }
+            String baseUrl = route.baseUrl().endsWith("/") ? route.baseUrl() : route.baseUrl() + "/";
+            targets.put(name, new Target(name, baseUrl + "{userId}", route.timeout(), route.cache(),
+                    DistributionSummary.builder(BYTES_METRIC)
+                            .description("Response body bytes streamed from the downstream")
+                            .baseUnit("bytes")
+                            .tag("route", name)
+                            .register(meterRegistry)));
+        });
+    }
+
+    /**
+     * Streams {@code route}'s response for {@code userId} into {@code exchange}'s response.
+     */
+    public Mono<Void> forward(String route, String userId, ServerWebExchange exchange) {
+        Target target = target(route);
+        return authentication(exchange).flatMap(authentication -> resolveUserId(authentication, userId)
+                .flatMap(resolved -> {
+                    String owner = enterpriseId(authentication);
+                    return target.cache() && owner != null
+                            ? sendCached(target, owner, resolved, exchange)
+                            : send(target, resolved, exchange,
+                                    headers -> copy(exchange.getRequest().getHeaders(), headers, REQUEST_HEADERS),
+                                    (response, bytes) -> relay(response, exchange.getResponse(), bytes));
+                }));
+    }
+
+    /**
+     * Fetches {@code route}'s response for {@code userId} as text, for embedding in an aggregate response.
+     * Bodies larger than {@code maxBytes} fail with {@code DataBufferLimitException}.
+     *
+     * @param timeout deadline for this call, replacing the route's own
+     */
+    public Mono<Fetched> fetch(String route, String userId, ServerWebExchange exchange, Duration timeout, int maxBytes) {
+        Target target = target(route);
+        return resolveUserId(exchange, userId).flatMap(resolved -> Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicLong bytes = new AtomicLong();
+            AtomicReference<String> outcome = new AtomicReference<>("error");
+            return webClient.get()
+                    .uri(target.uriTemplate(), resolved)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .httpRequest(request -> responseTimeout(request, timeout))
+                    .exchangeToMono(response -> {
+                        if (response.statusCode().value() == HttpStatus.UNAUTHORIZED.value()) {
+                            return response.releaseBody().then(Mono.error(
+                                    new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Downstream rejected the service token")));
+                        }
+                        outcome.set((response.statusCode().value() / 100) + "xx");
+                        MediaType contentType = response.headers().contentType().orElse(null);
+                        return DataBufferUtils.join(response.bodyToFlux(DataBuffer.class)
+                                        .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount())), maxBytes)
+                                .map(body -> {
+                                    try {
+                                        return body.toString(StandardCharsets.UTF_8);
+                                    } finally {
+                                        DataBufferUtils.release(body);
+                                    }
+                                })
+                                .map(body -> new Fetched(response.statusCode(), contentType, body))
+                                .defaultIfEmpty(new Fetched(response.statusCode(), contentType, null));
+                    })
+                    .timeout(timeout)
+                    .doOnSuccess(done -> record(target, outcome.get(), start, bytes.get()))
+                    .doOnError(e -> record(target, isTimeout(e) ? "timeout" : "error", start, bytes.get()))
+                    .doOnCancel(() -> record(target, "cancelled", start, bytes.get()));
+        }));
+    }
+
+    /**
+     * Whether a route named {@code route} is configured.
+     */
+    public boolean hasRoute(String route) {
+        return targets.containsKey(route);
+    }
+
+    private Target target(String route) {
+        Target target = targets.get(route);
+        if (target == null) {
+            throw new IllegalArgumentException("Unknown proxy route '" + route + "'");
+        }
+        return target;
+    }
+
+    private Mono<String> resolveUserId(ServerWebExchange exchange, String userId) {
+        return authentication(exchange).flatMap(authentication -> resolveUserId(authentication, userId));
+    }
+
+    private static Mono<Authentication> authentication(ServerWebExchange exchange) {
+        return exchange.getPrincipal()
+                .ofType(Authentication.class)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED)));
+    }
+
+    private static String enterpriseId(Authentication authentication) {
+        SessionInfo sessionInfo = authentication.getPrincipal() instanceof EnrichedOidcUser user
+                ? user.getSessionInfo()
+                : null;
+        return sessionInfo != null ? sessionInfo.enterpriseId() : null;
+    }
+
+    private Mono<String> resolveUserId(Authentication authentication, String userId) {
+        String enterpriseId = enterpriseId(authentication);
+        if (SELF.equals(userId) || userId.equals(enterpriseId)) {
+            return enterpriseId != null
+                    ? Mono.just(enterpriseId)
+                    : Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN, "No enterprise ID in session"));
+        }
+        return delegateAuthorizationManager
+                .authorize(Mono.just(authentication), new DelegateAccess(ANY_DELEGATE, userId))
+                .flatMap(result -> result.isGranted()
+                        ? Mono.just(userId)
+                        : Mono.error(new DelegateAccessDeniedException(ANY_DELEGATE, userId)));
+    }
+
+    private Mono<Void> send(Target target, String userId, ServerWebExchange exchange,
+            Consumer<HttpHeaders> requestHeaders, BiFunction<ClientResponse, AtomicLong, Mono<Void>> relay) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicLong bytes = new AtomicLong();
+            return webClient.get()
+                    .uri(target.uriTemplate(), userId)
+                    .headers(requestHeaders)
+                    .httpRequest(request -> responseTimeout(request, target.timeout()))
+                    .exchangeToMono(response -> relay.apply(response, bytes))
+                    .timeout(target.timeout())
+                    .doOnSuccess(done -> record(target, outcome(exchange.getResponse()), start, bytes.get()))
+                    .doOnError(e -> record(target, isTimeout(e) ? "timeout" : "error", start, bytes.get()))
+                    .doOnCancel(() -> record(target, "cancelled", start, bytes.get()))
+                    .onErrorMap(DownstreamProxy::isTimeout,
+                            e -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, target.name() + " timed out", e))
+                    .onErrorMap(WebClientRequestException.class,
+                            e -> new ResponseStatusException(HttpStatus.BAD_GATEWAY, target.name() + " unavailable", e));
+        });
+    }
+
+    /**
+     * The downstream's client sets a {@code responseTimeout} sized for its API calls; a proxied
+     * route waits as long as its own deadline instead.
+     */
+    private static void responseTimeout(ClientHttpRequest request, Duration timeout) {
+        if (request.getNativeRequest() instanceof HttpClientRequest nativeRequest) {
+            nativeRequest.responseTimeout(timeout);
+        }
+    }
+
+    /**
+     * Whether {@code error} is the deadline passing: the route's {@code timeout} or a Reactor Netty
+     * read timeout, possibly wrapped by {@code WebClient}.
+     */
+    static boolean isTimeout(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof TimeoutException || e instanceof ReadTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<Void> sendCached(Target target, String owner, String userId, ServerWebExchange exchange) {
+        CachedResponse cached = responseCache.get(owner, target.name(), userId);
+        if (cached != null && responseCache.isFresh(cached)) {
+            responseCache.record(target.name(), ResponseCache.HIT);
+            return Mono.defer(() -> serve(cached, exchange));
+        }
+        // The browser's own validators are not forwarded: a full body is needed to fill the cache,
+        // and a matching If-None-Match is answered here instead
+        return send(target, userId, exchange,
+                headers -> {
+                    copy(exchange.getRequest().getHeaders(), headers, CACHED_REQUEST_HEADERS);
+                    if (cached != null && cached.etag() != null) {
+                        headers.setIfNoneMatch(cached.etag());
+                    }
+                    if (cached != null && cached.lastModified() != null) {
+                        headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified());
+                    }
+                },
+                (response, bytes) -> relayCached(response, exchange, bytes, target.name(), owner, userId, cached));
+    }
+
+    private Mono<Void> relayCached(ClientResponse downstream, ServerWebExchange exchange, AtomicLong bytes,
+            String route, String owner, String userId, CachedResponse cached) {
+        int status = downstream.statusCode().value();
+        if (status == HttpStatus.NOT_MODIFIED.value() && cached != null) {
+            responseCache.record(route, ResponseCache.REVALIDATED);
+            CachedResponse refreshed = responseCache.revalidated(owner, route, userId, cached);
+            return downstream.releaseBody().then(Mono.defer(() -> serve(refreshed, exchange)));
+        }
+        responseCache.record(route, ResponseCache.MISS);
+        HttpHeaders headers = new HttpHeaders();
+        copy(downstream.headers().asHttpHeaders(), headers, RESPONSE_HEADERS);
+        String cacheControl = headers.getCacheControl();
+        if (status != HttpStatus.OK.value() || (cacheControl != null && cacheControl.contains("no-store"))) {
+            if (cached != null) {
+                responseCache.remove(owner, route, userId);
+            }
+            return relay(downstream, exchange.getResponse(), bytes);
+        }
+        // Copy the body aside while it streams through; stored only if complete and within the entry limit
+        BodyCopy copy = new BodyCopy(responseCache.maximumEntryBytes());
+        var body = downstream.bodyToFlux(DataBuffer.class)
+                .doOnNext(buffer -> {
+                    bytes.addAndGet(buffer.readableByteCount());
+                    copy.append(buffer);
+                })
+                .doOnComplete(() -> {
+                    byte[] stored = copy.toByteArray();
+                    if (stored != null) {
+                        responseCache.put(owner, route, userId, headers, stored);
+                    }
+                });
+        ServerHttpResponse response = exchange.getResponse();
+        if (ResponseCache.matches(exchange.getRequest().getHeaders().getIfNoneMatch(), headers.getETag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            copy(headers, response.getHeaders(), NOT_MODIFIED_HEADERS);
+            return body.doOnNext(DataBufferUtils::release).then(response.setComplete());
+        }
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().putAll(headers);
+        return response.writeWith(body);
+    }
+
+    private static Mono<Void> serve(CachedResponse cached, ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        if (ResponseCache.matches(exchange.getRequest().getHeaders().getIfNoneMatch(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            copy(cached.headers(), response.getHeaders(), NOT_MODIFIED_HEADERS);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().putAll(cached.headers());
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static Mono<Void> relay(ClientResponse downstream, ServerHttpResponse response, AtomicLong bytes) {
+        if (downstream.statusCode().value() == HttpStatus.UNAUTHORIZED.value()) {
+            return downstream.releaseBody().then(Mono.error(
+                    new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Downstream rejected the service token")));
+        }
+        response.setStatusCode(downstream.statusCode());
+        copy(downstream.headers().asHttpHeaders(), response.getHeaders(), RESPONSE_HEADERS);
+        return response.writeWith(downstream.bodyToFlux(DataBuffer.class)
+                .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount())));
+    }
+
+    private static void copy(HttpHeaders from, HttpHeaders to, List<String> names) {
+        for (String name : names) {
+            List<String> values = from.get(name);
+            if (values != null && !values.isEmpty()) {
+                to.put(name, values);
+            }
+        }
+    }
+
+    private static String outcome(ServerHttpResponse response) {
+        return response.getStatusCode() != null ? (response.getStatusCode().value() / 100) + "xx" : "error";
+    }
+
+    private void record(Target target, String outcome, long start, long bytes) {
+        meterRegistry.timer(REQUEST_METRIC, "route", target.name(), "outcome", outcome)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        target.bytes().record(bytes);
+    }
+
+    /**
+     * A downstream response read in full.
+     *
+     * @param body UTF-8 body, or {@code null} if empty
+     */
+    public record Fetched(HttpStatusCode status, MediaType contentType, String body) {
+    }
+
+    private record Target(String name, String uriTemplate, Duration timeout, boolean cache, DistributionSummary bytes) {
+    }
+
+    /**
+     * Copy of a streamed body, abandoned once it exceeds {@code limit} bytes.
+     */
+    private static final class BodyCopy {
+
+        private final int limit;
+        private ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        BodyCopy(int limit) {
+            this.limit = limit;
+        }
+
+        void append(DataBuffer buffer) {
+            if (out == null) {
+                return;
+            }
+            if (out.size() + buffer.readableByteCount() > limit) {
+                out = null;
+                return;
+            }
+            // Reads through views, leaving the buffer's read position for the client write
+            try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                while (iterator.hasNext()) {
+                    ByteBuffer view = iterator.next();
+                    byte[] chunk = new byte[view.remaining()];
+                    view.get(chunk);
+                    out.write(chunk, 0, chunk.length);
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            return out != null ? out.toByteArray() : null;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.bff.proxy;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Pass-through routes bound from {@code app.proxy.routes.<name>.*}.
+ *
+ * @param routes downstream route per name, e.g. {@code profile} and {@code summary}
+ */
+@ConfigurationProperties("app.proxy")
+public record ProxyProperties(
+    @DefaultValue Map<String, Route> routes
+) {
+
+    /**
+     * @param baseUrl    downstream URL the user ID is appended to as the last path segment
+     * @param timeout    deadline for the whole exchange, body included
+     * @param cache      whether {@code 200} responses are kept in the per-user {@link ResponseCache}
+     * @param downstream connection pool the route uses: {@code user-service} or {@code psn}; when
+     *                   unset, the pool of the downstream whose base URL contains it, else the
+     *                   shared default pool
+     */
+    public record Route(
+        String baseUrl,
+        @DefaultValue("5s") Duration timeout,
+        @DefaultValue("false") boolean cache,
+        String downstream
+    ) {
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.bff.proxy;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded in-process cache of successful proxied {@code GET} responses, per signed-in user.
+ * <p>
+ * Entries are grouped by the session's {@code enterpriseId}, so {@link #evict(String)} drops
+ * everything a user has cached (on logout) in one step. Within a user, entries are keyed by route
+ * and requested user ID, which differs from the owner when a representative views a managed member.
+ * <p>
+ * <b>Bounds:</b> the cache is weighed by body bytes ({@code maximum-size}); least recently used
+ * users are evicted first, and users idle longer than {@code retention} expire. Bodies over
+ * {@code maximum-entry-size} are never stored.
+ * <p>
+ * <b>Metrics:</b> {@code bff.proxy.cache.requests} ({@code route}, {@code result} = {@code hit},
+ * {@code revalidated}, {@code miss}), from which the hit ratio is derived; {@code bff.proxy.cache.size}
+ * (bytes held) and {@code bff.proxy.cache.users}.
+ */
+@Component
+public class ResponseCache {
+
+    static final String REQUEST_METRIC = "bff.proxy.cache.requests";
+
+    static final String HIT = "hit";
+    static final String REVALIDATED = "revalidated";
+    static final String MISS = "miss";
+
+    /** Rough per-entry overhead (key, headers, record) added to the body size when weighing. */
+    private static final int ENTRY_OVERHEAD = 512;
+
+    private final Cache<String, Map<EntryKey, CachedResponse>> cache;
+    private final Ticker ticker;
+    private final long ttlNanos;
+    private final int maximumEntryBytes;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ResponseCache(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Ticker.systemTicker());
+    }
+
+    ResponseCache(ResponseCacheProperties properties, MeterRegistry meterRegistry, Ticker ticker) {
+        this.ticker = ticker;
+        this.ttlNanos = properties.ttl().toNanos();
+        this.maximumEntryBytes = (int) Math.min(Integer.MAX_VALUE, properties.maximumEntrySize().toBytes());
+        this.meterRegistry = meterRegistry;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.maximumSize().toBytes())
+                .weigher((String owner, Map<EntryKey, CachedResponse> entries) -> weight(entries))
+                .expireAfterAccess(properties.retention())
+                .ticker(ticker)
+                .build();
+        Gauge.builder("bff.proxy.cache.size", cache,
+                        c -> c.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                .description("Bytes held by the proxied response cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("bff.proxy.cache.users", cache, Cache::estimatedSize)
+                .description("Users with cached responses")
+                .register(meterRegistry);
+    }
+
+    CachedResponse get(String owner, String route, String userId) {
+        Map<EntryKey, CachedResponse> entries = cache.getIfPresent(owner);
+        return entries != null ? entries.get(new EntryKey(route, userId)) : null;
+    }
+
+    /**
+     * Stores a {@code 200} response. Returns {@code false} if the body is too large to cache.
+     */
+    boolean put(String owner, String route, String userId, HttpHeaders headers, byte[] body) {
+        if (body.length > maximumEntryBytes) {
+            return false;
+        }
+        CachedResponse response = new CachedResponse(HttpHeaders.readOnlyHttpHeaders(headers), body,
+                headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED), ticker.read());
+        update(owner, new EntryKey(route, userId), response);
+        return true;
+    }
+
+    /**
+     * Marks {@code cached} as confirmed unchanged by the downstream now.
+     */
+    CachedResponse revalidated(String owner, String route, String userId, CachedResponse cached) {
+        CachedResponse refreshed = new CachedResponse(cached.headers(), cached.body(),
+                cached.etag(), cached.lastModified(), ticker.read());
+        update(owner, new EntryKey(route, userId), refreshed);
+        return refreshed;
+    }
+
+    int maximumEntryBytes() {
+        return maximumEntryBytes;
+    }
+
+    void remove(String owner, String route, String userId) {
+        update(owner, new EntryKey(route, userId), null);
+    }
+
+    /**
+     * Drops every entry cached for {@code owner}.
+     */
+    public void evict(String owner) {
+        if (owner != null) {
+            cache.invalidate(owner);
+        }
+    }
+
+    /**
+     * Runs pending evictions; for tests.
+     */
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    boolean isFresh(CachedResponse response) {
+        return ticker.read() - response.storedAt() < ttlNanos;
+    }
+
+    void record(String route, String result) {
+        meterRegistry.counter(REQUEST_METRIC, "route", route, "result", result).increment();
+    }
+
+    // Entry maps are copied on write so the weigher sees every change.
+    private void update(String owner, EntryKey key, CachedResponse response) {
+        cache.asMap().compute(owner, (k, existing) -> {
+            Map<EntryKey, CachedResponse> entries = existing != null ? new HashMap<>(existing) : new HashMap<>(4);
+            if (response != null) {
+                entries.put(key, response);
+            } else {
+                entries.remove(key);
+            }
+            return entries.isEmpty() ? null : Map.copyOf(entries);
+        });
+    }
+
+    private static int weight(Map<EntryKey, CachedResponse> entries) {
+        long weight = 0;
+        for (CachedResponse response : entries.values()) {
+            weight += response.body().length + ENTRY_OVERHEAD;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    /**
+     * Whether a browser's {@code If-None-Match} list matches {@code etag} (weak comparison).
+     */
+    static boolean matches(List<String> ifNoneMatch, String etag) {
+        if (etag == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        String opaque = opaque(etag);
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate) || opaque(candidate).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private record EntryKey(String route, String userId) {
+    }
+
+    /**
+     * A cached {@code 200} response.
+     *
+     * @param headers      relayed response headers
+     * @param etag         downstream {@code ETag}, if any
+     * @param lastModified downstream {@code Last-Modified}, if any
+     * @param storedAt     ticker time the response was stored or last revalidated
+     */
+    record CachedResponse(HttpHeaders headers, byte[] body, String etag, String lastModified, long storedAt) {
+    }
+}
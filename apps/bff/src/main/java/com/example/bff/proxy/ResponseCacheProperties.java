@@ -0,0 +1,26 @@
+package com.example.bff.proxy;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Per-user response cache settings bound from {@code app.response-cache.*}. Routes opt in with
+ * {@code app.proxy.routes.<name>.cache=true}.
+ *
+ * @param ttl              how long a cached response is served without asking the downstream
+ * @param retention        how long a user's entries are kept without being used; stale entries
+ *                         within it are revalidated with a conditional request
+ * @param maximumSize      total body bytes held; least recently used users are evicted beyond it
+ * @param maximumEntrySize largest body that is cached; larger responses are only streamed
+ */
+@ConfigurationProperties("app.response-cache")
+public record ResponseCacheProperties(
+    @DefaultValue("60s") Duration ttl,
+    @DefaultValue("30m") Duration retention,
+    @DefaultValue("64MB") DataSize maximumSize,
+    @DefaultValue("256KB") DataSize maximumEntrySize
+) {
+}
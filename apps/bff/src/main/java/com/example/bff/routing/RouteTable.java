@@ -0,0 +1,151 @@
+package com.example.bff.routing;
+
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Declarative path → {@link RouteType} table, compiled once into a segment trie.
+ * <p>
+ * Patterns are literal paths ({@code /api/auth/session}, matching exactly that path) or literal
+ * prefixes ending in {@code /**} ({@code /api/**}, matching {@code /api} and everything below it).
+ * The most specific pattern wins: an exact path over a prefix, a longer prefix over a shorter one.
+ * Unmatched paths are {@link RouteType#FRONTEND_REDIRECT}.
+ * <p>
+ * {@link #classify(ServerWebExchange)} stores the result under {@link #ROUTE_ATTRIBUTE}, so the
+ * path is walked once per request no matter how many filters ask.
+ */
+public final class RouteTable {
+
+    public static final String ROUTE_ATTRIBUTE = RouteTable.class.getName() + ".ROUTE";
+
+    private static final String PREFIX_SUFFIX = "/**";
+
+    private final Node root;
+    private final Map<String, RouteType> routes;
+
+    private RouteTable(Node root, Map<String, RouteType> routes) {
+        this.root = root;
+        this.routes = routes;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The route of {@code exchange}'s path within the application, computed on first use and
+     * then read back from the exchange.
+     */
+    public RouteType classify(ServerWebExchange exchange) {
+        RouteType route = exchange.getAttribute(ROUTE_ATTRIBUTE);
+        if (route == null) {
+            route = classify(exchange.getRequest().getPath().pathWithinApplication().value());
+            exchange.getAttributes().put(ROUTE_ATTRIBUTE, route);
+        }
+        return route;
+    }
+
+    public RouteType classify(String path) {
+        Node node = root;
+        RouteType best = node.prefix;
+        int length = path.length();
+        int start = 0;
+        while (start < length) {
+            if (path.charAt(start) == '/') {
+                start++;
+                continue;
+            }
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            node = node.children.get(path.substring(start, end));
+            if (node == null) {
+                return best != null ? best : RouteType.FRONTEND_REDIRECT;
+            }
+            if (node.prefix != null) {
+                best = node.prefix;
+            }
+            start = end;
+        }
+        if (node.exact != null) {
+            return node.exact;
+        }
+        return best != null ? best : RouteType.FRONTEND_REDIRECT;
+    }
+
+    /**
+     * Matches exchanges classified as {@code route}, for Spring Security's {@code authorizeExchange}.
+     */
+    public ServerWebExchangeMatcher matcher(RouteType route) {
+        return exchange -> classify(exchange) == route
+                ? ServerWebExchangeMatcher.MatchResult.match()
+                : ServerWebExchangeMatcher.MatchResult.notMatch();
+    }
+
+    /**
+     * The declared patterns in declaration order.
+     */
+    public Map<String, RouteType> getRoutes() {
+        return routes;
+    }
+
+    private static final class Node {
+
+        final Map<String, Node> children = new HashMap<>(4);
+        RouteType exact;
+        RouteType prefix;
+    }
+
+    public static final class Builder {
+
+        private final Map<String, RouteType> routes = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds {@code pattern}; see the class documentation for the supported forms.
+         *
+         * @throws IllegalArgumentException if the pattern is malformed or already declared
+         */
+        public Builder route(String pattern, RouteType route) {
+            String literal = pattern.endsWith(PREFIX_SUFFIX)
+                    ? pattern.substring(0, pattern.length() - PREFIX_SUFFIX.length())
+                    : pattern;
+            if (!pattern.startsWith("/") || literal.indexOf('*') >= 0 || literal.indexOf('{') >= 0) {
+                throw new IllegalArgumentException("Unsupported route pattern '" + pattern
+                        + "': use a literal path, optionally ending in /**");
+            }
+            if (routes.putIfAbsent(pattern, route) != null) {
+                throw new IllegalArgumentException("Route pattern '" + pattern + "' declared twice");
+            }
+            return this;
+        }
+
+        public RouteTable build() {
+            Node root = new Node();
+            routes.forEach((pattern, route) -> {
+                boolean prefix = pattern.endsWith(PREFIX_SUFFIX);
+                String path = prefix ? pattern.substring(0, pattern.length() - PREFIX_SUFFIX.length()) : pattern;
+                Node node = root;
+                for (String segment : path.split("/")) {
+                    if (!segment.isEmpty()) {
+                        node = node.children.computeIfAbsent(segment, s -> new Node());
+                    }
+                }
+                if (prefix) {
+                    node.prefix = route;
+                } else {
+                    node.exact = route;
+                }
+            });
+            return new RouteTable(root, Collections.unmodifiableMap(new LinkedHashMap<>(routes)));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.bff.routing;
+
+/**
+ * How a request path is handled, as classified by {@link RouteTable}.
+ */
+public enum RouteType {
+
+    /** Backend endpoint that requires an authenticated session. */
+    BACKEND,
+
+    /** Backend endpoint open to anonymous callers. */
+    PUBLIC,
+
+    /** Actuator endpoint other than health and info: HTTP Basic with the management credentials. */
+    MANAGEMENT,
+
+    /** Spring Security OAuth2 login endpoints ({@code /oauth2/**}, {@code /login/oauth2/**}). */
+    AUTH_CALLBACK,
+
+    /**
+     * Anything else: a UI route, redirected to the frontend, or to the OIDC callback endpoint
+     * when it carries {@code code} and {@code state}.
+     */
+    FRONTEND_REDIRECT
+}
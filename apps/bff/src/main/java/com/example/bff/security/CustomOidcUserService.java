@@ -1,8 +1,15 @@
 package com.example.bff.security;
 
+import com.example.bff.client.DownstreamOverloadedException;
+import com.example.bff.client.DownstreamPolicy;
+import com.example.bff.client.DownstreamUnavailableException;
 import com.example.bff.model.DelegatePermission;
 import com.example.bff.model.SessionInfo;
 import com.example.bff.model.UserServiceResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
@@ -12,17 +19,61 @@ import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Loads the OIDC user and enriches it with {@link SessionInfo} from the user service and,
+ * for representatives, PSN.
+ * <p>
+ * <b>Metrics:</b> {@code bff.login.stage} times each stage ({@code stage} = {@code oidc_user},
+ * {@code user_info}, {@code managed_members}; {@code outcome} = {@code success}, {@code error});
+ * {@code user_info} and {@code managed_members} only cover calls not served by {@link EnrichmentCache}.
+ * {@code bff.login.fallback} counts logins that fell back to a minimal {@code SessionInfo},
+ * tagged with a bounded {@code cause}.
+ * <p>
+ * <b>Login deadline:</b> a login waits at most {@code app.login.enrichment-deadline} for
+ * enrichment. After that it completes with a provisional principal whose {@code SessionInfo} is
+ * {@link SessionInfo#ENRICHMENT_PENDING pending}, and enrichment keeps running;
+ * {@link #pendingEnrichment} hands its result to {@link SessionRefresher}, which writes it into
+ * the stored session. A deadline of 0 waits for enrichment however long it takes.
+ * <p>
+ * {@link #reenrich} repeats the enrichment for an existing session (see {@link SessionRefresher}).
+ */
 @Service
 public class CustomOidcUserService extends OidcReactiveOAuth2UserService {
 
+    static final String STAGE_METRIC = "bff.login.stage";
+    static final String FALLBACK_METRIC = "bff.login.fallback";
+
+    private static final String STAGE_OIDC_USER = "oidc_user";
+    private static final String STAGE_USER_INFO = "user_info";
+    private static final String STAGE_MANAGED_MEMBERS = "managed_members";
+
+    /** How long a provisional principal's enrichment is kept for the login to pick it up. */
+    private static final Duration PENDING_RETENTION = Duration.ofMinutes(1);
+
     private final WebClient hcpWebClient;
+    private final EnrichmentCache enrichmentCache;
+    private final DownstreamPolicy userServicePolicy;
+    private final DownstreamPolicy psnPolicy;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> stageTimers = new HashMap<>();
+    // Weak keys compare by identity: the provisional principal itself is the key
+    private final Cache<EnrichedOidcUser, Mono<EnrichedOidcUser>> pendingEnrichments = Caffeine.newBuilder()
+        .weakKeys()
+        .expireAfterWrite(PENDING_RETENTION)
+        .build();
 
     @Value("${app.user-service.base-url}")
     private String userServiceBaseUrl;
@@ -33,13 +84,34 @@ public class CustomOidcUserService extends OidcReactiveOAuth2UserService {
     @Value("${app.session.duration-minutes:30}")
     private int sessionDurationMinutes;
 
-    public CustomOidcUserService(@Qualifier("hcpWebClient") WebClient hcpWebClient) {
+    @Value("${app.login.enrichment-deadline:2s}")
+    private Duration enrichmentDeadline;
+
+    public CustomOidcUserService(
+            @Qualifier("hcpWebClient") WebClient hcpWebClient,
+            EnrichmentCache enrichmentCache,
+            @Qualifier("userServicePolicy") DownstreamPolicy userServicePolicy,
+            @Qualifier("psnPolicy") DownstreamPolicy psnPolicy,
+            MeterRegistry meterRegistry) {
         this.hcpWebClient = hcpWebClient;
+        this.enrichmentCache = enrichmentCache;
+        this.userServicePolicy = userServicePolicy;
+        this.psnPolicy = psnPolicy;
+        this.meterRegistry = meterRegistry;
+        for (String stage : List.of(STAGE_OIDC_USER, STAGE_USER_INFO, STAGE_MANAGED_MEMBERS)) {
+            for (String outcome : List.of("success", "error")) {
+                stageTimers.put(stage + outcome, Timer.builder(STAGE_METRIC)
+                    .description("Duration of a login enrichment stage")
+                    .tag("stage", stage)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+            }
+        }
     }
 
     @Override
     public Mono<OidcUser> loadUser(OidcUserRequest userRequest) throws OAuth2AuthenticationException {
-        return super.loadUser(userRequest)
+        return timed(STAGE_OIDC_USER, super.loadUser(userRequest))
             .flatMap(oidcUser -> enrichUser(oidcUser, userRequest));
     }
 
@@ -48,35 +120,123 @@ public class CustomOidcUserService extends OidcReactiveOAuth2UserService {
         Instant sessionStart = Instant.now();
         Instant sessionEnd = sessionStart.plus(Duration.ofMinutes(sessionDurationMinutes));
 
-        return fetchUserInfo(hsidUuid)
+        Mono<EnrichedOidcUser> enriched = loadSessionInfo(hsidUuid, sessionStart, sessionEnd, false)
+            .map(sessionInfo -> createEnrichedUser(oidcUser, sessionInfo))
+            .onErrorResume(e -> {
+                meterRegistry.counter(FALLBACK_METRIC, "cause", fallbackCause(e)).increment();
+                return Mono.just(createEnrichedUser(oidcUser,
+                    minimalSessionInfo(hsidUuid, sessionStart, sessionEnd, SessionInfo.ENRICHMENT_FALLBACK)));
+            });
+        if (enrichmentDeadline.isZero()) {
+            return enriched.cast(OidcUser.class);
+        }
+        return Mono.deferContextual(context -> {
+            // Subscribed here rather than by the login, so that it runs on when the login stops waiting
+            Sinks.One<EnrichedOidcUser> result = Sinks.one();
+            enriched.contextWrite(context).subscribe(result::tryEmitValue, result::tryEmitError);
+            Mono<EnrichedOidcUser> completion = result.asMono();
+            return completion
+                .timeout(enrichmentDeadline, Mono.fromSupplier(() -> {
+                    EnrichedOidcUser provisional = createEnrichedUser(oidcUser,
+                        minimalSessionInfo(hsidUuid, sessionStart, sessionEnd, SessionInfo.ENRICHMENT_PENDING));
+                    pendingEnrichments.put(provisional, completion);
+                    return provisional;
+                }))
+                .cast(OidcUser.class);
+        });
+    }
+
+    /**
+     * The enrichment still running for {@code provisional}, a principal returned by
+     * {@link #loadUser} at the enrichment deadline, or {@code null} if there is none. It emits the
+     * enriched principal, or one with a {@link SessionInfo#ENRICHMENT_FALLBACK fallback}
+     * {@code SessionInfo} if enrichment failed. Each enrichment is handed out once.
+     */
+    public Mono<EnrichedOidcUser> pendingEnrichment(EnrichedOidcUser provisional) {
+        return pendingEnrichments.asMap().remove(provisional);
+    }
+
+    /**
+     * Re-fetches user info and managed members for the principal of an existing session. The
+     * session keeps its {@code sessionStartTime}; {@code sessionEndTime} becomes {@code sessionEnd}.
+     * Unlike login, both lookups go to the downstream services rather than the enrichment cache,
+     * and what they return replaces the cached values. A failure is returned as an error rather
+     * than replaced by a minimal {@code SessionInfo}, so the session keeps what it has.
+     */
+    public Mono<EnrichedOidcUser> reenrich(EnrichedOidcUser user, Instant sessionEnd) {
+        SessionInfo current = user.getSessionInfo();
+        Instant sessionStart = current != null && current.sessionStartTime() != null
+            ? current.sessionStartTime()
+            : Instant.now();
+        return loadSessionInfo(user.getSubject(), sessionStart, sessionEnd, true)
+            .map(sessionInfo -> createEnrichedUser(user, sessionInfo));
+    }
+
+    private Mono<SessionInfo> loadSessionInfo(String hsidUuid, Instant sessionStart, Instant sessionEnd, boolean fresh) {
+        Mono<UserServiceResponse> userInfoLookup = fresh
+            ? fetchUserInfo(hsidUuid).doOnNext(response -> enrichmentCache.putUserInfo(hsidUuid, response))
+            : enrichmentCache.userInfo(hsidUuid, this::fetchUserInfo);
+        return userInfoLookup
             .flatMap(userInfo -> {
                 if ("PR".equals(userInfo.memberType())) {
-                    return fetchManagedMembers(userInfo.enterpriseId())
-                        .map(members -> buildSessionInfo(userInfo, hsidUuid, sessionStart, sessionEnd, "representative", members));
+                    String enterpriseId = userInfo.enterpriseId();
+                    Mono<Map<String, List<DelegatePermission>>> membersLookup = fresh
+                        ? fetchManagedMembers(enterpriseId)
+                            .doOnNext(members -> enrichmentCache.putManagedMembers(enterpriseId, members))
+                        : enrichmentCache.managedMembers(enterpriseId, this::fetchManagedMembers);
+                    return membersLookup
+                        .map(members -> buildSessionInfo(userInfo, hsidUuid, sessionStart, sessionEnd, Persona.REPRESENTATIVE.value(), members));
                 } else {
-                    return Mono.just(buildSessionInfo(userInfo, hsidUuid, sessionStart, sessionEnd, "self", Map.of()));
+                    return Mono.just(buildSessionInfo(userInfo, hsidUuid, sessionStart, sessionEnd, Persona.SELF.value(), Map.of()));
                 }
-            })
-            .map(sessionInfo -> createEnrichedUser(oidcUser, sessionInfo))
-            .onErrorResume(e -> {
-                return Mono.just(createEnrichedUser(oidcUser, minimalSessionInfo(hsidUuid, sessionStart, sessionEnd)));
             });
     }
 
     private Mono<UserServiceResponse> fetchUserInfo(String hsidUuid) {
-        return hcpWebClient.post()
+        return timed(STAGE_USER_INFO, userServicePolicy.execute(() -> hcpWebClient.post()
             .uri(userServiceBaseUrl + "/user-info")
             .bodyValue(Map.of("hsidUuid", hsidUuid))
             .retrieve()
-            .bodyToMono(UserServiceResponse.class);
+            .bodyToMono(UserServiceResponse.class)));
     }
 
     private Mono<Map<String, List<DelegatePermission>>> fetchManagedMembers(String enterpriseId) {
-        return hcpWebClient.post()
+        return timed(STAGE_MANAGED_MEMBERS, psnPolicy.execute(() -> hcpWebClient.post()
             .uri(psnBaseUrl + "/managed-members")
             .bodyValue(Map.of("enterpriseId", enterpriseId))
             .retrieve()
-            .bodyToMono(new ParameterizedTypeReference<>() {});
+            .bodyToMono(new ParameterizedTypeReference<Map<String, List<DelegatePermission>>>() {})));
+    }
+
+    private <T> Mono<T> timed(String stage, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                .doOnSuccess(value -> stageTimers.get(stage + "success").record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                .doOnError(e -> stageTimers.get(stage + "error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * Maps a failure to one of a fixed set of tag values.
+     */
+    static String fallbackCause(Throwable e) {
+        if (e instanceof DownstreamOverloadedException) {
+            return "shed";
+        }
+        if (e instanceof DownstreamUnavailableException) {
+            return "circuit_open";
+        }
+        if (e instanceof TimeoutException) {
+            return "timeout";
+        }
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is4xxClientError() ? "http_4xx" : "http_5xx";
+        }
+        if (e instanceof WebClientRequestException) {
+            return "connection";
+        }
+        return "other";
     }
 
     private SessionInfo buildSessionInfo(
@@ -96,24 +256,26 @@ public class CustomOidcUserService extends OidcReactiveOAuth2UserService {
         );
     }
 
-    private SessionInfo minimalSessionInfo(String hsidUuid, Instant sessionStart, Instant sessionEnd) {
+    /**
+     * {@code SessionInfo} without user service data: {@code self} once enrichment has failed,
+     * no persona at all while it is pending.
+     */
+    private SessionInfo minimalSessionInfo(String hsidUuid, Instant sessionStart, Instant sessionEnd, String enrichment) {
         return new SessionInfo(
             null,
             hsidUuid,
             sessionStart,
             sessionEnd,
-            "self",
-            Map.of()
+            SessionInfo.ENRICHMENT_PENDING.equals(enrichment) ? null : Persona.SELF.value(),
+            Map.of(),
+            enrichment
         );
     }
 
-    private OidcUser createEnrichedUser(OidcUser oidcUser, SessionInfo sessionInfo) {
-        Map<String, Object> additionalAttributes = Map.of("sessionInfo", sessionInfo);
-        return new EnrichedOidcUser(
-            oidcUser.getAuthorities(),
-            oidcUser.getIdToken(),
-            oidcUser.getUserInfo(),
-            additionalAttributes
-        );
+    private EnrichedOidcUser createEnrichedUser(OidcUser oidcUser, SessionInfo sessionInfo) {
+        EnrichedOidcUser enrichedUser = EnrichedOidcUser.from(oidcUser, sessionInfo);
+        // Index delegate permissions while the member map is at hand, not on the first checked request.
+        enrichedUser.getDelegateIndex();
+        return enrichedUser;
     }
 }
@@ -0,0 +1,36 @@
+package com.example.bff.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a user holds no currently valid delegate permission for the member
+ * addressed by an endpoint annotated with {@link RequiredDelegate}.
+ */
+@ResponseStatus(HttpStatus.FORBIDDEN)
+public class DelegateAccessDeniedException extends RuntimeException {
+
+    private final DelegateRule rule;
+    private final String memberId;
+
+    public DelegateAccessDeniedException(DelegateRule rule, String memberId) {
+        super(buildMessage(rule, memberId));
+        this.rule = rule;
+        this.memberId = memberId;
+    }
+
+    private static String buildMessage(DelegateRule rule, String memberId) {
+        return "Access denied. Required delegate permission: %s, member: %s".formatted(
+                rule.delegateTypes().isEmpty() ? "any" : rule.delegateTypes(),
+                memberId != null ? memberId : "none"
+        );
+    }
+
+    public DelegateRule getRule() {
+        return rule;
+    }
+
+    public String getMemberId() {
+        return memberId;
+    }
+}
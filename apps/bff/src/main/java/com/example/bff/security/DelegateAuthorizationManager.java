@@ -0,0 +1,50 @@
+package com.example.bff.security;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * Grants access when the authenticated user holds a delegate permission for the requested member
+ * that is valid today (in the zone of the configured {@link Clock}). Checks use the principal's
+ * {@link DelegateIndex}, so no permission list is scanned or date parsed per check. With the
+ * compact session serializer the index is built while the principal is decoded, from the epoch
+ * days the codec stores, so a request also parses no dates.
+ * Unauthenticated requests, principals without {@code SessionInfo} and requests without a member ID are denied.
+ */
+public class DelegateAuthorizationManager implements ReactiveAuthorizationManager<DelegateAuthorizationManager.DelegateAccess> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final Clock clock;
+
+    public DelegateAuthorizationManager(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public Mono<AuthorizationResult> authorize(Mono<Authentication> authentication, DelegateAccess access) {
+        return authentication
+                .map(auth -> (AuthorizationResult) (isGranted(auth, access) ? GRANTED : DENIED))
+                .defaultIfEmpty(DENIED);
+    }
+
+    private boolean isGranted(Authentication authentication, DelegateAccess access) {
+        if (access.memberId() == null || !(authentication.getPrincipal() instanceof EnrichedOidcUser user)) {
+            return false;
+        }
+        return user.getDelegateIndex().isActive(access.memberId(), access.rule().delegateTypes(), LocalDate.now(clock));
+    }
+
+    /**
+     * One request's check: the handler's rule and the member ID it addresses.
+     */
+    public record DelegateAccess(DelegateRule rule, String memberId) {
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.bff.security;
+
+import com.example.bff.model.DelegatePermission;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable lookup of a representative's delegate permissions:
+ * member ID → delegate type → validity intervals.
+ * <p>
+ * Built once per principal, from {@code SessionInfo.managedMembers} or from epoch days through
+ * a {@link Builder}: overlapping or adjacent intervals of the same type are merged, so a check
+ * is two hash lookups plus a binary search over a handful of intervals, with no date parsing.
+ * <p>
+ * Intervals are inclusive on both ends. A missing {@code startDate} or {@code endDate} leaves
+ * that end open; a row with a date that is present but not {@code yyyy-MM-dd} grants nothing.
+ */
+public final class DelegateIndex {
+
+    public static final DelegateIndex EMPTY = new DelegateIndex(Map.of());
+
+    private final Map<String, Grants> members;
+
+    private DelegateIndex(Map<String, Grants> members) {
+        this.members = members;
+    }
+
+    public static DelegateIndex of(Map<String, List<DelegatePermission>> managedMembers) {
+        if (managedMembers == null || managedMembers.isEmpty()) {
+            return EMPTY;
+        }
+        Builder builder = new Builder();
+        for (Map.Entry<String, List<DelegatePermission>> member : managedMembers.entrySet()) {
+            if (member.getValue() == null) {
+                continue;
+            }
+            for (DelegatePermission permission : member.getValue()) {
+                if (permission != null) {
+                    builder.add(member.getKey(), permission);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Collects intervals one row at a time, for callers that already hold the dates as epoch
+     * days, such as the session codec while it decodes {@code managedMembers}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Whether {@code memberId} can be acted for under {@code delegateType} on {@code date}.
+     * A {@code null} type matches any delegate type.
+     */
+    public boolean isActive(String memberId, String delegateType, LocalDate date) {
+        if (memberId == null) {
+            return false;
+        }
+        Grants grants = members.get(memberId);
+        if (grants == null) {
+            return false;
+        }
+        long[] intervals = delegateType == null ? grants.any() : grants.byType().get(delegateType);
+        return intervals != null && contains(intervals, date.toEpochDay());
+    }
+
+    /**
+     * Whether {@code memberId} can be acted for under any of {@code delegateTypes} on {@code date}.
+     * An empty list matches any delegate type.
+     */
+    public boolean isActive(String memberId, List<String> delegateTypes, LocalDate date) {
+        if (delegateTypes.isEmpty()) {
+            return isActive(memberId, (String) null, date);
+        }
+        for (String delegateType : delegateTypes) {
+            if (isActive(memberId, delegateType, date)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number of members with at least one usable permission.
+     */
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * {@code intervals} holds sorted, disjoint {@code [start, end]} pairs.
+     */
+    private static boolean contains(long[] intervals, long day) {
+        int low = 0;
+        int high = intervals.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (intervals[mid * 2] > day) {
+                high = mid - 1;
+            } else if (intervals[mid * 2 + 1] < day) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static final class Builder {
+
+        private final Map<String, Map<String, List<long[]>>> members = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds one permission row, inclusive on both ends; {@link Long#MIN_VALUE} and
+         * {@link Long#MAX_VALUE} leave the start or end open. Rows without a member ID or
+         * delegate type, or ending before they start, grant nothing.
+         */
+        public Builder add(String memberId, String delegateType, long startDay, long endDay) {
+            if (memberId != null && delegateType != null && startDay <= endDay) {
+                members.computeIfAbsent(memberId, id -> new HashMap<>(4))
+                        .computeIfAbsent(delegateType, type -> new ArrayList<>(2))
+                        .add(new long[] {startDay, endDay});
+            }
+            return this;
+        }
+
+        private void add(String memberId, DelegatePermission permission) {
+            long start = Long.MIN_VALUE;
+            long end = Long.MAX_VALUE;
+            if (permission.startDate() != null) {
+                LocalDate parsed = DelegatePermission.parseDate(permission.startDate());
+                if (parsed == null) {
+                    return;
+                }
+                start = parsed.toEpochDay();
+            }
+            if (permission.endDate() != null) {
+                LocalDate parsed = DelegatePermission.parseDate(permission.endDate());
+                if (parsed == null) {
+                    return;
+                }
+                end = parsed.toEpochDay();
+            }
+            add(memberId, permission.delegateType(), start, end);
+        }
+
+        public DelegateIndex build() {
+            if (members.isEmpty()) {
+                return EMPTY;
+            }
+            Map<String, Grants> grants = new HashMap<>(Math.max(16, members.size() * 4 / 3 + 1));
+            members.forEach((memberId, byType) -> grants.put(memberId, Grants.of(byType)));
+            return new DelegateIndex(Map.copyOf(grants));
+        }
+    }
+
+    private record Grants(Map<String, long[]> byType, long[] any) {
+
+        static Grants of(Map<String, List<long[]>> byType) {
+            Map<String, long[]> merged = new HashMap<>(byType.size() * 2);
+            List<long[]> all = new ArrayList<>();
+            byType.forEach((type, intervals) -> {
+                all.addAll(intervals);
+                merged.put(type, merge(intervals));
+            });
+            return new Grants(Map.copyOf(merged), merge(all));
+        }
+
+        private static long[] merge(List<long[]> intervals) {
+            intervals.sort((a, b) -> Long.compare(a[0], b[0]));
+            long[] result = new long[intervals.size() * 2];
+            int length = 0;
+            for (long[] interval : intervals) {
+                if (length > 0) {
+                    long previousEnd = result[length - 1];
+                    if (previousEnd == Long.MAX_VALUE || interval[0] <= previousEnd + 1) {
+                        result[length - 1] = Math.max(previousEnd, interval[1]);
+                        continue;
+                    }
+                }
+                result[length++] = interval[0];
+                result[length++] = interval[1];
+            }
+            return length == result.length ? result : Arrays.copyOf(result, length);
+        }
+    }
+}
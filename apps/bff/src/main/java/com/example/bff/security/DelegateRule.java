@@ -0,0 +1,20 @@
+package com.example.bff.security;
+
+import java.util.List;
+
+/**
+ * Compiled {@link RequiredDelegate}: where to find the member ID and which delegate types are accepted.
+ *
+ * @param memberIdParameter path variable or query parameter name
+ * @param delegateTypes     accepted delegate types; empty accepts any
+ */
+public record DelegateRule(String memberIdParameter, List<String> delegateTypes) {
+
+    public DelegateRule {
+        delegateTypes = List.copyOf(delegateTypes);
+    }
+
+    static DelegateRule of(RequiredDelegate annotation) {
+        return new DelegateRule(annotation.memberId(), List.of(annotation.value()));
+    }
+}
@@ -2,39 +2,187 @@ package com.example.bff.security;
 
 import com.example.bff.model.SessionInfo;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
 import org.springframework.security.oauth2.core.oidc.OidcIdToken;
 import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
-import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.StandardClaimNames;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
 
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
-public class EnrichedOidcUser extends DefaultOidcUser {
+/**
+ * Session principal. Only the claims the BFF reads are kept: {@code sub}, {@code email} and
+ * {@code name}, plus the {@link SessionInfo} from enrichment. The ID token and the userinfo
+ * response are dropped at login. {@link #getIdToken()} and {@link #getUserInfo()} therefore
+ * return {@code null}, and OAuth2 user authorities keep only their name.
+ */
+public class EnrichedOidcUser implements OidcUser, Serializable {
 
-    private final Map<String, Object> additionalAttributes;
+    @Serial
+    private static final long serialVersionUID = 2L;
 
+    private final String subject;
+    private final String email;
+    private final String fullName;
+    private final List<GrantedAuthority> authorities;
+    private final SessionInfo sessionInfo;
+    private transient volatile DelegateIndex delegateIndex;
+
+    public EnrichedOidcUser(
+            String subject,
+            String email,
+            String fullName,
+            Collection<? extends GrantedAuthority> authorities,
+            SessionInfo sessionInfo) {
+        this(subject, email, fullName, authorities, sessionInfo, null);
+    }
+
+    /**
+     * @param delegateIndex the index of {@code sessionInfo}'s managed members when the caller has
+     *                      already built it, e.g. while decoding the session; {@code null} builds
+     *                      it on first use
+     */
     public EnrichedOidcUser(
+            String subject,
+            String email,
+            String fullName,
             Collection<? extends GrantedAuthority> authorities,
-            OidcIdToken idToken,
-            OidcUserInfo userInfo,
-            Map<String, Object> additionalAttributes) {
-        super(authorities, idToken, userInfo);
-        this.additionalAttributes = additionalAttributes;
+            SessionInfo sessionInfo,
+            DelegateIndex delegateIndex) {
+        this.subject = Objects.requireNonNull(subject, "subject");
+        this.email = email;
+        this.fullName = fullName;
+        this.authorities = Collections.unmodifiableList(slim(authorities));
+        this.sessionInfo = sessionInfo;
+        this.delegateIndex = delegateIndex;
+    }
+
+    /**
+     * The principal for {@code user} with {@code sessionInfo}; {@code user} may be the OIDC user
+     * of a login or an existing principal being re-enriched.
+     */
+    public static EnrichedOidcUser from(OidcUser user, SessionInfo sessionInfo) {
+        return new EnrichedOidcUser(user.getSubject(), user.getEmail(), user.getFullName(),
+                user.getAuthorities(), sessionInfo);
+    }
+
+    /** OAuth2 user authorities carry the token and claims; only their name is kept. */
+    private static List<GrantedAuthority> slim(Collection<? extends GrantedAuthority> authorities) {
+        List<GrantedAuthority> slim = new ArrayList<>(authorities.size());
+        for (GrantedAuthority authority : authorities) {
+            slim.add(authority instanceof OAuth2UserAuthority
+                    ? new SimpleGrantedAuthority(authority.getAuthority())
+                    : authority);
+        }
+        return slim;
+    }
+
+    @Override
+    public String getName() {
+        return subject;
+    }
+
+    @Override
+    public String getSubject() {
+        return subject;
     }
 
-    public Map<String, Object> getAdditionalAttributes() {
-        return additionalAttributes;
+    @Override
+    public String getEmail() {
+        return email;
     }
 
-    @SuppressWarnings("unchecked")
-    public <T> T getAttribute(String name) {
-        if (additionalAttributes.containsKey(name)) {
-            return (T) additionalAttributes.get(name);
+    @Override
+    public String getFullName() {
+        return fullName;
+    }
+
+    /** {@code sub}, {@code email} and {@code name}, as far as they are known. */
+    @Override
+    public Map<String, Object> getClaims() {
+        Map<String, Object> claims = new LinkedHashMap<>(4);
+        claims.put(IdTokenClaimNames.SUB, subject);
+        if (email != null) {
+            claims.put(StandardClaimNames.EMAIL, email);
         }
-        return super.getAttribute(name);
+        if (fullName != null) {
+            claims.put(StandardClaimNames.NAME, fullName);
+        }
+        return Collections.unmodifiableMap(claims);
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return getClaims();
+    }
+
+    /** Always {@code null}: the ID token is not kept in the session. */
+    @Override
+    public OidcIdToken getIdToken() {
+        return null;
+    }
+
+    /** Always {@code null}: the userinfo response is not kept in the session. */
+    @Override
+    public OidcUserInfo getUserInfo() {
+        return null;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
     }
 
     public SessionInfo getSessionInfo() {
-        return (SessionInfo) additionalAttributes.get("sessionInfo");
+        return sessionInfo;
+    }
+
+    /**
+     * Delegate permissions of {@link #getSessionInfo()} indexed for lookup. The compact session
+     * codec builds it while decoding; otherwise it is built from the date strings on first use.
+     * Either way it is kept for the lifetime of this principal instance.
+     */
+    public DelegateIndex getDelegateIndex() {
+        DelegateIndex index = delegateIndex;
+        if (index == null) {
+            index = sessionInfo != null ? DelegateIndex.of(sessionInfo.managedMembers()) : DelegateIndex.EMPTY;
+            delegateIndex = index;
+        }
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EnrichedOidcUser other)) {
+            return false;
+        }
+        return subject.equals(other.subject)
+                && Objects.equals(email, other.email)
+                && Objects.equals(fullName, other.fullName)
+                && authorities.equals(other.authorities)
+                && Objects.equals(sessionInfo, other.sessionInfo);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(subject, email, fullName, authorities, sessionInfo);
+    }
+
+    @Override
+    public String toString() {
+        return "EnrichedOidcUser[subject=" + subject + ", authorities=" + authorities + "]";
     }
 }
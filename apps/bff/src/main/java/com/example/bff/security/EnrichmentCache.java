@@ -0,0 +1,95 @@
+package com.example.bff.security;
+
+import com.example.bff.model.DelegatePermission;
+import com.example.bff.model.UserServiceResponse;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache for the downstream lookups made during login enrichment.
+ * <p>
+ * <b>Single-flight:</b> concurrent lookups for the same key (several tabs, an MFE reload storm)
+ * share one in-flight downstream call. A failed or empty lookup is not cached, so the next
+ * login retries it.
+ * <p>
+ * A session refresh bypasses the cache and stores what it fetched with {@link #putUserInfo} and
+ * {@link #putManagedMembers}, so later logins see the refreshed values.
+ * <p>
+ * Hit, miss, eviction and load-time statistics are published as the {@code cache.*} meters
+ * tagged {@code cache=enrichment.user-info} and {@code cache=enrichment.managed-members},
+ * e.g. {@code /actuator/metrics/cache.gets?tag=cache:enrichment.user-info}.
+ */
+@Component
+public class EnrichmentCache {
+
+    static final String USER_INFO_CACHE = "enrichment.user-info";
+    static final String MANAGED_MEMBERS_CACHE = "enrichment.managed-members";
+
+    private final AsyncCache<String, UserServiceResponse> userInfo;
+    private final AsyncCache<String, Map<String, List<DelegatePermission>>> managedMembers;
+
+    @Autowired
+    public EnrichmentCache(EnrichmentCacheProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Ticker.systemTicker());
+    }
+
+    EnrichmentCache(EnrichmentCacheProperties properties, MeterRegistry meterRegistry, Ticker ticker) {
+        this.userInfo = CaffeineCacheMetrics.monitor(meterRegistry,
+                newCache(properties.userInfoTtl(), properties.maximumSize(), ticker), USER_INFO_CACHE);
+        this.managedMembers = CaffeineCacheMetrics.monitor(meterRegistry,
+                newCache(properties.managedMembersTtl(), properties.maximumSize(), ticker), MANAGED_MEMBERS_CACHE);
+    }
+
+    public Mono<UserServiceResponse> userInfo(String hsidUuid, Function<String, Mono<UserServiceResponse>> loader) {
+        return lookup(userInfo, hsidUuid, loader);
+    }
+
+    public Mono<Map<String, List<DelegatePermission>>> managedMembers(
+            String enterpriseId, Function<String, Mono<Map<String, List<DelegatePermission>>>> loader) {
+        return lookup(managedMembers, enterpriseId, loader);
+    }
+
+    public void putUserInfo(String hsidUuid, UserServiceResponse response) {
+        put(userInfo, hsidUuid, response);
+    }
+
+    public void putManagedMembers(String enterpriseId, Map<String, List<DelegatePermission>> members) {
+        put(managedMembers, enterpriseId, members);
+    }
+
+    private static <V> void put(AsyncCache<String, V> cache, String key, V value) {
+        if (key != null && value != null) {
+            cache.put(key, CompletableFuture.completedFuture(value));
+        }
+    }
+
+    private static <V> Mono<V> lookup(AsyncCache<String, V> cache, String key, Function<String, Mono<V>> loader) {
+        if (key == null) {
+            return loader.apply(null);
+        }
+        // suppressCancel: one caller giving up must not cancel the load the others are waiting on
+        return Mono.defer(() -> Mono.fromFuture(
+                cache.get(key, (k, executor) -> loader.apply(k).toFuture()), true));
+    }
+
+    private static <V> AsyncCache<String, V> newCache(Duration ttl, long maximumSize, Ticker ticker) {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .ticker(ticker)
+                .recordStats()
+                .buildAsync();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.bff.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Login enrichment cache settings bound from {@code app.enrichment-cache.*}.
+ *
+ * @param userInfoTtl       how long a {@code /user-info} result is reused, keyed by {@code hsidUuid}
+ * @param managedMembersTtl how long a {@code /managed-members} result is reused, keyed by {@code enterpriseId}
+ * @param maximumSize       maximum entries per cache; least recently used entries are evicted beyond it
+ */
+@ConfigurationProperties("app.enrichment-cache")
+public record EnrichmentCacheProperties(
+    @DefaultValue("5m") Duration userInfoTtl,
+    @DefaultValue("5m") Duration managedMembersTtl,
+    @DefaultValue("10000") long maximumSize
+) {
+}
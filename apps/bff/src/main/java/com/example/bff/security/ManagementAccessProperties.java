@@ -0,0 +1,25 @@
+package com.example.bff.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * HTTP Basic credentials for actuator endpoints other than health and info, bound from
+ * {@code app.management.*}.
+ *
+ * @param username user name, e.g. for the Prometheus scrape job
+ * @param password password, optionally with a {@code {bcrypt}}-style encoder prefix; without a prefix
+ *                 it is compared as plain text. Unset denies every request.
+ */
+@ConfigurationProperties("app.management")
+public record ManagementAccessProperties(
+    @DefaultValue("management") String username,
+    String password
+) {
+
+    public static final String ROLE = "MANAGEMENT";
+
+    public boolean enabled() {
+        return password != null && !password.isBlank();
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.bff.security;
 
 /**
- * Constants for persona values used with {@link RequiredPersona} annotation.
+ * Persona values used with {@link RequiredPersona} annotation.
  * <p>
  * Usage:
  * <pre>
@@ -9,13 +9,43 @@ package com.example.bff.security;
  * {@literal @}RequiredPersona(Persona.REPRESENTATIVE)
  * {@literal @}RequiredPersona({Persona.SELF, Persona.REPRESENTATIVE})
  * </pre>
+ * {@link #value()} is the string stored in {@code SessionInfo.persona}.
  */
-public final class Persona {
+public enum Persona {
 
-    public static final String SELF = "self";
-    public static final String REPRESENTATIVE = "representative";
+    SELF("self"),
+    REPRESENTATIVE("representative");
 
-    private Persona() {
-        // Prevent instantiation
+    private final String value;
+
+    Persona(String value) {
+        this.value = value;
+    }
+
+    public String value() {
+        return value;
+    }
+
+    int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * The persona for a {@code SessionInfo.persona} value, or {@code null} if unknown.
+     */
+    public static Persona fromValue(String value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (value) {
+            case "self" -> SELF;
+            case "representative" -> REPRESENTATIVE;
+            default -> null;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return value;
     }
 }
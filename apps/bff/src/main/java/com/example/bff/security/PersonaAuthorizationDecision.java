@@ -0,0 +1,29 @@
+package com.example.bff.security;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+
+/**
+ * Outcome of a persona check, with the rule and the persona it was evaluated against.
+ */
+public class PersonaAuthorizationDecision extends AuthorizationDecision {
+
+    private final PersonaSet required;
+    private final String persona;
+
+    public PersonaAuthorizationDecision(PersonaSet required, String persona) {
+        super(required.containsValue(persona));
+        this.required = required;
+        this.persona = persona;
+    }
+
+    public PersonaSet getRequired() {
+        return required;
+    }
+
+    /**
+     * The user's persona, or {@code null} if unauthenticated or not enriched.
+     */
+    public String getPersona() {
+        return persona;
+    }
+}
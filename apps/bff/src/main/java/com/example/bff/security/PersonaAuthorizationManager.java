@@ -0,0 +1,36 @@
+package com.example.bff.security;
+
+import com.example.bff.model.SessionInfo;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import reactor.core.publisher.Mono;
+
+/**
+ * Grants access when the authenticated user's persona (from {@link SessionInfo}) is in the required set.
+ * Unauthenticated requests and principals without {@link SessionInfo} are denied.
+ */
+public class PersonaAuthorizationManager implements ReactiveAuthorizationManager<PersonaSet> {
+
+    @Override
+    public Mono<AuthorizationResult> authorize(Mono<Authentication> authentication, PersonaSet required) {
+        return check(authentication, required).cast(AuthorizationResult.class);
+    }
+
+    public Mono<PersonaAuthorizationDecision> check(Mono<Authentication> authentication, PersonaSet required) {
+        return authentication
+                .map(auth -> new PersonaAuthorizationDecision(required, persona(auth)))
+                .defaultIfEmpty(new PersonaAuthorizationDecision(required, null));
+    }
+
+    /**
+     * The persona of {@code authentication}'s principal, or {@code null}.
+     */
+    static String persona(Authentication authentication) {
+        if (authentication != null && authentication.getPrincipal() instanceof EnrichedOidcUser user) {
+            SessionInfo sessionInfo = user.getSessionInfo();
+            return sessionInfo != null ? sessionInfo.persona() : null;
+        }
+        return null;
+    }
+}
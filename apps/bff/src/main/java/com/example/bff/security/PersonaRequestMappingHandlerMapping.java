@@ -0,0 +1,233 @@
+package com.example.bff.security;
+
+import com.example.bff.security.DelegateAuthorizationManager.DelegateAccess;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.core.Authentication;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.cors.reactive.CorsUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.result.method.RequestMappingInfo;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link RequestMappingHandlerMapping} that enforces {@link RequiredPersona} and {@link RequiredDelegate}
+ * before a handler is returned.
+ * <p>
+ * <b>How it works:</b>
+ * <ol>
+ *   <li>While handler methods are registered at startup, each method's rules are resolved once
+ *       (method annotation, else the controller class annotation) into a {@link PersonaSet} and a
+ *       {@link DelegateRule}. Rules are kept per controller class and method, so a method inherited
+ *       by several controllers gets each controller's class-level rule.</li>
+ *   <li>When a request matches a handler with a rule, {@link PersonaAuthorizationManager} checks the
+ *       exchange's principal against it; the decision is stored under {@link #DECISION_ATTRIBUTE}
+ *       and reused if the same exchange is mapped again.</li>
+ *   <li>A denied decision fails handler lookup with {@link PersonaAccessDeniedException} (403),
+ *       so the controller method is never invoked.</li>
+ *   <li>A delegate rule is then checked by {@link DelegateAuthorizationManager} against the member ID
+ *       in the matched path variables or query; denial fails with {@link DelegateAccessDeniedException} (403).</li>
+ * </ol>
+ * Handlers without a rule take the plain lookup path. Works for any handler return type.
+ * <p>
+ * <b>Metrics:</b> every check increments {@code bff.authorization}, tagged with {@code check}
+ * ({@code persona}, {@code delegate}), {@code endpoint} (the matched route pattern, never the raw path),
+ * {@code persona} ({@code self}, {@code representative}, {@code none}, {@code other}) and
+ * {@code outcome} ({@code granted}, {@code denied}).
+ */
+public class PersonaRequestMappingHandlerMapping extends RequestMappingHandlerMapping {
+
+    public static final String DECISION_ATTRIBUTE = PersonaRequestMappingHandlerMapping.class.getName() + ".DECISION";
+
+    static final String METRIC = "bff.authorization";
+
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
+    private final PersonaAuthorizationManager authorizationManager;
+    private final DelegateAuthorizationManager delegateAuthorizationManager;
+    private final Map<HandlerKey, PersonaSet> rules = new ConcurrentHashMap<>();
+    private final Map<HandlerKey, DelegateRule> delegateRules = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public PersonaRequestMappingHandlerMapping(
+            PersonaAuthorizationManager authorizationManager,
+            DelegateAuthorizationManager delegateAuthorizationManager,
+            MeterRegistry meterRegistry) {
+        this.authorizationManager = authorizationManager;
+        this.delegateAuthorizationManager = delegateAuthorizationManager;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void registerHandlerMethod(Object handler, Method method, RequestMappingInfo mapping) {
+        super.registerHandlerMethod(handler, method, mapping);
+        Class<?> handlerType = handler instanceof String beanName
+                ? obtainApplicationContext().getType(beanName)
+                : handler.getClass();
+        HandlerKey key = new HandlerKey(ClassUtils.getUserClass(handlerType), method);
+        PersonaSet rule = resolveRule(method, handlerType);
+        if (rule != null) {
+            rules.put(key, rule);
+        }
+        DelegateRule delegateRule = resolveDelegateRule(method, handlerType);
+        if (delegateRule != null) {
+            delegateRules.put(key, delegateRule);
+        }
+    }
+
+    /**
+     * The compiled rule for {@code method} of controller {@code handlerType}, or {@code null} if it is unrestricted.
+     */
+    PersonaSet getRule(Class<?> handlerType, Method method) {
+        return rules.get(new HandlerKey(handlerType, method));
+    }
+
+    /**
+     * The compiled delegate rule for {@code method} of controller {@code handlerType}, or {@code null} if it has none.
+     */
+    DelegateRule getDelegateRule(Class<?> handlerType, Method method) {
+        return delegateRules.get(new HandlerKey(handlerType, method));
+    }
+
+    @Override
+    public Mono<HandlerMethod> getHandlerInternal(ServerWebExchange exchange) {
+        return super.getHandlerInternal(exchange).flatMap(handlerMethod -> {
+            HandlerKey key = new HandlerKey(handlerMethod.getBeanType(), handlerMethod.getMethod());
+            PersonaSet required = rules.get(key);
+            DelegateRule delegateRule = delegateRules.get(key);
+            if ((required == null && delegateRule == null) || CorsUtils.isPreFlightRequest(exchange.getRequest())) {
+                return Mono.just(handlerMethod);
+            }
+            Mono<Void> personaCheck = required != null ? authorize(exchange, required) : Mono.empty();
+            Mono<Void> delegateCheck = delegateRule != null ? authorizeDelegate(exchange, delegateRule) : Mono.empty();
+            return personaCheck.then(delegateCheck).thenReturn(handlerMethod);
+        });
+    }
+
+    private Mono<Void> authorizeDelegate(ServerWebExchange exchange, DelegateRule rule) {
+        String memberId = memberId(exchange, rule.memberIdParameter());
+        Mono<Authentication> authentication = exchange.getPrincipal().ofType(Authentication.class).cache();
+        return delegateAuthorizationManager
+                .authorize(authentication, new DelegateAccess(rule, memberId))
+                .flatMap(result -> authentication.map(auth -> personaTag(PersonaAuthorizationManager.persona(auth)))
+                        .defaultIfEmpty(personaTag(null))
+                        .flatMap(persona -> {
+                            record("delegate", exchange, persona, result.isGranted());
+                            return result.isGranted()
+                                    ? Mono.<Void>empty()
+                                    : Mono.error(new DelegateAccessDeniedException(rule, memberId));
+                        }));
+    }
+
+    private static String memberId(ServerWebExchange exchange, String name) {
+        Map<String, String> uriVariables = exchange.getAttribute(URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String memberId = uriVariables != null ? uriVariables.get(name) : null;
+        return memberId != null ? memberId : exchange.getRequest().getQueryParams().getFirst(name);
+    }
+
+    private Mono<Void> authorize(ServerWebExchange exchange, PersonaSet required) {
+        PersonaAuthorizationDecision cached = exchange.getAttribute(DECISION_ATTRIBUTE);
+        Mono<PersonaAuthorizationDecision> decision = cached != null && cached.getRequired().equals(required)
+                ? Mono.just(cached)
+                : authorizationManager.check(exchange.getPrincipal().ofType(Authentication.class), required)
+                        .doOnNext(result -> exchange.getAttributes().put(DECISION_ATTRIBUTE, result));
+        return decision.flatMap(result -> {
+            if (cached == null) {
+                record("persona", exchange, personaTag(result.getPersona()), result.isGranted());
+            }
+            return result.isGranted()
+                    ? Mono.empty()
+                    : Mono.error(new PersonaAccessDeniedException(result.getRequired(), result.getPersona()));
+        });
+    }
+
+    private void record(String check, ServerWebExchange exchange, String personaTag, boolean granted) {
+        PathPattern pattern = exchange.getAttribute(BEST_MATCHING_PATTERN_ATTRIBUTE);
+        meterRegistry.counter(METRIC,
+                "check", check,
+                "endpoint", pattern != null ? pattern.getPatternString() : "unknown",
+                "persona", personaTag,
+                "outcome", granted ? "granted" : "denied").increment();
+    }
+
+    /**
+     * Collapses a {@code SessionInfo.persona} value onto the known personas so the tag stays bounded.
+     */
+    static String personaTag(String persona) {
+        if (persona == null) {
+            return "none";
+        }
+        Persona known = Persona.fromValue(persona);
+        return known != null ? known.value() : "other";
+    }
+
+    static PersonaSet resolveRule(Method method, Class<?> handlerType) {
+        RequiredPersona annotation = AnnotatedElementUtils.findMergedAnnotation(method, RequiredPersona.class);
+        if (annotation == null && handlerType != null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(ClassUtils.getUserClass(handlerType), RequiredPersona.class);
+        }
+        if (annotation == null) {
+            return null;
+        }
+        PersonaSet rule = PersonaSet.of(annotation.value());
+        if (rule.isEmpty()) {
+            throw new IllegalStateException("@RequiredPersona on " + method + " allows no persona");
+        }
+        return rule;
+    }
+
+    static DelegateRule resolveDelegateRule(Method method, Class<?> handlerType) {
+        RequiredDelegate annotation = AnnotatedElementUtils.findMergedAnnotation(method, RequiredDelegate.class);
+        if (annotation == null && handlerType != null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(ClassUtils.getUserClass(handlerType), RequiredDelegate.class);
+        }
+        if (annotation == null) {
+            return null;
+        }
+        DelegateRule rule = DelegateRule.of(annotation);
+        if (!hasMemberIdParameter(method, rule.memberIdParameter())) {
+            throw new IllegalStateException("@RequiredDelegate on " + method
+                    + " needs a @PathVariable or @RequestParam named '" + rule.memberIdParameter() + "'");
+        }
+        return rule;
+    }
+
+    private static boolean hasMemberIdParameter(Method method, String name) {
+        for (int i = 0; i < method.getParameterCount(); i++) {
+            MethodParameter parameter = new MethodParameter(method, i);
+            parameter.initParameterNameDiscovery(PARAMETER_NAMES);
+            PathVariable pathVariable = parameter.getParameterAnnotation(PathVariable.class);
+            RequestParam requestParam = parameter.getParameterAnnotation(RequestParam.class);
+            String declared = pathVariable != null ? firstNonEmpty(pathVariable.name(), pathVariable.value())
+                    : requestParam != null ? firstNonEmpty(requestParam.name(), requestParam.value())
+                    : null;
+            if (declared == null) {
+                continue;
+            }
+            if (name.equals(declared.isEmpty() ? parameter.getParameterName() : declared)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String firstNonEmpty(String name, String value) {
+        return name.isEmpty() ? value : name;
+    }
+
+    /** A handler method as registered for one controller class. */
+    private record HandlerKey(Class<?> beanType, Method method) {
+    }
+}
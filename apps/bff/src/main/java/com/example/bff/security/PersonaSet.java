@@ -0,0 +1,64 @@
+package com.example.bff.security;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable set of {@link Persona}s stored as a bitmask.
+ */
+public final class PersonaSet {
+
+    private final int mask;
+
+    private PersonaSet(int mask) {
+        this.mask = mask;
+    }
+
+    public static PersonaSet of(Persona... personas) {
+        int mask = 0;
+        for (Persona persona : personas) {
+            mask |= persona.bit();
+        }
+        return new PersonaSet(mask);
+    }
+
+    public boolean contains(Persona persona) {
+        return persona != null && (mask & persona.bit()) != 0;
+    }
+
+    /**
+     * Whether the {@code SessionInfo.persona} value belongs to this set.
+     */
+    public boolean containsValue(String persona) {
+        return contains(Persona.fromValue(persona));
+    }
+
+    public boolean isEmpty() {
+        return mask == 0;
+    }
+
+    public List<Persona> toList() {
+        List<Persona> personas = new ArrayList<>(Persona.values().length);
+        for (Persona persona : Persona.values()) {
+            if (contains(persona)) {
+                personas.add(persona);
+            }
+        }
+        return personas;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PersonaSet other && other.mask == mask;
+    }
+
+    @Override
+    public int hashCode() {
+        return mask;
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.bff.security;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Restricts an endpoint that takes a member ID to representatives holding a delegate permission
+ * for that member that is valid today.
+ * <p>
+ * Usage examples:
+ * <pre>
+ * {@literal @}GetMapping("/members/{memberId}/claims")
+ * {@literal @}RequiredDelegate                          // Any delegate type
+ * {@literal @}RequiredDelegate({"ROI", "HIPAA"})        // One of these types
+ * {@literal @}RequiredDelegate(value = "POA", memberId = "id") // Member ID in {id}
+ * </pre>
+ * The member ID is read from the path variable, else the query parameter, named {@link #memberId()};
+ * a handler without such a parameter fails at startup. On a controller class the rule applies to
+ * every handler method; an annotation on a method replaces the class-level one for that method.
+ *
+ * @see DelegateIndex
+ * @see PersonaRequestMappingHandlerMapping
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequiredDelegate {
+
+    /**
+     * The accepted {@code delegateType} values. Access is granted if the user holds any of them
+     * for the member; empty accepts any type.
+     */
+    String[] value() default {};
+
+    /**
+     * Name of the path variable or query parameter holding the member ID.
+     */
+    String memberId() default "memberId";
+}
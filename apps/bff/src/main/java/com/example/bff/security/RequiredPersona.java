@@ -14,15 +14,18 @@ import java.lang.annotation.Target;
  * {@literal @}RequiredPersona(Persona.REPRESENTATIVE)                 // Only representative persona
  * {@literal @}RequiredPersona({Persona.SELF, Persona.REPRESENTATIVE}) // Either persona allowed
  * </pre>
+ * On a controller class the rule applies to every handler method; an annotation on a method
+ * replaces the class-level one for that method.
  *
  * @see Persona
+ * @see PersonaRequestMappingHandlerMapping
  */
 @Target({ElementType.METHOD, ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface RequiredPersona {
     /**
-     * The allowed persona values. Access is granted if the user's persona
+     * The allowed personas. Access is granted if the user's persona
      * matches any of the specified values.
      */
-    String[] value();
+    Persona[] value();
 }
@@ -0,0 +1,205 @@
+package com.example.bff.security;
+
+import com.example.bff.controller.SessionPayloads;
+import com.example.bff.model.SessionInfo;
+import com.example.bff.session.SessionProperties;
+import com.example.bff.session.SlidingSessionProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.session.WebSessionStore;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Predicate;
+
+/**
+ * Sliding session expiry: extends an active session before its {@code sessionEndTime} by
+ * re-running enrichment in the background.
+ * <p>
+ * <b>When:</b> a request whose session has less than {@code refresh-before} left (see
+ * {@code SessionRefreshFilter}). The new end is {@code duration-minutes} from now, capped at
+ * {@code maximum-lifetime} after {@code sessionStartTime}; once the cap is reached the session
+ * ends as it would without sliding expiry.
+ * <p>
+ * <b>Off the request path:</b> the triggering request is not delayed; it and any request racing
+ * it see the current principal. The refreshed principal is written into the stored session, the
+ * cached {@code /api/auth/session} payload is re-rendered and open session event streams get
+ * {@code session-updated}.
+ * <p>
+ * <b>Single-flight:</b> concurrent requests of one session start one refresh. A failed refresh
+ * leaves the session unchanged and is retried after {@code retry-interval}; the session keeps
+ * its data and still ends at {@code sessionEndTime} if every retry fails.
+ * <p>
+ * Each refresh increments {@code bff.session.refresh}, tagged {@code outcome} = {@code extended},
+ * {@code failed} or {@code gone} (session logged out or replaced while refreshing).
+ * <p>
+ * <b>Deferred logins:</b> {@link #completeLogin} writes the enrichment of a login that ran past
+ * its deadline into the stored session the same way, replacing the provisional principal. Each
+ * increments {@code bff.login.deferred}, tagged {@code outcome} = {@code complete},
+ * {@code fallback} (enrichment failed) or {@code gone}.
+ */
+@Component
+public class SessionRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionRefresher.class);
+
+    static final String METRIC = "bff.session.refresh";
+    static final String DEFERRED_LOGIN_METRIC = "bff.login.deferred";
+
+    private static final String SECURITY_CONTEXT_ATTRIBUTE =
+            WebSessionServerSecurityContextRepository.DEFAULT_SPRING_SECURITY_CONTEXT_ATTR_NAME;
+
+    private final CustomOidcUserService oidcUserService;
+    private final WebSessionStore webSessionStore;
+    private final SessionPayloads sessionPayloads;
+    private final SlidingSessionProperties properties;
+    private final Duration sessionDuration;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Cache<String, Boolean> attempts;
+
+    @Autowired
+    public SessionRefresher(CustomOidcUserService oidcUserService, WebSessionStore webSessionStore,
+                            SessionPayloads sessionPayloads, SlidingSessionProperties properties,
+                            SessionProperties sessionProperties, MeterRegistry meterRegistry) {
+        this(oidcUserService, webSessionStore, sessionPayloads, properties, sessionProperties, meterRegistry,
+                Clock.systemUTC(), Ticker.systemTicker());
+    }
+
+    SessionRefresher(CustomOidcUserService oidcUserService, WebSessionStore webSessionStore,
+                     SessionPayloads sessionPayloads, SlidingSessionProperties properties,
+                     SessionProperties sessionProperties, MeterRegistry meterRegistry, Clock clock, Ticker ticker) {
+        this.oidcUserService = oidcUserService;
+        this.webSessionStore = webSessionStore;
+        this.sessionPayloads = sessionPayloads;
+        this.properties = properties;
+        this.sessionDuration = sessionProperties.maxIdleTime();
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        // An entry is an in-flight or recently failed refresh; it expires so failures are retried
+        this.attempts = Caffeine.newBuilder()
+                .expireAfterWrite(properties.retryInterval())
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Starts a background refresh of {@code sessionId} if sliding expiry is enabled and the
+     * session is close enough to its end. Returns immediately.
+     */
+    public void refreshIfDue(String sessionId, OAuth2AuthenticationToken authentication) {
+        if (!properties.enabled() || !(authentication.getPrincipal() instanceof EnrichedOidcUser user)) {
+            return;
+        }
+        Instant sessionEnd = nextSessionEnd(user.getSessionInfo(), clock.instant());
+        if (sessionEnd == null || attempts.asMap().putIfAbsent(sessionId, Boolean.TRUE) != null) {
+            return;
+        }
+        refresh(sessionId, authentication, user, sessionEnd).subscribe(
+                extended -> {
+                    attempts.invalidate(sessionId);
+                    record(extended ? "extended" : "gone");
+                },
+                e -> {
+                    log.warn("Refreshing session of {} failed; retrying after {}",
+                            user.getSubject(), properties.retryInterval(), e);
+                    record("failed");
+                });
+    }
+
+    /**
+     * Writes the enrichment still running for the principal of a login that just completed into
+     * session {@code sessionId} once it arrives. Does nothing unless the principal is provisional
+     * (see {@link CustomOidcUserService#pendingEnrichment}). Returns immediately; call it once the
+     * login's session has been saved.
+     */
+    public void completeLogin(String sessionId, OAuth2AuthenticationToken authentication) {
+        if (!(authentication.getPrincipal() instanceof EnrichedOidcUser provisional)) {
+            return;
+        }
+        Mono<EnrichedOidcUser> enrichment = oidcUserService.pendingEnrichment(provisional);
+        if (enrichment == null) {
+            return;
+        }
+        enrichment
+                .flatMap(enriched -> replacePrincipal(sessionId, authentication, enriched,
+                        // Only the provisional principal is replaced, never one written since
+                        current -> provisional.getSubject().equals(current.getSubject())
+                                && isPending(current.getSessionInfo()))
+                        .map(replaced -> replaced ? enriched.getSessionInfo().enrichment() : "gone"))
+                .subscribe(
+                        outcome -> meterRegistry.counter(DEFERRED_LOGIN_METRIC, "outcome", outcome).increment(),
+                        e -> log.warn("Completing the login of {} failed", provisional.getSubject(), e));
+    }
+
+    /**
+     * The extended {@code sessionEndTime} if {@code sessionInfo} is due for a refresh at
+     * {@code now}, otherwise {@code null}.
+     */
+    Instant nextSessionEnd(SessionInfo sessionInfo, Instant now) {
+        if (sessionInfo == null || sessionInfo.sessionStartTime() == null || sessionInfo.sessionEndTime() == null) {
+            return null;
+        }
+        Instant currentEnd = sessionInfo.sessionEndTime();
+        if (now.isBefore(currentEnd.minus(properties.refreshBefore()))) {
+            return null;
+        }
+        Instant cap = sessionInfo.sessionStartTime().plus(properties.maximumLifetime());
+        Instant candidate = now.plus(sessionDuration);
+        Instant sessionEnd = candidate.isBefore(cap) ? candidate : cap;
+        return sessionEnd.isAfter(currentEnd) ? sessionEnd : null;
+    }
+
+    /**
+     * Emits {@code true} once the refreshed principal is saved, {@code false} if the session is
+     * gone or belongs to someone else by then.
+     */
+    private Mono<Boolean> refresh(String sessionId, OAuth2AuthenticationToken authentication,
+                                  EnrichedOidcUser user, Instant sessionEnd) {
+        return oidcUserService.reenrich(user, sessionEnd)
+                .flatMap(refreshed -> replacePrincipal(sessionId, authentication, refreshed,
+                        current -> user.getSubject().equals(current.getSubject())));
+    }
+
+    /**
+     * Replaces the principal of stored session {@code sessionId} with {@code replacement} if its
+     * current principal matches {@code replaces}, re-rendering the session payload. Emits whether
+     * it did.
+     */
+    private Mono<Boolean> replacePrincipal(String sessionId, OAuth2AuthenticationToken authentication,
+                                           EnrichedOidcUser replacement, Predicate<EnrichedOidcUser> replaces) {
+        return webSessionStore.retrieveSession(sessionId)
+                .filter(session -> session.getAttribute(SECURITY_CONTEXT_ATTRIBUTE) instanceof SecurityContext context
+                        && context.getAuthentication() != null
+                        && context.getAuthentication().getPrincipal() instanceof EnrichedOidcUser current
+                        && replaces.test(current))
+                .flatMap(session -> {
+                    session.getAttributes().put(SECURITY_CONTEXT_ATTRIBUTE, new SecurityContextImpl(
+                            new OAuth2AuthenticationToken(replacement, authentication.getAuthorities(),
+                                    authentication.getAuthorizedClientRegistrationId())));
+                    sessionPayloads.store(session, replacement);
+                    return session.save().thenReturn(true);
+                })
+                .defaultIfEmpty(false);
+    }
+
+    private static boolean isPending(SessionInfo sessionInfo) {
+        return sessionInfo != null && SessionInfo.ENRICHMENT_PENDING.equals(sessionInfo.enrichment());
+    }
+
+    private void record(String outcome) {
+        meterRegistry.counter(METRIC, "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.bff.session;
+
+import org.springframework.core.serializer.support.SerializationFailedException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reader for payloads produced by {@link BinaryWriter}.
+ */
+final class BinaryReader {
+
+    private final byte[] buffer;
+    private int position;
+    private final List<String> strings = new ArrayList<>();
+
+    BinaryReader(byte[] buffer, int offset) {
+        this.buffer = buffer;
+        this.position = offset;
+    }
+
+    int readByte() {
+        if (position >= buffer.length) {
+            throw new SerializationFailedException("Unexpected end of session payload");
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationFailedException("Malformed varint in session payload");
+    }
+
+    int readVarInt() {
+        return (int) readVarLong();
+    }
+
+    long readSignedVarLong() {
+        long raw = readVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    String readString() {
+        int header = readVarInt();
+        if (header == 0) {
+            return null;
+        }
+        if ((header & 1) == 1) {
+            int index = header >>> 1;
+            if (index >= strings.size()) {
+                throw new SerializationFailedException("Unknown string reference " + index);
+            }
+            return strings.get(index);
+        }
+        int length = (header >>> 1) - 1;
+        checkAvailable(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        strings.add(value);
+        return value;
+    }
+
+    Instant readInstant() {
+        long seconds = readSignedVarLong();
+        return Instant.ofEpochSecond(seconds, readVarInt());
+    }
+
+    private void checkAvailable(int length) {
+        if (length < 0 || position + length > buffer.length) {
+            throw new SerializationFailedException("Unexpected end of session payload");
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.bff.session;
+
+import com.example.bff.model.SessionInfo;
+import com.example.bff.security.EnrichedOidcUser;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.security.core.context.SecurityContext;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link SessionAttributeSerializer} that writes the security context, principal and
+ * {@link SessionInfo} with {@link SessionBinaryCodec} and everything else with Java serialization.
+ * <p>
+ * <b>Payload layout:</b> {@code [kind | compressed flag][codec version][body]}. Bodies larger than
+ * {@code app.session.compression-threshold} are deflated when that makes them smaller.
+ * Payloads written by {@link JdkSessionAttributeSerializer} (starting with the Java
+ * serialization magic {@code 0xACED}) are still read, so switching serializers does not
+ * invalidate existing sessions.
+ */
+public class CompactSessionAttributeSerializer implements SessionAttributeSerializer {
+
+    private static final int KIND_JAVA = 0x01;
+    private static final int KIND_SECURITY_CONTEXT = 0x02;
+    private static final int KIND_OIDC_USER = 0x03;
+    private static final int KIND_SESSION_INFO = 0x04;
+
+    private static final int FLAG_DEFLATED = 0x40;
+    private static final int KIND_MASK = 0x3F;
+
+    private static final int JAVA_STREAM_MAGIC = 0xAC;
+
+    private static final int HEADER_LENGTH = 2;
+
+    private final SessionBinaryCodec codec = new SessionBinaryCodec();
+    private final JdkSessionAttributeSerializer javaSerializer = new JdkSessionAttributeSerializer();
+    private final int compressionThreshold;
+
+    /**
+     * @param compressionThreshold body size in bytes above which deflate is attempted;
+     *                             a negative value disables compression
+     */
+    public CompactSessionAttributeSerializer(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) {
+        BinaryWriter out = new BinaryWriter(512);
+        out.writeByte(0);
+        out.writeByte(SessionBinaryCodec.VERSION);
+        int kind;
+        try {
+            if (SessionBinaryCodec.isEncodableSecurityContext(value)) {
+                kind = KIND_SECURITY_CONTEXT;
+                codec.writeSecurityContext(out, (SecurityContext) value);
+            } else if (value != null && value.getClass() == EnrichedOidcUser.class) {
+                kind = KIND_OIDC_USER;
+                codec.writeOidcUser(out, (EnrichedOidcUser) value);
+            } else if (value instanceof SessionInfo sessionInfo) {
+                kind = KIND_SESSION_INFO;
+                codec.writeSessionInfo(out, sessionInfo);
+            } else {
+                return withHeader(KIND_JAVA, javaSerializer.serialize(value));
+            }
+        } catch (SessionBinaryCodec.UnsupportedValueException e) {
+            return withHeader(KIND_JAVA, javaSerializer.serialize(value));
+        }
+        byte[] payload = out.toByteArray();
+        payload[0] = (byte) kind;
+        return maybeCompress(payload);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        if (bytes.length == 0) {
+            throw new SerializationFailedException("Empty session attribute payload");
+        }
+        int tag = bytes[0] & 0xFF;
+        if (tag == JAVA_STREAM_MAGIC) {
+            return javaSerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH) {
+            throw new SerializationFailedException("Truncated session attribute payload");
+        }
+        int version = bytes[1] & 0xFF;
+        if (version != SessionBinaryCodec.VERSION) {
+            throw new SerializationFailedException("Unsupported session codec version " + version);
+        }
+        int kind = tag & KIND_MASK;
+        byte[] payload = (tag & FLAG_DEFLATED) != 0 ? inflate(bytes) : bytes;
+
+        if (kind == KIND_JAVA) {
+            return javaSerializer.deserialize(Arrays.copyOfRange(payload, HEADER_LENGTH, payload.length));
+        }
+        BinaryReader in = new BinaryReader(payload, HEADER_LENGTH);
+        return switch (kind) {
+            case KIND_SECURITY_CONTEXT -> codec.readSecurityContext(in);
+            case KIND_OIDC_USER -> codec.readOidcUser(in);
+            case KIND_SESSION_INFO -> codec.readSessionInfo(in);
+            default -> throw new SerializationFailedException("Unknown session attribute kind " + kind);
+        };
+    }
+
+    private byte[] withHeader(int kind, byte[] body) {
+        byte[] payload = new byte[body.length + HEADER_LENGTH];
+        payload[0] = (byte) kind;
+        payload[1] = (byte) SessionBinaryCodec.VERSION;
+        System.arraycopy(body, 0, payload, HEADER_LENGTH, body.length);
+        return maybeCompress(payload);
+    }
+
+    private byte[] maybeCompress(byte[] payload) {
+        int bodyLength = payload.length - HEADER_LENGTH;
+        if (compressionThreshold < 0 || bodyLength <= compressionThreshold) {
+            return payload;
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload, HEADER_LENGTH, bodyLength);
+            deflater.finish();
+            byte[] compressed = new byte[payload.length];
+            compressed[0] = (byte) (payload[0] | FLAG_DEFLATED);
+            compressed[1] = payload[1];
+            int length = HEADER_LENGTH;
+            while (!deflater.finished() && length < compressed.length) {
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            // Not worth it unless the result is actually smaller.
+            return deflater.finished() && length < payload.length ? Arrays.copyOf(compressed, length) : payload;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 3);
+            out.write(bytes[0] & KIND_MASK);
+            out.write(bytes[1]);
+            byte[] chunk = new byte[4096];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(chunk);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new SerializationFailedException("Truncated compressed session payload");
+                }
+                out.write(chunk, 0, read);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new SerializationFailedException("Corrupt compressed session payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.bff.session;
+
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+
+/**
+ * {@link SessionAttributeSerializer} using standard Java serialization.
+ * Every stored attribute value must be {@link java.io.Serializable}.
+ */
+public class JdkSessionAttributeSerializer implements SessionAttributeSerializer {
+
+    private final SerializingConverter serializer = new SerializingConverter();
+    private final DeserializingConverter deserializer = new DeserializingConverter();
+
+    @Override
+    public byte[] serialize(Object value) {
+        return serializer.convert(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        return deserializer.convert(bytes);
+    }
+}
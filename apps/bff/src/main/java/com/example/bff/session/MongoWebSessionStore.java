@@ -0,0 +1,706 @@
+package com.example.bff.session;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.web.server.WebSession;
+import org.springframework.web.server.session.WebSessionStore;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * {@link WebSessionStore} backed by reactive MongoDB, so any replica can serve any session
+ * and a pod restart does not log users out.
+ * <p>
+ * <b>Write behaviour:</b>
+ * <ul>
+ *   <li>A new session is written as one document on its first save.</li>
+ *   <li>After that, only attributes put or removed since the last save are written,
+ *       as {@code $set}/{@code $unset} of the individual attribute fields. A put whose
+ *       serialized value equals the stored one is not written.</li>
+ *   <li>A save that only moves the last-access time is not written immediately. Advances
+ *       smaller than {@code app.session.touch-granularity} are ignored; the rest are merged
+ *       per session and flushed as one unordered bulk update every
+ *       {@code app.session.touch-flush-interval}.</li>
+ * </ul>
+ * Expired documents are removed by a TTL index on {@code expireAt}, which is kept at
+ * {@code lastAccessedAt + maxIdleTime}, or at {@link #NEVER_EXPIRES} for a session whose idle time is
+ * negative (one that never expires). The idle time defaults to {@code app.session.duration-minutes}.
+ * <p>
+ * <b>Metrics:</b> {@code bff.session.created} counts first writes of new sessions;
+ * {@code bff.session.ended} counts sessions ended here, tagged {@code reason} = {@code expired}
+ * (found idle on retrieval) or {@code invalidated} (logout). Documents removed by the TTL index
+ * without being requested again are not counted. {@code bff.session.size} records the serialized
+ * attribute bytes of a session whenever its attributes are written.
+ * <p>
+ * Creation, writes, persisted touches and ends are also reported to {@link SessionStatistics}.
+ */
+public class MongoWebSessionStore implements WebSessionStore, InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoWebSessionStore.class);
+
+    static final String FIELD_CREATED_AT = "createdAt";
+    static final String FIELD_LAST_ACCESSED_AT = "lastAccessedAt";
+    static final String FIELD_MAX_IDLE_SECONDS = "maxIdleSeconds";
+    static final String FIELD_EXPIRE_AT = "expireAt";
+    static final String FIELD_ATTRIBUTES = "attrs";
+
+    private static final Duration SHUTDOWN_FLUSH_TIMEOUT = Duration.ofSeconds(5);
+
+    /** {@code expireAt} of a session with a negative idle time, which the TTL index never reaches. */
+    static final Instant NEVER_EXPIRES = Instant.parse("9999-12-31T23:59:59Z");
+
+    private final ReactiveMongoOperations mongoOperations;
+    private final SessionAttributeSerializer serializer;
+    private final SessionProperties properties;
+    private final Clock clock;
+    private final Counter sessionsCreated;
+    private final Counter sessionsExpired;
+    private final Counter sessionsInvalidated;
+    private final DistributionSummary sessionSize;
+    private final SessionStatistics statistics;
+
+    /** Latest unpersisted last-access time per session id, drained by {@link #flushTouches()}. */
+    private final ConcurrentMap<String, Touch> pendingTouches = new ConcurrentHashMap<>();
+
+    private Disposable flushTask;
+
+    public MongoWebSessionStore(
+            ReactiveMongoOperations mongoOperations,
+            SessionAttributeSerializer serializer,
+            SessionProperties properties,
+            MeterRegistry meterRegistry,
+            SessionStatistics statistics) {
+        this(mongoOperations, serializer, properties, meterRegistry, statistics, Clock.systemUTC());
+    }
+
+    MongoWebSessionStore(
+            ReactiveMongoOperations mongoOperations,
+            SessionAttributeSerializer serializer,
+            SessionProperties properties,
+            MeterRegistry meterRegistry,
+            SessionStatistics statistics,
+            Clock clock) {
+        this.mongoOperations = mongoOperations;
+        this.serializer = serializer;
+        this.properties = properties;
+        this.clock = clock;
+        this.sessionsCreated = Counter.builder("bff.session.created")
+                .description("New sessions written to the store")
+                .register(meterRegistry);
+        this.sessionsExpired = endedCounter(meterRegistry, "expired");
+        this.sessionsInvalidated = endedCounter(meterRegistry, "invalidated");
+        this.sessionSize = DistributionSummary.builder("bff.session.size")
+                .description("Serialized session attribute size")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.statistics = statistics;
+    }
+
+    private static Counter endedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("bff.session.ended")
+                .description("Sessions ended by this store")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        mongoOperations.indexOps(properties.collection())
+                .createIndex(new Index()
+                        .on(FIELD_EXPIRE_AT, Sort.Direction.ASC)
+                        .expire(Duration.ZERO)
+                        .named("expireAt_ttl"))
+                .subscribe(
+                        name -> log.debug("Session TTL index '{}' ready", name),
+                        e -> log.warn("Could not create session TTL index on '{}'", properties.collection(), e));
+
+        flushTask = Flux.interval(properties.touchFlushInterval(), Schedulers.parallel())
+                .onBackpressureDrop()
+                .concatMap(tick -> flushTouches()
+                        .onErrorResume(e -> {
+                            log.warn("Failed to flush session touches", e);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (flushTask != null) {
+            flushTask.dispose();
+        }
+        flushTouches()
+                .onErrorResume(e -> Mono.empty())
+                .block(SHUTDOWN_FLUSH_TIMEOUT);
+    }
+
+    @Override
+    public Mono<WebSession> createWebSession() {
+        return Mono.fromSupplier(() -> new MongoWebSession(
+                UUID.randomUUID().toString(), clock.instant(), properties.maxIdleTime()));
+    }
+
+    @Override
+    public Mono<WebSession> retrieveSession(String sessionId) {
+        return mongoOperations.findById(sessionId, Document.class, properties.collection())
+                .mapNotNull(this::toSession)
+                .flatMap(session -> {
+                    Instant now = clock.instant();
+                    if (session.isExpired(now)) {
+                        sessionsExpired.increment();
+                        statistics.recordEnded(sessionId, false);
+                        return removeSession(sessionId).then(Mono.empty());
+                    }
+                    statistics.recordRetrieved(sessionId, session.getAttributes(), session.storedSize(),
+                            expireAt(session.getLastAccessTime(), session.getMaxIdleTime()));
+                    session.touch(now);
+                    return Mono.just(session);
+                });
+    }
+
+    /**
+     * {@link SessionExpiryLookup} for this store: the stored idle expiry, moved by a touch still
+     * buffered on this replica. The session is neither decoded nor touched.
+     */
+    public Mono<Instant> idleExpiry(String sessionId) {
+        return mongoOperations.findById(sessionId, Document.class, properties.collection())
+                .map(document -> {
+                    Instant lastAccess = document.getDate(FIELD_LAST_ACCESSED_AT).toInstant();
+                    Touch pending = pendingTouches.get(sessionId);
+                    if (pending != null && pending.lastAccess().isAfter(lastAccess)) {
+                        lastAccess = pending.lastAccess();
+                    }
+                    return expireAt(lastAccess, Duration.ofSeconds(document.getLong(FIELD_MAX_IDLE_SECONDS)));
+                })
+                .filter(expireAt -> expireAt.isAfter(clock.instant()));
+    }
+
+    @Override
+    public Mono<Void> removeSession(String sessionId) {
+        return Mono.defer(() -> {
+            pendingTouches.remove(sessionId);
+            return mongoOperations.remove(byId(sessionId), properties.collection()).then();
+        });
+    }
+
+    @Override
+    public Mono<WebSession> updateLastAccessTime(WebSession webSession) {
+        return Mono.fromSupplier(() -> {
+            ((MongoWebSession) webSession).touch(clock.instant());
+            return webSession;
+        });
+    }
+
+    /**
+     * Writes all buffered last-access touches in a single unordered bulk update.
+     * Touches for sessions that no longer exist are no-ops; they are never upserted.
+     */
+    Mono<Void> flushTouches() {
+        return Mono.defer(() -> {
+            if (pendingTouches.isEmpty()) {
+                return Mono.empty();
+            }
+            ReactiveBulkOperations bulk = mongoOperations.bulkOps(BulkMode.UNORDERED, properties.collection());
+            int count = 0;
+            for (String sessionId : Set.copyOf(pendingTouches.keySet())) {
+                Touch touch = pendingTouches.remove(sessionId);
+                if (touch != null) {
+                    bulk.updateOne(byId(sessionId), new Update()
+                            .set(FIELD_LAST_ACCESSED_AT, Date.from(touch.lastAccess()))
+                            .set(FIELD_EXPIRE_AT, Date.from(expireAt(touch.lastAccess(), touch.maxIdleTime()))));
+                    count++;
+                }
+            }
+            return count == 0 ? Mono.empty() : bulk.execute().then();
+        });
+    }
+
+    int pendingTouchCount() {
+        return pendingTouches.size();
+    }
+
+    private MongoWebSession toSession(Document document) {
+        String sessionId = document.getString("_id");
+        Map<String, Object> attributes = new HashMap<>();
+        Map<String, byte[]> storedValues = new HashMap<>();
+        Document storedAttributes = document.get(FIELD_ATTRIBUTES, Document.class);
+        if (storedAttributes != null) {
+            try {
+                for (Map.Entry<String, Object> entry : storedAttributes.entrySet()) {
+                    byte[] bytes = ((Binary) entry.getValue()).getData();
+                    String name = decodeAttributeName(entry.getKey());
+                    attributes.put(name, serializer.deserialize(bytes));
+                    storedValues.put(name, bytes);
+                }
+            } catch (SerializationFailedException e) {
+                // Typically a class change across deployments; treat as no session.
+                log.debug("Discarding unreadable session {}", sessionId, e);
+                return null;
+            }
+        }
+
+        Instant lastAccess = document.getDate(FIELD_LAST_ACCESSED_AT).toInstant();
+        Touch pending = pendingTouches.get(sessionId);
+        if (pending != null && pending.lastAccess().isAfter(lastAccess)) {
+            lastAccess = pending.lastAccess();
+        }
+        return new MongoWebSession(
+                sessionId,
+                document.getDate(FIELD_CREATED_AT).toInstant(),
+                lastAccess,
+                document.getDate(FIELD_LAST_ACCESSED_AT).toInstant(),
+                Duration.ofSeconds(document.getLong(FIELD_MAX_IDLE_SECONDS)),
+                attributes,
+                storedValues);
+    }
+
+    /** When a session last accessed at {@code lastAccess} idles out; a negative idle time never does. */
+    static Instant expireAt(Instant lastAccess, Duration maxIdleTime) {
+        return maxIdleTime.isNegative() ? NEVER_EXPIRES : lastAccess.plus(maxIdleTime);
+    }
+
+    private static Query byId(String sessionId) {
+        return Query.query(where("_id").is(sessionId));
+    }
+
+    /** Escapes characters MongoDB treats specially in field names ({@code .} and a leading {@code $}). */
+    static String encodeAttributeName(String name) {
+        String encoded = name.replace("%", "%25").replace(".", "%2E");
+        return encoded.startsWith("$") ? "%24" + encoded.substring(1) : encoded;
+    }
+
+    static String decodeAttributeName(String encoded) {
+        return encoded.replace("%24", "$").replace("%2E", ".").replace("%25", "%");
+    }
+
+    private static String attributePath(String name) {
+        return FIELD_ATTRIBUTES + "." + encodeAttributeName(name);
+    }
+
+    private enum State { NEW, STARTED, EXPIRED }
+
+    /** A buffered last-access time with the idle time its {@code expireAt} is computed from. */
+    private record Touch(Instant lastAccess, Duration maxIdleTime) {
+    }
+
+    private class MongoWebSession implements WebSession {
+
+        private final AtomicReference<String> id;
+
+        private final DirtyTrackingAttributes attributes;
+
+        /** Serialized form of each attribute as last written, used to skip no-op puts. */
+        private final Map<String, byte[]> storedValues;
+
+        private final Instant creationTime;
+
+        private volatile Instant lastAccessTime;
+
+        private volatile Instant persistedLastAccessTime;
+
+        private volatile Duration maxIdleTime;
+
+        private volatile boolean maxIdleTimeChanged;
+
+        private volatile boolean persisted;
+
+        /** Created by this store and not yet written; counted once on the first successful insert. */
+        private volatile boolean fresh;
+
+        private final AtomicReference<State> state;
+
+        MongoWebSession(String id, Instant creationTime, Duration maxIdleTime) {
+            this.id = new AtomicReference<>(id);
+            this.attributes = new DirtyTrackingAttributes(new HashMap<>());
+            this.storedValues = new HashMap<>();
+            this.creationTime = creationTime;
+            this.lastAccessTime = creationTime;
+            this.persistedLastAccessTime = creationTime;
+            this.maxIdleTime = maxIdleTime;
+            this.persisted = false;
+            this.fresh = true;
+            this.state = new AtomicReference<>(State.NEW);
+        }
+
+        MongoWebSession(String id, Instant creationTime, Instant lastAccessTime, Instant persistedLastAccessTime,
+                        Duration maxIdleTime, Map<String, Object> attributes, Map<String, byte[]> storedValues) {
+            this.id = new AtomicReference<>(id);
+            this.attributes = new DirtyTrackingAttributes(attributes);
+            this.storedValues = storedValues;
+            this.creationTime = creationTime;
+            this.lastAccessTime = lastAccessTime;
+            this.persistedLastAccessTime = persistedLastAccessTime;
+            this.maxIdleTime = maxIdleTime;
+            this.persisted = true;
+            this.state = new AtomicReference<>(State.STARTED);
+        }
+
+        @Override
+        public String getId() {
+            return id.get();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return creationTime;
+        }
+
+        @Override
+        public Instant getLastAccessTime() {
+            return lastAccessTime;
+        }
+
+        @Override
+        public void setMaxIdleTime(Duration maxIdleTime) {
+            this.maxIdleTime = maxIdleTime;
+            this.maxIdleTimeChanged = true;
+        }
+
+        @Override
+        public Duration getMaxIdleTime() {
+            return maxIdleTime;
+        }
+
+        @Override
+        public void start() {
+            state.compareAndSet(State.NEW, State.STARTED);
+        }
+
+        @Override
+        public boolean isStarted() {
+            return state.get() == State.STARTED || !attributes.isEmpty();
+        }
+
+        @Override
+        public Mono<Void> changeSessionId() {
+            return Mono.defer(() -> {
+                String previousId = id.getAndSet(UUID.randomUUID().toString());
+                boolean wasPersisted = persisted;
+                // The new id has no document yet; the next save writes the full session.
+                persisted = false;
+                if (!wasPersisted) {
+                    return Mono.empty();
+                }
+                statistics.forget(previousId);
+                return removeSession(previousId);
+            });
+        }
+
+        @Override
+        public Mono<Void> invalidate() {
+            return Mono.defer(() -> {
+                if (state.getAndSet(State.EXPIRED) != State.EXPIRED && persisted) {
+                    sessionsInvalidated.increment();
+                    statistics.recordEnded(getId(), true);
+                }
+                attributes.clearQuietly();
+                return removeSession(getId());
+            });
+        }
+
+        @Override
+        public Mono<Void> save() {
+            return Mono.defer(() -> {
+                if (state.get() == State.EXPIRED) {
+                    return Mono.empty();
+                }
+                start();
+                if (!persisted) {
+                    return insert();
+                }
+
+                Set<String> changedNames = attributes.drainDirty();
+                Update update = new Update();
+                Map<String, byte[]> written = appendAttributeChanges(changedNames, update);
+                if (written.isEmpty() && !maxIdleTimeChanged) {
+                    recordTouch();
+                    return Mono.empty();
+                }
+
+                Instant lastAccess = lastAccessTime;
+                update.set(FIELD_LAST_ACCESSED_AT, Date.from(lastAccess))
+                        .set(FIELD_MAX_IDLE_SECONDS, maxIdleTime.toSeconds())
+                        .set(FIELD_EXPIRE_AT, Date.from(expireAt(lastAccess, maxIdleTime)));
+                pendingTouches.remove(getId());
+                return mongoOperations.updateFirst(byId(getId()), update, properties.collection())
+                        .flatMap(result -> {
+                            if (result.getMatchedCount() == 0) {
+                                // Removed underneath us (TTL or another pod); write it again in full.
+                                persisted = false;
+                                return insert().thenReturn(result);
+                            }
+                            applyWritten(written);
+                            persistedLastAccessTime = lastAccess;
+                            maxIdleTimeChanged = false;
+                            sessionSize.record(storedSize());
+                            statistics.recordSaved(getId(), attributes, storedSize(), expireAt(lastAccess, maxIdleTime), false);
+                            return Mono.just(result);
+                        })
+                        .doOnError(e -> attributes.markDirty(changedNames))
+                        .then();
+            });
+        }
+
+        private Mono<Void> insert() {
+            Document storedAttributes = new Document();
+            attributes.drainDirty();
+            storedValues.clear();
+            for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+                byte[] bytes = serializer.serialize(entry.getValue());
+                storedAttributes.put(encodeAttributeName(entry.getKey()), new Binary(bytes));
+                storedValues.put(entry.getKey(), bytes);
+            }
+            Instant lastAccess = lastAccessTime;
+            Document document = new Document("_id", getId())
+                    .append(FIELD_CREATED_AT, Date.from(creationTime))
+                    .append(FIELD_LAST_ACCESSED_AT, Date.from(lastAccess))
+                    .append(FIELD_MAX_IDLE_SECONDS, maxIdleTime.toSeconds())
+                    .append(FIELD_EXPIRE_AT, Date.from(expireAt(lastAccess, maxIdleTime)))
+                    .append(FIELD_ATTRIBUTES, storedAttributes);
+            pendingTouches.remove(getId());
+            return mongoOperations.save(document, properties.collection())
+                    .doOnSuccess(saved -> {
+                        persisted = true;
+                        persistedLastAccessTime = lastAccess;
+                        maxIdleTimeChanged = false;
+                        boolean created = fresh;
+                        if (created) {
+                            fresh = false;
+                            sessionsCreated.increment();
+                        }
+                        sessionSize.record(storedSize());
+                        statistics.recordSaved(getId(), attributes, storedSize(), expireAt(lastAccess, maxIdleTime), created);
+                    })
+                    .doOnError(e -> attributes.markDirty(attributes.keySet()))
+                    .then();
+        }
+
+        private long storedSize() {
+            long size = 0;
+            for (byte[] bytes : storedValues.values()) {
+                size += bytes.length;
+            }
+            return size;
+        }
+
+        /**
+         * Adds the {@code $set}/{@code $unset} of each changed attribute to {@code update} and
+         * returns the values written ({@code null} for a removal). {@code storedValues} is left
+         * alone until the write succeeds, so a failed save is compared against what is really
+         * stored when it is retried.
+         */
+        private Map<String, byte[]> appendAttributeChanges(Set<String> changedNames, Update update) {
+            Map<String, byte[]> written = new HashMap<>();
+            for (String name : changedNames) {
+                Object value = attributes.get(name);
+                if (value == null) {
+                    if (storedValues.containsKey(name)) {
+                        update.unset(attributePath(name));
+                        written.put(name, null);
+                    }
+                    continue;
+                }
+                byte[] bytes = serializer.serialize(value);
+                if (!Arrays.equals(bytes, storedValues.get(name))) {
+                    update.set(attributePath(name), new Binary(bytes));
+                    written.put(name, bytes);
+                }
+            }
+            return written;
+        }
+
+        private void applyWritten(Map<String, byte[]> written) {
+            for (Map.Entry<String, byte[]> entry : written.entrySet()) {
+                if (entry.getValue() == null) {
+                    storedValues.remove(entry.getKey());
+                } else {
+                    storedValues.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        private void recordTouch() {
+            Instant lastAccess = lastAccessTime;
+            if (Duration.between(persistedLastAccessTime, lastAccess).compareTo(properties.touchGranularity()) >= 0) {
+                pendingTouches.merge(getId(), new Touch(lastAccess, maxIdleTime),
+                        (a, b) -> a.lastAccess().isAfter(b.lastAccess()) ? a : b);
+                persistedLastAccessTime = lastAccess;
+                statistics.recordTouched(getId(), expireAt(lastAccess, maxIdleTime));
+            }
+        }
+
+        @Override
+        public boolean isExpired() {
+            return isExpired(clock.instant());
+        }
+
+        private boolean isExpired(Instant now) {
+            if (state.get() == State.EXPIRED) {
+                return true;
+            }
+            if (checkExpired(now)) {
+                state.set(State.EXPIRED);
+                return true;
+            }
+            return false;
+        }
+
+        private boolean checkExpired(Instant currentTime) {
+            return isStarted() && !maxIdleTime.isNegative()
+                    && currentTime.minus(maxIdleTime).isAfter(lastAccessTime);
+        }
+
+        private void touch(Instant currentTime) {
+            lastAccessTime = currentTime;
+        }
+    }
+
+    /**
+     * Attribute map that remembers which names were put or removed since the last save.
+     * Removal through {@code keySet()}/{@code entrySet()} views is not tracked; session
+     * attributes are always changed through {@code put}/{@code remove} in practice.
+     */
+    private static class DirtyTrackingAttributes extends ConcurrentHashMap<String, Object> {
+
+        private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+        DirtyTrackingAttributes(Map<String, Object> initial) {
+            // ConcurrentHashMap.putAll bypasses put(), so the initial content is not marked dirty.
+            super.putAll(initial);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            dirty.add(key);
+            return super.put(key, value);
+        }
+
+        @Override
+        public void putAll(Map<? extends String, ?> map) {
+            map.forEach(this::put);
+        }
+
+        @Override
+        public Object putIfAbsent(String key, Object value) {
+            dirty.add(key);
+            return super.putIfAbsent(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            if (key instanceof String name) {
+                dirty.add(name);
+            }
+            return super.remove(key);
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            if (key instanceof String name) {
+                dirty.add(name);
+            }
+            return super.remove(key, value);
+        }
+
+        @Override
+        public Object replace(String key, Object value) {
+            dirty.add(key);
+            return super.replace(key, value);
+        }
+
+        @Override
+        public boolean replace(String key, Object oldValue, Object newValue) {
+            dirty.add(key);
+            return super.replace(key, oldValue, newValue);
+        }
+
+        @Override
+        public Object compute(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+            dirty.add(key);
+            return super.compute(key, remappingFunction);
+        }
+
+        @Override
+        public Object computeIfAbsent(String key, Function<? super String, ?> mappingFunction) {
+            dirty.add(key);
+            return super.computeIfAbsent(key, mappingFunction);
+        }
+
+        @Override
+        public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+            dirty.add(key);
+            return super.computeIfPresent(key, remappingFunction);
+        }
+
+        @Override
+        public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+            dirty.add(key);
+            return super.merge(key, value, remappingFunction);
+        }
+
+        @Override
+        public void clear() {
+            dirty.addAll(keySet());
+            super.clear();
+        }
+
+        void clearQuietly() {
+            super.clear();
+            dirty.clear();
+        }
+
+        Set<String> drainDirty() {
+            Set<String> drained = new HashSet<>();
+            for (String name : dirty) {
+                if (dirty.remove(name)) {
+                    drained.add(name);
+                }
+            }
+            return drained;
+        }
+
+        void markDirty(Set<String> names) {
+            dirty.addAll(names);
+        }
+    }
+}
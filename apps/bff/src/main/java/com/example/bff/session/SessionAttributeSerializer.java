@@ -0,0 +1,14 @@
+package com.example.bff.session;
+
+/**
+ * Converts WebSession attribute values to and from the bytes stored in the session document.
+ * <p>
+ * Implementations must be thread-safe. Failures are reported as
+ * {@link org.springframework.core.serializer.support.SerializationFailedException}.
+ */
+public interface SessionAttributeSerializer {
+
+    byte[] serialize(Object value);
+
+    Object deserialize(byte[] bytes);
+}
@@ -0,0 +1,295 @@
+package com.example.bff.session;
+
+import com.example.bff.model.DelegatePermission;
+import com.example.bff.model.SessionInfo;
+import com.example.bff.security.DelegateIndex;
+import com.example.bff.security.EnrichedOidcUser;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.FactorGrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned binary encoding of the session principal graph:
+ * {@link SecurityContext} → {@link OAuth2AuthenticationToken} → {@link EnrichedOidcUser}
+ * → {@link SessionInfo} → {@link DelegatePermission}.
+ * <p>
+ * <b>Layout rules:</b>
+ * <ul>
+ *   <li>Every string is written once per payload and referenced by index afterwards, so
+ *       repeated values such as {@code delegateType} or {@code sub} cost one or two bytes
+ *       after their first use.</li>
+ *   <li>{@code DelegatePermission} dates in ISO {@code yyyy-MM-dd} form are stored as epoch
+ *       days; other values are kept verbatim so decoding is always exact. A decoded principal
+ *       gets its {@link DelegateIndex} built from those epoch days, so no date is parsed.</li>
+ *   <li>The principal is stored as {@code sub}, {@code email}, {@code name}, authorities and
+ *       {@code SessionInfo}; ID token and userinfo claims are not kept.</li>
+ * </ul>
+ * Objects outside this graph (custom authentication types, authentication details,
+ * unknown authority types) are rejected with {@link UnsupportedValueException} so the
+ * caller can fall back to Java serialization for the whole attribute.
+ */
+final class SessionBinaryCodec {
+
+    /**
+     * Layout version written into every payload header. Payloads of any other version are
+     * rejected, so bump it whenever the layout below changes.
+     */
+    static final int VERSION = 1;
+
+    private static final int AUTHORITY_SIMPLE = 0;
+    private static final int AUTHORITY_FACTOR = 1;
+
+    private static final int DATE_NULL = 0;
+    private static final int DATE_EPOCH_DAY = 1;
+    private static final int DATE_LITERAL = 2;
+
+    // --- SecurityContext -------------------------------------------------------------------
+
+    static boolean isEncodableSecurityContext(Object value) {
+        if (value == null || value.getClass() != SecurityContextImpl.class) {
+            return false;
+        }
+        Authentication authentication = ((SecurityContext) value).getAuthentication();
+        return authentication != null
+                && authentication.getClass() == OAuth2AuthenticationToken.class
+                && authentication.getDetails() == null
+                && authentication.isAuthenticated()
+                && authentication.getPrincipal() != null
+                && authentication.getPrincipal().getClass() == EnrichedOidcUser.class;
+    }
+
+    void writeSecurityContext(BinaryWriter out, SecurityContext context) {
+        OAuth2AuthenticationToken token = (OAuth2AuthenticationToken) context.getAuthentication();
+        EnrichedOidcUser user = (EnrichedOidcUser) token.getPrincipal();
+        out.writeString(token.getAuthorizedClientRegistrationId());
+        writeOidcUser(out, user);
+        writeAuthorities(out, token.getAuthorities());
+    }
+
+    SecurityContext readSecurityContext(BinaryReader in) {
+        String registrationId = in.readString();
+        EnrichedOidcUser user = readOidcUser(in);
+        List<GrantedAuthority> authorities = readAuthorities(in);
+        return new SecurityContextImpl(new OAuth2AuthenticationToken(user, authorities, registrationId));
+    }
+
+    // --- EnrichedOidcUser ------------------------------------------------------------------
+
+    void writeOidcUser(BinaryWriter out, EnrichedOidcUser user) {
+        out.writeString(user.getSubject());
+        out.writeString(user.getEmail());
+        out.writeString(user.getFullName());
+        writeAuthorities(out, user.getAuthorities());
+        SessionInfo sessionInfo = user.getSessionInfo();
+        out.writeBoolean(sessionInfo != null);
+        if (sessionInfo != null) {
+            writeSessionInfo(out, sessionInfo);
+        }
+    }
+
+    EnrichedOidcUser readOidcUser(BinaryReader in) {
+        String subject = in.readString();
+        String email = in.readString();
+        String fullName = in.readString();
+        List<GrantedAuthority> authorities = readAuthorities(in);
+        if (!in.readBoolean()) {
+            return new EnrichedOidcUser(subject, email, fullName, authorities, null, DelegateIndex.EMPTY);
+        }
+        DelegateIndex.Builder delegateIndex = DelegateIndex.builder();
+        SessionInfo sessionInfo = readSessionInfo(in, delegateIndex);
+        return new EnrichedOidcUser(subject, email, fullName, authorities, sessionInfo, delegateIndex.build());
+    }
+
+    // --- Authorities -----------------------------------------------------------------------
+
+    private void writeAuthorities(BinaryWriter out, Collection<? extends GrantedAuthority> authorities) {
+        out.writeVarInt(authorities.size());
+        for (GrantedAuthority authority : authorities) {
+            if (authority.getClass() == SimpleGrantedAuthority.class) {
+                out.writeByte(AUTHORITY_SIMPLE);
+                out.writeString(authority.getAuthority());
+            } else if (authority instanceof FactorGrantedAuthority factor) {
+                out.writeByte(AUTHORITY_FACTOR);
+                out.writeString(factor.getAuthority());
+                writeNullableInstant(out, factor.getIssuedAt());
+            } else {
+                throw new UnsupportedValueException(authority.getClass());
+            }
+        }
+    }
+
+    private List<GrantedAuthority> readAuthorities(BinaryReader in) {
+        int count = in.readVarInt();
+        List<GrantedAuthority> authorities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int kind = in.readByte();
+            switch (kind) {
+                case AUTHORITY_SIMPLE -> authorities.add(new SimpleGrantedAuthority(in.readString()));
+                case AUTHORITY_FACTOR -> {
+                    FactorGrantedAuthority.Builder builder = FactorGrantedAuthority.withAuthority(in.readString());
+                    Instant issuedAt = readNullableInstant(in);
+                    if (issuedAt != null) {
+                        builder.issuedAt(issuedAt);
+                    }
+                    authorities.add(builder.build());
+                }
+                default -> throw new SerializationFailedException("Unknown authority kind " + kind);
+            }
+        }
+        return authorities;
+    }
+
+    // --- SessionInfo / DelegatePermission --------------------------------------------------
+
+    void writeSessionInfo(BinaryWriter out, SessionInfo sessionInfo) {
+        out.writeString(sessionInfo.enterpriseId());
+        out.writeString(sessionInfo.hsidUuid());
+        writeNullableInstant(out, sessionInfo.sessionStartTime());
+        writeNullableInstant(out, sessionInfo.sessionEndTime());
+        out.writeString(sessionInfo.persona());
+        out.writeString(sessionInfo.enrichment());
+
+        Map<String, List<DelegatePermission>> managedMembers = sessionInfo.managedMembers();
+        if (managedMembers == null) {
+            out.writeVarInt(0);
+            return;
+        }
+        out.writeVarInt(managedMembers.size() + 1);
+        for (Map.Entry<String, List<DelegatePermission>> member : managedMembers.entrySet()) {
+            out.writeString(member.getKey());
+            List<DelegatePermission> permissions = member.getValue();
+            if (permissions == null) {
+                out.writeVarInt(0);
+                continue;
+            }
+            out.writeVarInt(permissions.size() + 1);
+            for (DelegatePermission permission : permissions) {
+                writeDelegatePermission(out, permission);
+            }
+        }
+    }
+
+    SessionInfo readSessionInfo(BinaryReader in) {
+        return readSessionInfo(in, null);
+    }
+
+    /**
+     * @param delegateIndex receives every permission with usable dates; may be {@code null}
+     */
+    private SessionInfo readSessionInfo(BinaryReader in, DelegateIndex.Builder delegateIndex) {
+        String enterpriseId = in.readString();
+        String hsidUuid = in.readString();
+        Instant sessionStartTime = readNullableInstant(in);
+        Instant sessionEndTime = readNullableInstant(in);
+        String persona = in.readString();
+        String enrichment = in.readString();
+
+        Map<String, List<DelegatePermission>> managedMembers = null;
+        int memberCount = in.readVarInt() - 1;
+        if (memberCount >= 0) {
+            managedMembers = new LinkedHashMap<>(Math.max(16, memberCount * 4 / 3 + 1));
+            for (int i = 0; i < memberCount; i++) {
+                String memberId = in.readString();
+                int permissionCount = in.readVarInt() - 1;
+                List<DelegatePermission> permissions = null;
+                if (permissionCount >= 0) {
+                    permissions = new ArrayList<>(permissionCount);
+                    for (int j = 0; j < permissionCount; j++) {
+                        permissions.add(readDelegatePermission(in, memberId, delegateIndex));
+                    }
+                }
+                managedMembers.put(memberId, permissions);
+            }
+        }
+        return new SessionInfo(enterpriseId, hsidUuid, sessionStartTime, sessionEndTime, persona, managedMembers, enrichment);
+    }
+
+    void writeDelegatePermission(BinaryWriter out, DelegatePermission permission) {
+        if (permission == null) {
+            out.writeBoolean(false);
+            return;
+        }
+        out.writeBoolean(true);
+        out.writeString(permission.delegateType());
+        writeDate(out, permission.startDate());
+        writeDate(out, permission.endDate());
+    }
+
+    private DelegatePermission readDelegatePermission(BinaryReader in, String memberId,
+                                                      DelegateIndex.Builder delegateIndex) {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String delegateType = in.readString();
+        int startKind = in.readByte();
+        long startDay = startKind == DATE_EPOCH_DAY ? in.readSignedVarLong() : Long.MIN_VALUE;
+        String startDate = readDate(in, startKind, startDay);
+        int endKind = in.readByte();
+        long endDay = endKind == DATE_EPOCH_DAY ? in.readSignedVarLong() : Long.MAX_VALUE;
+        String endDate = readDate(in, endKind, endDay);
+        // A literal date is one that did not parse, and such a row grants nothing
+        if (delegateIndex != null && startKind != DATE_LITERAL && endKind != DATE_LITERAL) {
+            delegateIndex.add(memberId, delegateType, startDay, endDay);
+        }
+        return new DelegatePermission(delegateType, startDate, endDate);
+    }
+
+    private void writeDate(BinaryWriter out, String date) {
+        if (date == null) {
+            out.writeByte(DATE_NULL);
+            return;
+        }
+        LocalDate parsed = DelegatePermission.parseDate(date);
+        if (parsed != null) {
+            out.writeByte(DATE_EPOCH_DAY);
+            out.writeSignedVarLong(parsed.toEpochDay());
+        } else {
+            out.writeByte(DATE_LITERAL);
+            out.writeString(date);
+        }
+    }
+
+    /** The date of kind {@code kind}; an epoch day has already been read into {@code epochDay}. */
+    private static String readDate(BinaryReader in, int kind, long epochDay) {
+        return switch (kind) {
+            case DATE_NULL -> null;
+            case DATE_EPOCH_DAY -> LocalDate.ofEpochDay(epochDay).toString();
+            case DATE_LITERAL -> in.readString();
+            default -> throw new SerializationFailedException("Unknown date kind " + kind);
+        };
+    }
+
+    private static void writeNullableInstant(BinaryWriter out, Instant value) {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInstant(value);
+        }
+    }
+
+    private static Instant readNullableInstant(BinaryReader in) {
+        return in.readBoolean() ? in.readInstant() : null;
+    }
+
+    /**
+     * Raised while encoding when the graph contains a type this codec does not model.
+     */
+    static final class UnsupportedValueException extends RuntimeException {
+
+        UnsupportedValueException(Class<?> type) {
+            super("Type not supported by session codec: " + type.getName(), null, false, false);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.example.bff.session;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Open {@code /api/auth/session/events} streams on this replica, keyed by session id.
+ * <p>
+ * <b>Events:</b> {@code session-updated} (current session payload; sent on connect and when the
+ * principal changes, including a sliding-expiry refresh), {@code expiring-soon} ({@code expiring-soon-lead} before
+ * {@code sessionEndTime}) and {@code logged-out} (after which the stream completes).
+ * <p>
+ * <b>Session end:</b> {@code logged-out} is sent on logout, when {@code sessionEndTime} passes and
+ * when the store has let the session idle out. The stream itself does not touch the session, so
+ * at the idle expiry seen on connect the store is asked, through {@link SessionExpiryLookup},
+ * whether other requests have moved it; if they have, the check moves with it.
+ * <p>
+ * <b>Timers:</b> {@code expiring-soon}/end deadlines and idle checks of all connections live in two
+ * {@link TimingWheel}s advanced by a single periodic task, and heartbeats come from one shared
+ * interval, so an idle connection holds no scheduled task of its own and no thread.
+ * <p>
+ * <b>Backpressure:</b> each connection queues at most {@code buffer-size} events. A client that
+ * falls that far behind has its stream completed and reconnects with fresh state; heartbeats are
+ * dropped rather than queued.
+ * <p>
+ * Events are delivered to connections on this replica only. A client connected elsewhere learns
+ * of a logout when its stream is re-opened without a session.
+ */
+@Component
+public class SessionEvents implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionEvents.class);
+
+    public static final String SESSION_UPDATED = "session-updated";
+    public static final String EXPIRING_SOON = "expiring-soon";
+    public static final String LOGGED_OUT = "logged-out";
+
+    private static final int WHEEL_SLOTS = 512;
+
+    private final SessionEventsProperties properties;
+    private final Clock clock;
+    private final Scheduler scheduler;
+    private final MeterRegistry meterRegistry;
+    private final SessionExpiryLookup expiryLookup;
+    private final TimingWheel<Connection> expiryWheel;
+    private final TimingWheel<Connection> idleWheel;
+    private final Flux<ServerSentEvent<String>> heartbeats;
+    private final ConcurrentMap<String, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    private Disposable tickTask;
+
+    @Autowired
+    public SessionEvents(SessionEventsProperties properties, MeterRegistry meterRegistry,
+                         SessionExpiryLookup expiryLookup) {
+        this(properties, meterRegistry, expiryLookup, Clock.systemUTC(), Schedulers.parallel());
+    }
+
+    SessionEvents(SessionEventsProperties properties, MeterRegistry meterRegistry, SessionExpiryLookup expiryLookup,
+                  Clock clock, Scheduler scheduler) {
+        this.properties = properties;
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.meterRegistry = meterRegistry;
+        this.expiryLookup = expiryLookup;
+        this.expiryWheel = new TimingWheel<>(properties.tick(), WHEEL_SLOTS, clock.instant());
+        this.idleWheel = new TimingWheel<>(properties.tick(), WHEEL_SLOTS, clock.instant());
+        this.heartbeats = Flux.interval(properties.heartbeat(), properties.heartbeat(), scheduler)
+                .map(i -> ServerSentEvent.<String>builder().comment("heartbeat").build())
+                .share();
+        Gauge.builder("bff.session.events.connections", connectionCount, AtomicInteger::get)
+                .description("Open session event streams")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        tickTask = Flux.interval(properties.tick(), scheduler)
+                .onBackpressureDrop()
+                .subscribe(tick -> tick());
+    }
+
+    @Override
+    public void destroy() {
+        if (tickTask != null) {
+            tickTask.dispose();
+        }
+    }
+
+    /**
+     * Opens a stream for {@code sessionId} that starts with {@code payload} as a {@code session-updated} event.
+     *
+     * @param etag           ETag of {@code payload}, sent as the event id
+     * @param sessionEndTime when the session ends, or {@code null} for neither {@code expiring-soon}
+     *                       nor a {@code logged-out} at the end
+     * @param maxIdleTime    the session's idle time, counted from now since this request has just
+     *                       accessed it; {@code null} or negative for a session that does not idle out
+     */
+    public Flux<ServerSentEvent<String>> connect(String sessionId, String etag, byte[] payload, Instant sessionEndTime,
+                                                 Duration maxIdleTime) {
+        return Flux.defer(() -> {
+            Connection connection = new Connection(sessionId, properties.bufferSize());
+            connection.emit(updated(etag, payload));
+            register(connection);
+            connection.reschedule(sessionEndTime);
+            if (maxIdleTime != null && !maxIdleTime.isNegative()) {
+                connection.scheduleIdleCheck(clock.instant().plus(maxIdleTime));
+            }
+            // Prefetch of one keeps the connection's own queue the only buffer
+            return Flux.merge(1,
+                            connection.events.asFlux(),
+                            heartbeats.onBackpressureDrop().takeUntilOther(connection.closed.asMono()))
+                    .doFinally(signal -> unregister(connection));
+        });
+    }
+
+    /**
+     * Sends the new payload of {@code sessionId} to its open streams and moves their
+     * {@code expiring-soon} and end timers to the new {@code sessionEndTime}.
+     */
+    public void publishUpdated(String sessionId, String etag, byte[] payload, Instant sessionEndTime) {
+        Set<Connection> open = connections.get(sessionId);
+        if (open != null) {
+            ServerSentEvent<String> event = updated(etag, payload);
+            open.forEach(connection -> {
+                connection.emit(event);
+                if (!Objects.equals(connection.sessionEndTime, sessionEndTime)) {
+                    connection.reschedule(sessionEndTime);
+                }
+            });
+        }
+    }
+
+    /**
+     * Sends {@code logged-out} to the open streams of {@code sessionId} and completes them.
+     */
+    public void publishLoggedOut(String sessionId) {
+        Set<Connection> open = connections.get(sessionId);
+        if (open != null) {
+            open.forEach(this::loggedOut);
+        }
+    }
+
+    int connectionCount() {
+        return connectionCount.get();
+    }
+
+    int pendingExpiryCount() {
+        return expiryWheel.size();
+    }
+
+    int pendingIdleCheckCount() {
+        return idleWheel.size();
+    }
+
+    /**
+     * Fires the expiry timers and idle checks that are due; driven by the shared tick task.
+     */
+    void tick() {
+        Instant now = clock.instant();
+        for (Connection connection : expiryWheel.advance(now)) {
+            connection.expiryDue(now);
+        }
+        for (Connection connection : idleWheel.advance(now)) {
+            checkIdle(connection);
+        }
+    }
+
+    /**
+     * Ends the stream if the store no longer has the session, else checks again at its current
+     * idle expiry. A failed lookup keeps the stream and retries a heartbeat later.
+     */
+    private void checkIdle(Connection connection) {
+        expiryLookup.idleExpiry(connection.sessionId)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .subscribe(
+                        expiry -> expiry.ifPresentOrElse(connection::scheduleIdleCheck, () -> loggedOut(connection)),
+                        error -> {
+                            log.debug("Idle check of session {} failed; retrying", connection.sessionId, error);
+                            connection.scheduleIdleCheck(clock.instant().plus(properties.heartbeat()));
+                        });
+    }
+
+    private void loggedOut(Connection connection) {
+        connection.emit(event(LOGGED_OUT, null, "{}"));
+        connection.close();
+    }
+
+    private void register(Connection connection) {
+        connections.computeIfAbsent(connection.sessionId, id -> ConcurrentHashMap.newKeySet()).add(connection);
+        connectionCount.incrementAndGet();
+    }
+
+    private void unregister(Connection connection) {
+        connections.computeIfPresent(connection.sessionId, (id, set) -> {
+            set.remove(connection);
+            return set.isEmpty() ? null : set;
+        });
+        connectionCount.decrementAndGet();
+        connection.release();
+    }
+
+    private ServerSentEvent<String> updated(String etag, byte[] payload) {
+        return event(SESSION_UPDATED, etag, new String(payload, StandardCharsets.UTF_8));
+    }
+
+    private ServerSentEvent<String> event(String type, String id, String data) {
+        meterRegistry.counter("bff.session.events", "event", type).increment();
+        return ServerSentEvent.builder(data).event(type).id(id).build();
+    }
+
+    private final class Connection {
+
+        final String sessionId;
+        volatile Instant sessionEndTime;
+        final Sinks.Many<ServerSentEvent<String>> events;
+        final Sinks.Empty<Void> closed = Sinks.empty();
+        TimingWheel.Timer<Connection> expiry;
+        /** When {@link #expiry} is due: {@code expiring-soon-lead} before the end, then the end. */
+        Instant expiryDeadline;
+        TimingWheel.Timer<Connection> idleCheck;
+        boolean released;
+
+        Connection(String sessionId, int bufferSize) {
+            this.sessionId = sessionId;
+            this.events = Sinks.many().unicast().onBackpressureBuffer(Queues.<ServerSentEvent<String>>get(bufferSize).get());
+        }
+
+        // Emitters are the request thread, the tick task and logout handlers; serialized here
+        synchronized void emit(ServerSentEvent<String> event) {
+            if (events.tryEmitNext(event) == Sinks.EmitResult.FAIL_OVERFLOW) {
+                log.debug("Session event stream for {} fell behind; closing it", sessionId);
+                close();
+            }
+        }
+
+        synchronized void close() {
+            events.tryEmitComplete();
+            closed.tryEmitEmpty();
+        }
+
+        synchronized void reschedule(Instant newEndTime) {
+            sessionEndTime = newEndTime;
+            scheduleExpiry(newEndTime != null ? newEndTime.minus(properties.expiringSoonLead()) : null);
+        }
+
+        /**
+         * Sends {@code expiring-soon} and arms the end timer, or, once {@code sessionEndTime} has
+         * passed, ends the stream. A firing superseded by {@link #reschedule} is ignored.
+         */
+        void expiryDue(Instant now) {
+            Instant endTime;
+            synchronized (this) {
+                endTime = sessionEndTime;
+                if (released || endTime == null || expiryDeadline == null || expiryDeadline.isAfter(now)) {
+                    return;
+                }
+                scheduleExpiry(now.isBefore(endTime) ? endTime : null);
+            }
+            if (!now.isBefore(endTime)) {
+                loggedOut(this);
+                return;
+            }
+            long remaining = Math.max(0, Duration.between(now, endTime).toSeconds());
+            emit(event(EXPIRING_SOON, null,
+                    "{\"sessionEndTime\":\"" + endTime + "\",\"remainingSeconds\":" + remaining + "}"));
+        }
+
+        synchronized void scheduleIdleCheck(Instant at) {
+            if (idleCheck != null) {
+                idleCheck.cancel();
+            }
+            idleCheck = released ? null : idleWheel.schedule(at, this);
+        }
+
+        synchronized void release() {
+            released = true;
+            scheduleExpiry(null);
+            if (idleCheck != null) {
+                idleCheck.cancel();
+                idleCheck = null;
+            }
+        }
+
+        private void scheduleExpiry(Instant deadline) {
+            if (expiry != null) {
+                expiry.cancel();
+                expiry = null;
+            }
+            expiryDeadline = deadline;
+            if (deadline != null && !released) {
+                expiry = expiryWheel.schedule(deadline, this);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.bff.session;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Session event stream settings bound from {@code app.session-events.*}.
+ *
+ * @param expiringSoonLead how long before {@code sessionEndTime} the {@code expiring-soon} event is sent
+ * @param heartbeat        interval of the comment lines that keep idle connections open through proxies
+ * @param tick             resolution of the shared expiry timer
+ * @param bufferSize       events queued for a slow client before its stream is closed
+ */
+@ConfigurationProperties("app.session-events")
+public record SessionEventsProperties(
+    @DefaultValue("5m") Duration expiringSoonLead,
+    @DefaultValue("25s") Duration heartbeat,
+    @DefaultValue("1s") Duration tick,
+    @DefaultValue("16") int bufferSize
+) {
+}
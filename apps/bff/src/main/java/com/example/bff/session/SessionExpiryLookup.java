@@ -0,0 +1,30 @@
+package com.example.bff.session;
+
+import org.springframework.web.server.session.InMemoryWebSessionStore;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Reads when a stored session idles out without touching it, so that checking on a session
+ * does not keep it alive.
+ */
+@FunctionalInterface
+public interface SessionExpiryLookup {
+
+    /**
+     * When {@code sessionId} idles out as the store sees it now; empty if the store no longer
+     * has the session or it has already expired.
+     */
+    Mono<Instant> idleExpiry(String sessionId);
+
+    /**
+     * Lookup against {@code store}'s session map, which unlike
+     * {@link InMemoryWebSessionStore#retrieveSession} leaves the last-access time alone.
+     */
+    static SessionExpiryLookup of(InMemoryWebSessionStore store) {
+        return sessionId -> Mono.justOrEmpty(store.getSessions().get(sessionId))
+                .filter(session -> !session.isExpired())
+                .map(session -> MongoWebSessionStore.expireAt(session.getLastAccessTime(), session.getMaxIdleTime()));
+    }
+}
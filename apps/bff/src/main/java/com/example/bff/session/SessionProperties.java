@@ -0,0 +1,48 @@
+package com.example.bff.session;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Session settings bound from {@code app.session.*}.
+ *
+ * @param durationMinutes    session lifetime; also the idle timeout of the stored WebSession
+ * @param collection         MongoDB collection holding session documents
+ * @param touchFlushInterval how often buffered last-access touches are written in one bulk update
+ * @param touchGranularity   smallest last-access advance worth persisting; finer touches are dropped
+ * @param serializer         encoding of stored session attributes
+ * @param compressionThreshold attribute size above which the compact serializer tries deflate
+ * @param store              where sessions are kept
+ */
+@ConfigurationProperties("app.session")
+public record SessionProperties(
+    @DefaultValue("30") int durationMinutes,
+    @DefaultValue("web_sessions") String collection,
+    @DefaultValue("10s") Duration touchFlushInterval,
+    @DefaultValue("1m") Duration touchGranularity,
+    @DefaultValue("compact") SerializerType serializer,
+    @DefaultValue("2KB") DataSize compressionThreshold,
+    @DefaultValue("mongo") StoreType store
+) {
+
+    public enum StoreType {
+        /** {@link MongoWebSessionStore}, shared by all replicas */
+        MONGO,
+        /** Heap of this instance only; for single-instance runs such as the AOT training run */
+        MEMORY
+    }
+
+    public enum SerializerType {
+        /** {@link JdkSessionAttributeSerializer} */
+        JDK,
+        /** {@link CompactSessionAttributeSerializer} */
+        COMPACT
+    }
+
+    public Duration maxIdleTime() {
+        return Duration.ofMinutes(durationMinutes);
+    }
+}
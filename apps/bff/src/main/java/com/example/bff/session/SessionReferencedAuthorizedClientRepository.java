@@ -0,0 +1,78 @@
+package com.example.bff.session;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.web.server.ServerOAuth2AuthorizedClientRepository;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * {@link ServerOAuth2AuthorizedClientRepository} that keeps authorized clients out of the
+ * session. The session holds a random reference. The clients, with their access and refresh
+ * tokens, are kept in a {@link ReactiveOAuth2AuthorizedClientService} under that reference as
+ * the principal name.
+ * <p>
+ * <b>Behavior:</b>
+ * <ul>
+ *   <li>The reference is created on the first save and kept for the lifetime of the session.
+ *       It survives a session id change, and all registrations of the session share it.</li>
+ *   <li>Loaded clients carry the name of the requesting principal, not the reference.</li>
+ *   <li>Clients are removed on {@link #removeAuthorizedClient} (logout). Clients of sessions
+ *       that simply expire are left to the store's retention.</li>
+ * </ul>
+ * The reference is never sent to the browser.
+ */
+public class SessionReferencedAuthorizedClientRepository implements ServerOAuth2AuthorizedClientRepository {
+
+    public static final String REFERENCE_ATTRIBUTE =
+            SessionReferencedAuthorizedClientRepository.class.getName() + ".REFERENCE";
+
+    private final ReactiveOAuth2AuthorizedClientService authorizedClientService;
+
+    public SessionReferencedAuthorizedClientRepository(ReactiveOAuth2AuthorizedClientService authorizedClientService) {
+        this.authorizedClientService = authorizedClientService;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends OAuth2AuthorizedClient> Mono<T> loadAuthorizedClient(
+            String clientRegistrationId, Authentication principal, ServerWebExchange exchange) {
+        return exchange.getSession()
+                .mapNotNull(session -> session.<String>getAttribute(REFERENCE_ATTRIBUTE))
+                .flatMap(reference -> authorizedClientService
+                        .<OAuth2AuthorizedClient>loadAuthorizedClient(clientRegistrationId, reference))
+                .map(client -> (T) new OAuth2AuthorizedClient(client.getClientRegistration(),
+                        principal != null ? principal.getName() : client.getPrincipalName(),
+                        client.getAccessToken(), client.getRefreshToken()));
+    }
+
+    @Override
+    public Mono<Void> saveAuthorizedClient(
+            OAuth2AuthorizedClient authorizedClient, Authentication principal, ServerWebExchange exchange) {
+        return exchange.getSession()
+                .flatMap(session -> {
+                    String reference = session.getAttribute(REFERENCE_ATTRIBUTE);
+                    if (reference == null) {
+                        reference = UUID.randomUUID().toString();
+                        session.getAttributes().put(REFERENCE_ATTRIBUTE, reference);
+                    }
+                    return authorizedClientService.saveAuthorizedClient(authorizedClient, referencePrincipal(reference));
+                });
+    }
+
+    @Override
+    public Mono<Void> removeAuthorizedClient(
+            String clientRegistrationId, Authentication principal, ServerWebExchange exchange) {
+        return exchange.getSession()
+                .mapNotNull(session -> session.<String>getAttribute(REFERENCE_ATTRIBUTE))
+                .flatMap(reference -> authorizedClientService.removeAuthorizedClient(clientRegistrationId, reference));
+    }
+
+    private static Authentication referencePrincipal(String reference) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(reference, null);
+    }
+}
@@ -0,0 +1,381 @@
+package com.example.bff.session;
+
+import com.example.bff.model.SessionInfo;
+import com.example.bff.security.EnrichedOidcUser;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Live session figures of this replica, kept up to date as {@link MongoWebSessionStore} creates,
+ * writes, touches and ends sessions, so {@link #snapshot()} never reads the store.
+ * <p>
+ * <b>What is tracked:</b> every session this replica has created, written or retrieved, until it
+ * is invalidated here, found expired here or passes its idle expiry without a touch seen here.
+ * A session served by several replicas is counted by each of them. One that another replica keeps
+ * alive ends here at the last expiry seen here. Summing replicas overstates sessions that move
+ * between them.
+ * <p>
+ * <b>Cost:</b> one small entry per tracked session. Aggregates (counts by persona, size and
+ * managed-member buckets, sessions per expiry minute, one-minute event counts) change with each
+ * event under a short lock. A request that only reads its session does one map lookup. Idle
+ * expiry uses one {@link TimingWheel} advanced once a second; a touch moves no timer, a timer that
+ * fires early is re-armed at the session's current expiry.
+ * <p>
+ * Sessions held by the {@code memory} store are not tracked.
+ */
+@Component
+public class SessionStatistics implements InitializingBean, DisposableBean {
+
+    /** Persona of a session without an authenticated user, e.g. during the OAuth2 redirect. */
+    public static final String PERSONA_ANONYMOUS = "anonymous";
+    /** Persona of a signed-in session whose enrichment has not completed. */
+    public static final String PERSONA_PENDING = "pending";
+
+    private static final long[] SIZE_BOUNDS = {512, 1024, 2048, 4096, 8192, 16384, 32768, 65536};
+    private static final String[] SIZE_LABELS =
+            {"<=512B", "<=1KB", "<=2KB", "<=4KB", "<=8KB", "<=16KB", "<=32KB", "<=64KB", ">64KB"};
+    private static final long[] MEMBER_BOUNDS = {0, 1, 5, 10, 50, 100, 500};
+    private static final String[] MEMBER_LABELS = {"0", "1", "2-5", "6-10", "11-50", "51-100", "101-500", ">500"};
+    private static final long[] EXPIRY_BOUNDS = {
+            Duration.ofMinutes(1).toMillis(), Duration.ofMinutes(5).toMillis(), Duration.ofMinutes(15).toMillis(),
+            Duration.ofMinutes(30).toMillis(), Duration.ofHours(1).toMillis(), Duration.ofHours(4).toMillis(),
+            Duration.ofHours(12).toMillis()};
+    private static final String[] EXPIRY_LABELS = {"<=1m", "<=5m", "<=15m", "<=30m", "<=1h", "<=4h", "<=12h", ">12h"};
+
+    private static final long MINUTE_MILLIS = Duration.ofMinutes(1).toMillis();
+    private static final Duration TICK = Duration.ofSeconds(1);
+    private static final int WHEEL_SLOTS = 4096;
+    private static final int RATE_MINUTES = 15;
+
+    private final Clock clock;
+    private final Scheduler scheduler;
+    private final TimingWheel<Entry> expiryWheel;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Aggregates over entries, guarded by this
+    private final Map<String, Long> personaCounts = new TreeMap<>();
+    private final long[] sizeCounts = new long[SIZE_BOUNDS.length + 1];
+    private final long[] memberCounts = new long[MEMBER_BOUNDS.length + 1];
+    private final NavigableMap<Long, Long> sessionsByExpiryMinute = new TreeMap<>();
+    private long storedBytes;
+    private final EventCounts created = new EventCounts();
+    private final EventCounts expired = new EventCounts();
+    private final EventCounts invalidated = new EventCounts();
+
+    private Disposable tickTask;
+
+    @Autowired
+    public SessionStatistics() {
+        this(Clock.systemUTC(), Schedulers.parallel());
+    }
+
+    SessionStatistics(Clock clock, Scheduler scheduler) {
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.expiryWheel = new TimingWheel<>(TICK, WHEEL_SLOTS, clock.instant());
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        tickTask = Flux.interval(TICK, scheduler)
+                .onBackpressureDrop()
+                .subscribe(tick -> tick());
+    }
+
+    @Override
+    public void destroy() {
+        if (tickTask != null) {
+            tickTask.dispose();
+        }
+    }
+
+    /**
+     * A session was written: its attributes, their serialized size and its idle expiry replace
+     * whatever was tracked for it.
+     *
+     * @param created {@code true} for the first write of a session created on this replica
+     */
+    void recordSaved(String sessionId, Map<String, Object> attributes, long storedBytes, Instant expireAt,
+                     boolean created) {
+        Entry entry = new Entry(sessionId, attributes, storedBytes, expireAt);
+        synchronized (this) {
+            Entry previous = entries.put(sessionId, entry);
+            if (previous != null) {
+                remove(previous);
+            }
+            add(entry);
+            if (created) {
+                this.created.record(minute(clock.instant()));
+            }
+        }
+    }
+
+    /**
+     * A stored session was read here; tracked from now on if it was not yet.
+     */
+    void recordRetrieved(String sessionId, Map<String, Object> attributes, long storedBytes, Instant expireAt) {
+        if (!entries.containsKey(sessionId)) {
+            recordSaved(sessionId, attributes, storedBytes, expireAt, false);
+        }
+    }
+
+    /**
+     * A new last-access time of a session was persisted, moving its idle expiry to {@code expireAt}.
+     */
+    synchronized void recordTouched(String sessionId, Instant expireAt) {
+        Entry entry = entries.get(sessionId);
+        if (entry != null) {
+            decrement(sessionsByExpiryMinute, entry.expiryMinute);
+            entry.expireAt = expireAt;
+            entry.expiryMinute = expiryMinute(expireAt);
+            increment(sessionsByExpiryMinute, entry.expiryMinute);
+        }
+    }
+
+    /**
+     * A tracked session ended; sessions not tracked here are ignored, so each end counts once.
+     *
+     * @param invalidated {@code true} for a logout, {@code false} for an idle session found expired
+     */
+    synchronized void recordEnded(String sessionId, boolean invalidated) {
+        Entry entry = entries.remove(sessionId);
+        if (entry != null) {
+            remove(entry);
+            (invalidated ? this.invalidated : expired).record(minute(clock.instant()));
+        }
+    }
+
+    /**
+     * Stops tracking a session under {@code sessionId} without counting an end, e.g. after its id changed.
+     */
+    synchronized void forget(String sessionId) {
+        Entry entry = entries.remove(sessionId);
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    /**
+     * Ends the tracked sessions whose idle expiry has passed; driven by the tick task.
+     */
+    void tick() {
+        Instant now = clock.instant();
+        for (Entry entry : expiryWheel.advance(now)) {
+            synchronized (this) {
+                if (entries.get(entry.sessionId) != entry) {
+                    continue;
+                }
+                if (entry.expireAt.isAfter(now)) {
+                    entry.timer = expiryWheel.schedule(entry.expireAt, entry);
+                } else {
+                    entries.remove(entry.sessionId);
+                    remove(entry);
+                    expired.record(minute(now));
+                }
+            }
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        Instant now = clock.instant();
+        long[] expiryCounts = new long[EXPIRY_BOUNDS.length + 1];
+        for (Map.Entry<Long, Long> minute : sessionsByExpiryMinute.entrySet()) {
+            long remaining = minute.getKey() * MINUTE_MILLIS - now.toEpochMilli();
+            expiryCounts[bucket(EXPIRY_BOUNDS, remaining)] += minute.getValue();
+        }
+        long currentMinute = minute(now);
+        Map<String, Rate> rates = new LinkedHashMap<>();
+        rates.put("created", created.rate(currentMinute));
+        rates.put("expired", expired.rate(currentMinute));
+        rates.put("invalidated", invalidated.rate(currentMinute));
+        return new Snapshot(
+                entries.size(),
+                storedBytes,
+                new LinkedHashMap<>(personaCounts),
+                histogram(SIZE_LABELS, sizeCounts),
+                histogram(MEMBER_LABELS, memberCounts),
+                histogram(EXPIRY_LABELS, expiryCounts),
+                rates);
+    }
+
+    private void add(Entry entry) {
+        personaCounts.merge(entry.persona, 1L, Long::sum);
+        sizeCounts[entry.sizeBucket]++;
+        memberCounts[entry.memberBucket]++;
+        increment(sessionsByExpiryMinute, entry.expiryMinute);
+        storedBytes += entry.storedBytes;
+        entry.timer = expiryWheel.schedule(entry.expireAt, entry);
+    }
+
+    private void remove(Entry entry) {
+        personaCounts.computeIfPresent(entry.persona, (persona, count) -> count > 1 ? count - 1 : null);
+        sizeCounts[entry.sizeBucket]--;
+        memberCounts[entry.memberBucket]--;
+        decrement(sessionsByExpiryMinute, entry.expiryMinute);
+        storedBytes -= entry.storedBytes;
+        entry.timer.cancel();
+    }
+
+    private static void increment(NavigableMap<Long, Long> counts, long key) {
+        counts.merge(key, 1L, Long::sum);
+    }
+
+    private static void decrement(NavigableMap<Long, Long> counts, long key) {
+        counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static Map<String, Long> histogram(String[] labels, long[] counts) {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < labels.length; i++) {
+            histogram.put(labels[i], counts[i]);
+        }
+        return histogram;
+    }
+
+    /** Index of the first bound {@code value} does not exceed, or the overflow bucket. */
+    private static int bucket(long[] bounds, long value) {
+        for (int i = 0; i < bounds.length; i++) {
+            if (value <= bounds[i]) {
+                return i;
+            }
+        }
+        return bounds.length;
+    }
+
+    private static long minute(Instant instant) {
+        return Math.floorDiv(instant.toEpochMilli(), MINUTE_MILLIS);
+    }
+
+    /** The minute an expiry falls in; {@code expiresIn} may thus report up to a minute less than is left. */
+    private static long expiryMinute(Instant expireAt) {
+        return minute(expireAt);
+    }
+
+    private static String persona(Map<String, Object> attributes) {
+        SessionInfo sessionInfo = sessionInfo(attributes);
+        if (sessionInfo == null) {
+            return attributes.get(WebSessionServerSecurityContextRepository.DEFAULT_SPRING_SECURITY_CONTEXT_ATTR_NAME)
+                    instanceof SecurityContext context && context.getAuthentication() != null
+                    ? PERSONA_PENDING : PERSONA_ANONYMOUS;
+        }
+        return sessionInfo.persona() != null ? sessionInfo.persona() : PERSONA_PENDING;
+    }
+
+    private static SessionInfo sessionInfo(Map<String, Object> attributes) {
+        Object context = attributes.get(WebSessionServerSecurityContextRepository.DEFAULT_SPRING_SECURITY_CONTEXT_ATTR_NAME);
+        if (context instanceof SecurityContext securityContext) {
+            Authentication authentication = securityContext.getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof EnrichedOidcUser user) {
+                return user.getSessionInfo();
+            }
+        }
+        return null;
+    }
+
+    private static int managedMemberCount(Map<String, Object> attributes) {
+        SessionInfo sessionInfo = sessionInfo(attributes);
+        return sessionInfo == null || sessionInfo.managedMembers() == null ? 0 : sessionInfo.managedMembers().size();
+    }
+
+    /**
+     * Live sessions tracked by this replica.
+     *
+     * @param live           tracked sessions
+     * @param storedBytes    serialized attribute bytes of the tracked sessions
+     * @param byPersona      sessions by persona, plus {@code anonymous} and {@code pending}
+     * @param sizeBytes      sessions by serialized attribute size
+     * @param managedMembers sessions by number of managed members
+     * @param expiresIn      sessions by time left until idle expiry, to the minute
+     * @param rates          {@code created}, {@code expired} and {@code invalidated} events
+     */
+    public record Snapshot(
+            long live,
+            long storedBytes,
+            Map<String, Long> byPersona,
+            Map<String, Long> sizeBytes,
+            Map<String, Long> managedMembers,
+            Map<String, Long> expiresIn,
+            Map<String, Rate> rates) {
+    }
+
+    /**
+     * Events per minute over the current and preceding minutes, and in total since start.
+     */
+    public record Rate(double lastMinute, double last5Minutes, double last15Minutes, long total) {
+    }
+
+    private static final class Entry {
+
+        final String sessionId;
+        final String persona;
+        final long storedBytes;
+        final int sizeBucket;
+        final int memberBucket;
+        // Guarded by the enclosing SessionStatistics
+        Instant expireAt;
+        long expiryMinute;
+        TimingWheel.Timer<Entry> timer;
+
+        Entry(String sessionId, Map<String, Object> attributes, long storedBytes, Instant expireAt) {
+            this.sessionId = sessionId;
+            this.persona = persona(attributes);
+            this.storedBytes = storedBytes;
+            this.sizeBucket = bucket(SIZE_BOUNDS, storedBytes);
+            this.memberBucket = bucket(MEMBER_BOUNDS, managedMemberCount(attributes));
+            this.expireAt = expireAt;
+            this.expiryMinute = expiryMinute(expireAt);
+        }
+    }
+
+    /** Event counts per minute for the last {@value #RATE_MINUTES} minutes; guarded by the enclosing instance. */
+    private static final class EventCounts {
+
+        private final long[] minutes = new long[RATE_MINUTES];
+        private final long[] counts = new long[RATE_MINUTES];
+        private long total;
+
+        void record(long minute) {
+            int slot = Math.floorMod(minute, RATE_MINUTES);
+            if (minutes[slot] != minute) {
+                minutes[slot] = minute;
+                counts[slot] = 0;
+            }
+            counts[slot]++;
+            total++;
+        }
+
+        Rate rate(long currentMinute) {
+            return new Rate(perMinute(currentMinute, 1), perMinute(currentMinute, 5), perMinute(currentMinute, 15), total);
+        }
+
+        private double perMinute(long currentMinute, int window) {
+            long sum = 0;
+            for (long minute = currentMinute - window + 1; minute <= currentMinute; minute++) {
+                int slot = Math.floorMod(minute, RATE_MINUTES);
+                if (minutes[slot] == minute) {
+                    sum += counts[slot];
+                }
+            }
+            return (double) sum / window;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.bff.session;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/sessions}: live session counts, size, managed-member and expiry histograms and
+ * creation/expiry rates of this replica, from {@link SessionStatistics}. The store is not read.
+ * Requires the management credentials, like every actuator endpoint other than health and info.
+ */
+@Component
+@Endpoint(id = "sessions")
+public class SessionStatisticsEndpoint {
+
+    private final SessionStatistics statistics;
+
+    public SessionStatisticsEndpoint(SessionStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @ReadOperation
+    public SessionStatistics.Snapshot sessions() {
+        return statistics.snapshot();
+    }
+}
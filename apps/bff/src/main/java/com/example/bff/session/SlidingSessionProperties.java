@@ -0,0 +1,24 @@
+package com.example.bff.session;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Sliding session expiry bound from {@code app.session.sliding.*}.
+ *
+ * @param enabled         whether active sessions are re-enriched and extended before {@code sessionEndTime}
+ * @param refreshBefore   remaining session time below which a request starts a background refresh
+ * @param maximumLifetime cap on {@code sessionEndTime} measured from {@code sessionStartTime}; past it
+ *                        the user signs in again
+ * @param retryInterval   wait before a session whose refresh failed is tried again
+ */
+@ConfigurationProperties("app.session.sliding")
+public record SlidingSessionProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("10m") Duration refreshBefore,
+    @DefaultValue("12h") Duration maximumLifetime,
+    @DefaultValue("1m") Duration retryInterval
+) {
+}
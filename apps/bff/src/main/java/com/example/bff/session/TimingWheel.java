@@ -0,0 +1,106 @@
+package com.example.bff.session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hashed timing wheel: timers are placed in one of {@code slots} buckets by deadline tick, and
+ * {@link #advance} expires the buckets passed since the last call. Scheduling and cancelling are
+ * O(1) and any number of timers share the single caller that drives {@code advance}.
+ * <p>
+ * Deadlines are rounded up to the next tick; a deadline already past fires on the next advance.
+ * A timer further out than one revolution stays in its bucket until its tick comes round.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final List<Set<Timer<T>>> buckets;
+    private long currentTick;
+    private int size;
+
+    TimingWheel(Duration tick, int slots, Instant start) {
+        if (tick.toMillis() <= 0 || slots <= 0) {
+            throw new IllegalArgumentException("tick and slots must be positive");
+        }
+        this.tickMillis = tick.toMillis();
+        this.buckets = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++) {
+            buckets.add(new HashSet<>());
+        }
+        this.currentTick = Math.floorDiv(start.toEpochMilli(), tickMillis);
+    }
+
+    synchronized Timer<T> schedule(Instant deadline, T value) {
+        long deadlineTick = Math.max(currentTick + 1, -Math.floorDiv(-deadline.toEpochMilli(), tickMillis));
+        Timer<T> timer = new Timer<>(this, deadlineTick, value);
+        bucket(deadlineTick).add(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Expires every timer due at or before {@code now} and returns their values, in tick order.
+     */
+    synchronized List<T> advance(Instant now) {
+        long nowTick = Math.floorDiv(now.toEpochMilli(), tickMillis);
+        if (nowTick <= currentTick || size == 0) {
+            currentTick = Math.max(currentTick, nowTick);
+            return List.of();
+        }
+        List<T> expired = new ArrayList<>();
+        // After a long pause one pass over every bucket is enough
+        long last = Math.min(nowTick, currentTick + buckets.size());
+        for (long tick = currentTick + 1; tick <= last; tick++) {
+            Iterator<Timer<T>> timers = bucket(tick).iterator();
+            while (timers.hasNext()) {
+                Timer<T> timer = timers.next();
+                if (timer.deadlineTick <= nowTick) {
+                    timers.remove();
+                    size--;
+                    expired.add(timer.value);
+                }
+            }
+        }
+        currentTick = nowTick;
+        return expired;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private synchronized void cancel(Timer<T> timer) {
+        if (bucket(timer.deadlineTick).remove(timer)) {
+            size--;
+        }
+    }
+
+    private Set<Timer<T>> bucket(long tick) {
+        return buckets.get((int) Math.floorMod(tick, (long) buckets.size()));
+    }
+
+    /**
+     * A scheduled timer; {@link #cancel()} is a no-op once it has fired.
+     */
+    static final class Timer<T> {
+
+        private final TimingWheel<T> wheel;
+        private final long deadlineTick;
+        private final T value;
+
+        private Timer(TimingWheel<T> wheel, long deadlineTick, T value) {
+            this.wheel = wheel;
+            this.deadlineTick = deadlineTick;
+            this.value = value;
+        }
+
+        void cancel() {
+            wheel.cancel(this);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.example.bff.client;
+
+import com.example.bff.client.DownstreamProperties.Concurrency;
+import com.example.bff.client.DownstreamProperties.ShedPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * Tests for {@link AdaptiveConcurrencyLimiter} admission, shedding and limit adaptation.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final Duration MAX_QUEUE_TIME = Duration.ofMillis(500);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private VirtualTimeScheduler time;
+
+    @BeforeEach
+    void setUp() {
+        time = VirtualTimeScheduler.getOrSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        VirtualTimeScheduler.reset();
+    }
+
+    /** A limiter whose limit cannot move: initial, minimum and maximum are equal. */
+    private AdaptiveConcurrencyLimiter fixedLimit(int limit, int queueSize, ShedPolicy shedPolicy) {
+        return new AdaptiveConcurrencyLimiter("test",
+                new Concurrency(true, limit, limit, limit, 0.2, queueSize, MAX_QUEUE_TIME, shedPolicy), meterRegistry);
+    }
+
+    private AdaptiveConcurrencyLimiter adaptive() {
+        return new AdaptiveConcurrencyLimiter("test",
+                new Concurrency(true, 10, 1, 100, 0.2, 1000, Duration.ofMinutes(1), ShedPolicy.REJECT_NEWEST), meterRegistry);
+    }
+
+    /** A call that stays in flight until {@link #complete()}. */
+    private static final class Call {
+
+        final Sinks.One<String> response = Sinks.one();
+        final AtomicBoolean started = new AtomicBoolean();
+        final AtomicReference<Object> outcome = new AtomicReference<>();
+        final Disposable subscription;
+
+        Call(AdaptiveConcurrencyLimiter limiter) {
+            subscription = limiter.execute(() -> {
+                started.set(true);
+                return response.asMono();
+            }).subscribe(outcome::set, outcome::set);
+        }
+
+        void complete() {
+            response.tryEmitValue("ok");
+        }
+
+        String shedReason() {
+            assertThat(outcome.get()).isInstanceOf(DownstreamOverloadedException.class);
+            return ((DownstreamOverloadedException) outcome.get()).getReason();
+        }
+    }
+
+    @Nested
+    @DisplayName("Admission")
+    class Admission {
+
+        @Test
+        @DisplayName("Below the limit → calls start at once")
+        void belowLimit_startsAtOnce() {
+            AdaptiveConcurrencyLimiter limiter = fixedLimit(2, 10, ShedPolicy.REJECT_NEWEST);
+
+            Call first = new Call(limiter);
+            Call second = new Call(limiter);
+
+            assertThat(first.started).isTrue();
+            assertThat(second.started).isTrue();
+            assertThat(limiter.inflight()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("At the limit → queued, admitted in arrival order as permits free up")
+        void atLimit_fifo() {
+            AdaptiveConcurrencyLimiter limiter = fixedLimit(1, 10, ShedPolicy.REJECT_NEWEST);
+            Call first = new Call(limiter);
+            Call second = new Call(limiter);
+            Call third = new Call(limiter);
+            assertThat(second.started).isFalse();
+            assertThat(limiter.queued()).isEqualTo(2);
+
+            first.complete();
+            assertThat(first.outcome).hasValue("ok");
+            assertThat(second.started).isTrue();
+            assertThat(third.started).isFalse();
+
+            second.complete();
+            assertThat(third.started).isTrue();
+            assertThat(limiter.queued()).isZero();
+        }
+
+        @Test
+        @DisplayName("Queue full, reject-newest → arriving call shed, queued call keeps its place")
+        void queueFull_rejectNewest() {
+            AdaptiveConcurrencyLimiter limiter = fixedLimit(1, 1, ShedPolicy.REJECT_NEWEST);
+            Call running = new Call(limiter);
+            Call queued = new Call(limiter);
+
+            Call arriving = new Call(limiter);
+
+            assertThat(arriving.started).isFalse();
+            assertThat(arriving.shedReason()).isEqualTo(AdaptiveConcurrencyLimiter.SHED_QUEUE_FULL);
+            running.complete();
+            assertThat(queued.started).isTrue();
+            assertThat(meterRegistry.get(AdaptiveConcurrencyLimiter.SHED_METRIC)
+                    .tag("reason", AdaptiveConcurrencyLimiter.SHED_QUEUE_FULL).counter().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Queue full, drop-oldest → longest-waiting call shed, arriving call queued")
+        void queueFull_dropOldest() {
+            AdaptiveConcurrencyLimiter limiter = fixedLimit(1, 1, ShedPolicy.DROP_OLDEST);
+            Call running = new Call(limiter);
+            Call oldest = new Call(limiter);
+
+            Call arriving = new Call(limiter);
+
+            assertThat(oldest.shedReason()).isEqualTo(AdaptiveConcurrencyLimiter.SHED_DROPPED_OLDEST);
+            running.complete();
+            assertThat(oldest.started).isFalse();
+            assertThat(arriving.started).isTrue();
+        }
+
+        @Test
+        @DisplayName("Queue size 0 → shed as soon as the limit is reached")
+        void noQueue_shedAtLimit() {
+            AdaptiveConcurrencyLimiter limiter = fixedLimit(1, 0, ShedPolicy.DROP_OLDEST);
+            new Call(limiter);
+
+            Call arriving = new Call(limiter);
+
+            assertThat(arriving.shedReason()).isEqualTo(AdaptiveConcurrencyLimiter.SHED_QUEUE_FULL);
+        }
+
+        @Test
+        @DisplayName("Waiting longer than max-queue-time → shed, never started")
+        void waitTooLong_shed() {
+            AdaptiveConcurrencyLimiter limiter = fixedLimit(1, 10, ShedPolicy.REJECT_NEWEST);
+            Call running = new Call(limiter);
+            Call waiting = new Call(limiter);
+
+            time.advanceTimeBy(MAX_QUEUE_TIME);
+            running.complete();
+
+            assertThat(waiting.shedReason()).isEqualTo(AdaptiveConcurrencyLimiter.SHED_QUEUE_TIMEOUT);
+            assertThat(waiting.started).isFalse();
+            assertThat(limiter.inflight()).isZero();
+        }
+
+        @Test
+        @DisplayName("Cancelled while queued → leaves the queue")
+        void cancelWhileQueued_leavesQueue() {
+            AdaptiveConcurrencyLimiter limiter = fixedLimit(1, 10, ShedPolicy.REJECT_NEWEST);
+            Call running = new Call(limiter);
+            Call waiting = new Call(limiter);
+
+            waiting.subscription.dispose();
+            running.complete();
+
+            assertThat(limiter.queued()).isZero();
+            assertThat(waiting.started).isFalse();
+            assertThat(limiter.inflight()).isZero();
+        }
+
+        @Test
+        @DisplayName("Cancelled while running → call cancelled, permit passed on")
+        void cancelWhileRunning_permitFreed() {
+            AdaptiveConcurrencyLimiter limiter = fixedLimit(1, 10, ShedPolicy.REJECT_NEWEST);
+            Call running = new Call(limiter);
+            Call waiting = new Call(limiter);
+
+            running.subscription.dispose();
+
+            assertThat(running.response.currentSubscriberCount()).isZero();
+            assertThat(waiting.started).isTrue();
+            assertThat(limiter.inflight()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Queued call admitted → wait recorded in bff.downstream.queue.wait")
+        void admitted_waitRecorded() {
+            AdaptiveConcurrencyLimiter limiter = fixedLimit(1, 10, ShedPolicy.REJECT_NEWEST);
+            Call running = new Call(limiter);
+            new Call(limiter);
+
+            time.advanceTimeBy(Duration.ofMillis(120));
+            running.complete();
+
+            var wait = meterRegistry.get(AdaptiveConcurrencyLimiter.QUEUE_WAIT_METRIC)
+                    .tag("downstream", "test").tag("outcome", "admitted").timer();
+            assertThat(wait.count()).isEqualTo(2);
+            assertThat(wait.max(TimeUnit.MILLISECONDS)).isEqualTo(120);
+        }
+    }
+
+    @Nested
+    @DisplayName("Limit")
+    class Limit {
+
+        /** Runs {@code concurrency} calls at once and waits, in virtual time, until all have completed. */
+        private void round(AdaptiveConcurrencyLimiter limiter, int concurrency, Supplier<Mono<String>> call) {
+            List<AtomicBoolean> done = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                AtomicBoolean finished = new AtomicBoolean();
+                done.add(finished);
+                limiter.execute(call).doFinally(signal -> finished.set(true)).subscribe(value -> { }, e -> { });
+            }
+            while (!done.stream().allMatch(AtomicBoolean::get)) {
+                time.advanceTimeBy(Duration.ofMillis(1));
+            }
+        }
+
+        private Supplier<Mono<String>> respondingAfter(Duration latency) {
+            return () -> Mono.delay(latency).thenReturn("ok");
+        }
+
+        private void saturate(AdaptiveConcurrencyLimiter limiter, int rounds, Duration latency) {
+            for (int i = 0; i < rounds; i++) {
+                round(limiter, (int) limiter.limit(), respondingAfter(latency));
+            }
+        }
+
+        @Test
+        @DisplayName("Steady latency with the limit in use → limit grows")
+        void steadyLatency_grows() {
+            AdaptiveConcurrencyLimiter limiter = adaptive();
+
+            saturate(limiter, 10, Duration.ofMillis(20));
+
+            assertThat(limiter.limit()).isGreaterThan(15);
+        }
+
+        @Test
+        @DisplayName("Latency jumps → limit shrinks")
+        void latencyRises_shrinks() {
+            AdaptiveConcurrencyLimiter limiter = adaptive();
+            saturate(limiter, 5, Duration.ofMillis(20));
+            double before = limiter.limit();
+
+            saturate(limiter, 1, Duration.ofMillis(100));
+
+            assertThat(limiter.limit()).isLessThan(before);
+        }
+
+        @Test
+        @DisplayName("Downstream failures → limit backs off by 0.9 per failure")
+        void failures_backOff() {
+            AdaptiveConcurrencyLimiter limiter = adaptive();
+
+            for (int i = 0; i < 3; i++) {
+                round(limiter, 1, () -> Mono.delay(Duration.ofMillis(20))
+                        .then(Mono.error(WebClientResponseException.create(503, "Service Unavailable", null, null, null))));
+            }
+
+            assertThat(limiter.limit()).isCloseTo(10 * 0.9 * 0.9 * 0.9, offset(0.001));
+        }
+
+        @Test
+        @DisplayName("4xx responses → latency samples, not failures")
+        void clientErrors_noBackOff() {
+            AdaptiveConcurrencyLimiter limiter = adaptive();
+
+            round(limiter, 1, () -> Mono.delay(Duration.ofMillis(20))
+                    .then(Mono.error(WebClientResponseException.create(404, "Not Found", null, null, null))));
+
+            assertThat(limiter.limit()).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("Few calls in flight → limit does not grow")
+        void underused_doesNotGrow() {
+            AdaptiveConcurrencyLimiter limiter = adaptive();
+
+            for (int i = 0; i < 30; i++) {
+                round(limiter, 2, respondingAfter(Duration.ofMillis(20)));
+            }
+
+            assertThat(limiter.limit()).isEqualTo(10);
+        }
+    }
+}
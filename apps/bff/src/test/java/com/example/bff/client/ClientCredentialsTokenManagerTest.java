@@ -0,0 +1,321 @@
+package com.example.bff.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AccessTokenResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ClientCredentialsTokenManager} background refresh and single-flight behavior.
+ */
+class ClientCredentialsTokenManagerTest {
+
+    private static final ClientRegistration HCP = ClientRegistration.withRegistrationId("hcp")
+            .clientId("client")
+            .clientSecret("secret")
+            .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+            .tokenUri("https://hcp.example.com/oauth2/token")
+            .build();
+
+    private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReactiveOAuth2AuthorizedClientManager delegate = mock(ReactiveOAuth2AuthorizedClientManager.class);
+    private Supplier<Mono<OAuth2AccessTokenResponse>> tokenEndpoint = () -> Mono.just(token(100));
+    private ClientCredentialsTokenManager manager;
+
+    @BeforeEach
+    void setUp() {
+        // Token responses stamp issuedAt from the wall clock
+        scheduler.advanceTimeTo(Instant.now());
+        manager = manager(null);
+    }
+
+    private ClientCredentialsTokenManager manager(MongoAuthorizedClientService sharedStore) {
+        return new ClientCredentialsTokenManager("hcp", delegate,
+                new InMemoryReactiveClientRegistrationRepository(HCP),
+                request -> Mono.defer(() -> {
+                    fetches.incrementAndGet();
+                    return tokenEndpoint.get();
+                }),
+                sharedStore,
+                new TokenRefreshProperties(0.75, 0, Duration.ofSeconds(10), Duration.ofSeconds(1), Duration.ofSeconds(8)),
+                meterRegistry,
+                scheduler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.destroy();
+        scheduler.dispose();
+    }
+
+    private OAuth2AccessTokenResponse token(long lifetimeSeconds) {
+        return OAuth2AccessTokenResponse.withToken("token-" + fetches.get())
+                .tokenType(OAuth2AccessToken.TokenType.BEARER)
+                .expiresIn(lifetimeSeconds)
+                .build();
+    }
+
+    private static OAuth2AuthorizeRequest request(String registrationId) {
+        return OAuth2AuthorizeRequest.withClientRegistrationId(registrationId).principal("anonymous").build();
+    }
+
+    @Test
+    @DisplayName("Startup → token fetched in the background, callers served from memory")
+    void startup_prefetch() {
+        manager.afterPropertiesSet();
+        scheduler.advanceTime();
+
+        StepVerifier.create(manager.authorize(request("hcp")))
+                .assertNext(client -> assertThat(client.getAccessToken().getTokenValue()).isEqualTo("token-1"))
+                .verifyComplete();
+        StepVerifier.create(manager.authorize(request("hcp")))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertThat(fetches.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Concurrent callers without a token → one token request")
+    void concurrentCallers_singleFlight() {
+        Sinks.One<OAuth2AccessTokenResponse> response = Sinks.one();
+        tokenEndpoint = response::asMono;
+
+        Mono<OAuth2AuthorizedClient> first = manager.authorize(request("hcp"));
+        Mono<OAuth2AuthorizedClient> second = manager.authorize(request("hcp"));
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> response.tryEmitValue(token(100)))
+                .assertNext(both -> assertThat(both.getT1()).isSameAs(both.getT2()))
+                .verifyComplete();
+        assertThat(fetches.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Token past refresh-at of its lifetime → replaced before it expires")
+    void refreshAt_replacedInBackground() {
+        manager.afterPropertiesSet();
+        scheduler.advanceTime();
+
+        scheduler.advanceTimeBy(Duration.ofMillis(74_500));
+        assertThat(fetches.get()).isEqualTo(1);
+        scheduler.advanceTimeBy(Duration.ofSeconds(1));
+        assertThat(fetches.get()).isEqualTo(2);
+
+        StepVerifier.create(manager.authorize(request("hcp")))
+                .assertNext(client -> assertThat(client.getAccessToken().getTokenValue()).isEqualTo("token-2"))
+                .verifyComplete();
+        assertThat(fetches.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Refresh fails → current token still served, retried with backoff")
+    void refreshFails_backoff() {
+        manager.afterPropertiesSet();
+        scheduler.advanceTime();
+        tokenEndpoint = () -> Mono.error(new IllegalStateException("token endpoint down"));
+
+        // Half-second offsets keep checks clear of the few milliseconds between virtual and wall-clock issuedAt
+        scheduler.advanceTimeBy(Duration.ofMillis(75_500));
+        assertThat(fetches.get()).isEqualTo(2);
+        StepVerifier.create(manager.authorize(request("hcp")))
+                .assertNext(client -> assertThat(client.getAccessToken().getTokenValue()).isEqualTo("token-1"))
+                .verifyComplete();
+
+        scheduler.advanceTimeBy(Duration.ofSeconds(1));
+        assertThat(fetches.get()).isEqualTo(3);
+        scheduler.advanceTimeBy(Duration.ofSeconds(2));
+        assertThat(fetches.get()).isEqualTo(4);
+
+        tokenEndpoint = () -> Mono.just(token(100));
+        scheduler.advanceTimeBy(Duration.ofSeconds(4));
+        assertThat(fetches.get()).isEqualTo(5);
+        assertThat(meterRegistry.get("oauth2.client.token.refresh").tag("outcome", "failure").timer().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Token request completes empty → callers fail, next call requests again")
+    void emptyResponse_failsAndClearsInFlight() {
+        tokenEndpoint = Mono::empty;
+
+        StepVerifier.create(manager.authorize(request("hcp")))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(1));
+
+        tokenEndpoint = () -> Mono.just(token(100));
+        StepVerifier.create(manager.authorize(request("hcp")))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertThat(fetches.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Other registration → delegate manager")
+    void otherRegistration_delegated() {
+        OAuth2AuthorizeRequest other = request("other");
+        when(delegate.authorize(any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(manager.authorize(other)).verifyComplete();
+        assertThat(fetches.get()).isZero();
+    }
+
+    @Test
+    @DisplayName("Token age gauge → seconds since the current token was issued")
+    void tokenAge_gauge() {
+        assertThat(meterRegistry.get("oauth2.client.token.age").gauge().value()).isNaN();
+
+        manager.afterPropertiesSet();
+        scheduler.advanceTime();
+        scheduler.advanceTimeBy(Duration.ofSeconds(30));
+
+        assertThat(meterRegistry.get("oauth2.client.token.age").gauge().value()).isCloseTo(30.0, within(1.0));
+        assertThat(meterRegistry.get("oauth2.client.token.refresh").tag("outcome", "success").timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Nested
+    @DisplayName("Shared store")
+    class SharedStore {
+
+        private final MongoAuthorizedClientService store = mock(MongoAuthorizedClientService.class);
+        private final AtomicReference<OAuth2AuthorizedClient> stored = new AtomicReference<>();
+
+        @BeforeEach
+        void setUp() {
+            manager.destroy();
+            manager = manager(store);
+            when(store.leaseDuration()).thenReturn(Duration.ofSeconds(10));
+            when(store.leasePollInterval()).thenReturn(Duration.ofMillis(200));
+            when(store.reloadAuthorizedClient("hcp", "bff")).thenAnswer(inv -> Mono.justOrEmpty(stored.get()));
+            when(store.acquireLease("hcp", "bff")).thenReturn(Mono.just(true));
+            when(store.releaseLease("hcp", "bff")).thenReturn(Mono.empty());
+            when(store.saveAuthorizedClient(any(), any())).thenAnswer(inv -> {
+                stored.set(inv.getArgument(0));
+                return Mono.empty();
+            });
+        }
+
+        private OAuth2AuthorizedClient storedClient(String tokenValue) {
+            Instant issuedAt = Instant.ofEpochMilli(scheduler.now(TimeUnit.MILLISECONDS));
+            return new OAuth2AuthorizedClient(HCP, "bff", new OAuth2AccessToken(
+                    OAuth2AccessToken.TokenType.BEARER, tokenValue, issuedAt, issuedAt.plusSeconds(100)));
+        }
+
+        private String currentToken() {
+            return manager.authorize(request("hcp")).map(client -> client.getAccessToken().getTokenValue()).block();
+        }
+
+        private double obtained(String source) {
+            return meterRegistry.get("oauth2.client.token.obtained").tag("source", source).counter().count();
+        }
+
+        @Test
+        @DisplayName("Usable token in the store → adopted, token endpoint not called")
+        void storedToken_adopted() {
+            stored.set(storedClient("shared-1"));
+
+            manager.afterPropertiesSet();
+            scheduler.advanceTime();
+
+            assertThat(currentToken()).isEqualTo("shared-1");
+            assertThat(fetches.get()).isZero();
+            assertThat(obtained("shared_store")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Empty store → lease taken, token requested, stored and lease released")
+        void emptyStore_requestedAndStored() {
+            manager.afterPropertiesSet();
+            scheduler.advanceTime();
+
+            assertThat(currentToken()).isEqualTo("token-1");
+            assertThat(stored.get().getAccessToken().getTokenValue()).isEqualTo("token-1");
+            verify(store).releaseLease("hcp", "bff");
+            assertThat(obtained("token_endpoint")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Stored token is the one already held → replaced through the token endpoint at refresh-at")
+        void storedTokenAlreadyHeld_requested() {
+            manager.afterPropertiesSet();
+            scheduler.advanceTime();
+
+            scheduler.advanceTimeBy(Duration.ofMillis(75_500));
+
+            assertThat(fetches.get()).isEqualTo(2);
+            assertThat(currentToken()).isEqualTo("token-2");
+            assertThat(stored.get().getAccessToken().getTokenValue()).isEqualTo("token-2");
+        }
+
+        @Test
+        @DisplayName("Lease held by another pod → waits for that pod's token and adopts it")
+        void leaseHeldElsewhere_adoptsTheirToken() {
+            when(store.acquireLease("hcp", "bff")).thenReturn(Mono.just(false));
+            manager.afterPropertiesSet();
+            scheduler.advanceTime();
+
+            scheduler.advanceTimeBy(Duration.ofSeconds(1));
+            stored.set(storedClient("shared-1"));
+            scheduler.advanceTimeBy(Duration.ofMillis(200));
+
+            assertThat(currentToken()).isEqualTo("shared-1");
+            assertThat(fetches.get()).isZero();
+        }
+
+        @Test
+        @DisplayName("Lease holder stores nothing within lease-duration → token requested here")
+        void leaseHolderSilent_requestedAfterLeaseDuration() {
+            when(store.acquireLease("hcp", "bff")).thenReturn(Mono.just(false));
+            manager.afterPropertiesSet();
+            scheduler.advanceTime();
+
+            scheduler.advanceTimeBy(Duration.ofMillis(9_900));
+            assertThat(fetches.get()).isZero();
+            scheduler.advanceTimeBy(Duration.ofMillis(100));
+
+            assertThat(fetches.get()).isEqualTo(1);
+            assertThat(currentToken()).isEqualTo("token-1");
+        }
+
+        @Test
+        @DisplayName("Store unreachable → token requested as without a store")
+        void storeDown_requestedDirectly() {
+            when(store.reloadAuthorizedClient("hcp", "bff")).thenReturn(Mono.error(new IllegalStateException("mongo down")));
+            when(store.acquireLease("hcp", "bff")).thenReturn(Mono.error(new IllegalStateException("mongo down")));
+            when(store.saveAuthorizedClient(any(), any())).thenReturn(Mono.error(new IllegalStateException("mongo down")));
+
+            assertThat(currentToken()).isEqualTo("token-1");
+            assertThat(fetches.get()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.bff.client;
+
+import com.example.bff.client.DownstreamProperties.CircuitBreaker;
+import com.example.bff.client.DownstreamProperties.Concurrency;
+import com.example.bff.client.DownstreamProperties.Downstream;
+import com.example.bff.client.DownstreamProperties.Hedge;
+import com.example.bff.client.DownstreamProperties.ShedPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link DownstreamPolicy} concurrency limit, hedging, timeout and circuit breaker behavior.
+ */
+class DownstreamPolicyTest {
+
+    private static final Hedge HEDGE = new Hedge(true, 0.95, Duration.ofMillis(50), 5);
+    private static final CircuitBreaker BREAKER =
+            new CircuitBreaker(true, 50, 10, 4, Duration.ofSeconds(30), 1);
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private DownstreamPolicy policy(Hedge hedge) {
+        return new DownstreamPolicy("test",
+                new Downstream("http://test", Duration.ofSeconds(2), hedge, BREAKER, null, null, null),
+                new SimpleMeterRegistry());
+    }
+
+    private Mono<String> respondAfter(Duration delay) {
+        calls.incrementAndGet();
+        return Mono.delay(delay).thenReturn("ok");
+    }
+
+    private void warmUp(DownstreamPolicy policy, int samples, Duration latency) {
+        for (int i = 0; i < samples; i++) {
+            StepVerifier.withVirtualTime(() -> policy.execute(() -> respondAfter(latency)))
+                    .thenAwait(latency)
+                    .expectNext("ok")
+                    .verifyComplete();
+        }
+        calls.set(0);
+    }
+
+    @Nested
+    @DisplayName("Hedging")
+    class Hedging {
+
+        @Test
+        @DisplayName("Too few samples → no hedge")
+        void tooFewSamples_noHedge() {
+            DownstreamPolicy policy = policy(HEDGE);
+
+            StepVerifier.withVirtualTime(() -> policy.execute(() -> respondAfter(Duration.ofSeconds(1))))
+                    .thenAwait(Duration.ofSeconds(1))
+                    .expectNext("ok")
+                    .verifyComplete();
+            assertThat(calls.get()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Slow primary past the percentile → hedge starts and wins")
+        void slowPrimary_hedgeWins() {
+            DownstreamPolicy policy = policy(HEDGE);
+            warmUp(policy, 5, Duration.ofMillis(100));
+            AtomicInteger attempt = new AtomicInteger();
+
+            StepVerifier.withVirtualTime(() -> policy.execute(() -> attempt.getAndIncrement() == 0
+                            ? respondAfter(Duration.ofSeconds(1)).map(v -> "primary")
+                            : respondAfter(Duration.ofMillis(100)).map(v -> "hedge")))
+                    .thenAwait(Duration.ofMillis(200))
+                    .expectNext("hedge")
+                    .verifyComplete();
+            assertThat(calls.get()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Fast primary → hedge never starts")
+        void fastPrimary_noHedge() {
+            DownstreamPolicy policy = policy(HEDGE);
+            warmUp(policy, 5, Duration.ofMillis(100));
+
+            StepVerifier.withVirtualTime(() -> policy.execute(() -> respondAfter(Duration.ofMillis(60))))
+                    .thenAwait(Duration.ofMillis(60))
+                    .expectNext("ok")
+                    .verifyComplete();
+            assertThat(calls.get()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Both attempts fail → original error is surfaced")
+        void bothFail_originalError() {
+            DownstreamPolicy policy = policy(HEDGE);
+            warmUp(policy, 5, Duration.ofMillis(100));
+
+            StepVerifier.withVirtualTime(() -> policy.execute(() -> respondAfter(Duration.ofMillis(300))
+                            .then(Mono.<String>error(serverError()))))
+                    .thenAwait(Duration.ofSeconds(1))
+                    .expectError(WebClientResponseException.class)
+                    .verify();
+        }
+    }
+
+    @Nested
+    @DisplayName("Timeout")
+    class Timeout {
+
+        @Test
+        @DisplayName("No response within timeout → TimeoutException")
+        void noResponse_timeout() {
+            DownstreamPolicy policy = policy(new Hedge(false, 0.95, Duration.ofMillis(50), 5));
+
+            StepVerifier.withVirtualTime(() -> policy.execute(() -> respondAfter(Duration.ofSeconds(10))))
+                    .thenAwait(Duration.ofSeconds(2))
+                    .expectError(TimeoutException.class)
+                    .verify();
+        }
+    }
+
+    @Nested
+    @DisplayName("Circuit breaker")
+    class Breaker {
+
+        @Test
+        @DisplayName("5xx failures past the threshold → open, calls rejected without contacting downstream")
+        void serverErrors_open() {
+            DownstreamPolicy policy = policy(new Hedge(false, 0.95, Duration.ofMillis(50), 5));
+            for (int i = 0; i < 4; i++) {
+                StepVerifier.create(policy.execute(() -> Mono.<String>error(serverError())))
+                        .expectError(WebClientResponseException.class)
+                        .verify();
+            }
+            calls.set(0);
+
+            StepVerifier.create(policy.execute(() -> respondAfter(Duration.ZERO)))
+                    .expectError(DownstreamUnavailableException.class)
+                    .verify();
+            assertThat(calls.get()).isZero();
+            assertThat(policy.circuitBreakerState()).isEqualTo(DownstreamCircuitBreaker.State.OPEN);
+        }
+
+        @Test
+        @DisplayName("4xx responses → breaker stays closed")
+        void clientErrors_closed() {
+            DownstreamPolicy policy = policy(new Hedge(false, 0.95, Duration.ofMillis(50), 5));
+            for (int i = 0; i < 10; i++) {
+                StepVerifier.create(policy.execute(() -> Mono.<String>error(
+                                WebClientResponseException.create(404, "Not Found", null, null, null))))
+                        .expectError(WebClientResponseException.class)
+                        .verify();
+            }
+
+            assertThat(policy.circuitBreakerState()).isEqualTo(DownstreamCircuitBreaker.State.CLOSED);
+        }
+
+        @Test
+        @DisplayName("Open duration elapsed and probe succeeds → closed")
+        void probeSucceeds_closed() {
+            DownstreamPolicy policy = policy(new Hedge(false, 0.95, Duration.ofMillis(50), 5));
+
+            StepVerifier.withVirtualTime(() -> Mono.defer(() -> {
+                                for (int i = 0; i < 4; i++) {
+                                    policy.execute(() -> Mono.<String>error(serverError())).onErrorResume(e -> Mono.empty()).subscribe();
+                                }
+                                return Mono.delay(Duration.ofSeconds(30));
+                            }).then(policy.execute(() -> respondAfter(Duration.ZERO))))
+                    .thenAwait(Duration.ofSeconds(30))
+                    .expectNext("ok")
+                    .verifyComplete();
+            assertThat(policy.circuitBreakerState()).isEqualTo(DownstreamCircuitBreaker.State.CLOSED);
+        }
+    }
+
+    @Nested
+    @DisplayName("Concurrency limit")
+    class ConcurrencyLimit {
+
+        @Test
+        @DisplayName("Limit reached, no queue → call shed without contacting downstream, breaker unaffected")
+        void limitReached_shed() {
+            DownstreamPolicy policy = new DownstreamPolicy("test",
+                    new Downstream("http://test", Duration.ofSeconds(2), new Hedge(false, 0.95, Duration.ofMillis(50), 5),
+                            BREAKER, null, null,
+                            new Concurrency(true, 1, 1, 1, 0.2, 0, Duration.ofMillis(500), ShedPolicy.REJECT_NEWEST)),
+                    new SimpleMeterRegistry());
+            policy.execute(() -> Mono.<String>never()).subscribe();
+            calls.set(0);
+
+            for (int i = 0; i < 10; i++) {
+                StepVerifier.create(policy.execute(() -> respondAfter(Duration.ZERO)))
+                        .expectError(DownstreamOverloadedException.class)
+                        .verify();
+            }
+            assertThat(calls.get()).isZero();
+            assertThat(policy.circuitBreakerState()).isEqualTo(DownstreamCircuitBreaker.State.CLOSED);
+        }
+    }
+
+    private static WebClientResponseException serverError() {
+        return WebClientResponseException.create(503, "Service Unavailable", null, null, null);
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.bff.client;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link MongoAuthorizedClientService}: two instances over one fake collection stand
+ * in for two pods.
+ */
+class MongoAuthorizedClientServiceTest {
+
+    private static final String COLLECTION = "oauth2_authorized_clients";
+    private static final Duration LEASE_DURATION = Duration.ofSeconds(10);
+    private static final Duration RETENTION = Duration.ofHours(12);
+
+    private static final ClientRegistration HCP = ClientRegistration.withRegistrationId("hcp")
+            .clientId("client")
+            .clientSecret("secret")
+            .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+            .tokenUri("https://hcp.example.com/oauth2/token")
+            .build();
+
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private MutableClock clock;
+    private MongoAuthorizedClientService pod1;
+    private MongoAuthorizedClientService pod2;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2026-01-01T10:00:00Z"));
+        AuthorizedClientStoreProperties properties = new AuthorizedClientStoreProperties(
+                AuthorizedClientStoreProperties.StoreType.MONGO, COLLECTION,
+                Duration.ofMinutes(1), LEASE_DURATION, Duration.ofMillis(200), RETENTION);
+        ReactiveMongoOperations operations = fakeMongoOperations();
+        var registrations = new InMemoryReactiveClientRegistrationRepository(HCP);
+        pod1 = new MongoAuthorizedClientService(registrations, operations, properties, clock);
+        pod2 = new MongoAuthorizedClientService(registrations, operations, properties, clock);
+    }
+
+    private OAuth2AuthorizedClient client(String tokenValue) {
+        Instant issuedAt = clock.instant();
+        return new OAuth2AuthorizedClient(HCP, "bff", new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER,
+                tokenValue, issuedAt, issuedAt.plusSeconds(3600), Set.of("hcp.read")));
+    }
+
+    private static void save(MongoAuthorizedClientService pod, OAuth2AuthorizedClient client) {
+        pod.saveAuthorizedClient(client, UsernamePasswordAuthenticationToken.unauthenticated("bff", null)).block();
+    }
+
+    private static String tokenValue(Mono<? extends OAuth2AuthorizedClient> client) {
+        OAuth2AuthorizedClient loaded = client.block();
+        return loaded == null ? null : loaded.getAccessToken().getTokenValue();
+    }
+
+    @Nested
+    @DisplayName("Authorized clients")
+    class AuthorizedClients {
+
+        @Test
+        @DisplayName("Saved on one pod → loaded on another with the same token")
+        void savedOnOnePod_loadedOnAnother() {
+            OAuth2AuthorizedClient saved = client("token-1");
+            save(pod1, saved);
+
+            StepVerifier.create(pod2.<OAuth2AuthorizedClient>loadAuthorizedClient("hcp", "bff"))
+                    .assertNext(loaded -> {
+                        OAuth2AccessToken token = loaded.getAccessToken();
+                        assertThat(loaded.getClientRegistration().getRegistrationId()).isEqualTo("hcp");
+                        assertThat(loaded.getPrincipalName()).isEqualTo("bff");
+                        assertThat(token.getTokenValue()).isEqualTo("token-1");
+                        assertThat(token.getTokenType()).isEqualTo(OAuth2AccessToken.TokenType.BEARER);
+                        assertThat(token.getExpiresAt()).isEqualTo(saved.getAccessToken().getExpiresAt());
+                        assertThat(token.getScopes()).containsExactly("hcp.read");
+                        assertThat(loaded.getRefreshToken()).isNull();
+                    })
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Loaded twice → second load served from the near cache")
+        void loadedTwice_nearCache() {
+            save(pod1, client("token-1"));
+
+            tokenValue(pod2.loadAuthorizedClient("hcp", "bff"));
+            tokenValue(pod2.loadAuthorizedClient("hcp", "bff"));
+
+            assertThat(reads.get()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Replaced on another pod → near cache keeps the old token, reload sees the new one")
+        void replacedElsewhere_reloadSeesIt() {
+            save(pod1, client("token-1"));
+            tokenValue(pod2.loadAuthorizedClient("hcp", "bff"));
+
+            save(pod1, client("token-2"));
+
+            assertThat(tokenValue(pod2.loadAuthorizedClient("hcp", "bff"))).isEqualTo("token-1");
+            assertThat(tokenValue(pod2.reloadAuthorizedClient("hcp", "bff"))).isEqualTo("token-2");
+            assertThat(tokenValue(pod2.loadAuthorizedClient("hcp", "bff"))).isEqualTo("token-2");
+        }
+
+        @Test
+        @DisplayName("Removed → no longer loaded, from the cache or the store")
+        void removed_gone() {
+            save(pod1, client("token-1"));
+
+            pod1.removeAuthorizedClient("hcp", "bff").block();
+
+            StepVerifier.create(pod1.loadAuthorizedClient("hcp", "bff")).verifyComplete();
+            assertThat(documents).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Saved → expireAt set to retention from now, for the TTL index")
+        void saved_expireAtSet() {
+            save(pod1, client("token-1"));
+
+            assertThat(documents.get("hcp:bff").getDate(MongoAuthorizedClientService.FIELD_EXPIRE_AT))
+                    .isEqualTo(Date.from(clock.instant().plus(RETENTION)));
+        }
+
+        @Test
+        @DisplayName("Unknown registration → nothing loaded")
+        void unknownRegistration_empty() {
+            StepVerifier.create(pod1.loadAuthorizedClient("other", "bff")).verifyComplete();
+        }
+    }
+
+    @Nested
+    @DisplayName("Refresh lease")
+    class Lease {
+
+        @Test
+        @DisplayName("Free lease → taken; held by one pod → refused to the other")
+        void heldByOnePod_refusedToOther() {
+            assertThat(pod1.acquireLease("hcp", "bff").block()).isTrue();
+
+            assertThat(pod2.acquireLease("hcp", "bff").block()).isFalse();
+            assertThat(pod1.acquireLease("hcp", "bff").block()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Released → the other pod can take it")
+        void released_otherPodTakesIt() {
+            pod1.acquireLease("hcp", "bff").block();
+
+            pod2.releaseLease("hcp", "bff").block();
+            assertThat(pod2.acquireLease("hcp", "bff").block()).isFalse();
+            pod1.releaseLease("hcp", "bff").block();
+
+            assertThat(pod2.acquireLease("hcp", "bff").block()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Holder gone past lease-duration → the other pod can take it")
+        void expired_otherPodTakesIt() {
+            pod1.acquireLease("hcp", "bff").block();
+
+            clock.advance(LEASE_DURATION);
+
+            assertThat(pod2.acquireLease("hcp", "bff").block()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Token saved by the holder → lease kept, token stored alongside")
+        void saveKeepsLease() {
+            pod1.acquireLease("hcp", "bff").block();
+
+            save(pod1, client("token-1"));
+
+            assertThat(pod2.acquireLease("hcp", "bff").block()).isFalse();
+            assertThat(tokenValue(pod2.loadAuthorizedClient("hcp", "bff"))).isEqualTo("token-1");
+        }
+
+        @Test
+        @DisplayName("Lease on a registration without a token → nothing loaded")
+        void leaseOnly_nothingLoaded() {
+            pod1.acquireLease("hcp", "bff").block();
+
+            StepVerifier.create(pod2.loadAuthorizedClient("hcp", "bff")).verifyComplete();
+        }
+    }
+
+    /**
+     * Understands the query shapes the service sends: {@code _id} and field equality,
+     * {@code $or}, {@code $exists} and {@code $lte}.
+     */
+    private ReactiveMongoOperations fakeMongoOperations() {
+        ReactiveMongoOperations operations = mock(ReactiveMongoOperations.class);
+        when(operations.findById(anyString(), eq(Document.class), eq(COLLECTION))).thenAnswer(inv -> {
+            reads.incrementAndGet();
+            return Mono.justOrEmpty(documents.get(inv.<String>getArgument(0)));
+        });
+        when(operations.upsert(any(Query.class), any(UpdateDefinition.class), eq(COLLECTION))).thenAnswer(inv -> {
+            Document query = inv.<Query>getArgument(0).getQueryObject();
+            Document update = inv.<Update>getArgument(1).getUpdateObject();
+            String id = query.getString("_id");
+            Document document = documents.get(id);
+            if (document == null) {
+                document = new Document("_id", id);
+                documents.put(id, document);
+            } else if (!matches(document, query)) {
+                return Mono.error(new DuplicateKeyException("E11000 duplicate key error _id: " + id));
+            }
+            apply(document, update);
+            return Mono.just(UpdateResult.acknowledged(1, 1L, null));
+        });
+        when(operations.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(COLLECTION))).thenAnswer(inv -> {
+            Document query = inv.<Query>getArgument(0).getQueryObject();
+            Document document = documents.get(query.getString("_id"));
+            boolean matched = document != null && matches(document, query);
+            if (matched) {
+                apply(document, inv.<Update>getArgument(1).getUpdateObject());
+            }
+            return Mono.just(UpdateResult.acknowledged(matched ? 1 : 0, matched ? 1L : 0L, null));
+        });
+        when(operations.remove(any(Query.class), eq(COLLECTION))).thenAnswer(inv -> {
+            Document removed = documents.remove(inv.<Query>getArgument(0).getQueryObject().getString("_id"));
+            return Mono.just(DeleteResult.acknowledged(removed != null ? 1 : 0));
+        });
+        return operations;
+    }
+
+    private static boolean matches(Document document, Document query) {
+        for (Map.Entry<String, Object> condition : query.entrySet()) {
+            if (condition.getKey().equals("$or")) {
+                List<?> alternatives = (List<?>) condition.getValue();
+                if (alternatives.stream().noneMatch(alternative -> matches(document, (Document) alternative))) {
+                    return false;
+                }
+            } else if (condition.getValue() instanceof Document operator) {
+                Object value = document.get(condition.getKey());
+                if (operator.containsKey("$exists") && operator.getBoolean("$exists") != (value != null)) {
+                    return false;
+                }
+                if (operator.containsKey("$lte")
+                        && (value == null || ((Date) value).after(operator.getDate("$lte")))) {
+                    return false;
+                }
+            } else if (!Objects.equals(document.get(condition.getKey()), condition.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void apply(Document document, Document update) {
+        Document set = update.get("$set", Document.class);
+        if (set != null) {
+            document.putAll(set);
+        }
+        Document unset = update.get("$unset", Document.class);
+        if (unset != null) {
+            unset.keySet().forEach(document::remove);
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
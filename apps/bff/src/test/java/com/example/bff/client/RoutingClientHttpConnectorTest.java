@@ -0,0 +1,81 @@
+package com.example.bff.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link RoutingClientHttpConnector} base URL matching.
+ */
+class RoutingClientHttpConnectorTest {
+
+    private final ClientHttpConnector defaultConnector = mock(ClientHttpConnector.class);
+    private final ClientHttpConnector userService = mock(ClientHttpConnector.class);
+    private final ClientHttpConnector psn = mock(ClientHttpConnector.class);
+
+    private final RoutingClientHttpConnector connector = new RoutingClientHttpConnector(defaultConnector)
+            .route("https://user-service.example.com", userService)
+            .route("https://psn.example.com:8443/api", psn);
+
+    @Test
+    @DisplayName("Request under a registered base URL → that downstream's connector")
+    void registeredBaseUrl_routed() {
+        assertThat(connector.connectorFor(URI.create("https://user-service.example.com/user-info")))
+                .isSameAs(userService);
+        assertThat(connector.connectorFor(URI.create("https://psn.example.com:8443/api/managed-members")))
+                .isSameAs(psn);
+    }
+
+    @Test
+    @DisplayName("Explicit default port and host case → same origin")
+    void defaultPortAndCase_normalized() {
+        assertThat(connector.connectorFor(URI.create("https://USER-SERVICE.example.com:443/user-info")))
+                .isSameAs(userService);
+    }
+
+    @Test
+    @DisplayName("Different scheme, port, host or path → default connector")
+    void otherBaseUrl_default() {
+        assertThat(connector.connectorFor(URI.create("http://user-service.example.com/user-info")))
+                .isSameAs(defaultConnector);
+        assertThat(connector.connectorFor(URI.create("https://psn.example.com/api/managed-members")))
+                .isSameAs(defaultConnector);
+        assertThat(connector.connectorFor(URI.create("https://psn.example.com:8443/managed-members")))
+                .isSameAs(defaultConnector);
+        assertThat(connector.connectorFor(URI.create("https://psn.example.com:8443/apis/managed-members")))
+                .isSameAs(defaultConnector);
+        assertThat(connector.connectorFor(URI.create("https://elsewhere.example.com/")))
+                .isSameAs(defaultConnector);
+    }
+
+    @Test
+    @DisplayName("Downstreams behind one gateway host → routed by longest base URL")
+    void sharedHost_longestPrefix() {
+        ClientHttpConnector profile = mock(ClientHttpConnector.class);
+        RoutingClientHttpConnector gateway = new RoutingClientHttpConnector(defaultConnector)
+                .route("https://gateway.example.com/user-service", userService)
+                .route("https://gateway.example.com/psn/", psn)
+                .route("https://gateway.example.com/user-service/profile", profile);
+
+        assertThat(gateway.connectorFor(URI.create("https://gateway.example.com/user-service/user-info")))
+                .isSameAs(userService);
+        assertThat(gateway.connectorFor(URI.create("https://gateway.example.com/psn/managed-members")))
+                .isSameAs(psn);
+        assertThat(gateway.connectorFor(URI.create("https://gateway.example.com/user-service/profile/u-1")))
+                .isSameAs(profile);
+    }
+
+    @Test
+    @DisplayName("Base URL registered for two connectors → rejected")
+    void duplicateBaseUrl_rejected() {
+        assertThatThrownBy(() -> connector.route("https://user-service.example.com/", psn))
+                .isInstanceOf(IllegalStateException.class);
+        connector.route("https://user-service.example.com/", userService);
+    }
+}
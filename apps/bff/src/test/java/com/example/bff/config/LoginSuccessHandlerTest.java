@@ -0,0 +1,228 @@
+package com.example.bff.config;
+
+import com.example.bff.controller.SessionPayloads;
+import com.example.bff.model.SessionInfo;
+import com.example.bff.security.CustomOidcUserService;
+import com.example.bff.security.EnrichedOidcUser;
+import com.example.bff.security.SessionRefresher;
+import com.example.bff.session.SessionEvents;
+import com.example.bff.session.SessionEventsProperties;
+import com.example.bff.session.SessionProperties;
+import com.example.bff.session.SlidingSessionProperties;
+import com.example.bff.support.SessionFixtures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.web.server.WebFilterExchange;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.server.WebSession;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+import org.springframework.web.server.session.InMemoryWebSessionStore;
+import org.springframework.web.server.session.WebSessionStore;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link LoginSuccessHandler}: the redirect, and completion of a deferred login only
+ * once its session has been saved.
+ */
+class LoginSuccessHandlerTest {
+
+    private static final String CONTEXT_ATTRIBUTE =
+            WebSessionServerSecurityContextRepository.DEFAULT_SPRING_SECURITY_CONTEXT_ATTR_NAME;
+
+    private final CustomOidcUserService oidcUserService = mock(CustomOidcUserService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Sinks.Empty<Void> saveCompletes = Sinks.empty();
+    private final DeferredSaveStore sessionStore = new DeferredSaveStore(saveCompletes.asMono());
+    private LoginSuccessHandler handler;
+    private MockServerWebExchange exchange;
+
+    @BeforeEach
+    void setUp() {
+        SessionPayloads sessionPayloads = new SessionPayloads(JsonMapper.builder().build(), new SessionEvents(
+                new SessionEventsProperties(Duration.ofMinutes(5), Duration.ofSeconds(25), Duration.ofSeconds(1), 16),
+                meterRegistry, sessionId -> Mono.empty()));
+        SessionRefresher sessionRefresher = new SessionRefresher(oidcUserService, sessionStore, sessionPayloads,
+                new SlidingSessionProperties(true, Duration.ofMinutes(10), Duration.ofHours(12), Duration.ofMinutes(1)),
+                new SessionProperties(30, "web_sessions", Duration.ofSeconds(10), Duration.ofMinutes(1),
+                        SessionProperties.SerializerType.COMPACT, DataSize.ofKilobytes(2), SessionProperties.StoreType.MONGO),
+                meterRegistry);
+        handler = new LoginSuccessHandler("http://localhost:4200/dashboard", sessionPayloads, sessionRefresher);
+        DefaultWebSessionManager sessionManager = new DefaultWebSessionManager();
+        sessionManager.setSessionStore(sessionStore);
+        exchange = MockServerWebExchange.builder(MockServerHttpRequest.get("/login/oauth2/code/hsid"))
+                .sessionManager(sessionManager)
+                .build();
+    }
+
+    /** Saves the security context into the exchange's session, as the security context repository does. */
+    private OAuth2AuthenticationToken signIn(SessionInfo sessionInfo) {
+        SecurityContext context = SessionFixtures.securityContext(sessionInfo);
+        exchange.getSession().block().getAttributes().put(CONTEXT_ATTRIBUTE, context);
+        return (OAuth2AuthenticationToken) context.getAuthentication();
+    }
+
+    private Mono<Void> onAuthenticationSuccess(OAuth2AuthenticationToken authentication) {
+        return handler.onAuthenticationSuccess(new WebFilterExchange(exchange, mock(WebFilterChain.class)), authentication);
+    }
+
+    private SessionInfo storedSessionInfo() {
+        WebSession stored = sessionStore.retrieveSession(exchange.getSession().block().getId()).block();
+        SecurityContext context = stored.getAttribute(CONTEXT_ATTRIBUTE);
+        return ((EnrichedOidcUser) context.getAuthentication().getPrincipal()).getSessionInfo();
+    }
+
+    @Test
+    @DisplayName("Login → 302 to the frontend, session payload stored and saved")
+    void redirected() {
+        OAuth2AuthenticationToken authentication = signIn(SessionFixtures.selfSessionInfo());
+        saveCompletes.tryEmitEmpty();
+
+        onAuthenticationSuccess(authentication).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.FOUND);
+        assertThat(exchange.getResponse().getHeaders().getLocation()).isEqualTo(URI.create("http://localhost:4200/dashboard"));
+        assertThat(storedSessionInfo()).isEqualTo(SessionFixtures.selfSessionInfo());
+        assertThat(sessionStore.retrieveSession(exchange.getSession().block().getId()).block()
+                .<String>getAttribute(SessionPayloads.ETAG_ATTRIBUTE)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Deferred login, session save still in flight → completed once it is saved")
+    void deferredLogin_completedAfterSave() {
+        OAuth2AuthenticationToken authentication = signIn(SessionFixtures.pendingSessionInfo());
+        when(oidcUserService.pendingEnrichment(any()))
+                .thenReturn(Mono.just(SessionFixtures.oidcUser(SessionFixtures.representativeSessionInfo(3))));
+
+        onAuthenticationSuccess(authentication).subscribe();
+
+        assertThat(sessionStore.retrieveSession(exchange.getSession().block().getId()).block()).isNull();
+        verify(oidcUserService, never()).pendingEnrichment(any());
+
+        saveCompletes.tryEmitEmpty();
+
+        assertThat(storedSessionInfo()).isEqualTo(SessionFixtures.representativeSessionInfo(3));
+    }
+
+    /** In-memory store whose new sessions are saved only once {@code saveCompletes} completes. */
+    private static final class DeferredSaveStore implements WebSessionStore {
+
+        private final InMemoryWebSessionStore delegate = new InMemoryWebSessionStore();
+        private final Mono<Void> saveCompletes;
+
+        DeferredSaveStore(Mono<Void> saveCompletes) {
+            this.saveCompletes = saveCompletes;
+        }
+
+        @Override
+        public Mono<WebSession> createWebSession() {
+            return delegate.createWebSession().map(DeferredSaveSession::new);
+        }
+
+        @Override
+        public Mono<WebSession> retrieveSession(String sessionId) {
+            return delegate.retrieveSession(sessionId);
+        }
+
+        @Override
+        public Mono<Void> removeSession(String sessionId) {
+            return delegate.removeSession(sessionId);
+        }
+
+        @Override
+        public Mono<WebSession> updateLastAccessTime(WebSession webSession) {
+            return delegate.updateLastAccessTime(webSession);
+        }
+
+        private final class DeferredSaveSession implements WebSession {
+
+            private final WebSession session;
+
+            DeferredSaveSession(WebSession session) {
+                this.session = session;
+            }
+
+            @Override
+            public Mono<Void> save() {
+                return saveCompletes.then(Mono.defer(session::save));
+            }
+
+            @Override
+            public String getId() {
+                return session.getId();
+            }
+
+            @Override
+            public Map<String, Object> getAttributes() {
+                return session.getAttributes();
+            }
+
+            @Override
+            public void start() {
+                session.start();
+            }
+
+            @Override
+            public boolean isStarted() {
+                return session.isStarted();
+            }
+
+            @Override
+            public Mono<Void> changeSessionId() {
+                return session.changeSessionId();
+            }
+
+            @Override
+            public Mono<Void> invalidate() {
+                return session.invalidate();
+            }
+
+            @Override
+            public boolean isExpired() {
+                return session.isExpired();
+            }
+
+            @Override
+            public Instant getCreationTime() {
+                return session.getCreationTime();
+            }
+
+            @Override
+            public Instant getLastAccessTime() {
+                return session.getLastAccessTime();
+            }
+
+            @Override
+            public void setMaxIdleTime(Duration maxIdleTime) {
+                session.setMaxIdleTime(maxIdleTime);
+            }
+
+            @Override
+            public Duration getMaxIdleTime() {
+                return session.getMaxIdleTime();
+            }
+        }
+    }
+}
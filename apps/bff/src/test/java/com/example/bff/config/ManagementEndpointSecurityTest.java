@@ -0,0 +1,69 @@
+package com.example.bff.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Tests for actuator access: health and info are anonymous, every other exposed endpoint needs
+ * the management credentials.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"app.management.username=scraper", "app.management.password=scrape-secret"})
+class ManagementEndpointSecurityTest {
+
+    @LocalServerPort
+    private int port;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToServer().baseUrl("http://localhost:" + port).build();
+    }
+
+    @Test
+    @DisplayName("Health and info → open without credentials")
+    void healthAndInfo_anonymous() {
+        client.get().uri("/actuator/info").exchange().expectStatus().isOk();
+        client.get().uri("/actuator/health/liveness").exchange().expectStatus().isOk();
+    }
+
+    @Test
+    @DisplayName("Prometheus, metrics and sessions without credentials → 401, no session cookie")
+    void otherEndpoints_unauthorized() {
+        for (String path : new String[] {"/actuator/prometheus", "/actuator/metrics", "/actuator/sessions", "/actuator"}) {
+            client.get().uri(path).exchange()
+                    .expectStatus().isUnauthorized()
+                    .expectHeader().exists(HttpHeaders.WWW_AUTHENTICATE)
+                    .expectCookie().doesNotExist("SESSION");
+        }
+    }
+
+    @Test
+    @DisplayName("Wrong password → 401")
+    void wrongPassword_unauthorized() {
+        client.get().uri("/actuator/sessions")
+                .headers(headers -> headers.setBasicAuth("scraper", "wrong"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    @DisplayName("Management credentials → served")
+    void credentials_served() {
+        client.get().uri("/actuator/sessions")
+                .headers(headers -> headers.setBasicAuth("scraper", "scrape-secret"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.live").isEqualTo(0);
+        client.get().uri("/actuator/metrics")
+                .headers(headers -> headers.setBasicAuth("scraper", "scrape-secret"))
+                .exchange()
+                .expectStatus().isOk();
+    }
+}
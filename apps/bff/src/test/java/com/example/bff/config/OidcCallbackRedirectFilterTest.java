@@ -1,5 +1,8 @@
 package com.example.bff.config;
 
+import com.example.bff.routing.RouteTable;
+import com.example.bff.routing.RouteType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -11,7 +14,6 @@ import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
-import java.lang.reflect.Field;
 import java.net.URI;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -27,15 +29,13 @@ class OidcCallbackRedirectFilterTest {
 
     private OidcCallbackRedirectFilter filter;
     private WebFilterChain mockChain;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
-    void setUp() throws Exception {
-        filter = new OidcCallbackRedirectFilter();
-
-        // Set the frontend redirect path via reflection
-        Field field = OidcCallbackRedirectFilter.class.getDeclaredField("frontendRedirectPath");
-        field.setAccessible(true);
-        field.set(filter, "http://localhost:4200/dashboard");
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new OidcCallbackRedirectFilter(
+                new RoutingConfig().routeTable(), "http://localhost:4200/dashboard", meterRegistry);
 
         mockChain = mock(WebFilterChain.class);
         when(mockChain.filter(any())).thenReturn(Mono.empty());
@@ -177,6 +177,33 @@ class OidcCallbackRedirectFilterTest {
             assertThat(exchange.getResponse().getStatusCode()).isNull();
         }
 
+        @Test
+        @DisplayName("/api/** with code & state → passes through, not treated as a callback")
+        void apiPathWithCodeAndState_passesThrough() {
+            MockServerHttpRequest request = MockServerHttpRequest
+                    .get("/api/providers?code=207&state=MN")
+                    .build();
+            MockServerWebExchange exchange = MockServerWebExchange.from(request);
+
+            StepVerifier.create(filter.filter(exchange, mockChain))
+                    .verifyComplete();
+
+            assertThat(exchange.getResponse().getStatusCode()).isNull();
+        }
+
+        @Test
+        @DisplayName("Classification → stored on the exchange for later filters")
+        void classificationStoredOnExchange() {
+            MockServerWebExchange api = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users").build());
+            MockServerWebExchange ui = MockServerWebExchange.from(MockServerHttpRequest.get("/settings").build());
+
+            StepVerifier.create(Mono.when(filter.filter(api, mockChain), filter.filter(ui, mockChain)))
+                    .verifyComplete();
+
+            assertThat(api.<RouteType>getAttribute(RouteTable.ROUTE_ATTRIBUTE)).isEqualTo(RouteType.BACKEND);
+            assertThat(ui.<RouteType>getAttribute(RouteTable.ROUTE_ATTRIBUTE)).isEqualTo(RouteType.FRONTEND_REDIRECT);
+        }
+
         @Test
         @DisplayName("/oauth2/** → passes through to Spring Security")
         void oauth2Path_passesThrough() {
@@ -281,4 +308,25 @@ class OidcCallbackRedirectFilterTest {
             assertThat(exchange3.getResponse().getStatusCode()).isNull(); // passed through
         }
     }
+
+    @Nested
+    @DisplayName("Metrics")
+    class MetricsTests {
+
+        @Test
+        @DisplayName("Redirects → counted per target, pass-throughs not counted")
+        void redirects_countedPerTarget() {
+            Mono.when(
+                    filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/?code=A&state=1").build()), mockChain),
+                    filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/dashboard").build()), mockChain),
+                    filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/settings").build()), mockChain),
+                    filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/api/test").build()), mockChain)
+            ).block();
+
+            assertThat(meterRegistry.get("bff.oidc.redirect").tag("target", "oauth2_callback").counter().count())
+                    .isEqualTo(1.0);
+            assertThat(meterRegistry.get("bff.oidc.redirect").tag("target", "frontend").counter().count())
+                    .isEqualTo(2.0);
+        }
+    }
 }
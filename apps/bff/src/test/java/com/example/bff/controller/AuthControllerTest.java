@@ -0,0 +1,193 @@
+package com.example.bff.controller;
+
+import com.example.bff.model.UserInfo;
+import com.example.bff.security.EnrichedOidcUser;
+import com.example.bff.session.SessionEvents;
+import com.example.bff.session.SessionEventsProperties;
+import com.example.bff.support.SessionFixtures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebSession;
+import org.springframework.web.server.session.InMemoryWebSessionStore;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AuthController#getSession} precomputed payloads and ETag handling.
+ */
+class AuthControllerTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final SessionEvents sessionEvents = new SessionEvents(
+            new SessionEventsProperties(Duration.ofMinutes(5), Duration.ofSeconds(25), Duration.ofSeconds(1), 16),
+            new SimpleMeterRegistry(), sessionId -> Mono.empty());
+    private final SessionPayloads sessionPayloads = new SessionPayloads(jsonMapper, sessionEvents);
+    private final AuthController controller = new AuthController(sessionPayloads, sessionEvents);
+    private EnrichedOidcUser user;
+    private WebSession session;
+
+    @BeforeEach
+    void setUp() {
+        user = SessionFixtures.oidcUser(SessionFixtures.representativeSessionInfo(50));
+        session = new InMemoryWebSessionStore().createWebSession().block();
+    }
+
+    private MockServerWebExchange exchange(String ifNoneMatch) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/auth/session");
+        if (ifNoneMatch != null) {
+            request.ifNoneMatch(ifNoneMatch);
+        }
+        return MockServerWebExchange.builder(request).session(session).build();
+    }
+
+    @Nested
+    @DisplayName("Payload")
+    class Payload {
+
+        @Test
+        @DisplayName("Body → same JSON as encoding SessionResponse directly")
+        void bodyMatchesResponse() {
+            ResponseEntity<byte[]> response = controller.getSession(user, exchange(null)).block();
+
+            byte[] expected = jsonMapper.writeValueAsBytes(AuthController.SessionResponse.authenticated(
+                    new UserInfo(user.getSubject(), user.getEmail(), user.getFullName()), user.getSessionInfo()));
+            assertThat(response.getBody()).isEqualTo(expected);
+            assertThat(response.getHeaders().getETag()).startsWith("\"").endsWith("\"");
+            assertThat(response.getHeaders().getCacheControl()).contains("no-cache").contains("private");
+        }
+
+        @Test
+        @DisplayName("Stored at login → polls reuse it without rendering again")
+        void storedPayload_reused() {
+            SessionPayload stored = sessionPayloads.store(session, user);
+
+            ResponseEntity<byte[]> first = controller.getSession(user, exchange(null)).block();
+            ResponseEntity<byte[]> second = controller.getSession(user, exchange(null)).block();
+
+            assertThat(first.getBody()).isSameAs(stored.body());
+            assertThat(second.getBody()).isSameAs(stored.body());
+        }
+
+        @Test
+        @DisplayName("Only the ETag is kept in the session")
+        void sessionHoldsEtagOnly() {
+            SessionPayload stored = sessionPayloads.store(session, user);
+
+            assertThat(session.getAttributes()).containsOnlyKeys(SessionPayloads.ETAG_ATTRIBUTE);
+            assertThat((String) session.getAttribute(SessionPayloads.ETAG_ATTRIBUTE)).isEqualTo(stored.etag());
+        }
+
+        @Test
+        @DisplayName("Session without an ETag, or body no longer cached → rendered on next poll")
+        void missing_renderedOnPoll() {
+            controller.getSession(user, exchange(null)).block();
+            String etag = session.getAttribute(SessionPayloads.ETAG_ATTRIBUTE);
+            sessionPayloads.invalidateCachedBodies();
+
+            ResponseEntity<byte[]> response = controller.getSession(user, exchange(null)).block();
+
+            assertThat(etag).isNotNull();
+            assertThat(response.getHeaders().getETag()).isEqualTo(etag);
+            assertThat(response.getBody()).isNotEmpty();
+        }
+
+        @Test
+        @DisplayName("Different session content → different ETag")
+        void etagFollowsContent() {
+            SessionPayload representative = sessionPayloads.render(user);
+            SessionPayload self = sessionPayloads.render(SessionFixtures.oidcUser(SessionFixtures.selfSessionInfo()));
+
+            assertThat(representative.etag()).isNotEqualTo(self.etag());
+            assertThat(sessionPayloads.render(user).etag()).isEqualTo(representative.etag());
+        }
+
+        @Test
+        @DisplayName("No principal → unauthenticated payload, session untouched")
+        void unauthenticated() {
+            ResponseEntity<byte[]> response = controller.getSession(null, exchange(null)).block();
+
+            assertThat(new String(response.getBody())).isEqualTo(
+                    "{\"authenticated\":false,\"user\":null,\"sessionInfo\":null}");
+            assertThat(session.getAttributes()).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Conditional requests")
+    class Conditional {
+
+        @Test
+        @DisplayName("If-None-Match with current ETag → 304, no body")
+        void matchingEtag_notModified() {
+            String etag = sessionPayloads.store(session, user).etag();
+            MockServerWebExchange exchange = exchange(etag);
+
+            ResponseEntity<byte[]> response = controller.getSession(user, exchange).block();
+
+            assertThat(response).isNull();
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            assertThat(exchange.getResponse().getHeaders().getETag()).isEqualTo(etag);
+        }
+
+        @Test
+        @DisplayName("If-None-Match equal to the session's ETag → 304 without looking up the payload")
+        void sessionEtag_noLookup() {
+            session.getAttributes().put(SessionPayloads.ETAG_ATTRIBUTE, "\"recorded\"");
+            MockServerWebExchange exchange = exchange("\"recorded\"");
+
+            controller.getSession(user, exchange).block();
+
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            assertThat((String) session.getAttribute(SessionPayloads.ETAG_ATTRIBUTE)).isEqualTo("\"recorded\"");
+        }
+
+        @Test
+        @DisplayName("If-None-Match with an old ETag → 200 with the current payload")
+        void staleEtag_ok() {
+            sessionPayloads.store(session, user);
+            MockServerWebExchange exchange = exchange("\"previous\"");
+
+            ResponseEntity<byte[]> response = controller.getSession(user, exchange).block();
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(exchange.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.NOT_MODIFIED);
+            assertThat(response.getHeaders().getFirst(HttpHeaders.ETAG)).isNotEqualTo("\"previous\"");
+        }
+    }
+
+    @Nested
+    @DisplayName("Session events")
+    class Events {
+
+        @Test
+        @DisplayName("Stream opens with the current payload; a re-rendered principal is pushed")
+        void streamFollowsPayload() {
+            SessionPayload initial = sessionPayloads.store(session, user);
+            EnrichedOidcUser changed = SessionFixtures.oidcUser(SessionFixtures.selfSessionInfo());
+
+            StepVerifier.create(controller.sessionEvents(user, exchange(null)))
+                    .assertNext(event -> {
+                        assertThat(event.event()).isEqualTo(SessionEvents.SESSION_UPDATED);
+                        assertThat(event.id()).isEqualTo(initial.etag());
+                    })
+                    .then(() -> sessionPayloads.store(session, changed))
+                    .assertNext(event -> assertThat(event.id()).isEqualTo(sessionPayloads.render(changed).etag()))
+                    .then(() -> sessionEvents.publishLoggedOut(session.getId()))
+                    .expectNextMatches(event -> SessionEvents.LOGGED_OUT.equals(event.event()))
+                    .verifyComplete();
+        }
+    }
+}
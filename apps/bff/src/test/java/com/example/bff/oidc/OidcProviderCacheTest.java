@@ -0,0 +1,270 @@
+package com.example.bff.oidc;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Tests for {@link OidcProviderCache} and {@link CachedJwksIdTokenDecoderFactory}.
+ */
+class OidcProviderCacheTest {
+
+    private static final String ISSUER = "https://idp.example.com";
+    private static final String JWKS_URI = ISSUER + "/oidc/jwks";
+
+    private static RSAKey key1;
+    private static RSAKey key2;
+
+    @TempDir
+    Path tempDir;
+
+    private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    private final AtomicInteger discoveryFetches = new AtomicInteger();
+    private final AtomicInteger jwksFetches = new AtomicInteger();
+    private final AtomicReference<JWKSet> published = new AtomicReference<>();
+    private OidcProviderCache cache;
+
+    @BeforeAll
+    static void generateKeys() throws JOSEException {
+        key1 = new RSAKeyGenerator(2048).keyID("k1").generate();
+        key2 = new RSAKeyGenerator(2048).keyID("k2").generate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (cache != null) {
+            cache.destroy();
+        }
+        scheduler.dispose();
+    }
+
+    private OidcProviderCache start(Path snapshot, boolean idpReachable) {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    if (!idpReachable) {
+                        return Mono.error(new IllegalStateException("IdP unreachable"));
+                    }
+                    String body;
+                    if (request.url().toString().equals(JWKS_URI)) {
+                        jwksFetches.incrementAndGet();
+                        body = published.get().toString(true);
+                    } else {
+                        discoveryFetches.incrementAndGet();
+                        body = "{\"issuer\":\"" + ISSUER + "\",\"end_session_endpoint\":\"" + ISSUER + "/logout\"}";
+                    }
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(body)
+                            .build());
+                })
+                .build();
+        cache = new OidcProviderCache("hsid", ISSUER, JWKS_URI, webClient,
+                new OidcCacheProperties("hsid", snapshot, Duration.ofHours(1), Duration.ofSeconds(30), Duration.ofSeconds(5)),
+                scheduler);
+        cache.afterPropertiesSet();
+        return cache;
+    }
+
+    private static String idToken(RSAKey key) throws JOSEException {
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+                new JWTClaimsSet.Builder()
+                        .issuer(ISSUER)
+                        .subject("hsid-uuid-1")
+                        .audience("bff-client")
+                        .issueTime(new Date())
+                        .expirationTime(Date.from(Instant.now().plusSeconds(300)))
+                        .build());
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+
+    private ReactiveJwtDecoder decoder() {
+        ClientRegistration registration = ClientRegistration.withRegistrationId("hsid")
+                .clientId("bff-client")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+                .authorizationUri(ISSUER + "/oidc/authorize")
+                .tokenUri(ISSUER + "/oidc/token")
+                .jwkSetUri(JWKS_URI)
+                .issuerUri(ISSUER)
+                .build();
+        return new CachedJwksIdTokenDecoderFactory(cache).createDecoder(registration);
+    }
+
+    @Nested
+    @DisplayName("Refresh and rotation")
+    class Refresh {
+
+        @Test
+        @DisplayName("Startup → discovery and JWKS fetched in the background, token verified")
+        void startup_fetchAndVerify() throws JOSEException {
+            published.set(new JWKSet(key1.toPublicJWK()));
+            start(null, true);
+
+            StepVerifier.create(decoder().decode(idToken(key1)))
+                    .assertNext(jwt -> assertThat(jwt.getSubject()).isEqualTo("hsid-uuid-1"))
+                    .verifyComplete();
+            assertThat(jwksFetches.get()).isEqualTo(1);
+            assertThat(cache.getProviderMetadata()).containsEntry("end_session_endpoint", ISSUER + "/logout");
+        }
+
+        @Test
+        @DisplayName("Unknown kid → one JWKS refetch, further unknown kids rate-limited")
+        void unknownKid_refetchRateLimited() throws JOSEException {
+            published.set(new JWKSet(key1.toPublicJWK()));
+            start(null, true);
+            published.set(new JWKSet(List.of(key1.toPublicJWK(), key2.toPublicJWK())));
+            scheduler.advanceTimeBy(Duration.ofSeconds(31));
+
+            StepVerifier.create(decoder().decode(idToken(key2)))
+                    .expectNextCount(1)
+                    .verifyComplete();
+            assertThat(jwksFetches.get()).isEqualTo(2);
+
+            RSAKey unknown = new RSAKeyGenerator(2048).keyID("k3").generate();
+            StepVerifier.create(decoder().decode(idToken(unknown)))
+                    .expectError(BadJwtException.class)
+                    .verify();
+            assertThat(jwksFetches.get()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Signed with a different key under a known kid → rejected")
+        void wrongKey_rejected() throws JOSEException {
+            published.set(new JWKSet(key1.toPublicJWK()));
+            start(null, true);
+            RSAKey impostor = new RSAKeyGenerator(2048).keyID("k1").generate();
+
+            StepVerifier.create(decoder().decode(idToken(impostor)))
+                    .expectError(BadJwtException.class)
+                    .verify();
+        }
+
+        @Test
+        @DisplayName("ID token for another audience → validation error")
+        void wrongAudience_rejected() throws JOSEException {
+            published.set(new JWKSet(key1.toPublicJWK()));
+            start(null, true);
+            ClientRegistration other = ClientRegistration.withRegistrationId("hsid")
+                    .clientId("someone-else")
+                    .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                    .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+                    .authorizationUri(ISSUER + "/oidc/authorize")
+                    .tokenUri(ISSUER + "/oidc/token")
+                    .issuerUri(ISSUER)
+                    .build();
+
+            StepVerifier.create(new CachedJwksIdTokenDecoderFactory(cache).createDecoder(other).decode(idToken(key1)))
+                    .expectError(JwtValidationException.class)
+                    .verify();
+        }
+    }
+
+    @Nested
+    @DisplayName("Snapshot")
+    class Snapshot {
+
+        @Test
+        @DisplayName("Snapshot from a previous run → tokens verified with the IdP unreachable")
+        void snapshot_restoredOffline() throws JOSEException {
+            Path snapshot = tempDir.resolve("oidc/hsid.json");
+            published.set(new JWKSet(key1.toPublicJWK()));
+            start(snapshot, true);
+            await().atMost(Duration.ofSeconds(5)).until(() -> Files.exists(snapshot)
+                    && Files.readString(snapshot).contains("end_session_endpoint")
+                    && Files.readString(snapshot).contains("\"k1\""));
+            cache.destroy();
+
+            start(snapshot, false);
+
+            StepVerifier.create(decoder().decode(idToken(key1)))
+                    .expectNextCount(1)
+                    .verifyComplete();
+            assertThat(cache.getProviderMetadata()).containsEntry("issuer", ISSUER);
+        }
+
+        @Test
+        @DisplayName("Snapshot for a different issuer → ignored")
+        void otherIssuer_ignored() throws Exception {
+            Path snapshot = tempDir.resolve("hsid.json");
+            Files.writeString(snapshot, "{\"issuer\":\"https://other.example.com\",\"providerMetadata\":{\"issuer\":"
+                    + "\"https://other.example.com\"},\"jwks\":" + new JWKSet(key1.toPublicJWK()).toString(true) + "}");
+
+            start(snapshot, false);
+
+            assertThat(cache.getProviderMetadata()).isEmpty();
+            StepVerifier.create(decoder().decode(idToken(key1)))
+                    .expectError(BadJwtException.class)
+                    .verify();
+        }
+
+        @Test
+        @DisplayName("Snapshot writable by others → ignored")
+        void writableByOthers_ignored() throws Exception {
+            Path snapshot = tempDir.resolve("hsid.json");
+            Files.writeString(snapshot, "{\"issuer\":\"" + ISSUER + "\",\"jwks\":"
+                    + new JWKSet(key1.toPublicJWK()).toString(true) + "}");
+            Files.setPosixFilePermissions(snapshot, PosixFilePermissions.fromString("rw-rw-rw-"));
+
+            start(snapshot, false);
+
+            StepVerifier.create(decoder().decode(idToken(key1)))
+                    .expectError(BadJwtException.class)
+                    .verify();
+        }
+
+        @Test
+        @DisplayName("Snapshot written → owner-only file and directory")
+        void written_ownerOnly() throws Exception {
+            Path snapshot = tempDir.resolve("oidc/hsid.json");
+            published.set(new JWKSet(key1.toPublicJWK()));
+
+            start(snapshot, true);
+            await().atMost(Duration.ofSeconds(5)).until(() -> Files.exists(snapshot));
+
+            assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(snapshot))).isEqualTo("rw-------");
+            assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(snapshot.getParent())))
+                    .isEqualTo("rwx------");
+            assertThat(OidcProviderCache.untrustedReason(snapshot)).isNull();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.bff.proxy;
+
+import com.example.bff.security.DelegateAuthorizationManager;
+import com.example.bff.support.SessionFixtures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link DashboardAggregator} fan-out, partial results and NDJSON encoding.
+ */
+class DashboardAggregatorTest {
+
+    private final Map<String, Function<ClientRequest, Mono<ClientResponse>>> downstreams = new LinkedHashMap<>();
+    private DownstreamProxy proxy;
+
+    @BeforeEach
+    void setUp() {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> downstreams.get(request.url().getPath().split("/")[1]).apply(request))
+                .build();
+        Map<String, ProxyProperties.Route> routes = new LinkedHashMap<>();
+        for (String route : new String[] {"profile", "summary", "documents"}) {
+            routes.put(route, new ProxyProperties.Route("https://downstream.example.com/" + route, Duration.ofSeconds(5), false, null));
+        }
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        proxy = new DownstreamProxy(webClient, new ProxyProperties(routes),
+                new DelegateAuthorizationManager(Clock.systemUTC()),
+                new ResponseCache(new ResponseCacheProperties(Duration.ofSeconds(60), Duration.ofMinutes(30),
+                        DataSize.ofMegabytes(1), DataSize.ofKilobytes(256)), meterRegistry),
+                meterRegistry);
+    }
+
+    private DashboardAggregator aggregator(String... routes) {
+        Map<String, DashboardProperties.Section> sections = new LinkedHashMap<>();
+        for (String route : routes) {
+            sections.put(route, new DashboardProperties.Section(route, Duration.ofMillis(200)));
+        }
+        return new DashboardAggregator(proxy, new DashboardProperties(sections, DataSize.ofKilobytes(1)));
+    }
+
+    private static ClientResponse json(String body) {
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .body(body)
+                .build();
+    }
+
+    private static MockServerWebExchange exchange() {
+        return MockServerWebExchange.builder(MockServerHttpRequest.get("/api/dashboard"))
+                .principal(SessionFixtures.securityContext(SessionFixtures.selfSessionInfo()).getAuthentication())
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Fan-out")
+    class FanOut {
+
+        @Test
+        @DisplayName("Sections → emitted in completion order, not configuration order")
+        void completionOrder() {
+            downstreams.put("profile", request -> Mono.just(json("{\"name\":\"Pat\"}")).delayElement(Duration.ofMillis(80)));
+            downstreams.put("summary", request -> Mono.just(json("{\"visits\":3}")));
+
+            StepVerifier.create(aggregator("profile", "summary").load(exchange()))
+                    .assertNext(section -> assertThat(section.section()).isEqualTo("summary"))
+                    .assertNext(section -> {
+                        assertThat(section.section()).isEqualTo("profile");
+                        assertThat(section.status()).isEqualTo(DashboardSection.OK);
+                        assertThat(section.data()).isEqualTo("{\"name\":\"Pat\"}");
+                    })
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Sections → called concurrently, total time ≈ slowest section")
+        void concurrent() {
+            downstreams.put("profile", request -> Mono.just(json("{}")).delayElement(Duration.ofMillis(150)));
+            downstreams.put("summary", request -> Mono.just(json("{}")).delayElement(Duration.ofMillis(150)));
+            downstreams.put("documents", request -> Mono.just(json("{}")).delayElement(Duration.ofMillis(150)));
+
+            Duration elapsed = StepVerifier.create(aggregator("profile", "summary", "documents").load(exchange()))
+                    .expectNextCount(3)
+                    .verifyComplete();
+
+            assertThat(elapsed).isLessThan(Duration.ofMillis(400));
+        }
+    }
+
+    @Nested
+    @DisplayName("Partial results")
+    class PartialResults {
+
+        @Test
+        @DisplayName("Slow, failing and oversized sections → reported per section, stream completes")
+        void partial() {
+            downstreams.put("profile", request -> Mono.just(json("{\"name\":\"Pat\"}")));
+            downstreams.put("summary", request -> Mono.never());
+            downstreams.put("documents", request -> Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build()));
+
+            Map<String, DashboardSection> sections = new LinkedHashMap<>();
+            aggregator("profile", "summary", "documents").load(exchange())
+                    .doOnNext(section -> sections.put(section.section(), section))
+                    .blockLast(Duration.ofSeconds(5));
+
+            assertThat(sections.get("profile").status()).isEqualTo(DashboardSection.OK);
+            assertThat(sections.get("summary").status()).isEqualTo(DashboardSection.TIMEOUT);
+            assertThat(sections.get("summary").elapsedMs()).isGreaterThanOrEqualTo(200);
+            assertThat(sections.get("documents").status()).isEqualTo(DashboardSection.ERROR);
+            assertThat(sections.get("documents").httpStatus()).isEqualTo(503);
+        }
+
+        @Test
+        @DisplayName("Body over max-section-size or not JSON → error")
+        void oversizedOrNotJson() {
+            downstreams.put("profile", request -> Mono.just(json("{\"blob\":\"" + "x".repeat(2048) + "\"}")));
+            downstreams.put("summary", request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, "text/html")
+                    .body("<html></html>")
+                    .build()));
+
+            StepVerifier.create(aggregator("profile", "summary").load(exchange()).map(DashboardSection::status))
+                    .expectNext(DashboardSection.ERROR, DashboardSection.ERROR)
+                    .verifyComplete();
+        }
+    }
+
+    @Nested
+    @DisplayName("Encoding")
+    class Encoding {
+
+        @Test
+        @DisplayName("Truncated, multi-value or key-injecting JSON body → error, never embedded")
+        void malformedJson_error() {
+            downstreams.put("profile", request -> Mono.just(json("{\"name\":\"Pat\"")));
+            downstreams.put("summary", request -> Mono.just(json("{\"a\":1} {\"b\":2}")));
+            downstreams.put("documents", request -> Mono.just(json("1,\"status\":\"ok\"")));
+
+            StepVerifier.create(aggregator("profile", "summary", "documents").load(exchange()))
+                    .thenConsumeWhile(section -> {
+                        assertThat(section.status()).isEqualTo(DashboardSection.ERROR);
+                        assertThat(section.data()).isNull();
+                        return true;
+                    })
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Single JSON value check → scalars and whitespace accepted, bad strings rejected")
+        void singleJsonValue() {
+            assertThat(DashboardAggregator.isSingleJsonValue(" [1, {\"a\": null}] \n")).isTrue();
+            assertThat(DashboardAggregator.isSingleJsonValue("42")).isTrue();
+            assertThat(DashboardAggregator.isSingleJsonValue("\"text\"")).isTrue();
+            assertThat(DashboardAggregator.isSingleJsonValue("")).isFalse();
+            assertThat(DashboardAggregator.isSingleJsonValue("{\"a\":1}}")).isFalse();
+            assertThat(DashboardAggregator.isSingleJsonValue("{\"a\":\"\\q\"}")).isFalse();
+            assertThat(DashboardAggregator.isSingleJsonValue("{\"a\":\"\u0001\"}")).isFalse();
+        }
+
+        @Test
+        @DisplayName("Pretty-printed section → embedded raw on a single NDJSON line")
+        void rawSingleLine() throws Exception {
+            downstreams.put("profile", request -> Mono.just(json("{\n  \"name\": \"Pat\",\r\n  \"note\": \"a\\nb\"\n}")));
+
+            DashboardSection section = aggregator("profile").load(exchange()).blockFirst();
+            String line = JsonMapper.builder().build().writeValueAsString(section);
+
+            assertThat(line).doesNotContain("\n").doesNotContain("\r");
+            assertThat(line).startsWith("{\"section\":\"profile\",\"status\":\"ok\",\"httpStatus\":200,\"data\":{");
+            assertThat(JsonMapper.builder().build().readTree(line).at("/data/note").asString()).isEqualTo("a\nb");
+        }
+
+        @Test
+        @DisplayName("Failed section → no data field")
+        void failedSection_noData() throws Exception {
+            String line = JsonMapper.builder().build()
+                    .writeValueAsString(new DashboardSection("profile", DashboardSection.TIMEOUT, null, null, 1500));
+
+            assertThat(line).isEqualTo("{\"section\":\"profile\",\"status\":\"timeout\",\"elapsedMs\":1500}");
+        }
+    }
+
+    @Test
+    @DisplayName("Section naming an unknown proxy route → rejected at startup")
+    void unknownRoute() {
+        assertThatThrownBy(() -> new DashboardAggregator(proxy, new DashboardProperties(
+                Map.of("care-team", new DashboardProperties.Section("care-team", Duration.ofSeconds(1))),
+                DataSize.ofKilobytes(256))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("app.dashboard.sections.care-team.route");
+    }
+}
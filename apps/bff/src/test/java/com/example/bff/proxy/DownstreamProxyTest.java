@@ -0,0 +1,460 @@
+package com.example.bff.proxy;
+
+import com.example.bff.model.DelegatePermission;
+import com.example.bff.model.SessionInfo;
+import com.example.bff.security.DelegateAccessDeniedException;
+import com.example.bff.security.DelegateAuthorizationManager;
+import com.example.bff.support.SessionFixtures;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link DownstreamProxy} user ID resolution, streaming, caching and error mapping.
+ */
+class DownstreamProxyTest {
+
+    private static final String ENTERPRISE_ID = "ENT-100200300";
+
+    private final List<ClientRequest> requests = new ArrayList<>();
+    private final AtomicLong nanos = new AtomicLong();
+    private Function<ClientRequest, Mono<ClientResponse>> downstream;
+    private SimpleMeterRegistry meterRegistry;
+    private ResponseCache responseCache;
+    private DownstreamProxy proxy;
+
+    @BeforeEach
+    void setUp() {
+        downstream = request -> Mono.just(ok("{\"name\":\"Pat\"}"));
+        meterRegistry = new SimpleMeterRegistry();
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requests.add(request);
+                    return downstream.apply(request);
+                })
+                .build();
+        responseCache = new ResponseCache(
+                new ResponseCacheProperties(Duration.ofSeconds(60), Duration.ofMinutes(30),
+                        DataSize.ofMegabytes(1), DataSize.ofKilobytes(1)),
+                meterRegistry,
+                nanos::get);
+        proxy = new DownstreamProxy(
+                webClient,
+                new ProxyProperties(Map.of(
+                        "profile", new ProxyProperties.Route("https://user-service.example.com/profile", Duration.ofSeconds(5), false, null),
+                        "summary", new ProxyProperties.Route("https://user-service.example.com/summary/", Duration.ofMillis(100), false, null),
+                        "documents", new ProxyProperties.Route("https://user-service.example.com/documents", Duration.ofSeconds(5), true, null))),
+                new DelegateAuthorizationManager(Clock.fixed(Instant.parse("2026-06-01T12:00:00Z"), ZoneOffset.UTC)),
+                responseCache,
+                meterRegistry);
+    }
+
+    private static ClientResponse ok(String body) {
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .header(HttpHeaders.ETAG, "\"v1\"")
+                .header("X-Internal-Trace", "hidden")
+                .body(body)
+                .build();
+    }
+
+    private static Authentication self() {
+        return SessionFixtures.securityContext(SessionFixtures.selfSessionInfo()).getAuthentication();
+    }
+
+    /** Representative with an active ROI for M1 and an expired HIPAA for M2. */
+    private static Authentication representative() {
+        SessionInfo base = SessionFixtures.representativeSessionInfo(0);
+        return SessionFixtures.securityContext(new SessionInfo(
+                base.enterpriseId(), base.hsidUuid(), base.sessionStartTime(), base.sessionEndTime(), base.persona(),
+                Map.of("M1", List.of(new DelegatePermission("ROI", "2026-01-01", null)),
+                        "M2", List.of(new DelegatePermission("HIPAA", "2020-01-01", "2025-12-31")))))
+                .getAuthentication();
+    }
+
+    private static MockServerWebExchange exchange(String path, Authentication authentication) {
+        return MockServerWebExchange.builder(MockServerHttpRequest.get(path)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"v0\"")
+                        .header(HttpHeaders.COOKIE, "SESSION=abc"))
+                .principal(authentication)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("User ID resolution")
+    class UserIdResolution {
+
+        @Test
+        @DisplayName("me → session enterprise ID")
+        void me_resolved() {
+            proxy.forward("profile", "me", exchange("/api/profile/me", self())).block();
+
+            assertThat(requests).singleElement()
+                    .satisfies(request -> assertThat(request.url().toString())
+                            .isEqualTo("https://user-service.example.com/profile/" + ENTERPRISE_ID));
+        }
+
+        @Test
+        @DisplayName("Own enterprise ID → forwarded")
+        void ownId_forwarded() {
+            proxy.forward("summary", ENTERPRISE_ID, exchange("/api/summary/" + ENTERPRISE_ID, self())).block();
+
+            assertThat(requests).singleElement()
+                    .satisfies(request -> assertThat(request.url().getPath()).isEqualTo("/summary/" + ENTERPRISE_ID));
+        }
+
+        @Test
+        @DisplayName("Member with an active delegate permission → forwarded")
+        void activeDelegate_forwarded() {
+            proxy.forward("profile", "M1", exchange("/api/profile/M1", representative())).block();
+
+            assertThat(requests).singleElement()
+                    .satisfies(request -> assertThat(request.url().getPath()).isEqualTo("/profile/M1"));
+        }
+
+        @Test
+        @DisplayName("Expired delegate or other user → 403, nothing sent downstream")
+        void otherUser_denied() {
+            StepVerifier.create(proxy.forward("profile", "M2", exchange("/api/profile/M2", representative())))
+                    .expectError(DelegateAccessDeniedException.class)
+                    .verify();
+            StepVerifier.create(proxy.forward("profile", "ENT-999", exchange("/api/profile/ENT-999", self())))
+                    .expectError(DelegateAccessDeniedException.class)
+                    .verify();
+
+            assertThat(requests).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Relaying")
+    class Relaying {
+
+        @Test
+        @DisplayName("Body, status and allowed headers → relayed; internal headers dropped")
+        void relayed() {
+            MockServerWebExchange exchange = exchange("/api/profile/me", self());
+
+            proxy.forward("profile", "me", exchange).block();
+
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.ETAG)).isEqualTo("\"v1\"");
+            assertThat(exchange.getResponse().getHeaders().containsHeader("X-Internal-Trace")).isFalse();
+            assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("{\"name\":\"Pat\"}");
+        }
+
+        @Test
+        @DisplayName("Conditional headers forwarded, cookies not")
+        void requestHeaders() {
+            proxy.forward("profile", "me", exchange("/api/profile/me", self())).block();
+
+            HttpHeaders sent = requests.getFirst().headers();
+            assertThat(sent.getFirst(HttpHeaders.IF_NONE_MATCH)).isEqualTo("\"v0\"");
+            assertThat(sent.containsHeader(HttpHeaders.COOKIE)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Large body in many chunks → streamed through and counted")
+        void largeBody_streamed() {
+            byte[] chunk = new byte[8192];
+            downstream = request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .body(Flux.range(0, 512).map(i -> (DataBuffer) DefaultDataBufferFactory.sharedInstance.wrap(chunk)))
+                    .build());
+            MockServerWebExchange exchange = exchange("/api/profile/me", self());
+
+            proxy.forward("profile", "me", exchange).block();
+
+            long received = exchange.getResponse().getBody()
+                    .map(DataBuffer::readableByteCount)
+                    .reduce(0L, Long::sum)
+                    .block();
+            assertThat(received).isEqualTo(512L * 8192);
+            DistributionSummary bytes = meterRegistry.get(DownstreamProxy.BYTES_METRIC).tag("route", "profile").summary();
+            assertThat(bytes.totalAmount()).isEqualTo(512.0 * 8192);
+        }
+
+        @Test
+        @DisplayName("Downstream 404 → relayed as 404")
+        void notFound_relayed() {
+            downstream = request -> Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build());
+            MockServerWebExchange exchange = exchange("/api/profile/me", self());
+
+            proxy.forward("profile", "me", exchange).block();
+
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+            assertThat(meterRegistry.get(DownstreamProxy.REQUEST_METRIC).tags("route", "profile", "outcome", "4xx")
+                    .timer().count()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Caching")
+    class Caching {
+
+        private MockServerWebExchange documents(Authentication authentication, String ifNoneMatch) {
+            MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/documents/me");
+            if (ifNoneMatch != null) {
+                request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+            }
+            return MockServerWebExchange.builder(request).principal(authentication).build();
+        }
+
+        private MockServerWebExchange get(String ifNoneMatch) {
+            MockServerWebExchange exchange = documents(self(), ifNoneMatch);
+            proxy.forward("documents", "me", exchange).block();
+            return exchange;
+        }
+
+        private double count(String result) {
+            return meterRegistry.get(ResponseCache.REQUEST_METRIC).tags("route", "documents", "result", result)
+                    .counter().count();
+        }
+
+        @Test
+        @DisplayName("Repeat within TTL → served from cache, no downstream call")
+        void withinTtl_hit() {
+            get(null);
+            MockServerWebExchange second = get(null);
+
+            assertThat(requests).hasSize(1);
+            assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(second.getResponse().getHeaders().getFirst(HttpHeaders.ETAG)).isEqualTo("\"v1\"");
+            assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("{\"name\":\"Pat\"}");
+            assertThat(count(ResponseCache.MISS)).isEqualTo(1);
+            assertThat(count(ResponseCache.HIT)).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Browser If-None-Match on a cached ETag → 304 without a body")
+        void browserValidator_notModified() {
+            get(null);
+            MockServerWebExchange second = get("W/\"v1\"");
+
+            assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            assertThat(second.getResponse().getHeaders().getFirst(HttpHeaders.ETAG)).isEqualTo("\"v1\"");
+            assertThat(second.getResponse().getBodyAsString().block()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Stale entry → revalidated with stored ETag; downstream 304 serves cached body")
+        void stale_revalidated() {
+            get(null);
+            nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+            downstream = request -> Mono.just(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+
+            MockServerWebExchange second = get(null);
+
+            assertThat(requests).hasSize(2);
+            assertThat(requests.getLast().headers().getFirst(HttpHeaders.IF_NONE_MATCH)).isEqualTo("\"v1\"");
+            assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("{\"name\":\"Pat\"}");
+            assertThat(count(ResponseCache.REVALIDATED)).isEqualTo(1);
+
+            get(null);
+            assertThat(requests).as("revalidation restarts the TTL").hasSize(2);
+        }
+
+        @Test
+        @DisplayName("Miss → browser validators not forwarded, so the body can be cached")
+        void miss_browserValidatorsDropped() {
+            MockServerWebExchange first = get("\"v1\"");
+
+            assertThat(requests.getFirst().headers().containsHeader(HttpHeaders.IF_NONE_MATCH)).isFalse();
+            assertThat(first.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            assertThat(responseCache.get(ENTERPRISE_ID, "documents", ENTERPRISE_ID)).isNotNull();
+        }
+
+        @Test
+        @DisplayName("no-store, error status or body over maximum-entry-size → relayed, not cached")
+        void notStorable() {
+            downstream = request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CACHE_CONTROL, "private, no-store")
+                    .body("{}")
+                    .build());
+            get(null);
+            downstream = request -> Mono.just(ok("{\"blob\":\"" + "x".repeat(2048) + "\"}"));
+            MockServerWebExchange large = get(null);
+            downstream = request -> Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+            get(null);
+
+            assertThat(large.getResponse().getBodyAsString().block()).hasSize(2048 + 11);
+            assertThat(responseCache.get(ENTERPRISE_ID, "documents", ENTERPRISE_ID)).isNull();
+            assertThat(requests).hasSize(3);
+        }
+
+        @Test
+        @DisplayName("Representative viewing a member → cached per member, separate from their own entry")
+        void perOwner() {
+            get(null);
+            MockServerWebExchange delegate = documents(representative(), null);
+            proxy.forward("documents", "M1", delegate).block();
+            proxy.forward("documents", "M1", documents(representative(), null)).block();
+
+            assertThat(requests).hasSize(2);
+            assertThat(requests.getLast().url().getPath()).isEqualTo("/documents/M1");
+        }
+
+        @Test
+        @DisplayName("Uncached route → browser validators forwarded, nothing stored")
+        void uncachedRoute() {
+            proxy.forward("profile", "me", exchange("/api/profile/me", self())).block();
+
+            assertThat(requests.getFirst().headers().getFirst(HttpHeaders.IF_NONE_MATCH)).isEqualTo("\"v0\"");
+            assertThat(responseCache.get(ENTERPRISE_ID, "profile", ENTERPRISE_ID)).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Failures")
+    class Failures {
+
+        @Test
+        @DisplayName("Downstream 401 (service token rejected) → 502")
+        void unauthorized_badGateway() {
+            downstream = request -> Mono.just(ClientResponse.create(HttpStatus.UNAUTHORIZED)
+                    .body("token expired")
+                    .build());
+
+            StepVerifier.create(proxy.forward("profile", "me", exchange("/api/profile/me", self())))
+                    .expectErrorSatisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode())
+                            .isEqualTo(HttpStatus.BAD_GATEWAY))
+                    .verify();
+        }
+
+        @Test
+        @DisplayName("No response within the route timeout → 504")
+        void slowDownstream_gatewayTimeout() {
+            downstream = request -> Mono.never();
+
+            StepVerifier.create(proxy.forward("summary", "me", exchange("/api/summary/me", self())))
+                    .expectErrorSatisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode())
+                            .isEqualTo(HttpStatus.GATEWAY_TIMEOUT))
+                    .verify(Duration.ofSeconds(5));
+            assertThat(meterRegistry.get(DownstreamProxy.REQUEST_METRIC).tags("route", "summary", "outcome", "timeout")
+                    .timer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Route without base-url → rejected at startup")
+        void missingBaseUrl() {
+            assertThatThrownBy(() -> new DownstreamProxy(
+                            WebClient.create(),
+                            new ProxyProperties(Map.of("profile", new ProxyProperties.Route(null, Duration.ofSeconds(5), false, null))),
+                            new DelegateAuthorizationManager(Clock.systemUTC()),
+                            responseCache,
+                            meterRegistry))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("app.proxy.routes.profile.base-url");
+        }
+    }
+
+    @Nested
+    @DisplayName("Client response timeout")
+    class ClientResponseTimeout {
+
+        /** Answers after 3s, past the downstream client's 2s responseTimeout. */
+        private DisposableServer server;
+        private DownstreamProxy slowProxy;
+
+        @BeforeEach
+        void start() {
+            server = HttpServer.create()
+                    .port(0)
+                    .route(routes -> routes.get("/{route}/{id}", (request, response) -> Mono.delay(Duration.ofSeconds(3))
+                            .then(response.header(HttpHeaders.CONTENT_TYPE, "application/json")
+                                    .sendString(Mono.just("{\"name\":\"Pat\"}"))
+                                    .then())))
+                    .bindNow();
+            String baseUrl = "http://localhost:" + server.port();
+            slowProxy = new DownstreamProxy(
+                    WebClient.builder()
+                            .clientConnector(new ReactorClientHttpConnector(HttpClient.create().responseTimeout(Duration.ofSeconds(2))))
+                            .build(),
+                    new ProxyProperties(Map.of(
+                            "profile", new ProxyProperties.Route(baseUrl + "/profile", Duration.ofSeconds(5), false, null),
+                            "summary", new ProxyProperties.Route(baseUrl + "/summary", Duration.ofSeconds(1), false, null))),
+                    new DelegateAuthorizationManager(Clock.systemUTC()),
+                    responseCache,
+                    meterRegistry);
+        }
+
+        @AfterEach
+        void stop() {
+            server.disposeNow();
+        }
+
+        @Test
+        @DisplayName("3s downstream on a 5s route → relayed despite the client's 2s responseTimeout")
+        void routeTimeout_replacesClientTimeout() {
+            MockServerWebExchange exchange = exchange("/api/profile/me", self());
+
+            slowProxy.forward("profile", "me", exchange).block(Duration.ofSeconds(10));
+
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("{\"name\":\"Pat\"}");
+        }
+
+        @Test
+        @DisplayName("3s downstream on a 1s route → 504")
+        void routeTimeout_gatewayTimeout() {
+            StepVerifier.create(slowProxy.forward("summary", "me", exchange("/api/summary/me", self())))
+                    .expectErrorSatisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode())
+                            .isEqualTo(HttpStatus.GATEWAY_TIMEOUT))
+                    .verify(Duration.ofSeconds(5));
+            assertThat(meterRegistry.get(DownstreamProxy.REQUEST_METRIC).tags("route", "summary", "outcome", "timeout")
+                    .timer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Read timeout wrapped by WebClient → counted as a timeout")
+        void readTimeout_isTimeout() {
+            ClientRequest request = ClientRequest.create(HttpMethod.GET,
+                    URI.create("http://localhost/profile")).build();
+
+            assertThat(DownstreamProxy.isTimeout(new WebClientRequestException(ReadTimeoutException.INSTANCE,
+                    request.method(), request.url(), request.headers()))).isTrue();
+            assertThat(DownstreamProxy.isTimeout(new IllegalStateException("refused"))).isFalse();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.bff.proxy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ResponseCache} freshness, eviction and size bounds.
+ */
+class ResponseCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private ResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ResponseCache(
+                new ResponseCacheProperties(Duration.ofSeconds(60), Duration.ofMinutes(30),
+                        DataSize.ofKilobytes(8), DataSize.ofKilobytes(2)),
+                meterRegistry,
+                nanos::get);
+    }
+
+    private static HttpHeaders etag(String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        return headers;
+    }
+
+    @Test
+    @DisplayName("Entry within TTL → fresh; after TTL → stale but kept for revalidation")
+    void freshness() {
+        cache.put("ENT1", "profile", "ENT1", etag("\"v1\""), new byte[10]);
+        assertThat(cache.isFresh(cache.get("ENT1", "profile", "ENT1"))).isTrue();
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        ResponseCache.CachedResponse stale = cache.get("ENT1", "profile", "ENT1");
+        assertThat(stale.etag()).isEqualTo("\"v1\"");
+        assertThat(cache.isFresh(stale)).isFalse();
+
+        assertThat(cache.isFresh(cache.revalidated("ENT1", "profile", "ENT1", stale))).isTrue();
+    }
+
+    @Test
+    @DisplayName("evict(owner) → every route and member cached for that user dropped")
+    void evict_dropsOwner() {
+        cache.put("ENT1", "profile", "ENT1", etag("\"a\""), new byte[10]);
+        cache.put("ENT1", "summary", "M1", etag("\"b\""), new byte[10]);
+        cache.put("ENT2", "profile", "ENT2", etag("\"c\""), new byte[10]);
+
+        cache.evict("ENT1");
+
+        assertThat(cache.get("ENT1", "profile", "ENT1")).isNull();
+        assertThat(cache.get("ENT1", "summary", "M1")).isNull();
+        assertThat(cache.get("ENT2", "profile", "ENT2")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Body over maximum-entry-size → not stored")
+    void oversizedEntry_rejected() {
+        assertThat(cache.put("ENT1", "profile", "ENT1", etag("\"a\""), new byte[4096])).isFalse();
+        assertThat(cache.get("ENT1", "profile", "ENT1")).isNull();
+    }
+
+    @Test
+    @DisplayName("Bytes held beyond maximum-size → users evicted, size gauge bounded")
+    void maximumSize_bounded() {
+        for (int i = 0; i < 20; i++) {
+            cache.put("ENT" + i, "profile", "ENT" + i, etag("\"a\""), new byte[1024]);
+        }
+        cache.cleanUp();
+
+        double size = meterRegistry.get("bff.proxy.cache.size").gauge().value();
+        assertThat(size).isGreaterThan(0).isLessThanOrEqualTo(8192);
+        assertThat(meterRegistry.get("bff.proxy.cache.users").gauge().value()).isLessThan(20);
+    }
+
+    @Test
+    @DisplayName("If-None-Match → weak comparison, * matches, no ETag never matches")
+    void matches() {
+        assertThat(ResponseCache.matches(List.of("W/\"v1\""), "\"v1\"")).isTrue();
+        assertThat(ResponseCache.matches(List.of("\"v0\"", "\"v1\""), "W/\"v1\"")).isTrue();
+        assertThat(ResponseCache.matches(List.of("*"), "\"v1\"")).isTrue();
+        assertThat(ResponseCache.matches(List.of("\"v0\""), "\"v1\"")).isFalse();
+        assertThat(ResponseCache.matches(List.of("*"), null)).isFalse();
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.bff.routing;
+
+import com.example.bff.config.RoutingConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link RouteTable} compilation and classification, against the application's table.
+ */
+class RouteTableTest {
+
+    private final RouteTable table = new RoutingConfig().routeTable();
+
+    @Nested
+    @DisplayName("Classification")
+    class Classification {
+
+        @ParameterizedTest(name = "{0} → {1}")
+        @CsvSource({
+                "/api/auth/session, PUBLIC",
+                "/api/auth/login, PUBLIC",
+                "/api/auth/logout, BACKEND",
+                "/api/auth/session/extra, BACKEND",
+                "/api, BACKEND",
+                "/api/, BACKEND",
+                "/api/persona-test/self-only, BACKEND",
+                "/apix, FRONTEND_REDIRECT",
+                "/actuator, MANAGEMENT",
+                "/actuator/health, PUBLIC",
+                "/actuator/health/liveness, PUBLIC",
+                "/actuator/info, PUBLIC",
+                "/actuator/prometheus, MANAGEMENT",
+                "/actuator/sessions, MANAGEMENT",
+                "/login/oauth2/code/hsid, AUTH_CALLBACK",
+                "/oauth2/authorization/hsid, AUTH_CALLBACK",
+                "/login, FRONTEND_REDIRECT",
+                "/, FRONTEND_REDIRECT",
+                "/dashboard/settings, FRONTEND_REDIRECT"
+        })
+        void classify(String path, RouteType expected) {
+            assertThat(table.classify(path)).isEqualTo(expected);
+        }
+
+        @Test
+        @DisplayName("Exchange → classified once and stored as an attribute")
+        void exchangeAttribute() {
+            MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users"));
+
+            assertThat(table.classify(exchange)).isEqualTo(RouteType.BACKEND);
+            exchange.getAttributes().put(RouteTable.ROUTE_ATTRIBUTE, RouteType.PUBLIC);
+            assertThat(table.classify(exchange)).isEqualTo(RouteType.PUBLIC);
+        }
+
+        @Test
+        @DisplayName("Matcher → matches only its route type")
+        void matcher() {
+            MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users"));
+
+            ServerWebExchangeMatcher.MatchResult backend = table.matcher(RouteType.BACKEND).matches(exchange).block();
+            ServerWebExchangeMatcher.MatchResult open = table.matcher(RouteType.PUBLIC).matches(exchange).block();
+
+            assertThat(backend.isMatch()).isTrue();
+            assertThat(open.isMatch()).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Compilation")
+    class Compilation {
+
+        @Test
+        @DisplayName("Longer prefix → wins over shorter one")
+        void longestPrefix() {
+            RouteTable routes = RouteTable.builder()
+                    .route("/a/**", RouteType.BACKEND)
+                    .route("/a/b/**", RouteType.PUBLIC)
+                    .build();
+
+            assertThat(routes.classify("/a/x")).isEqualTo(RouteType.BACKEND);
+            assertThat(routes.classify("/a/b/c")).isEqualTo(RouteType.PUBLIC);
+            assertThat(routes.classify("/a/bc")).isEqualTo(RouteType.BACKEND);
+        }
+
+        @Test
+        @DisplayName("Unsupported pattern → rejected")
+        void unsupported() {
+            assertThatThrownBy(() -> RouteTable.builder().route("/api/*/x", RouteType.BACKEND))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> RouteTable.builder().route("/members/{id}", RouteType.BACKEND))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> RouteTable.builder().route("api/**", RouteType.BACKEND))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Duplicate pattern → rejected")
+        void duplicate() {
+            assertThatThrownBy(() -> RouteTable.builder()
+                    .route("/api/**", RouteType.BACKEND)
+                    .route("/api/**", RouteType.PUBLIC))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("declared twice");
+        }
+    }
+}
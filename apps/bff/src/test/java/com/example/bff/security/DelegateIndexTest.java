@@ -0,0 +1,101 @@
+package com.example.bff.security;
+
+import com.example.bff.model.DelegatePermission;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link DelegateIndex} interval parsing, merging and lookup.
+ */
+class DelegateIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 6, 1);
+
+    private static DelegateIndex index(DelegatePermission... permissions) {
+        return DelegateIndex.of(Map.of("M1", List.of(permissions)));
+    }
+
+    @Test
+    @DisplayName("Date inside the interval → active; both ends inclusive")
+    void insideInterval() {
+        DelegateIndex index = index(new DelegatePermission("ROI", "2026-01-01", "2026-06-01"));
+
+        assertThat(index.isActive("M1", "ROI", TODAY)).isTrue();
+        assertThat(index.isActive("M1", "ROI", LocalDate.of(2026, 1, 1))).isTrue();
+        assertThat(index.isActive("M1", "ROI", LocalDate.of(2025, 12, 31))).isFalse();
+        assertThat(index.isActive("M1", "ROI", LocalDate.of(2026, 6, 2))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Missing end date → open-ended")
+    void openEnded() {
+        DelegateIndex index = index(new DelegatePermission("POA", "2020-03-15", null));
+
+        assertThat(index.isActive("M1", "POA", LocalDate.of(2099, 1, 1))).isTrue();
+        assertThat(index.isActive("M1", "POA", LocalDate.of(2020, 3, 14))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Other type, other member or no member ID → inactive")
+    void wrongTypeOrMember() {
+        DelegateIndex index = index(new DelegatePermission("ROI", "2026-01-01", null));
+
+        assertThat(index.isActive("M1", "HIPAA", TODAY)).isFalse();
+        assertThat(index.isActive("M2", "ROI", TODAY)).isFalse();
+        assertThat(index.isActive(null, "ROI", TODAY)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Several types → any one active grants; empty list accepts any type")
+    void typeLists() {
+        DelegateIndex index = index(
+                new DelegatePermission("ROI", "2020-01-01", "2021-01-01"),
+                new DelegatePermission("HIPAA", "2026-01-01", null));
+
+        assertThat(index.isActive("M1", List.of("ROI", "HIPAA"), TODAY)).isTrue();
+        assertThat(index.isActive("M1", List.of("ROI", "DAA"), TODAY)).isFalse();
+        assertThat(index.isActive("M1", List.of(), TODAY)).isTrue();
+        assertThat(index.isActive("M1", List.of(), LocalDate.of(2023, 1, 1))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Overlapping and adjacent rows of one type → merged")
+    void merged() {
+        DelegateIndex index = index(
+                new DelegatePermission("DAA", "2026-03-01", "2026-12-31"),
+                new DelegatePermission("DAA", "2025-01-01", "2025-12-31"),
+                new DelegatePermission("DAA", "2026-01-01", "2026-04-30"),
+                new DelegatePermission("DAA", "2030-01-01", "2030-01-31"));
+
+        assertThat(index.isActive("M1", "DAA", LocalDate.of(2025, 12, 31))).isTrue();
+        assertThat(index.isActive("M1", "DAA", LocalDate.of(2026, 1, 1))).isTrue();
+        assertThat(index.isActive("M1", "DAA", LocalDate.of(2026, 12, 31))).isTrue();
+        assertThat(index.isActive("M1", "DAA", LocalDate.of(2028, 6, 1))).isFalse();
+        assertThat(index.isActive("M1", "DAA", LocalDate.of(2030, 1, 15))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Unparseable or inverted dates → row grants nothing")
+    void invalidRows() {
+        DelegateIndex index = DelegateIndex.of(Map.of(
+                "M1", List.of(new DelegatePermission("ROI", "01/01/2026", null)),
+                "M2", List.of(new DelegatePermission("ROI", "2026-05-01", "2026-01-01"))));
+
+        assertThat(index.isActive("M1", "ROI", TODAY)).isFalse();
+        assertThat(index.isActive("M2", "ROI", TODAY)).isFalse();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("No managed members → empty index")
+    void empty() {
+        assertThat(DelegateIndex.of(null)).isSameAs(DelegateIndex.EMPTY);
+        assertThat(DelegateIndex.of(Map.of())).isSameAs(DelegateIndex.EMPTY);
+    }
+}
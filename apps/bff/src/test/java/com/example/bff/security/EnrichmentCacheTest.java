@@ -0,0 +1,124 @@
+package com.example.bff.security;
+
+import com.example.bff.model.UserServiceResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link EnrichmentCache} single-flight, TTL and failure behavior.
+ */
+class EnrichmentCacheTest {
+
+    private static final UserServiceResponse USER = new UserServiceResponse("ENT1", "PR");
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private EnrichmentCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new EnrichmentCache(
+                new EnrichmentCacheProperties(Duration.ofMinutes(5), Duration.ofMinutes(5), 100),
+                meterRegistry,
+                nanos::get);
+    }
+
+    @Test
+    @DisplayName("Concurrent lookups for one hsidUuid → one downstream call")
+    void concurrentLookups_singleFlight() {
+        Sinks.One<UserServiceResponse> response = Sinks.one();
+
+        Mono<UserServiceResponse> first = cache.userInfo("hsid-1", k -> countedLoad(response.asMono()));
+        Mono<UserServiceResponse> second = cache.userInfo("hsid-1", k -> countedLoad(response.asMono()));
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> response.tryEmitValue(USER))
+                .assertNext(both -> {
+                    assertThat(both.getT1()).isEqualTo(USER);
+                    assertThat(both.getT2()).isEqualTo(USER);
+                })
+                .verifyComplete();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Lookup within TTL → served from cache")
+    void lookupWithinTtl_hit() {
+        cache.userInfo("hsid-1", k -> countedLoad(Mono.just(USER))).block();
+        cache.userInfo("hsid-1", k -> countedLoad(Mono.just(USER))).block();
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets")
+                .tag("cache", EnrichmentCache.USER_INFO_CACHE).tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Lookup after TTL → loaded again")
+    void lookupAfterTtl_reloaded() {
+        cache.userInfo("hsid-1", k -> countedLoad(Mono.just(USER))).block();
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(6));
+
+        cache.userInfo("hsid-1", k -> countedLoad(Mono.just(USER))).block();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Failed lookup is not cached")
+    void failedLookup_notCached() {
+        StepVerifier.create(cache.userInfo("hsid-1", k -> countedLoad(Mono.error(new IllegalStateException()))))
+                .verifyError(IllegalStateException.class);
+
+        StepVerifier.create(cache.userInfo("hsid-1", k -> countedLoad(Mono.just(USER))))
+                .expectNext(USER)
+                .verifyComplete();
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Cancelling one caller does not cancel the shared load")
+    void cancelledCaller_loadContinues() {
+        Sinks.One<UserServiceResponse> response = Sinks.one();
+        cache.userInfo("hsid-1", k -> countedLoad(response.asMono())).subscribe().dispose();
+
+        StepVerifier.create(cache.userInfo("hsid-1", k -> countedLoad(response.asMono())))
+                .then(() -> response.tryEmitValue(USER))
+                .expectNext(USER)
+                .verifyComplete();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Put after a refresh → replaces the cached value without a load")
+    void put_replacesCachedValue() {
+        UserServiceResponse refreshed = new UserServiceResponse("ENT2", "SELF");
+        cache.userInfo("hsid-1", k -> countedLoad(Mono.just(USER))).block();
+
+        cache.putUserInfo("hsid-1", refreshed);
+
+        StepVerifier.create(cache.userInfo("hsid-1", k -> countedLoad(Mono.just(USER))))
+                .expectNext(refreshed)
+                .verifyComplete();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    private <T> Mono<T> countedLoad(Mono<T> result) {
+        loads.incrementAndGet();
+        return result;
+    }
+}
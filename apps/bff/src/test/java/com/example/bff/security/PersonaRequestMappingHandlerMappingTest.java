@@ -0,0 +1,440 @@
+package com.example.bff.security;
+
+import com.example.bff.model.DelegatePermission;
+import com.example.bff.model.SessionInfo;
+import com.example.bff.support.SessionFixtures;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.method.HandlerMethod;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.lang.reflect.Method;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link PersonaRequestMappingHandlerMapping} rule compilation and enforcement.
+ */
+class PersonaRequestMappingHandlerMappingTest {
+
+    private AnnotationConfigApplicationContext context;
+    private PersonaRequestMappingHandlerMapping mapping;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        context = new AnnotationConfigApplicationContext(
+                SelfController.class, OpenController.class, MemberController.class,
+                SelfReportController.class, OpenReportController.class);
+        mapping = new PersonaRequestMappingHandlerMapping(
+                new PersonaAuthorizationManager(), new DelegateAuthorizationManager(
+                        Clock.fixed(Instant.parse("2026-06-01T12:00:00Z"), ZoneOffset.UTC)),
+                meterRegistry);
+        mapping.setApplicationContext(context);
+        mapping.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    private static Authentication self() {
+        return SessionFixtures.securityContext(SessionFixtures.selfSessionInfo()).getAuthentication();
+    }
+
+    private static Authentication representative() {
+        return SessionFixtures.securityContext(SessionFixtures.representativeSessionInfo(2)).getAuthentication();
+    }
+
+    /** Representative with an active ROI for M1 and an expired HIPAA for M2. */
+    private static Authentication delegate() {
+        SessionInfo base = SessionFixtures.representativeSessionInfo(0);
+        return SessionFixtures.securityContext(new SessionInfo(
+                base.enterpriseId(), base.hsidUuid(), base.sessionStartTime(), base.sessionEndTime(), base.persona(),
+                Map.of("M1", List.of(new DelegatePermission("ROI", "2026-01-01", null)),
+                        "M2", List.of(new DelegatePermission("HIPAA", "2020-01-01", "2025-12-31")))))
+                .getAuthentication();
+    }
+
+    private static MockServerWebExchange exchange(String path, Authentication authentication) {
+        MockServerWebExchange.Builder builder = MockServerWebExchange.builder(MockServerHttpRequest.get(path));
+        return authentication != null ? builder.principal(authentication).build() : builder.build();
+    }
+
+    private Mono<Object> lookup(MockServerWebExchange exchange) {
+        return mapping.getHandler(exchange);
+    }
+
+    @Nested
+    @DisplayName("Rule compilation")
+    class Compilation {
+
+        @Test
+        @DisplayName("Class-level rule → applies to unannotated methods")
+        void classRule() throws NoSuchMethodException {
+            assertThat(mapping.getRule(SelfController.class, SelfController.class.getMethod("inherited")))
+                    .isEqualTo(PersonaSet.of(Persona.SELF));
+        }
+
+        @Test
+        @DisplayName("Method rule → overrides the class-level rule")
+        void methodOverridesClass() throws NoSuchMethodException {
+            assertThat(mapping.getRule(SelfController.class, SelfController.class.getMethod("either")))
+                    .isEqualTo(PersonaSet.of(Persona.SELF, Persona.REPRESENTATIVE));
+        }
+
+        @Test
+        @DisplayName("No annotation → no rule")
+        void unannotated() throws NoSuchMethodException {
+            assertThat(mapping.getRule(OpenController.class, OpenController.class.getMethod("open"))).isNull();
+        }
+
+        @Test
+        @DisplayName("Method inherited by two controllers → each keeps its own class-level rule")
+        void inheritedMethod_rulePerController() throws NoSuchMethodException {
+            Method report = ReportController.class.getMethod("report");
+
+            assertThat(mapping.getRule(SelfReportController.class, report)).isEqualTo(PersonaSet.of(Persona.SELF));
+            assertThat(mapping.getRule(OpenReportController.class, report)).isNull();
+        }
+
+        @Test
+        @DisplayName("Empty persona list → rejected at startup")
+        void emptyRule() throws NoSuchMethodException {
+            Method method = EmptyRuleController.class.getMethod("none");
+            assertThatThrownBy(() -> PersonaRequestMappingHandlerMapping.resolveRule(method, EmptyRuleController.class))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("allows no persona");
+        }
+    }
+
+    @Nested
+    @DisplayName("Enforcement")
+    class Enforcement {
+
+        @Test
+        @DisplayName("Matching persona → handler returned and decision stored on the exchange")
+        void granted() {
+            MockServerWebExchange exchange = exchange("/self/inherited", self());
+
+            StepVerifier.create(lookup(exchange))
+                    .assertNext(handler -> assertThat(((HandlerMethod) handler).getMethod().getName()).isEqualTo("inherited"))
+                    .verifyComplete();
+
+            PersonaAuthorizationDecision decision = exchange.getAttribute(PersonaRequestMappingHandlerMapping.DECISION_ATTRIBUTE);
+            assertThat(decision).isNotNull();
+            assertThat(decision.isGranted()).isTrue();
+            assertThat(decision.getPersona()).isEqualTo("self");
+        }
+
+        @Test
+        @DisplayName("Other persona → PersonaAccessDeniedException before the handler runs")
+        void denied() {
+            StepVerifier.create(lookup(exchange("/self/inherited", representative())))
+                    .expectErrorSatisfies(e -> {
+                        assertThat(e).isInstanceOf(PersonaAccessDeniedException.class);
+                        PersonaAccessDeniedException denied = (PersonaAccessDeniedException) e;
+                        assertThat(denied.getRequiredPersonas()).isEqualTo(PersonaSet.of(Persona.SELF));
+                        assertThat(denied.getActualPersona()).isEqualTo("representative");
+                    })
+                    .verify();
+        }
+
+        @Test
+        @DisplayName("Method rule allowing both → representative granted")
+        void methodRuleGranted() {
+            StepVerifier.create(lookup(exchange("/self/either", representative())))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("No principal → denied")
+        void anonymous() {
+            StepVerifier.create(lookup(exchange("/self/inherited", null)))
+                    .expectError(PersonaAccessDeniedException.class)
+                    .verify();
+        }
+
+        @Test
+        @DisplayName("Inherited method → enforced per controller")
+        void inheritedMethod_enforcedPerController() {
+            StepVerifier.create(lookup(exchange("/reports/self/report", representative())))
+                    .expectError(PersonaAccessDeniedException.class)
+                    .verify();
+            StepVerifier.create(lookup(exchange("/reports/open/report", representative())))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Unrestricted handler → no check")
+        void unrestricted() {
+            MockServerWebExchange exchange = exchange("/open", null);
+
+            StepVerifier.create(lookup(exchange))
+                    .expectNextCount(1)
+                    .verifyComplete();
+            assertThat(exchange.<Object>getAttribute(PersonaRequestMappingHandlerMapping.DECISION_ATTRIBUTE)).isNull();
+        }
+
+        @Test
+        @DisplayName("CORS preflight → not checked")
+        void preflight() {
+            MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.options("/self/inherited")
+                    .header(HttpHeaders.ORIGIN, "https://app.example.com")
+                    .header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "GET"));
+
+            StepVerifier.create(lookup(exchange))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Same exchange mapped again → cached decision reused")
+        void decisionReused() {
+            MockServerWebExchange exchange = exchange("/self/inherited", self());
+            lookup(exchange).block();
+            Object first = exchange.getAttribute(PersonaRequestMappingHandlerMapping.DECISION_ATTRIBUTE);
+
+            lookup(exchange).block();
+
+            assertThat(exchange.<Object>getAttribute(PersonaRequestMappingHandlerMapping.DECISION_ATTRIBUTE)).isSameAs(first);
+        }
+    }
+
+    @Nested
+    @DisplayName("Delegate rules")
+    class Delegates {
+
+        @Test
+        @DisplayName("@RequiredDelegate → compiled with member ID parameter and types")
+        void compiled() throws NoSuchMethodException {
+            assertThat(mapping.getDelegateRule(MemberController.class, MemberController.class.getMethod("roi", String.class)))
+                    .isEqualTo(new DelegateRule("memberId", List.of("ROI")));
+            assertThat(mapping.getDelegateRule(MemberController.class, MemberController.class.getMethod("byQuery", String.class)))
+                    .isEqualTo(new DelegateRule("member", List.of()));
+        }
+
+        @Test
+        @DisplayName("No matching path variable or request parameter → rejected at startup")
+        void missingParameter() throws NoSuchMethodException {
+            Method method = EmptyRuleController.class.getMethod("noMemberId");
+            assertThatThrownBy(() -> PersonaRequestMappingHandlerMapping.resolveDelegateRule(method, EmptyRuleController.class))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("'memberId'");
+        }
+
+        @Test
+        @DisplayName("Active permission for the path member → granted")
+        void granted() {
+            StepVerifier.create(lookup(exchange("/members/M1/roi", delegate())))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Expired permission or unknown member → DelegateAccessDeniedException")
+        void denied() {
+            StepVerifier.create(lookup(exchange("/members/M2/any", delegate())))
+                    .expectErrorSatisfies(e -> assertThat(e)
+                            .isInstanceOf(DelegateAccessDeniedException.class)
+                            .hasFieldOrPropertyWithValue("memberId", "M2"))
+                    .verify();
+            StepVerifier.create(lookup(exchange("/members/M9/roi", delegate())))
+                    .expectError(DelegateAccessDeniedException.class)
+                    .verify();
+        }
+
+        @Test
+        @DisplayName("Wrong delegate type → denied")
+        void wrongType() {
+            StepVerifier.create(lookup(exchange("/members/M1/hipaa", delegate())))
+                    .expectError(DelegateAccessDeniedException.class)
+                    .verify();
+        }
+
+        @Test
+        @DisplayName("Member ID from query parameter → checked")
+        void queryParameter() {
+            StepVerifier.create(lookup(exchange("/members?member=M1", delegate())))
+                    .expectNextCount(1)
+                    .verifyComplete();
+            StepVerifier.create(lookup(exchange("/members", delegate())))
+                    .expectErrorSatisfies(e -> assertThat(((DelegateAccessDeniedException) e).getMemberId()).isNull())
+                    .verify();
+        }
+
+        @Test
+        @DisplayName("Self persona → no delegates, denied")
+        void selfDenied() {
+            StepVerifier.create(lookup(exchange("/members/M1/any", self())))
+                    .expectError(DelegateAccessDeniedException.class)
+                    .verify();
+        }
+    }
+
+    @Nested
+    @DisplayName("Metrics")
+    class Metrics {
+
+        private double count(String check, String endpoint, String persona, String outcome) {
+            Counter counter = meterRegistry.find(PersonaRequestMappingHandlerMapping.METRIC)
+                    .tags("check", check, "endpoint", endpoint, "persona", persona, "outcome", outcome)
+                    .counter();
+            return counter != null ? counter.count() : 0;
+        }
+
+        @Test
+        @DisplayName("Persona checks → counted by route pattern, persona and outcome")
+        void personaChecks() {
+            lookup(exchange("/self/inherited", self())).block();
+            lookup(exchange("/self/inherited", representative())).onErrorComplete().block();
+            lookup(exchange("/self/inherited", null)).onErrorComplete().block();
+
+            assertThat(count("persona", "/self/inherited", "self", "granted")).isEqualTo(1);
+            assertThat(count("persona", "/self/inherited", "representative", "denied")).isEqualTo(1);
+            assertThat(count("persona", "/self/inherited", "none", "denied")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Delegate checks → tagged with the route pattern, not the member ID")
+        void delegateChecks() {
+            lookup(exchange("/members/M1/roi", delegate())).block();
+            lookup(exchange("/members/M9/roi", delegate())).onErrorComplete().block();
+
+            assertThat(count("delegate", "/members/{memberId}/roi", "representative", "granted")).isEqualTo(1);
+            assertThat(count("delegate", "/members/{memberId}/roi", "representative", "denied")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Cached decision or unrestricted handler → not counted again")
+        void notRecounted() {
+            MockServerWebExchange exchange = exchange("/self/inherited", self());
+            lookup(exchange).block();
+            lookup(exchange).block();
+            lookup(exchange("/open", null)).block();
+
+            assertThat(meterRegistry.find(PersonaRequestMappingHandlerMapping.METRIC).counters())
+                    .singleElement()
+                    .satisfies(counter -> assertThat(counter.count()).isEqualTo(1));
+        }
+
+        @Test
+        @DisplayName("Unknown persona value → collapsed to 'other'")
+        void personaTag() {
+            assertThat(PersonaRequestMappingHandlerMapping.personaTag("self")).isEqualTo("self");
+            assertThat(PersonaRequestMappingHandlerMapping.personaTag(null)).isEqualTo("none");
+            assertThat(PersonaRequestMappingHandlerMapping.personaTag("admin-123")).isEqualTo("other");
+        }
+    }
+
+    @RestController
+    @RequiredPersona(Persona.SELF)
+    static class SelfController {
+
+        @GetMapping("/self/inherited")
+        public Mono<String> inherited() {
+            return Mono.just("inherited");
+        }
+
+        @GetMapping("/self/either")
+        @RequiredPersona({Persona.SELF, Persona.REPRESENTATIVE})
+        public Mono<String> either() {
+            return Mono.just("either");
+        }
+    }
+
+    @RestController
+    static class OpenController {
+
+        @GetMapping("/open")
+        public Mono<String> open() {
+            return Mono.just("open");
+        }
+    }
+
+    @RestController
+    @RequiredDelegate
+    static class MemberController {
+
+        @GetMapping("/members/{memberId}/any")
+        public Mono<String> any(@PathVariable String memberId) {
+            return Mono.just(memberId);
+        }
+
+        @GetMapping("/members/{memberId}/roi")
+        @RequiredDelegate("ROI")
+        public Mono<String> roi(@PathVariable("memberId") String id) {
+            return Mono.just(id);
+        }
+
+        @GetMapping("/members/{memberId}/hipaa")
+        @RequiredDelegate("HIPAA")
+        public Mono<String> hipaa(@PathVariable String memberId) {
+            return Mono.just(memberId);
+        }
+
+        @GetMapping("/members")
+        @RequiredDelegate(memberId = "member")
+        public Mono<String> byQuery(@RequestParam(name = "member", required = false) String member) {
+            return Mono.just(String.valueOf(member));
+        }
+    }
+
+    abstract static class ReportController {
+
+        @GetMapping("/report")
+        public Mono<String> report() {
+            return Mono.just("report");
+        }
+    }
+
+    @RestController
+    @RequestMapping("/reports/self")
+    @RequiredPersona(Persona.SELF)
+    static class SelfReportController extends ReportController {
+    }
+
+    @RestController
+    @RequestMapping("/reports/open")
+    static class OpenReportController extends ReportController {
+    }
+
+    static class EmptyRuleController {
+
+        @RequiredPersona({})
+        public Mono<String> none() {
+            return Mono.just("none");
+        }
+
+        @RequiredDelegate
+        public Mono<String> noMemberId() {
+            return Mono.just("none");
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.bff.security;
+
+import com.example.bff.controller.SessionPayloads;
+import com.example.bff.model.SessionInfo;
+import com.example.bff.session.SessionEvents;
+import com.example.bff.session.SessionEventsProperties;
+import com.example.bff.session.SessionProperties;
+import com.example.bff.session.SlidingSessionProperties;
+import com.example.bff.support.SessionFixtures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.WebSession;
+import org.springframework.web.server.session.InMemoryWebSessionStore;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link SessionRefresher} sliding expiry (when a refresh is due, what it writes and
+ * how concurrent and failed refreshes are handled) and completion of deferred logins.
+ */
+class SessionRefresherTest {
+
+    private static final Instant LOGIN = SessionFixtures.LOGIN_TIME;
+    private static final String CONTEXT_ATTRIBUTE =
+            WebSessionServerSecurityContextRepository.DEFAULT_SPRING_SECURITY_CONTEXT_ATTR_NAME;
+
+    private final CustomOidcUserService oidcUserService = mock(CustomOidcUserService.class);
+    private final InMemoryWebSessionStore sessionStore = new InMemoryWebSessionStore();
+    private final SessionPayloads sessionPayloads = new SessionPayloads(JsonMapper.builder().build(), new SessionEvents(
+            new SessionEventsProperties(Duration.ofMinutes(5), Duration.ofSeconds(25), Duration.ofSeconds(1), 16),
+            new SimpleMeterRegistry(), sessionId -> Mono.empty()));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong nanos = new AtomicLong();
+    private OAuth2AuthenticationToken authentication;
+    private WebSession session;
+
+    @BeforeEach
+    void setUp() {
+        authentication = (OAuth2AuthenticationToken) SessionFixtures.securityContext(SessionFixtures.selfSessionInfo())
+                .getAuthentication();
+        session = sessionStore.createWebSession().block();
+        session.getAttributes().put(CONTEXT_ATTRIBUTE, SessionFixtures.securityContext(SessionFixtures.selfSessionInfo()));
+        sessionPayloads.store(session, (EnrichedOidcUser) authentication.getPrincipal());
+        session.start();
+        session.save().block();
+        when(oidcUserService.reenrich(any(), any())).thenAnswer(invocation -> {
+            EnrichedOidcUser user = invocation.getArgument(0);
+            Instant sessionEnd = invocation.getArgument(1);
+            SessionInfo current = user.getSessionInfo();
+            return Mono.just(SessionFixtures.oidcUser(new SessionInfo(current.enterpriseId(), current.hsidUuid(),
+                    current.sessionStartTime(), sessionEnd, current.persona(), Map.of())));
+        });
+    }
+
+    private SessionRefresher refresher(Instant now) {
+        return refresher(now, true);
+    }
+
+    private SessionRefresher refresher(Instant now, boolean enabled) {
+        return new SessionRefresher(oidcUserService, sessionStore, sessionPayloads,
+                new SlidingSessionProperties(enabled, Duration.ofMinutes(10), Duration.ofHours(12), Duration.ofMinutes(1)),
+                new SessionProperties(30, "web_sessions", Duration.ofSeconds(10), Duration.ofMinutes(1),
+                        SessionProperties.SerializerType.COMPACT, DataSize.ofKilobytes(2), SessionProperties.StoreType.MONGO),
+                meterRegistry, Clock.fixed(now, ZoneOffset.UTC), nanos::get);
+    }
+
+    /** Replaces the signed-in principal, as a login with {@code sessionInfo} would have stored it. */
+    private void signIn(SessionInfo sessionInfo) {
+        authentication = (OAuth2AuthenticationToken) SessionFixtures.securityContext(sessionInfo).getAuthentication();
+        session.getAttributes().put(CONTEXT_ATTRIBUTE, new SecurityContextImpl(authentication));
+        sessionPayloads.store(session, (EnrichedOidcUser) authentication.getPrincipal());
+        session.save().block();
+    }
+
+    private SessionInfo storedSessionInfo() {
+        WebSession stored = sessionStore.retrieveSession(session.getId()).block();
+        SecurityContext context = stored.getAttribute(CONTEXT_ATTRIBUTE);
+        return ((EnrichedOidcUser) context.getAuthentication().getPrincipal()).getSessionInfo();
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.counter(SessionRefresher.METRIC, "outcome", outcome).count();
+    }
+
+    private double deferredLoginOutcome(String outcome) {
+        return meterRegistry.counter(SessionRefresher.DEFERRED_LOGIN_METRIC, "outcome", outcome).count();
+    }
+
+    @Nested
+    @DisplayName("When due")
+    class WhenDue {
+
+        @Test
+        @DisplayName("More than refresh-before left → no refresh")
+        void notDue() {
+            refresher(LOGIN.plus(Duration.ofMinutes(19))).refreshIfDue(session.getId(), authentication);
+
+            verify(oidcUserService, never()).reenrich(any(), any());
+        }
+
+        @Test
+        @DisplayName("Sliding expiry disabled → no refresh")
+        void disabled() {
+            refresher(LOGIN.plus(Duration.ofMinutes(25)), false).refreshIfDue(session.getId(), authentication);
+
+            verify(oidcUserService, never()).reenrich(any(), any());
+        }
+
+        @Test
+        @DisplayName("New end → duration-minutes from now, capped at maximum-lifetime after login")
+        void nextSessionEnd() {
+            SessionRefresher refresher = refresher(LOGIN);
+            SessionInfo early = SessionFixtures.selfSessionInfo();
+            SessionInfo late = new SessionInfo("ENT-1", "hsid-1", LOGIN, LOGIN.plus(Duration.ofMinutes(710)), "self", Map.of());
+            SessionInfo capped = new SessionInfo("ENT-1", "hsid-1", LOGIN, LOGIN.plus(Duration.ofHours(12)), "self", Map.of());
+
+            assertThat(refresher.nextSessionEnd(early, LOGIN.plus(Duration.ofMinutes(25))))
+                    .isEqualTo(LOGIN.plus(Duration.ofMinutes(55)));
+            assertThat(refresher.nextSessionEnd(late, LOGIN.plus(Duration.ofMinutes(705))))
+                    .isEqualTo(LOGIN.plus(Duration.ofHours(12)));
+            assertThat(refresher.nextSessionEnd(capped, LOGIN.plus(Duration.ofMinutes(715)))).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Refresh")
+    class Refresh {
+
+        @Test
+        @DisplayName("Due → re-enriched principal and new ETag saved in the session, start time kept")
+        void extended() {
+            String etag = sessionPayloads.etag(session);
+            Instant now = LOGIN.plus(Duration.ofMinutes(25));
+
+            refresher(now).refreshIfDue(session.getId(), authentication);
+
+            verify(oidcUserService).reenrich(any(), eq(now.plus(Duration.ofMinutes(30))));
+            assertThat(storedSessionInfo().sessionStartTime()).isEqualTo(LOGIN);
+            assertThat(storedSessionInfo().sessionEndTime()).isEqualTo(now.plus(Duration.ofMinutes(30)));
+            assertThat(sessionStore.retrieveSession(session.getId()).block()
+                    .<String>getAttribute(SessionPayloads.ETAG_ATTRIBUTE)).isNotEqualTo(etag);
+            assertThat(outcome("extended")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Concurrent requests of one session → one re-enrichment")
+        void singleFlight() {
+            Sinks.One<EnrichedOidcUser> pending = Sinks.one();
+            doReturn(pending.asMono()).when(oidcUserService).reenrich(any(), any());
+            SessionRefresher refresher = refresher(LOGIN.plus(Duration.ofMinutes(25)));
+
+            refresher.refreshIfDue(session.getId(), authentication);
+            refresher.refreshIfDue(session.getId(), authentication);
+
+            verify(oidcUserService, times(1)).reenrich(any(), any());
+        }
+
+        @Test
+        @DisplayName("Re-enrichment fails → session unchanged, retried only after retry-interval")
+        void failed_retriedLater() {
+            doReturn(Mono.error(new IllegalStateException("down"))).when(oidcUserService).reenrich(any(), any());
+            SessionRefresher refresher = refresher(LOGIN.plus(Duration.ofMinutes(25)));
+
+            refresher.refreshIfDue(session.getId(), authentication);
+            refresher.refreshIfDue(session.getId(), authentication);
+
+            assertThat(storedSessionInfo().sessionEndTime()).isEqualTo(LOGIN.plus(Duration.ofMinutes(30)));
+            assertThat(outcome("failed")).isEqualTo(1);
+            verify(oidcUserService, times(1)).reenrich(any(), any());
+
+            nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+            refresher.refreshIfDue(session.getId(), authentication);
+
+            verify(oidcUserService, times(2)).reenrich(any(), any());
+        }
+
+        @Test
+        @DisplayName("Logged out while refreshing → nothing written back")
+        void loggedOut_gone() {
+            sessionStore.removeSession(session.getId()).block();
+
+            refresher(LOGIN.plus(Duration.ofMinutes(25))).refreshIfDue(session.getId(), authentication);
+
+            assertThat(sessionStore.retrieveSession(session.getId()).block()).isNull();
+            assertThat(outcome("gone")).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Deferred login")
+    class DeferredLogin {
+
+        @Test
+        @DisplayName("Enrichment arrives → provisional principal replaced, new ETag saved")
+        void enriched_replacesProvisional() {
+            signIn(SessionFixtures.pendingSessionInfo());
+            String etag = sessionPayloads.etag(session);
+            Sinks.One<EnrichedOidcUser> enrichment = Sinks.one();
+            when(oidcUserService.pendingEnrichment(any())).thenReturn(enrichment.asMono());
+
+            refresher(LOGIN).completeLogin(session.getId(), authentication);
+            assertThat(storedSessionInfo().enrichment()).isEqualTo(SessionInfo.ENRICHMENT_PENDING);
+            enrichment.tryEmitValue(SessionFixtures.oidcUser(SessionFixtures.representativeSessionInfo(3)));
+
+            assertThat(storedSessionInfo()).isEqualTo(SessionFixtures.representativeSessionInfo(3));
+            assertThat(sessionStore.retrieveSession(session.getId()).block()
+                    .<String>getAttribute(SessionPayloads.ETAG_ATTRIBUTE)).isNotEqualTo(etag);
+            assertThat(deferredLoginOutcome(SessionInfo.ENRICHMENT_COMPLETE)).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Login completed within the deadline → nothing to do")
+        void notProvisional_ignored() {
+            refresher(LOGIN).completeLogin(session.getId(), authentication);
+
+            verify(oidcUserService).pendingEnrichment(any());
+            assertThat(storedSessionInfo()).isEqualTo(SessionFixtures.selfSessionInfo());
+        }
+
+        @Test
+        @DisplayName("Session no longer pending → not overwritten")
+        void alreadyReplaced_gone() {
+            signIn(SessionFixtures.pendingSessionInfo());
+            OAuth2AuthenticationToken provisional = authentication;
+            signIn(SessionFixtures.selfSessionInfo());
+            when(oidcUserService.pendingEnrichment(any()))
+                    .thenReturn(Mono.just(SessionFixtures.oidcUser(SessionFixtures.representativeSessionInfo(3))));
+
+            refresher(LOGIN).completeLogin(session.getId(), provisional);
+
+            assertThat(storedSessionInfo()).isEqualTo(SessionFixtures.selfSessionInfo());
+            assertThat(deferredLoginOutcome("gone")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Logged out before enrichment arrives → nothing written back")
+        void loggedOut_gone() {
+            signIn(SessionFixtures.pendingSessionInfo());
+            sessionStore.removeSession(session.getId()).block();
+            when(oidcUserService.pendingEnrichment(any()))
+                    .thenReturn(Mono.just(SessionFixtures.oidcUser(SessionFixtures.representativeSessionInfo(3))));
+
+            refresher(LOGIN).completeLogin(session.getId(), authentication);
+
+            assertThat(sessionStore.retrieveSession(session.getId()).block()).isNull();
+            assertThat(deferredLoginOutcome("gone")).isEqualTo(1);
+        }
+    }
+}
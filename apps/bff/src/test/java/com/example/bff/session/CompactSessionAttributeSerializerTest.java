@@ -0,0 +1,177 @@
+package com.example.bff.session;
+
+import com.example.bff.model.DelegatePermission;
+import com.example.bff.model.SessionInfo;
+import com.example.bff.security.DelegateIndex;
+import com.example.bff.security.EnrichedOidcUser;
+import com.example.bff.support.SessionFixtures;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link CompactSessionAttributeSerializer} round trips, size and
+ * compatibility with payloads written by {@link JdkSessionAttributeSerializer}.
+ */
+class CompactSessionAttributeSerializerTest {
+
+    private final CompactSessionAttributeSerializer compact = new CompactSessionAttributeSerializer(2048);
+    private final JdkSessionAttributeSerializer jdk = new JdkSessionAttributeSerializer();
+
+    @Nested
+    @DisplayName("Round Trip")
+    class RoundTripTests {
+
+        @ParameterizedTest(name = "representative with {0} members")
+        @ValueSource(ints = {0, 1, 50, 500})
+        @DisplayName("SecurityContext with representative session → identical after decode")
+        void securityContext_roundTrips(int memberCount) {
+            SecurityContext context = SessionFixtures.securityContext(
+                    SessionFixtures.representativeSessionInfo(memberCount));
+
+            SecurityContext decoded = (SecurityContext) compact.deserialize(compact.serialize(context));
+
+            OAuth2AuthenticationToken original = (OAuth2AuthenticationToken) context.getAuthentication();
+            OAuth2AuthenticationToken token = (OAuth2AuthenticationToken) decoded.getAuthentication();
+            assertThat(token.getAuthorizedClientRegistrationId()).isEqualTo("hsid");
+            assertThat(token.getAuthorities()).isEqualTo(original.getAuthorities());
+            assertThat(token.isAuthenticated()).isTrue();
+
+            EnrichedOidcUser user = (EnrichedOidcUser) token.getPrincipal();
+            EnrichedOidcUser originalUser = (EnrichedOidcUser) original.getPrincipal();
+            assertThat(user).isEqualTo(originalUser);
+            assertThat(user.getClaims()).isEqualTo(originalUser.getClaims());
+            assertThat(user.getSessionInfo()).isEqualTo(originalUser.getSessionInfo());
+        }
+
+        @Test
+        @DisplayName("Decoded principal → delegate index built from epoch days, same answers as from the dates")
+        void decodedPrincipal_delegateIndexFromEpochDays() {
+            SessionInfo sessionInfo = new SessionInfo("ENT1", "hsid", null, null, "representative", Map.of(
+                    "M1", List.of(
+                            new DelegatePermission("DAA", "2024-01-01", "2024-06-30"),
+                            new DelegatePermission("DAA", "2024-07-01", null),
+                            new DelegatePermission("ROI", null, "2023-12-31")),
+                    "M2", List.of(new DelegatePermission("DAA", "01/02/2024", null))));
+            EnrichedOidcUser user = SessionFixtures.oidcUser(sessionInfo);
+
+            EnrichedOidcUser decoded = (EnrichedOidcUser) compact.deserialize(compact.serialize(user));
+
+            DelegateIndex expected = DelegateIndex.of(sessionInfo.managedMembers());
+            DelegateIndex index = decoded.getDelegateIndex();
+            assertThat(index.size()).isEqualTo(expected.size()).isEqualTo(1);
+            for (String date : List.of("2000-01-01", "2023-12-31", "2024-01-01", "2024-07-01", "2099-01-01")) {
+                LocalDate day = LocalDate.parse(date);
+                for (String type : Arrays.asList("DAA", "ROI", null)) {
+                    assertThat(index.isActive("M1", type, day))
+                            .as("%s on %s", type, date)
+                            .isEqualTo(expected.isActive("M1", type, day));
+                }
+                assertThat(index.isActive("M2", (String) null, day)).isFalse();
+            }
+        }
+
+        @Test
+        @DisplayName("Non-ISO and null dates are kept verbatim")
+        void nonIsoDates_keptVerbatim() {
+            SessionInfo sessionInfo = new SessionInfo("ENT1", "hsid", null, null, "representative",
+                    Map.of("M1", List.of(
+                            new DelegatePermission("DAA", "01/02/2024", null),
+                            new DelegatePermission("DAA", "2024-02-30", "2024-2-1"))));
+
+            assertThat(compact.deserialize(compact.serialize(sessionInfo))).isEqualTo(sessionInfo);
+        }
+
+        @Test
+        @DisplayName("Pending SessionInfo → enrichment status kept")
+        void pendingSessionInfo_roundTrips() {
+            SessionInfo sessionInfo = new SessionInfo(null, "hsid", SessionFixtures.LOGIN_TIME, null, null, Map.of(),
+                    SessionInfo.ENRICHMENT_PENDING);
+
+            assertThat(compact.deserialize(compact.serialize(sessionInfo))).isEqualTo(sessionInfo);
+        }
+
+        @ParameterizedTest(name = "codec version {0}")
+        @ValueSource(ints = {0, 2})
+        @DisplayName("Codec payload of another version → rejected")
+        void otherVersionPayload_rejected(int version) {
+            BinaryWriter out = new BinaryWriter(64);
+            out.writeByte(0x04);
+            out.writeByte(version);
+            out.writeString("ENT1");
+            out.writeString("hsid");
+            out.writeBoolean(false);
+            out.writeBoolean(false);
+            out.writeString("self");
+            out.writeVarInt(1);
+            byte[] payload = out.toByteArray();
+
+            assertThatThrownBy(() -> compact.deserialize(payload))
+                    .isInstanceOf(SerializationFailedException.class)
+                    .hasMessage("Unsupported session codec version " + version);
+        }
+
+        @Test
+        @DisplayName("Other attribute types fall back to Java serialization")
+        void otherTypes_fallBackToJava() {
+            Map<String, String> value = new java.util.HashMap<>(Map.of("client", "hcp"));
+
+            assertThat(compact.deserialize(compact.serialize(value))).isEqualTo(value);
+        }
+
+        @Test
+        @DisplayName("Payload written by the JDK serializer is still readable")
+        void jdkPayload_readable() {
+            SecurityContext context = SessionFixtures.securityContext(SessionFixtures.selfSessionInfo());
+
+            SecurityContext decoded = (SecurityContext) compact.deserialize(jdk.serialize(context));
+
+            assertThat(decoded.getAuthentication().getName()).isEqualTo("hsid-uuid-12345");
+        }
+    }
+
+    @Nested
+    @DisplayName("Size")
+    class SizeTests {
+
+        @ParameterizedTest(name = "{0} managed members")
+        @ValueSource(ints = {0, 10, 100, 500})
+        @DisplayName("Compact form is under half the Java serialization size")
+        void compact_underHalfOfJava(int memberCount) {
+            SessionInfo sessionInfo = memberCount == 0
+                    ? SessionFixtures.selfSessionInfo()
+                    : SessionFixtures.representativeSessionInfo(memberCount);
+            SecurityContext context = SessionFixtures.securityContext(sessionInfo);
+
+            int compactSize = compact.serialize(context).length;
+            int jdkSize = jdk.serialize(context).length;
+
+            assertThat(compactSize).isLessThan(jdkSize / 2);
+        }
+
+        @Test
+        @DisplayName("Large payloads are deflated above the threshold")
+        void largePayload_deflated() {
+            SecurityContext context = SessionFixtures.securityContext(
+                    SessionFixtures.representativeSessionInfo(500));
+
+            int uncompressed = new CompactSessionAttributeSerializer(-1).serialize(context).length;
+            int compressed = compact.serialize(context).length;
+
+            assertThat(compressed).isLessThan(uncompressed);
+        }
+    }
+}
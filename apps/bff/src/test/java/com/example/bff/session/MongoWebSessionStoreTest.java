@@ -0,0 +1,530 @@
+package com.example.bff.session;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.ResponseCookie;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.WebSession;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link MongoWebSessionStore} driven through {@link DefaultWebSessionManager},
+ * counting the MongoDB write round trips each request causes.
+ */
+class MongoWebSessionStoreTest {
+
+    private static final String COLLECTION = "web_sessions";
+    private static final String SECURITY_CONTEXT = "SPRING_SECURITY_CONTEXT";
+
+    /** One page load: {@code /api/auth/session} plus the six MFE calls. */
+    private static final int PAGE_LOAD_REQUESTS = 7;
+
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+    private final AtomicInteger writes = new AtomicInteger();
+    private final List<Document> updates = new ArrayList<>();
+    private final AtomicInteger failingUpdates = new AtomicInteger();
+
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private SessionStatistics statistics;
+    private MongoWebSessionStore store;
+    private DefaultWebSessionManager sessionManager;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2026-01-01T10:00:00Z"));
+        SessionProperties properties = new SessionProperties(
+                30, COLLECTION, Duration.ofSeconds(10), Duration.ofMinutes(1),
+                SessionProperties.SerializerType.JDK, DataSize.ofKilobytes(2), SessionProperties.StoreType.MONGO);
+        meterRegistry = new SimpleMeterRegistry();
+        statistics = new SessionStatistics(clock, Schedulers.immediate());
+        store = new MongoWebSessionStore(
+                fakeMongoOperations(), new JdkSessionAttributeSerializer(), properties, meterRegistry, statistics, clock);
+        sessionManager = new DefaultWebSessionManager();
+        sessionManager.setSessionStore(store);
+    }
+
+    @Nested
+    @DisplayName("Session writes per request")
+    class WritesPerRequestTests {
+
+        @Test
+        @DisplayName("Login writes the session once")
+        void login_writesOnce() {
+            String sessionId = login();
+
+            assertThat(writes.get()).isEqualTo(1);
+            assertThat(documents).containsKey(sessionId);
+        }
+
+        @Test
+        @DisplayName("Page load right after login → 0 writes for 7 requests (write-through: 7)")
+        void pageLoadWithinGranularity_noWrites() {
+            String sessionId = login();
+            writes.set(0);
+
+            pageLoad(sessionId);
+            store.flushTouches().block();
+
+            assertThat(writes.get()).isZero();
+        }
+
+        @Test
+        @DisplayName("Page load after 2 minutes → 1 batched write for 7 requests (write-through: 7)")
+        void pageLoadAfterGranularity_oneBatchedWrite() {
+            String sessionId = login();
+            writes.set(0);
+            clock.advance(Duration.ofMinutes(2));
+
+            pageLoad(sessionId);
+            assertThat(writes.get()).isZero();
+            assertThat(store.pendingTouchCount()).isEqualTo(1);
+
+            store.flushTouches().block();
+
+            assertThat(writes.get()).isEqualTo(1);
+            assertThat(documents.get(sessionId).getDate(MongoWebSessionStore.FIELD_LAST_ACCESSED_AT))
+                    .isAfter(Date.from(Instant.parse("2026-01-01T10:01:00Z")));
+        }
+
+        @Test
+        @DisplayName("Touches for many sessions are merged into one bulk write")
+        void touchesForManySessions_oneBulkWrite() {
+            List<String> sessionIds = List.of(login(), login(), login());
+            writes.set(0);
+            clock.advance(Duration.ofMinutes(2));
+
+            sessionIds.forEach(MongoWebSessionStoreTest.this::pageLoad);
+            store.flushTouches().block();
+
+            assertThat(writes.get()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Dirty Tracking")
+    class DirtyTrackingTests {
+
+        @Test
+        @DisplayName("Changing one attribute writes only that attribute")
+        void changedAttribute_onlyThatFieldWritten() {
+            String sessionId = request(null, session -> {
+                session.getAttributes().put(SECURITY_CONTEXT, "principal");
+                session.getAttributes().put("other", "unchanged");
+            });
+            updates.clear();
+
+            request(sessionId, session -> session.getAttributes().put("other", "changed"));
+
+            assertThat(updates).hasSize(1);
+            Document set = updates.getFirst().get("$set", Document.class);
+            assertThat(set).containsKey("attrs.other");
+            assertThat(set).doesNotContainKey("attrs." + SECURITY_CONTEXT);
+        }
+
+        @Test
+        @DisplayName("Re-putting an equal value → no write")
+        void equalValuePut_noWrite() {
+            String sessionId = login();
+            writes.set(0);
+
+            request(sessionId, session -> session.getAttributes().put(SECURITY_CONTEXT, "principal"));
+
+            assertThat(writes.get()).isZero();
+        }
+
+        @Test
+        @DisplayName("Removed attribute is unset")
+        void removedAttribute_unset() {
+            String sessionId = login();
+
+            request(sessionId, session -> session.getAttributes().remove(SECURITY_CONTEXT));
+
+            Document stored = documents.get(sessionId).get(MongoWebSessionStore.FIELD_ATTRIBUTES, Document.class);
+            assertThat(stored).doesNotContainKey(SECURITY_CONTEXT);
+        }
+
+        @Test
+        @DisplayName("Failed update → retried save writes the changed attribute")
+        void failedUpdate_retryWritesChange() {
+            String sessionId = login();
+            WebSession session = store.retrieveSession(sessionId).block();
+            session.getAttributes().put("other", "value");
+            failingUpdates.set(1);
+
+            StepVerifier.create(session.save()).verifyError(IllegalStateException.class);
+            session.save().block();
+
+            Document stored = documents.get(sessionId).get(MongoWebSessionStore.FIELD_ATTRIBUTES, Document.class);
+            assertThat(stored).containsKey("other");
+        }
+
+        @Test
+        @DisplayName("Failed update → retried save unsets the removed attribute")
+        void failedUpdate_retryUnsetsRemoval() {
+            String sessionId = login();
+            WebSession session = store.retrieveSession(sessionId).block();
+            session.getAttributes().remove(SECURITY_CONTEXT);
+            failingUpdates.set(1);
+
+            StepVerifier.create(session.save()).verifyError(IllegalStateException.class);
+            session.save().block();
+
+            Document stored = documents.get(sessionId).get(MongoWebSessionStore.FIELD_ATTRIBUTES, Document.class);
+            assertThat(stored).doesNotContainKey(SECURITY_CONTEXT);
+        }
+
+        @Test
+        @DisplayName("Attribute names with dots round-trip")
+        void dottedAttributeName_roundTrips() {
+            String name = "org.example.AUTHORIZED_CLIENTS";
+            String sessionId = request(null, session -> session.getAttributes().put(name, "client"));
+
+            WebSession session = store.retrieveSession(sessionId).block();
+
+            assertThat(session).isNotNull();
+            assertThat(session.<String>getAttribute(name)).isEqualTo("client");
+        }
+    }
+
+    @Nested
+    @DisplayName("Expiry & Invalidation")
+    class ExpiryTests {
+
+        @Test
+        @DisplayName("Session idle longer than duration-minutes → not returned and removed")
+        void idleSession_expired() {
+            String sessionId = login();
+            clock.advance(Duration.ofMinutes(31));
+
+            WebSession session = store.retrieveSession(sessionId).block();
+
+            assertThat(session).isNull();
+            assertThat(documents).doesNotContainKey(sessionId);
+        }
+
+        @Test
+        @DisplayName("expireAt tracks last access plus idle time")
+        void expireAt_setFromIdleTime() {
+            String sessionId = login();
+
+            Document document = documents.get(sessionId);
+
+            assertThat(document.getDate(MongoWebSessionStore.FIELD_EXPIRE_AT))
+                    .isEqualTo(Date.from(Instant.parse("2026-01-01T10:30:00Z")));
+        }
+
+        @Test
+        @DisplayName("Negative idle time → never expires, expireAt beyond the TTL index's reach")
+        void negativeIdleTime_neverExpires() {
+            String sessionId = login();
+            request(sessionId, session -> session.setMaxIdleTime(Duration.ofSeconds(-1)));
+
+            assertThat(documents.get(sessionId).getDate(MongoWebSessionStore.FIELD_EXPIRE_AT))
+                    .isEqualTo(Date.from(MongoWebSessionStore.NEVER_EXPIRES));
+
+            clock.advance(Duration.ofHours(2));
+            request(sessionId, session -> {});
+            store.flushTouches().block();
+
+            assertThat(store.retrieveSession(sessionId).block()).isNotNull();
+            assertThat(documents.get(sessionId).getDate(MongoWebSessionStore.FIELD_EXPIRE_AT))
+                    .isEqualTo(Date.from(MongoWebSessionStore.NEVER_EXPIRES));
+        }
+
+        @Test
+        @DisplayName("idleExpiry → stored expiry without touching the session; empty once idled out")
+        void idleExpiry_readWithoutTouch() {
+            String sessionId = login();
+            clock.advance(Duration.ofMinutes(20));
+
+            assertThat(store.idleExpiry(sessionId).block()).isEqualTo(Instant.parse("2026-01-01T10:30:00Z"));
+            assertThat(store.pendingTouchCount()).isZero();
+
+            clock.advance(Duration.ofMinutes(11));
+            assertThat(store.idleExpiry(sessionId).block()).isNull();
+        }
+
+        @Test
+        @DisplayName("invalidate() removes the document")
+        void invalidate_removesDocument() {
+            String sessionId = login();
+
+            request(sessionId, session -> session.invalidate().block());
+
+            assertThat(documents).doesNotContainKey(sessionId);
+        }
+    }
+
+    @Nested
+    @DisplayName("Metrics")
+    class MetricsTests {
+
+        private double ended(String reason) {
+            return meterRegistry.get("bff.session.ended").tag("reason", reason).counter().count();
+        }
+
+        @Test
+        @DisplayName("Login then attribute change → one session created, two size samples")
+        void login_createdAndSized() {
+            String sessionId = login();
+            request(sessionId, session -> session.getAttributes().put("other", "value"));
+
+            assertThat(meterRegistry.get("bff.session.created").counter().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("bff.session.size").summary().count()).isEqualTo(2);
+            assertThat(meterRegistry.get("bff.session.size").summary().totalAmount()).isPositive();
+        }
+
+        @Test
+        @DisplayName("Touch-only requests → no size sample")
+        void touch_notSized() {
+            String sessionId = login();
+
+            pageLoad(sessionId);
+
+            assertThat(meterRegistry.get("bff.session.size").summary().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Idle session retrieved → counted as expired")
+        void expired_counted() {
+            String sessionId = login();
+            clock.advance(Duration.ofMinutes(31));
+
+            store.retrieveSession(sessionId).block();
+
+            assertThat(ended("expired")).isEqualTo(1);
+            assertThat(ended("invalidated")).isZero();
+        }
+
+        @Test
+        @DisplayName("Logout → counted as invalidated once")
+        void invalidated_counted() {
+            String sessionId = login();
+
+            request(sessionId, session -> {
+                session.invalidate().block();
+                session.invalidate().block();
+            });
+
+            assertThat(ended("invalidated")).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Statistics")
+    class StatisticsTests {
+
+        @Test
+        @DisplayName("Login, session id change and logout → one created, one invalidated, none live")
+        void lifecycle_reported() {
+            String sessionId = login();
+            assertThat(statistics.snapshot().live()).isEqualTo(1);
+
+            String changedId = request(sessionId, session -> session.changeSessionId().block());
+            assertThat(changedId).isNotEqualTo(sessionId);
+            assertThat(statistics.snapshot().live()).isEqualTo(1);
+
+            request(changedId, session -> session.invalidate().block());
+
+            SessionStatistics.Snapshot snapshot = statistics.snapshot();
+            assertThat(snapshot.live()).isZero();
+            assertThat(snapshot.rates().get("created").total()).isEqualTo(1);
+            assertThat(snapshot.rates().get("invalidated").total()).isEqualTo(1);
+            assertThat(snapshot.rates().get("expired").total()).isZero();
+        }
+
+        @Test
+        @DisplayName("Touch persisted after 2 minutes → expiry moved in the statistics")
+        void touch_movesExpiry() {
+            String sessionId = login();
+            clock.advance(Duration.ofMinutes(2));
+
+            pageLoad(sessionId);
+
+            assertThat(statistics.snapshot().expiresIn()).containsEntry("<=30m", 1L);
+            clock.advance(Duration.ofMinutes(29));
+            statistics.tick();
+            assertThat(statistics.snapshot().live()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Idle session retrieved → ended as expired once")
+        void expiredOnRetrieval_countedOnce() {
+            String sessionId = login();
+            clock.advance(Duration.ofMinutes(31));
+
+            store.retrieveSession(sessionId).block();
+            statistics.tick();
+
+            assertThat(statistics.snapshot().rates().get("expired").total()).isEqualTo(1);
+        }
+    }
+
+    private String login() {
+        return request(null, session -> session.getAttributes().put(SECURITY_CONTEXT, "principal"));
+    }
+
+    private void pageLoad(String sessionId) {
+        for (int i = 0; i < PAGE_LOAD_REQUESTS; i++) {
+            clock.advance(Duration.ofMillis(100));
+            request(sessionId, session -> {});
+        }
+    }
+
+    private String request(String sessionId, Consumer<WebSession> action) {
+        MockServerHttpRequest.BaseBuilder<?> builder = MockServerHttpRequest.get("/api/auth/session");
+        if (sessionId != null) {
+            builder.cookie(new HttpCookie("SESSION", sessionId));
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.builder(builder.build())
+                .sessionManager(sessionManager)
+                .build();
+        exchange.getSession()
+                .doOnNext(action)
+                .then(Mono.defer(() -> exchange.getResponse().setComplete()))
+                .block();
+        ResponseCookie cookie = exchange.getResponse().getCookies().getFirst("SESSION");
+        return cookie != null ? cookie.getValue() : sessionId;
+    }
+
+    private ReactiveMongoOperations fakeMongoOperations() {
+        ReactiveMongoOperations operations = mock(ReactiveMongoOperations.class);
+        when(operations.findById(anyString(), eq(Document.class), eq(COLLECTION)))
+                .thenAnswer(inv -> Mono.justOrEmpty(documents.get(inv.<String>getArgument(0))));
+        when(operations.save(any(Document.class), eq(COLLECTION))).thenAnswer(inv -> {
+            Document document = inv.getArgument(0);
+            writes.incrementAndGet();
+            documents.put(document.getString("_id"), document);
+            return Mono.just(document);
+        });
+        when(operations.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(COLLECTION))).thenAnswer(inv -> {
+            writes.incrementAndGet();
+            if (failingUpdates.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                return Mono.error(new IllegalStateException("write failed"));
+            }
+            Document update = inv.<Update>getArgument(1).getUpdateObject();
+            updates.add(update);
+            boolean matched = apply(inv.getArgument(0), update);
+            return Mono.just(UpdateResult.acknowledged(matched ? 1 : 0, 1L, null));
+        });
+        when(operations.remove(any(Query.class), eq(COLLECTION))).thenAnswer(inv -> {
+            Document removed = documents.remove(idOf(inv.getArgument(0)));
+            return Mono.just(DeleteResult.acknowledged(removed != null ? 1 : 0));
+        });
+        when(operations.bulkOps(BulkMode.UNORDERED, COLLECTION)).thenAnswer(inv -> fakeBulkOperations());
+        return operations;
+    }
+
+    private ReactiveBulkOperations fakeBulkOperations() {
+        ReactiveBulkOperations bulk = mock(ReactiveBulkOperations.class);
+        List<Runnable> queued = new ArrayList<>();
+        when(bulk.updateOne(any(Query.class), any(UpdateDefinition.class))).thenAnswer(inv -> {
+            Query query = inv.getArgument(0);
+            Document update = inv.<Update>getArgument(1).getUpdateObject();
+            queued.add(() -> apply(query, update));
+            return bulk;
+        });
+        when(bulk.execute()).thenAnswer(inv -> {
+            writes.incrementAndGet();
+            queued.forEach(Runnable::run);
+            return Mono.empty();
+        });
+        return bulk;
+    }
+
+    private boolean apply(Query query, Document update) {
+        Document document = documents.get(idOf(query));
+        if (document == null) {
+            return false;
+        }
+        Document set = update.get("$set", Document.class);
+        if (set != null) {
+            set.forEach((path, value) -> parentOf(document, path).put(leafOf(path), value));
+        }
+        Document unset = update.get("$unset", Document.class);
+        if (unset != null) {
+            unset.keySet().forEach(path -> parentOf(document, path).remove(leafOf(path)));
+        }
+        return true;
+    }
+
+    private static String idOf(Query query) {
+        return query.getQueryObject().getString("_id");
+    }
+
+    private static Document parentOf(Document document, String path) {
+        int dot = path.indexOf('.');
+        return dot < 0 ? document : document.get(path.substring(0, dot), Document.class);
+    }
+
+    private static String leafOf(String path) {
+        return path.substring(path.indexOf('.') + 1);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.bff.session;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link SessionEvents} streams and the shared {@link TimingWheel}.
+ */
+class SessionEventsTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+    private static final byte[] PAYLOAD = "{\"authenticated\":true}".getBytes(StandardCharsets.UTF_8);
+
+    private MutableClock clock;
+    private VirtualTimeScheduler scheduler;
+    private SimpleMeterRegistry meterRegistry;
+    private SessionEvents events;
+    /** What the session store reports as each session's idle expiry; absent = gone. */
+    private final Map<String, Instant> idleExpiries = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW);
+        scheduler = VirtualTimeScheduler.create();
+        meterRegistry = new SimpleMeterRegistry();
+        events = new SessionEvents(new SessionEventsProperties(Duration.ofMinutes(5), Duration.ofSeconds(25),
+                Duration.ofSeconds(1), 4), meterRegistry,
+                sessionId -> Mono.justOrEmpty(idleExpiries.get(sessionId)), clock, scheduler);
+    }
+
+    private Flux<ServerSentEvent<String>> connect(String sessionId, Instant sessionEndTime) {
+        return events.connect(sessionId, "\"e1\"", PAYLOAD, sessionEndTime, null);
+    }
+
+    /** Collects events as they arrive, without completing the stream. */
+    private List<ServerSentEvent<String>> collect(Flux<ServerSentEvent<String>> stream) {
+        List<ServerSentEvent<String>> received = new ArrayList<>();
+        stream.subscribe(received::add);
+        return received;
+    }
+
+    @Nested
+    @DisplayName("Streams")
+    class Streams {
+
+        @Test
+        @DisplayName("Connect → current payload as session-updated, with ETag as id")
+        void initialPayload() {
+            List<ServerSentEvent<String>> received = collect(connect("s1", null));
+
+            assertThat(received).singleElement().satisfies(event -> {
+                assertThat(event.event()).isEqualTo(SessionEvents.SESSION_UPDATED);
+                assertThat(event.id()).isEqualTo("\"e1\"");
+                assertThat(event.data()).isEqualTo("{\"authenticated\":true}");
+            });
+            assertThat(events.connectionCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Payload change → pushed to every stream of that session only")
+        void updated_perSession() {
+            List<ServerSentEvent<String>> tab1 = collect(connect("s1", null));
+            List<ServerSentEvent<String>> tab2 = collect(connect("s1", null));
+            List<ServerSentEvent<String>> other = collect(connect("s2", null));
+
+            events.publishUpdated("s1", "\"e2\"", "{}".getBytes(StandardCharsets.UTF_8), null);
+
+            assertThat(tab1).hasSize(2).last().satisfies(event -> assertThat(event.id()).isEqualTo("\"e2\""));
+            assertThat(tab2).hasSize(2);
+            assertThat(other).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Logout → logged-out event, then the stream completes and is released")
+        void loggedOut_completes() {
+            StepVerifier.create(connect("s1", NOW.plus(Duration.ofMinutes(30))))
+                    .expectNextMatches(event -> SessionEvents.SESSION_UPDATED.equals(event.event()))
+                    .then(() -> events.publishLoggedOut("s1"))
+                    .expectNextMatches(event -> SessionEvents.LOGGED_OUT.equals(event.event()))
+                    .verifyComplete();
+
+            assertThat(events.connectionCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Heartbeat comments from one shared interval")
+        void heartbeat() {
+            List<ServerSentEvent<String>> first = collect(connect("s1", null));
+            List<ServerSentEvent<String>> second = collect(connect("s2", null));
+
+            scheduler.advanceTimeBy(Duration.ofSeconds(50));
+
+            assertThat(first).hasSize(3);
+            assertThat(first.get(1).comment()).isEqualTo("heartbeat");
+            assertThat(second).hasSize(3);
+        }
+
+        @Test
+        @DisplayName("Client that stops reading → stream closed once more than buffer-size events are queued")
+        void slowClient_closed() {
+            StepVerifier.create(connect("s1", null), 0)
+                    .then(() -> IntStream.range(0, 10).forEach(i ->
+                            events.publishUpdated("s1", "\"e" + i + "\"", PAYLOAD, null)))
+                    .thenRequest(Long.MAX_VALUE)
+                    .recordWith(ArrayList::new)
+                    .thenConsumeWhile(event -> true)
+                    .consumeRecordedWith(received -> assertThat(received).hasSizeBetween(5, 10))
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Client disconnect → connection and expiry timer released")
+        void cancel_released() {
+            connect("s1", NOW.plus(Duration.ofMinutes(30))).subscribe().dispose();
+
+            assertThat(events.connectionCount()).isZero();
+            assertThat(events.pendingExpiryCount()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Expiry")
+    class Expiry {
+
+        @Test
+        @DisplayName("expiring-soon sent expiring-soon-lead before sessionEndTime")
+        void expiringSoon() {
+            Instant end = NOW.plus(Duration.ofMinutes(30));
+            List<ServerSentEvent<String>> received = collect(connect("s1", end));
+
+            clock.advance(Duration.ofMinutes(24));
+            events.tick();
+            assertThat(received).hasSize(1);
+
+            clock.advance(Duration.ofMinutes(1));
+            events.tick();
+            assertThat(received).hasSize(2).last().satisfies(event -> {
+                assertThat(event.event()).isEqualTo(SessionEvents.EXPIRING_SOON);
+                assertThat(event.data()).isEqualTo("{\"sessionEndTime\":\"" + end + "\",\"remainingSeconds\":300}");
+            });
+        }
+
+        @Test
+        @DisplayName("Already within the lead on connect → sent on the next tick")
+        void alreadyExpiring() {
+            List<ServerSentEvent<String>> received = collect(connect("s1", NOW.plus(Duration.ofMinutes(2))));
+
+            clock.advance(Duration.ofSeconds(1));
+            events.tick();
+
+            assertThat(received).hasSize(2);
+            assertThat(received.get(1).event()).isEqualTo(SessionEvents.EXPIRING_SOON);
+        }
+
+        @Test
+        @DisplayName("Session extended → expiring-soon moves to the new sessionEndTime")
+        void extended_rescheduled() {
+            List<ServerSentEvent<String>> received = collect(connect("s1", NOW.plus(Duration.ofMinutes(30))));
+
+            clock.advance(Duration.ofMinutes(20));
+            Instant extended = clock.instant().plus(Duration.ofMinutes(30));
+            events.publishUpdated("s1", "\"e2\"", PAYLOAD, extended);
+            clock.advance(Duration.ofMinutes(5));
+            events.tick();
+
+            assertThat(received).hasSize(2);
+            assertThat(events.pendingExpiryCount()).isEqualTo(1);
+
+            clock.advance(Duration.ofMinutes(20));
+            events.tick();
+            assertThat(received).hasSize(3).last().satisfies(event -> {
+                assertThat(event.event()).isEqualTo(SessionEvents.EXPIRING_SOON);
+                assertThat(event.data()).contains(extended.toString());
+            });
+        }
+    }
+
+    @Nested
+    @DisplayName("Session end")
+    class SessionEnd {
+
+        @Test
+        @DisplayName("sessionEndTime passes → logged-out after expiring-soon, then the stream completes")
+        void sessionEndTime_loggedOut() {
+            Instant end = NOW.plus(Duration.ofMinutes(30));
+
+            StepVerifier.create(connect("s1", end))
+                    .expectNextMatches(event -> SessionEvents.SESSION_UPDATED.equals(event.event()))
+                    .then(() -> advanceAndTick(Duration.ofMinutes(25)))
+                    .expectNextMatches(event -> SessionEvents.EXPIRING_SOON.equals(event.event()))
+                    .then(() -> advanceAndTick(Duration.ofMinutes(4)))
+                    .expectNoEvent(Duration.ZERO)
+                    .then(() -> advanceAndTick(Duration.ofMinutes(1)))
+                    .expectNextMatches(event -> SessionEvents.LOGGED_OUT.equals(event.event()))
+                    .verifyComplete();
+
+            assertThat(events.connectionCount()).isZero();
+            assertThat(events.pendingExpiryCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Session idled out in the store → logged-out at the idle expiry seen on connect")
+        void idledOut_loggedOut() {
+            StepVerifier.create(events.connect("s1", "\"e1\"", PAYLOAD, null, Duration.ofMinutes(30)))
+                    .expectNextMatches(event -> SessionEvents.SESSION_UPDATED.equals(event.event()))
+                    .then(() -> advanceAndTick(Duration.ofMinutes(30)))
+                    .expectNextMatches(event -> SessionEvents.LOGGED_OUT.equals(event.event()))
+                    .verifyComplete();
+
+            assertThat(events.pendingIdleCheckCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Session kept alive by other requests → idle check moves to the stored expiry")
+        void touchedElsewhere_checkMoved() {
+            List<ServerSentEvent<String>> received =
+                    collect(events.connect("s1", "\"e1\"", PAYLOAD, null, Duration.ofMinutes(30)));
+            idleExpiries.put("s1", NOW.plus(Duration.ofMinutes(50)));
+
+            advanceAndTick(Duration.ofMinutes(30));
+            assertThat(received).hasSize(1);
+            assertThat(events.pendingIdleCheckCount()).isEqualTo(1);
+
+            idleExpiries.remove("s1");
+            advanceAndTick(Duration.ofMinutes(20));
+            assertThat(received).hasSize(2).last()
+                    .satisfies(event -> assertThat(event.event()).isEqualTo(SessionEvents.LOGGED_OUT));
+            assertThat(events.connectionCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Negative idle time → no idle check")
+        void negativeIdleTime_noCheck() {
+            collect(events.connect("s1", "\"e1\"", PAYLOAD, null, Duration.ofSeconds(-1)));
+
+            assertThat(events.pendingIdleCheckCount()).isZero();
+        }
+
+        private void advanceAndTick(Duration duration) {
+            clock.advance(duration);
+            events.tick();
+        }
+    }
+
+    @Nested
+    @DisplayName("Timing wheel")
+    class Wheel {
+
+        private final TimingWheel<String> wheel = new TimingWheel<>(Duration.ofSeconds(1), 8, NOW);
+
+        @Test
+        @DisplayName("Timers fire on their tick, across several revolutions")
+        void firesOnTick() {
+            wheel.schedule(NOW.plusSeconds(3), "a");
+            wheel.schedule(NOW.plusSeconds(20), "b");
+
+            assertThat(wheel.advance(NOW.plusSeconds(2))).isEmpty();
+            assertThat(wheel.advance(NOW.plusSeconds(3))).containsExactly("a");
+            assertThat(wheel.advance(NOW.plusSeconds(19))).isEmpty();
+            assertThat(wheel.advance(NOW.plusSeconds(20))).containsExactly("b");
+            assertThat(wheel.size()).isZero();
+        }
+
+        @Test
+        @DisplayName("Long pause → everything due fires in one advance")
+        void longPause() {
+            wheel.schedule(NOW.plusSeconds(5), "a");
+            wheel.schedule(NOW.plusSeconds(50), "b");
+            wheel.schedule(NOW.plusSeconds(500), "c");
+
+            assertThat(wheel.advance(NOW.plusSeconds(100))).containsExactlyInAnyOrder("a", "b");
+            assertThat(wheel.size()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Cancelled timer → never fires and is removed at once")
+        void cancel() {
+            wheel.schedule(NOW.plusSeconds(3), "a").cancel();
+
+            assertThat(wheel.size()).isZero();
+            assertThat(wheel.advance(NOW.plusSeconds(10))).isEmpty();
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
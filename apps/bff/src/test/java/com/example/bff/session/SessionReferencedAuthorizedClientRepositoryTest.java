@@ -0,0 +1,124 @@
+package com.example.bff.session;
+
+import com.example.bff.support.SessionFixtures;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.InMemoryReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.registration.InMemoryReactiveClientRegistrationRepository;
+import org.springframework.web.server.WebSession;
+import org.springframework.web.server.session.InMemoryWebSessionStore;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link SessionReferencedAuthorizedClientRepository}: tokens in the store, a
+ * reference in the session.
+ */
+class SessionReferencedAuthorizedClientRepositoryTest {
+
+    private final InMemoryReactiveOAuth2AuthorizedClientService store = new InMemoryReactiveOAuth2AuthorizedClientService(
+            new InMemoryReactiveClientRegistrationRepository(SessionFixtures.hsidRegistration()));
+    private final SessionReferencedAuthorizedClientRepository repository =
+            new SessionReferencedAuthorizedClientRepository(store);
+    private final InMemoryWebSessionStore sessions = new InMemoryWebSessionStore();
+
+    private final Authentication user =
+            SessionFixtures.securityContext(SessionFixtures.selfSessionInfo()).getAuthentication();
+
+    private MockServerWebExchange exchange(WebSession session) {
+        return MockServerWebExchange.builder(MockServerHttpRequest.get("/")).session(session).build();
+    }
+
+    private WebSession loggedInSession() {
+        WebSession session = sessions.createWebSession().block();
+        repository.saveAuthorizedClient(SessionFixtures.hsidAuthorizedClient(user.getName()), user, exchange(session))
+                .block();
+        return session;
+    }
+
+    private static String reference(WebSession session) {
+        return session.getAttribute(SessionReferencedAuthorizedClientRepository.REFERENCE_ATTRIBUTE);
+    }
+
+    @Nested
+    @DisplayName("Save")
+    class Save {
+
+        @Test
+        @DisplayName("Saved → session holds only a reference, tokens stored under it")
+        void saved_sessionHoldsReference() {
+            WebSession session = loggedInSession();
+
+            assertThat(session.getAttributes()).containsOnlyKeys(
+                    SessionReferencedAuthorizedClientRepository.REFERENCE_ATTRIBUTE);
+            StepVerifier.create(store.<OAuth2AuthorizedClient>loadAuthorizedClient("hsid", reference(session)))
+                    .assertNext(client -> assertThat(client.getRefreshToken()).isNotNull())
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Saved again → same reference, tokens replaced")
+        void savedAgain_sameReference() {
+            WebSession session = loggedInSession();
+            String reference = reference(session);
+            OAuth2AuthorizedClient refreshed = SessionFixtures.hsidAuthorizedClient(user.getName());
+
+            repository.saveAuthorizedClient(refreshed, user, exchange(session)).block();
+
+            assertThat(reference(session)).isEqualTo(reference);
+            StepVerifier.create(store.<OAuth2AuthorizedClient>loadAuthorizedClient("hsid", reference))
+                    .assertNext(client -> assertThat(client.getAccessToken()).isSameAs(refreshed.getAccessToken()))
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Two sessions of one user → separate references")
+        void twoSessions_separateReferences() {
+            assertThat(reference(loggedInSession())).isNotEqualTo(reference(loggedInSession()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Load and remove")
+    class LoadAndRemove {
+
+        @Test
+        @DisplayName("Loaded → stored tokens under the requesting principal's name")
+        void loaded_principalName() {
+            WebSession session = loggedInSession();
+
+            StepVerifier.create(repository.<OAuth2AuthorizedClient>loadAuthorizedClient("hsid", user, exchange(session)))
+                    .assertNext(client -> {
+                        assertThat(client.getPrincipalName()).isEqualTo(user.getName());
+                        assertThat(client.getAccessToken().getTokenValue()).isNotBlank();
+                        assertThat(client.getRefreshToken()).isNotNull();
+                    })
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Session without a reference → nothing loaded")
+        void noReference_empty() {
+            WebSession session = sessions.createWebSession().block();
+
+            StepVerifier.create(repository.loadAuthorizedClient("hsid", user, exchange(session))).verifyComplete();
+        }
+
+        @Test
+        @DisplayName("Removed → gone from the store")
+        void removed_goneFromStore() {
+            WebSession session = loggedInSession();
+
+            repository.removeAuthorizedClient("hsid", user, exchange(session)).block();
+
+            StepVerifier.create(store.loadAuthorizedClient("hsid", reference(session))).verifyComplete();
+            StepVerifier.create(repository.loadAuthorizedClient("hsid", user, exchange(session))).verifyComplete();
+        }
+    }
+}
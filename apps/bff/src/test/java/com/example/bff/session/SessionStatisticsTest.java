@@ -0,0 +1,217 @@
+package com.example.bff.session;
+
+import com.example.bff.model.SessionInfo;
+import com.example.bff.support.SessionFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Tests for {@link SessionStatistics}: incremental counts as sessions are saved, touched and end.
+ */
+class SessionStatisticsTest {
+
+    private static final String SECURITY_CONTEXT = "SPRING_SECURITY_CONTEXT";
+    private static final Duration IDLE = Duration.ofMinutes(30);
+
+    private MutableClock clock;
+    private SessionStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2026-01-01T10:00:00Z"));
+        statistics = new SessionStatistics(clock, Schedulers.immediate());
+    }
+
+    private static Map<String, Object> loggedIn(SessionInfo sessionInfo) {
+        return Map.of(SECURITY_CONTEXT, SessionFixtures.securityContext(sessionInfo));
+    }
+
+    private void save(String sessionId, Map<String, Object> attributes, long bytes, boolean created) {
+        statistics.recordSaved(sessionId, attributes, bytes, clock.instant().plus(IDLE), created);
+    }
+
+    @Nested
+    @DisplayName("Live sessions")
+    class LiveSessions {
+
+        @Test
+        @DisplayName("Saved sessions → counted by persona, size and managed members")
+        void saved_counted() {
+            save("a", loggedIn(SessionFixtures.selfSessionInfo()), 300, true);
+            save("b", loggedIn(SessionFixtures.representativeSessionInfo(10)), 700, true);
+            save("c", loggedIn(SessionFixtures.pendingSessionInfo()), 200, true);
+            save("d", Map.of(), 100, true);
+
+            SessionStatistics.Snapshot snapshot = statistics.snapshot();
+
+            assertThat(snapshot.live()).isEqualTo(4);
+            assertThat(snapshot.storedBytes()).isEqualTo(1300);
+            assertThat(snapshot.byPersona()).containsOnly(entry("self", 1L), entry("representative", 1L),
+                    entry(SessionStatistics.PERSONA_PENDING, 1L), entry(SessionStatistics.PERSONA_ANONYMOUS, 1L));
+            assertThat(snapshot.sizeBytes()).containsEntry("<=512B", 3L).containsEntry("<=1KB", 1L);
+            assertThat(snapshot.managedMembers()).containsEntry("0", 3L).containsEntry("6-10", 1L);
+            assertThat(snapshot.expiresIn()).containsEntry("<=30m", 4L);
+        }
+
+        @Test
+        @DisplayName("Saved again after enrichment → moved between buckets, not counted twice")
+        void savedAgain_moved() {
+            save("a", loggedIn(SessionFixtures.pendingSessionInfo()), 200, true);
+
+            save("a", loggedIn(SessionFixtures.representativeSessionInfo(100)), 1500, false);
+
+            SessionStatistics.Snapshot snapshot = statistics.snapshot();
+            assertThat(snapshot.live()).isEqualTo(1);
+            assertThat(snapshot.byPersona()).containsOnly(entry("representative", 1L));
+            assertThat(snapshot.sizeBytes()).containsEntry("<=512B", 0L).containsEntry("<=2KB", 1L);
+            assertThat(snapshot.managedMembers()).containsEntry("51-100", 1L);
+            assertThat(snapshot.rates().get("created").total()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Unknown session retrieved → tracked, not counted as created")
+        void retrieved_tracked() {
+            statistics.recordRetrieved("a", loggedIn(SessionFixtures.selfSessionInfo()), 300, clock.instant().plus(IDLE));
+            statistics.recordRetrieved("a", Map.of(), 100, clock.instant().plus(IDLE));
+
+            SessionStatistics.Snapshot snapshot = statistics.snapshot();
+            assertThat(snapshot.byPersona()).containsOnly(entry("self", 1L));
+            assertThat(snapshot.rates().get("created").total()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Expiry")
+    class Expiry {
+
+        @Test
+        @DisplayName("Idle past expiry → ended by the tick and counted as expired")
+        void idle_expired() {
+            save("a", Map.of(), 100, true);
+
+            clock.advance(IDLE.plusSeconds(1));
+            statistics.tick();
+
+            SessionStatistics.Snapshot snapshot = statistics.snapshot();
+            assertThat(snapshot.live()).isZero();
+            assertThat(snapshot.byPersona()).isEmpty();
+            assertThat(snapshot.rates().get("expired").total()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Touched → expiry moved, still live past the first expiry")
+        void touched_expiryMoved() {
+            save("a", Map.of(), 100, true);
+            clock.advance(Duration.ofMinutes(20));
+            statistics.recordTouched("a", clock.instant().plus(IDLE));
+
+            clock.advance(Duration.ofMinutes(15));
+            statistics.tick();
+
+            SessionStatistics.Snapshot snapshot = statistics.snapshot();
+            assertThat(snapshot.live()).isEqualTo(1);
+            assertThat(snapshot.expiresIn()).containsEntry("<=15m", 1L).containsEntry("<=30m", 0L);
+
+            clock.advance(Duration.ofMinutes(16));
+            statistics.tick();
+            assertThat(statistics.snapshot().live()).isZero();
+        }
+
+        @Test
+        @DisplayName("Logout → counted as invalidated once; unknown sessions ignored")
+        void invalidated_countedOnce() {
+            save("a", Map.of(), 100, true);
+
+            statistics.recordEnded("a", true);
+            statistics.recordEnded("a", true);
+            statistics.recordEnded("unknown", false);
+            clock.advance(IDLE.plusSeconds(1));
+            statistics.tick();
+
+            SessionStatistics.Snapshot snapshot = statistics.snapshot();
+            assertThat(snapshot.live()).isZero();
+            assertThat(snapshot.rates().get("invalidated").total()).isEqualTo(1);
+            assertThat(snapshot.rates().get("expired").total()).isZero();
+        }
+
+        @Test
+        @DisplayName("Session id changed → old id forgotten without an end")
+        void forgotten_notEnded() {
+            save("a", Map.of(), 100, true);
+
+            statistics.forget("a");
+            save("b", Map.of(), 100, false);
+
+            SessionStatistics.Snapshot snapshot = statistics.snapshot();
+            assertThat(snapshot.live()).isEqualTo(1);
+            assertThat(snapshot.rates().get("created").total()).isEqualTo(1);
+            assertThat(snapshot.rates().get("expired").total()).isZero();
+            assertThat(snapshot.rates().get("invalidated").total()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Rates")
+    class Rates {
+
+        @Test
+        @DisplayName("Creations over 10 minutes → per-minute averages over 1, 5 and 15 minutes")
+        void created_perMinute() {
+            for (int minute = 0; minute < 10; minute++) {
+                for (int i = 0; i < minute; i++) {
+                    save(minute + "-" + i, Map.of(), 100, true);
+                }
+                clock.advance(Duration.ofMinutes(1));
+            }
+            clock.advance(Duration.ofSeconds(-1));
+
+            SessionStatistics.Rate created = statistics.snapshot().rates().get("created");
+
+            assertThat(created.lastMinute()).isEqualTo(9);
+            assertThat(created.last5Minutes()).isEqualTo((5 + 6 + 7 + 8 + 9) / 5.0);
+            assertThat(created.last15Minutes()).isEqualTo(45 / 15.0);
+            assertThat(created.total()).isEqualTo(45);
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
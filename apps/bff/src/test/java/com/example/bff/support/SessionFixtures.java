@@ -0,0 +1,191 @@
+package com.example.bff.support;
+
+import com.example.bff.model.DelegatePermission;
+import com.example.bff.model.SessionInfo;
+import com.example.bff.security.EnrichedOidcUser;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUserAuthority;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Realistic session principals for tests and benchmarks: an HSID ID token and userinfo
+ * as Spring Security decodes them, plus a self or representative {@link SessionInfo}.
+ */
+public final class SessionFixtures {
+
+    public static final Instant LOGIN_TIME = Instant.parse("2026-01-01T10:00:00Z");
+
+    private static final String[] DELEGATE_TYPES = {"DAA", "ROI", "HIPAA", "POA"};
+
+    private SessionFixtures() {
+    }
+
+    public static SessionInfo selfSessionInfo() {
+        return new SessionInfo(
+                "ENT-100200300",
+                "hsid-uuid-12345",
+                LOGIN_TIME,
+                LOGIN_TIME.plus(Duration.ofMinutes(30)),
+                "self",
+                Map.of());
+    }
+
+    /** Session of a login that ran past its enrichment deadline. */
+    public static SessionInfo pendingSessionInfo() {
+        return new SessionInfo(
+                null,
+                "hsid-uuid-12345",
+                LOGIN_TIME,
+                LOGIN_TIME.plus(Duration.ofMinutes(30)),
+                null,
+                Map.of(),
+                SessionInfo.ENRICHMENT_PENDING);
+    }
+
+    /**
+     * Representative session managing {@code memberCount} members with one to three
+     * permissions each, as returned by {@code /managed-members}.
+     */
+    public static SessionInfo representativeSessionInfo(int memberCount) {
+        Random random = new Random(memberCount);
+        Map<String, List<DelegatePermission>> managedMembers = new LinkedHashMap<>();
+        for (int i = 0; i < memberCount; i++) {
+            List<DelegatePermission> permissions = new ArrayList<>();
+            int permissionCount = 1 + random.nextInt(3);
+            for (int j = 0; j < permissionCount; j++) {
+                int startYear = 2020 + random.nextInt(5);
+                permissions.add(new DelegatePermission(
+                        DELEGATE_TYPES[random.nextInt(DELEGATE_TYPES.length)],
+                        "%d-%02d-%02d".formatted(startYear, 1 + random.nextInt(12), 1 + random.nextInt(28)),
+                        random.nextInt(4) == 0 ? null : "%d-12-31".formatted(startYear + 5)));
+            }
+            managedMembers.put("ENT-%09d".formatted(500000000 + i), permissions);
+        }
+        return new SessionInfo(
+                "ENT-100200300",
+                "hsid-uuid-12345",
+                LOGIN_TIME,
+                LOGIN_TIME.plus(Duration.ofMinutes(30)),
+                "representative",
+                managedMembers);
+    }
+
+    public static EnrichedOidcUser oidcUser(SessionInfo sessionInfo) {
+        return EnrichedOidcUser.from(oidcLogin(sessionInfo), sessionInfo);
+    }
+
+    /** The OIDC user Spring Security builds at login, before it is reduced to {@link EnrichedOidcUser}. */
+    public static OidcUser oidcLogin(SessionInfo sessionInfo) {
+        Map<String, Object> idClaims = new LinkedHashMap<>();
+        try {
+            idClaims.put("iss", URI.create("https://nonprod.identity.healthsafe-id.com").toURL());
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+        idClaims.put("sub", sessionInfo.hsidUuid());
+        idClaims.put("aud", List.of("bff-client-id"));
+        idClaims.put("iat", LOGIN_TIME);
+        idClaims.put("exp", LOGIN_TIME.plus(Duration.ofHours(1)));
+        idClaims.put("auth_time", LOGIN_TIME.minusSeconds(5));
+        idClaims.put("nonce", "n-0S6_WzA2Mj");
+        idClaims.put("azp", "bff-client-id");
+        idClaims.put("sid", "08a5019c-17e1-4977-8f42-65a12843ea02");
+        idClaims.put("email", "jane.doe@example.com");
+        idClaims.put("name", "Jane Doe");
+
+        OidcIdToken idToken = new OidcIdToken(
+                fakeJwt(idClaims), LOGIN_TIME, LOGIN_TIME.plus(Duration.ofHours(1)), idClaims);
+
+        Map<String, Object> userInfoClaims = new LinkedHashMap<>();
+        userInfoClaims.put("sub", sessionInfo.hsidUuid());
+        userInfoClaims.put("email", "jane.doe@example.com");
+        userInfoClaims.put("email_verified", true);
+        userInfoClaims.put("name", "Jane Doe");
+        userInfoClaims.put("given_name", "Jane");
+        userInfoClaims.put("family_name", "Doe");
+        userInfoClaims.put("preferred_username", "jane.doe");
+        userInfoClaims.put("updated_at", LOGIN_TIME.minus(Duration.ofDays(40)));
+        OidcUserInfo userInfo = new OidcUserInfo(userInfoClaims);
+
+        List<GrantedAuthority> authorities = List.of(
+                new OidcUserAuthority("OIDC_USER", idToken, userInfo, "sub"),
+                new SimpleGrantedAuthority("SCOPE_openid"),
+                new SimpleGrantedAuthority("SCOPE_profile"),
+                new SimpleGrantedAuthority("SCOPE_email"));
+        return new DefaultOidcUser(authorities, idToken, userInfo);
+    }
+
+    public static SecurityContext securityContext(SessionInfo sessionInfo) {
+        EnrichedOidcUser user = oidcUser(sessionInfo);
+        return new SecurityContextImpl(new OAuth2AuthenticationToken(user, user.getAuthorities(), "hsid"));
+    }
+
+    /** The HSID registration as configured in {@code application.yml}. */
+    public static ClientRegistration hsidRegistration() {
+        return ClientRegistration.withRegistrationId("hsid")
+                .clientId("bff-client-id")
+                .clientAuthenticationMethod(ClientAuthenticationMethod.NONE)
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+                .scope("openid", "profile", "email")
+                .authorizationUri("https://nonprod.identity.healthsafe-id.com/oidc/authorize")
+                .tokenUri("https://nonprod.identity.healthsafe-id.com/oidc/token")
+                .jwkSetUri("https://nonprod.identity.healthsafe-id.com/oidc/jwks")
+                .userInfoUri("https://nonprod.identity.healthsafe-id.com/oidc/userinfo")
+                .userNameAttributeName("sub")
+                .issuerUri("https://nonprod.identity.healthsafe-id.com")
+                .build();
+    }
+
+    /** The HSID access and refresh token a login leaves for {@code principalName}. */
+    public static OAuth2AuthorizedClient hsidAuthorizedClient(String principalName) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", "https://nonprod.identity.healthsafe-id.com");
+        claims.put("sub", principalName);
+        claims.put("aud", "bff-client-id");
+        claims.put("iat", LOGIN_TIME.getEpochSecond());
+        claims.put("exp", LOGIN_TIME.plus(Duration.ofHours(1)).getEpochSecond());
+        claims.put("scope", "openid profile email");
+        claims.put("jti", "9b1deb4d-3b7d-4bad-9bdd-2b0d7b3dcb6d");
+        OAuth2AccessToken accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, fakeJwt(claims),
+                LOGIN_TIME, LOGIN_TIME.plus(Duration.ofHours(1)), Set.of("openid", "profile", "email"));
+        OAuth2RefreshToken refreshToken = new OAuth2RefreshToken("rt-" + "8f14e45fceea167a5a36dedd4bea2543".repeat(2), LOGIN_TIME);
+        return new OAuth2AuthorizedClient(hsidRegistration(), principalName, accessToken, refreshToken);
+    }
+
+    /** A JWT-shaped token of realistic length; the signature is random bytes. */
+    private static String fakeJwt(Map<String, Object> claims) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"RS256\",\"kid\":\"hsid-2026-01\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(claims.toString().getBytes(StandardCharsets.UTF_8));
+        byte[] signature = new byte[256];
+        new Random(42).nextBytes(signature);
+        return header + "." + payload + "." + encoder.encodeToString(signature);
+    }
+}